@@ -0,0 +1,89 @@
+// =============================================================================
+/**
+ * A <code>BandedUniverse</code> is a bounded <code>Universe</code> whose
+ * phases can be applied to any band of consecutive rows independently of the
+ * others.  Calculating one band's next generation only reads the current
+ * generation, and adopting it only touches that band's own rows, so separate
+ * bands may be processed at the same time by separate threads.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface BandedUniverse extends Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a band of rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void evolveRows (int first, int last);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note that a band of rows will be entirely dead in the next generation,
+     * without calculating it.  The caller only does this when the band and
+     * its neighbors are known to hold no live cells.  The band's statistics
+     * are left as they are, since they may yet be shown; the band is not
+     * advanced, and only <code>startRows()</code> is applied to it instead.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void skipRows (int first, int last);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated next generation for a band of rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band after advancing.
+     **/
+    public long advanceRows (int first, int last);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation in a band of
+     * rows, which is all that adopting the next generation of a skipped band
+     * takes.  <code>advanceRows()</code> does this itself.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void startRows (int first, int last);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a band of rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    public long countRows (int first, int last);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface BandedUniverse
+// =============================================================================
@@ -0,0 +1,779 @@
+// =============================================================================
+/**
+ * The <code>BitGrid</code> class.  A storage engine that packs the universe
+ * into <code>long</code> words, one bit per cell, with 64 cells of a row in
+ * each word.  Each generation is computed a whole word at a time: the eight
+ * neighbors of all 64 cells are shifted into place and summed with
+ * bit-parallel adders, so no per-cell objects or bounds checks are needed.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class BitGrid implements BandedUniverse {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     **/
+    public BitGrid (int rows, int columns) {
+
+	this(rows, columns, Rule.CONWAY);
+
+    } // BitGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead,
+     * that evolves by the given rule.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must have only two states.
+     **/
+    public BitGrid (int rows, int columns, Rule rule) {
+
+	// Ensure that the sizes are valid.
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a grid of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+
+	if (!rule.isTwoState()) {
+	    Support.abort("ERROR: A bit grid cannot follow the multi-state " +
+			  "rule " + rule);
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_wordsPerRow = (columns + 63) >>> 6;
+	_birth = rule.birthMasks();
+	_survival = rule.survivalMasks();
+
+	// The unused high bits of the last word in each row must stay clear.
+	int tail = columns & 63;
+	_lastWordMask = (tail == 0) ? -1L : (1L << tail) - 1;
+
+	_current = new long[rows * _wordsPerRow];
+	_next = new long[rows * _wordsPerRow];
+	_ever = new long[rows * _wordsPerRow];
+
+	// Each row keeps its own fingerprint and statistics, so that bands of
+	// rows advanced on different threads never update the same ones.
+	_rowFingerprints = new Fingerprint[rows];
+	_rowStatistics = new Statistics[rows];
+	for (int row = 0; row < rows; row += 1) {
+	    _rowFingerprints[row] = new Fingerprint();
+	    _rowStatistics[row] = new Statistics();
+	}
+
+    } // BitGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the grid.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the grid.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive; <code>false</code> if it
+     *         is dead or outside of the grid.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return getBit(_current, row, column);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return getBit(_next, row, column);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return getBit(_ever, row, column);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if ((row < 0) || (row >= _rows) || (column < 0) || (column >= _columns)) {
+	    Support.abort("Cannot make a cell alive outside of the grid at " +
+			  row +
+			  ", " +
+			  column);
+	}
+
+	int index = row * _wordsPerRow + (column >>> 6);
+	long bit = 1L << (column & 63);
+	if ((_current[index] & bit) == 0) {
+	    _rowFingerprints[row].flip(row, column, true);
+	    _rowStatistics[row].include(row, column);
+	}
+	_current[index] |= bit;
+	_ever[index] |= bit;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.  Cells
+     * outside of the grid are ignored.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if ((row >= 0) && (row < _rows) && (column >= 0) && (column < _columns)) {
+	    _ever[row * _wordsPerRow + (column >>> 6)] |= 1L << (column & 63);
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column, skipping a
+     * whole word of dead cells at a time.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	visitBits(_current, visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	visitBits(_ever, visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell whose bit is set in a buffer, in order.
+     **/
+    private void visitBits (long[] buffer, CellVisitor visitor) {
+
+	for (int row = 0; row < _rows; row += 1) {
+	    int start = row * _wordsPerRow;
+	    for (int word = 0; word < _wordsPerRow; word += 1) {
+		long bits = buffer[start + word];
+		while (bits != 0) {
+		    visitor.visit(row, (word << 6) + Long.numberOfTrailingZeros(bits));
+		    bits &= bits - 1;
+		}
+	    }
+	}
+
+    } // visitBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation into the spare buffer, one row of words
+     * at a time.
+     **/
+    public void evolve () {
+
+	evolveRows(0, _rows);
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a band of rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void evolveRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    evolveRow(row);
+	}
+
+    } // evolveRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Clear the next generation of a band of rows that will stay dead.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void skipRows (int first, int last) {
+
+	Arrays.fill(_next, first * _wordsPerRow, last * _wordsPerRow, 0L);
+
+    } // skipRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a single row.  The rows above and
+     * below the grid are treated as dead.
+     *
+     * @param row The row to calculate.
+     **/
+    void evolveRow (int row) {
+
+	int words = _wordsPerRow;
+	int here = row * words;
+	int above = (row > 0) ? here - words : -1;
+	int below = (row < _rows - 1) ? here + words : -1;
+
+	for (int word = 0; word < words; word += 1) {
+
+	    boolean first = (word == 0);
+	    boolean last = (word == words - 1);
+
+	    // Gather each row's word along with its immediate neighbors.
+	    long a = (above < 0) ? 0 : _current[above + word];
+	    long aWest = (above < 0 || first) ? 0 : _current[above + word - 1];
+	    long aEast = (above < 0 || last) ? 0 : _current[above + word + 1];
+	    long x = _current[here + word];
+	    long xWest = first ? 0 : _current[here + word - 1];
+	    long xEast = last ? 0 : _current[here + word + 1];
+	    long b = (below < 0) ? 0 : _current[below + word];
+	    long bWest = (below < 0 || first) ? 0 : _current[below + word - 1];
+	    long bEast = (below < 0 || last) ? 0 : _current[below + word + 1];
+
+	    long next = nextWord(a, aWest, aEast, x, xWest, xEast, b, bWest, bEast,
+				 _birth, _survival);
+	    if (last) {
+		next &= _lastWordMask;
+	    }
+	    _next[here + word] = next;
+
+	}
+
+    } // evolveRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compute the next state of the 64 cells in one word.  Each neighbor is
+     * shifted into the bit position of the cell it neighbors, and the eight
+     * neighbor words are summed into four bit planes, so that bit
+     * <code>i</code> of the planes holds the neighbor count of cell
+     * <code>i</code>.  The planes are then decoded into one mask per count,
+     * and each mask selects the birth or survival outcome for that count.
+     *
+     * @param a The word above.
+     * @param aWest The word to the west of the word above.
+     * @param aEast The word to the east of the word above.
+     * @param x The word itself.
+     * @param xWest The word to the west.
+     * @param xEast The word to the east.
+     * @param b The word below.
+     * @param bWest The word to the west of the word below.
+     * @param bEast The word to the east of the word below.
+     * @param birth For each count, all ones if it causes birth.
+     * @param survival For each count, all ones if it allows survival.
+     * @return The next state of the 64 cells in <code>x</code>.
+     **/
+    static long nextWord (long a, long aWest, long aEast,
+			  long x, long xWest, long xEast,
+			  long b, long bWest, long bEast,
+			  long[] birth, long[] survival) {
+
+	// Shift the neighbors of every cell into that cell's bit position.
+	long n0 = (a << 1) | (aWest >>> 63);
+	long n1 = a;
+	long n2 = (a >>> 1) | (aEast << 63);
+	long n3 = (x << 1) | (xWest >>> 63);
+	long n4 = (x >>> 1) | (xEast << 63);
+	long n5 = (b << 1) | (bWest >>> 63);
+	long n6 = b;
+	long n7 = (b >>> 1) | (bEast << 63);
+
+	// Sum pairs of neighbors with half adders, then combine the partial
+	// sums with full adders into a count held in bit planes s0..s3.
+	long p0 = n0 ^ n1, c0 = n0 & n1;
+	long p1 = n2 ^ n3, c1 = n2 & n3;
+	long p2 = n4 ^ n5, c2 = n4 & n5;
+	long p3 = n6 ^ n7, c3 = n6 & n7;
+
+	// Ones: p0 + p1 + p2 + p3.
+	long q0 = p0 ^ p1, d0 = p0 & p1;
+	long q1 = p2 ^ p3, d1 = p2 & p3;
+	long s0 = q0 ^ q1;
+	long e0 = q0 & q1;
+
+	// Twos: c0 + c1 + c2 + c3 + d0 + d1 + e0.
+	long t0 = c0 ^ c1, f0 = c0 & c1;
+	long t1 = c2 ^ c3, f1 = c2 & c3;
+	long t2 = d0 ^ d1, f2 = d0 & d1;
+	long u0 = t0 ^ t1, g0 = t0 & t1;
+	long u1 = t2 ^ e0, g1 = t2 & e0;
+	long s1 = u0 ^ u1;
+	long g2 = u0 & u1;
+
+	// Fours: f0 + f1 + f2 + g0 + g1 + g2.
+	long v0 = f0 ^ f1, h0 = f0 & f1;
+	long v1 = f2 ^ g0, h1 = f2 & g0;
+	long v2 = g1 ^ g2, h2 = g1 & g2;
+	long w0 = v0 ^ v1, i0 = v0 & v1;
+	long s2 = w0 ^ v2;
+	long i1 = w0 & v2;
+
+	// Eights: only possible when every neighbor is alive.
+	long s3 = h0 | h1 | h2 | i0 | i1;
+
+	// Decode the planes into a mask per count.  A count of eight is the
+	// only one with the fours plane clear and the eights plane set.
+	long low = ~s3;
+	long z0 = ~s0, z1 = ~s1, z2 = ~s2;
+	long m00 = z2 & z1 & low, m01 = z2 & s1 & low;
+	long m10 = s2 & z1 & low, m11 = s2 & s1 & low;
+
+	// Pick each cell's outcome: survival for live cells, birth for dead.
+	long dead = ~x;
+	return (m00 & z0 & ((x & survival[0]) | (dead & birth[0]))) |
+	    (m00 & s0 & ((x & survival[1]) | (dead & birth[1]))) |
+	    (m01 & z0 & ((x & survival[2]) | (dead & birth[2]))) |
+	    (m01 & s0 & ((x & survival[3]) | (dead & birth[3]))) |
+	    (m10 & z0 & ((x & survival[4]) | (dead & birth[4]))) |
+	    (m10 & s0 & ((x & survival[5]) | (dead & birth[5]))) |
+	    (m11 & z0 & ((x & survival[6]) | (dead & birth[6]))) |
+	    (m11 & s0 & ((x & survival[7]) | (dead & birth[7]))) |
+	    (s3 & ((x & survival[8]) | (dead & birth[8])));
+
+    } // nextWord ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation by exchanging the two buffers, and
+     * record which cells have ever been alive.
+     **/
+    public void advance () {
+
+	startRows(0, _rows);
+	recordFlips(0, _rows);
+
+	long[] swap = _current;
+	_current = _next;
+	_next = swap;
+
+	for (int index = 0; index < _current.length; index += 1) {
+	    _ever[index] |= _current[index];
+	}
+	settleRows(0, _rows);
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation for a band of rows.  The buffers are
+     * shared by every band, so the band's words are copied rather than the
+     * buffers exchanged.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band afterwards.
+     **/
+    public long advanceRows (int first, int last) {
+
+	startRows(first, last);
+	recordFlips(first, last);
+
+	int end = last * _wordsPerRow;
+	for (int index = first * _wordsPerRow; index < end; index += 1) {
+	    long word = _next[index];
+	    _current[index] = word;
+	    _ever[index] |= word;
+	}
+	return settleRows(first, last);
+
+    } // advanceRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the cells of a band of rows that differ between the current and
+     * the calculated generation in the fingerprints and the statistics of
+     * their rows, and tell the listener, if any.  Only the
+     * differing bits of each word are visited.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    private void recordFlips (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    int start = row * _wordsPerRow;
+	    for (int word = 0; word < _wordsPerRow; word += 1) {
+		long next = _next[start + word];
+		long flips = next ^ _current[start + word];
+		while (flips != 0) {
+		    int bit = Long.numberOfTrailingZeros(flips);
+		    int column = (word << 6) + bit;
+		    boolean alive = ((next >>> bit) & 1L) != 0;
+		    _rowFingerprints[row].flip(row, column, alive);
+		    _rowStatistics[row].flip(row, column, alive);
+		    if (_listener != null) {
+			_listener.flip(row, column, alive);
+		    }
+		    flips &= flips - 1;
+		}
+	    }
+	}
+
+    } // recordFlips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, gathered from the
+     * fingerprints of the rows.
+     *
+     * @return The fingerprint of the grid.
+     **/
+    public Fingerprint getFingerprint () {
+
+	Fingerprint fingerprint = new Fingerprint();
+	for (int row = 0; row < _rows; row += 1) {
+	    fingerprint.add(_rowFingerprints[row]);
+	}
+	return fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation in a band of
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void startRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].startGeneration();
+	}
+
+    } // startRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Settle the statistics of a band of rows once its cells have flipped.
+     *
+     * @return The number of live cells in the band.
+     **/
+    private long settleRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].settle(this);
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // settleRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, gathered from the
+     * statistics of the rows.
+     *
+     * @return The statistics of the grid.
+     **/
+    public Statistics getStatistics () {
+
+	Statistics statistics = new Statistics();
+	for (int row = 0; row < _rows; row += 1) {
+	    statistics.add(_rowStatistics[row]);
+	}
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as its band of
+     * rows advances.  Bands advanced on other threads tell it on those
+     * threads, so whoever advances bands at once must hand the listener
+     * their flips itself, as <code>ParallelUniverse</code> does.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, summed from the rows.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return countRows(0, _rows);
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a band of rows, from the statistics of the
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    public long countRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // countRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read one cell's bit from a buffer.
+     *
+     * @param buffer The buffer to read.
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the bit is set; <code>false</code> if it is
+     *         clear or the coordinates are outside of the grid.
+     **/
+    private boolean getBit (long[] buffer, int row, int column) {
+
+	if ((row < 0) || (row >= _rows) || (column < 0) || (column >= _columns)) {
+	    return false;
+	}
+	long word = buffer[row * _wordsPerRow + (column >>> 6)];
+	return ((word >>> (column & 63)) & 1L) != 0;
+
+    } // getBit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The dimensions of the grid.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The number of <code>long</code> words that hold one row.
+     **/
+    private final int _wordsPerRow;
+
+    /**
+     * The bits of the last word of a row that fall within the grid.
+     **/
+    private final long _lastWordMask;
+
+    /**
+     * For each neighbor count, a mask of all ones if that count causes birth
+     * or allows survival.
+     **/
+    private final long[] _birth;
+    private final long[] _survival;
+
+    /**
+     * The current generation, packed row by row.
+     **/
+    private long[] _current;
+
+    /**
+     * The next generation, as calculated by <code>evolve()</code>.
+     **/
+    private long[] _next;
+
+    /**
+     * Every cell that has ever been alive.
+     **/
+    private long[] _ever;
+
+    /**
+     * The fingerprint of the live cells of each row, kept up to date as
+     * cells flip.
+     **/
+    private final Fingerprint[] _rowFingerprints;
+
+    /**
+     * The statistics of the live cells of each row, kept up to date as cells
+     * flip.
+     **/
+    private final Statistics[] _rowStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class BitGrid
+// =============================================================================
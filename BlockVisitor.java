@@ -0,0 +1,32 @@
+// =============================================================================
+/**
+ * A <code>BlockVisitor</code> is handed the square blocks of cells kept by a
+ * <code>DensityPyramid</code>, one at a time, with the number of live cells
+ * in each.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface BlockVisitor {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit one block.
+     *
+     * @param row The row of the block among the blocks of its level.
+     * @param column The column of the block among the blocks of its level.
+     * @param count The number of live cells in the block.
+     **/
+    public void visit (int row, int column, long count);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface BlockVisitor
+// =============================================================================
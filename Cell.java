@@ -168,36 +168,19 @@ public class Cell {
     // =========================================================================
     /**
      * Based on its neighbors' states, calculate what this cell's state will be
-     * in the <i>next</i> generation.  Here, the Conway rules are that <i>a live
-     * cell with 2 or 3 live neighbors remains alive, a dead cell with 3 live
-     * neighbors becomes alive, and all other cells will die</i>.
+     * in the <i>next</i> generation.  The rules come from the
+     * <code>Grid</code>'s rule table, indexed by this cell's liveness and its
+     * number of live neighbors.  Under Conway's rules <i>a live cell with 2 or
+     * 3 live neighbors remains alive, a dead cell with 3 live neighbors becomes
+     * alive, and all other cells will die</i>.
      **/
     public void evolve () 
     {
 
-       // WRITE ME.
-    	//making a dead cell with 3 neighbors alive
-    	// System.out.println("cell's evolved");
-    	if( this.isAlive() == false && this.countLiveNeighbors() == 3) 
-    	{
-    		this._willBeAlive = true;
-    		this._willChange = true;
-    	}
-    	//all cells with less than 2 or more than 3 neighbors
-    	else if (this.countLiveNeighbors() < 2 || this.countLiveNeighbors() > 3) 
-    	{
-    		this._willBeAlive = false;
-    		if(this.isAlive()) {
-        		this._willChange = true;
-    		}
-    		else {
-    			this._willChange = false;
-    		}
-    	}
-    	//the cells that have 2 or 3 neighbors and are alive
-    	else {
-			this._willChange = false;
-    	}
+	int count = this.countLiveNeighbors();
+	this._willBeAlive = this._grid._ruleTable[(this._isAlive ? 9 : 0) + count] != 0;
+	this._willChange = (this._willBeAlive != this._isAlive);
+
     } // evolve ()
     // =========================================================================
 
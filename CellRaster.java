@@ -0,0 +1,245 @@
+// =============================================================================
+/**
+ * The <code>CellRaster</code> class.  An image of the visible part of a
+ * universe, kept in an integer array of pixels that is written directly.
+ * The look of every cell in the last frame drawn is remembered, so a new
+ * <code>Frame</code> only writes the pixels of the cells whose look changed,
+ * and is then drawn with a single image copy.
+ *
+ * <p>The frame drawn may show another view than the last, once the display
+ * pans or zooms; then every cell is drawn again, and the image is made anew
+ * if the cells are laid out differently.  Zoomed out past one cell per
+ * pixel, a pixel is a block of cells, drawn in a shade by how many of them
+ * are alive.</p>
+ *
+ * <p>Cells of three or more pixels are drawn as in the original display: a
+ * grid line along the top and left of each box, and the cell's color inside
+ * it, inset by a pixel.  The grid lines are drawn once, when the image is
+ * made, and never again, since a cell only ever writes the inside of its
+ * box.  Smaller cells have no room for grid lines, so they fill their whole
+ * box.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class CellRaster {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an image of a view, in which every cell is
+     * drawn as never having been alive.
+     *
+     * @param view The part of the universe shown, and how closely.
+     **/
+    public CellRaster (Viewport view) {
+
+	layOut(view);
+
+    } // CellRaster ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring the image up to date with a frame, redrawing only the cells
+     * whose look changed if it shows the same view as the last frame drawn,
+     * and every cell otherwise.
+     *
+     * @param frame The frame to draw.
+     **/
+    public void update (Frame frame) {
+
+	Viewport view = frame.getView();
+	if (view != _view) {
+	    if (view.isLaidOutLike(_view)) {
+		Arrays.fill(_looks, UNDRAWN);
+	    } else {
+		layOut(view);
+	    }
+	    _view = view;
+	}
+
+	byte[] looks = frame.getLooks();
+	for (int index = 0; index < looks.length; index += 1) {
+	    if (looks[index] != _looks[index]) {
+		_looks[index] = looks[index];
+		fill(index / _columns, index % _columns, COLORS[looks[index]]);
+	    }
+	}
+
+    } // update ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a blank image for a view, with the grid lines that no cell will
+     * write over.
+     **/
+    private void layOut (Viewport view) {
+
+	int rows = view.getRows();
+	int boxSize = view.getBoxSize();
+	_view = view;
+	_columns = view.getColumns();
+	_boxSize = boxSize;
+	_inset = (boxSize >= 3) ? 1 : 0;
+	_width = _columns * boxSize;
+	_image = new BufferedImage(_width, rows * boxSize, BufferedImage.TYPE_INT_RGB);
+	_pixels = ((DataBufferInt)_image.getRaster().getDataBuffer()).getData();
+	_looks = new byte[rows * _columns];
+
+	Arrays.fill(_pixels, COLORS[Frame.NEVER_ALIVE]);
+	if (_inset > 0) {
+	    int line = GRID_LINE.getRGB();
+	    for (int y = 0; y < rows * boxSize; y += boxSize) {
+		Arrays.fill(_pixels, y * _width, (y + 1) * _width, line);
+	    }
+	    for (int y = 0; y < rows * boxSize; y += 1) {
+		for (int x = 0; x < _width; x += boxSize) {
+		    _pixels[y * _width + x] = line;
+		}
+	    }
+	}
+
+    } // layOut ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the image, as of the last <code>update()</code>.
+     *
+     * @return The image of the cells.
+     **/
+    public BufferedImage getImage () {
+
+	return _image;
+
+    } // getImage ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Color the inside of the box of a visible cell.
+     **/
+    private void fill (int y, int x, int color) {
+
+	int size = _boxSize - 2 * _inset;
+	int top = y * _boxSize + _inset;
+	int left = x * _boxSize + _inset;
+	for (int line = top; line < top + size; line += 1) {
+	    int start = line * _width + left;
+	    Arrays.fill(_pixels, start, start + size, color);
+	}
+
+    } // fill ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add the colors of the looks of blocks of cells to the colors of the
+     * looks of cells: shades from the color of a once-alive cell, for the
+     * sparsest block, to the color of a live one, for a full block.
+     *
+     * @param cells The colors of the looks of cells.
+     * @return The colors of every look.
+     **/
+    private static int[] shades (int[] cells) {
+
+	int[] colors = Arrays.copyOf(cells, Frame.DENSE + Frame.SHADES);
+	Color sparse = new Color(cells[Frame.EVER_ALIVE]);
+	Color full = new Color(cells[Frame.ALIVE]);
+	for (int shade = 0; shade < Frame.SHADES; shade += 1) {
+	    float mix = (shade + 1) / (float)Frame.SHADES;
+	    colors[Frame.DENSE + shade] =
+		new Color(Math.round(sparse.getRed() + mix * (full.getRed() - sparse.getRed())),
+			  Math.round(sparse.getGreen() + mix * (full.getGreen() - sparse.getGreen())),
+			  Math.round(sparse.getBlue() + mix * (full.getBlue() - sparse.getBlue())))
+		.getRGB();
+	}
+	return colors;
+
+    } // shades ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The color of each look of a cell.
+     **/
+    private static final int[] COLORS = shades(new int[] {
+	Color.WHITE.getRGB(),
+	new Color(193, 234, 170).getRGB(),
+	Color.BLUE.getRGB(),
+	Color.RED.getRGB()
+    });
+
+    /**
+     * The look remembered for a cell whose box must be drawn whatever its
+     * look, since it has been drawn for another view.
+     **/
+    private static final byte UNDRAWN = -1;
+
+    /**
+     * The color of the grid lines.
+     **/
+    private static final Color GRID_LINE = Color.LIGHT_GRAY;
+
+    /**
+     * The view last drawn.
+     **/
+    private Viewport _view;
+
+    /**
+     * The number of columns of cells shown, the size of each cell's box, and
+     * how far inside its box a cell's color starts.
+     **/
+    private int _columns;
+    private int _boxSize;
+    private int _inset;
+
+    /**
+     * The image, its width in pixels, and the array of pixels behind it.
+     **/
+    private BufferedImage _image;
+    private int _width;
+    private int[] _pixels;
+
+    /**
+     * The look of each visible cell as last drawn.
+     **/
+    private byte[] _looks;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CellRaster
+// =============================================================================
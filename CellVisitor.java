@@ -0,0 +1,31 @@
+// =============================================================================
+/**
+ * A <code>CellVisitor</code> is handed the coordinates of cells, one at a
+ * time, by a <code>Universe</code> that is walking through some set of them,
+ * such as all of its live cells.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface CellVisitor {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit one cell.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void visit (int row, int column);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface CellVisitor
+// =============================================================================
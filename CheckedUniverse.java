@@ -0,0 +1,403 @@
+// =============================================================================
+/**
+ * The <code>CheckedUniverse</code> class.  A universe that runs another
+ * engine alongside a plain reference <code>Grid</code>, and compares the two
+ * after every generation.  It is meant for trying out a new storage engine:
+ * the first generation in which the engine disagrees with the reference, at
+ * any cell, stops the game with the coordinates of that cell.
+ *
+ * <p>The reference grid has edges, so an unbounded engine will only agree
+ * with it while the pattern stays clear of them.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class CheckedUniverse implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param universe The universe whose results are to be checked.
+     * @param reference The universe that is trusted to be correct, of the
+     *                  same size and entirely dead.
+     **/
+    public CheckedUniverse (Universe universe, Universe reference) {
+
+	_universe = universe;
+	_reference = reference;
+	_generation = 0;
+
+    } // CheckedUniverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the universe.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows () {
+
+	return _universe.getRows();
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the universe.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns () {
+
+	return _universe.getColumns();
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return _universe.isAlive(row, column);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return _universe.willBeAlive(row, column);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return _universe.wasEverAlive(row, column);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive in both universes.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	_universe.makeAlive(row, column);
+	_reference.makeAlive(row, column);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	_universe.makeEverAlive(row, column);
+	_reference.makeEverAlive(row, column);
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	_universe.forEachLiveCell(visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	_universe.forEachEverAliveCell(visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of the checked universe.  The reference
+     * is stepped in <code>advance()</code>, since an engine may jump several
+     * generations at once.
+     **/
+    public void evolve () {
+
+	_universe.evolve();
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the next generation in the checked universe, step the reference
+     * by as many generations, and compare every cell of the two.
+     **/
+    public void advance () {
+
+	_universe.advance();
+
+	long steps = _universe.getGenerationsPerStep();
+	for (long step = 0; step < steps; step += 1) {
+	    _reference.evolve();
+	    _reference.advance();
+	}
+	_generation += steps;
+
+	int rows = _reference.getRows();
+	int columns = _reference.getColumns();
+	for (int row = 0; row < rows; row += 1) {
+	    for (int column = 0; column < columns; column += 1) {
+		boolean expected = _reference.isAlive(row, column);
+		if (_universe.isAlive(row, column) != expected) {
+		    Support.abort("ERROR: At generation " + _generation +
+				  ", the cell at " + row + ", " + column +
+				  " should be " + (expected ? "alive" : "dead"));
+		}
+	    }
+	}
+
+	if (_universe.getPopulation() != _reference.getPopulation()) {
+	    Support.abort("ERROR: At generation " + _generation +
+			  ", the population should be " +
+			  _reference.getPopulation() + " but is " +
+			  _universe.getPopulation());
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation of the checked universe.
+     *
+     * @return The fingerprint.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _universe.getFingerprint();
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells of the checked universe evaluated by the last
+     * <code>evolve()</code>.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return _universe.getCellsEvaluated();
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation of the checked universe.
+     *
+     * @return The statistics.
+     **/
+    public Statistics getStatistics () {
+
+	return _universe.getStatistics();
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell of the checked universe that flips from
+     * now on.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code> if the checked universe reports its flips.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	return _universe.setFlipListener(listener);
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells in the checked universe.
+     *
+     * @return The number of live cells.
+     **/
+    public long getPopulation () {
+
+	return _universe.getPopulation();
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of generations that each step of the checked
+     * universe jumps.
+     *
+     * @return The number of generations per step.
+     **/
+    public long getGenerationsPerStep () {
+
+	return _universe.getGenerationsPerStep();
+
+    } // getGenerationsPerStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep the next step of the checked universe from jumping more than the
+     * given number of generations.
+     *
+     * @param generations The most generations the next step may jump.
+     **/
+    public void limitStep (long generations) {
+
+	_universe.limitStep(generations);
+
+    } // limitStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Let go of both the checked universe and the trusted one.
+     **/
+    public void close () {
+
+	_universe.close();
+	_reference.close();
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the universe whose results are being checked.
+     *
+     * @return The checked universe.
+     **/
+    public Universe getUniverse () {
+
+	return _universe;
+
+    } // getUniverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The universe whose results are checked, and the trusted one that it is
+     * checked against.
+     **/
+    private final Universe _universe;
+    private final Universe _reference;
+
+    /**
+     * The number of generations computed so far.
+     **/
+    private long _generation;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CheckedUniverse
+// =============================================================================
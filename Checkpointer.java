@@ -0,0 +1,134 @@
+// =============================================================================
+/**
+ * The <code>Checkpointer</code> class.  Writes snapshots of a running game to
+ * a file on a thread of its own, so that the game need only pause long
+ * enough to capture each snapshot into memory, not to write it out.  Only
+ * one snapshot is written at a time: if the last one is still being written
+ * when the next arrives, the game waits for it, so that snapshots never pile
+ * up in memory.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Checkpointer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param path The pathname of the file to keep the latest snapshot in.
+     **/
+    public Checkpointer (String path) {
+
+	_path = path;
+	_writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "checkpoint writer");
+		thread.setDaemon(true);
+		return thread;
+	    });
+	_pending = null;
+
+    } // Checkpointer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a snapshot in the background, once the last one is written.
+     *
+     * @param snapshot The captured snapshot.
+     **/
+    public void save (Snapshot snapshot) {
+
+	await();
+	_pending = _writer.submit(() -> {
+		try {
+		    snapshot.write(_path);
+		} catch (IOException e) {
+		    // A missed checkpoint should not stop the game itself.
+		    System.err.println("WARNING: Could not write checkpoint " +
+				       _path + ": " + e.getMessage());
+		}
+	    });
+
+    } // save ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait for the last snapshot to be written, and stop the writing thread.
+     **/
+    public void close () {
+
+	await();
+	_writer.shutdown();
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait for the snapshot being written, if there is one.
+     **/
+    private void await () {
+
+	if (_pending == null) {
+	    return;
+	}
+	try {
+	    _pending.get();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	} catch (ExecutionException e) {
+	    System.err.println("WARNING: Could not write checkpoint " + _path +
+			       ": " + e.getCause());
+	}
+	_pending = null;
+
+    } // await ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The pathname of the file to write.
+     **/
+    private final String _path;
+
+    /**
+     * The thread that writes, and the write it is doing, if any.
+     **/
+    private final ExecutorService _writer;
+    private Future<?> _pending;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Checkpointer
+// =============================================================================
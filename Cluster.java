@@ -0,0 +1,322 @@
+// =============================================================================
+/**
+ * The <code>Cluster</code> class.  Plays one game across several worker
+ * processes, each a <code>ClusterWorker</code> in a Java virtual machine of
+ * its own, so that a universe can use more memory and processors than one
+ * process has.  The coordinator splits the universe into strips of rows, one
+ * per worker, starts the workers, and hands each its strip.  The workers then
+ * play every generation among themselves, trading only the rows along the
+ * edges of their strips with their neighbors, and finally hand their live
+ * cells back.
+ *
+ * <p>The universe is bounded, as in a single game, so the result is the
+ * same as playing it in one process.  The final generation is left in a
+ * snapshot file, from which a single game can carry on, and is shown as a
+ * game shows its final generation.  Workers talk to the coordinator and to
+ * one another over sockets on the local host.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Cluster {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param initialStatePath The file from which the initial state of the
+     *                         universe is taken.
+     * @param generations The number of generations to play.
+     * @param options The optional settings: the rule, the number of workers,
+     *                the depth of the halos, the snapshot file, and the
+     *                output.
+     **/
+    public Cluster (String initialStatePath, long generations, Options options) {
+
+	if (generations < 0) {
+	    Support.abort("ERROR: Cannot play " + generations + " generations");
+	}
+	if (options.halo < 1) {
+	    Support.abort("ERROR: Cannot exchange halos " + options.halo + " rows deep");
+	}
+
+	_pattern = PatternReader.read(initialStatePath);
+	if (_pattern.isOversized()) {
+	    Support.abort("ERROR: The pattern spans " + _pattern.getRowSpan() +
+			  " rows and " + _pattern.getColumnSpan() +
+			  " columns, too many for a cluster");
+	}
+	String ruleText = (options.rule != null) ? options.rule : _pattern.getRule();
+	_rule = (ruleText == null) ? Rule.CONWAY : Rule.parse(ruleText);
+	if (!_rule.isTwoState()) {
+	    Support.abort("ERROR: A cluster cannot follow the multi-state rule " + _rule);
+	}
+
+	_generations = generations;
+	_options = options;
+	_rows = _pattern.getRows();
+	_columns = _pattern.getColumns();
+
+	// Every strip must be at least as tall as a halo, since a halo is
+	// copied from the strip next to it alone.
+	int workers = (options.workers > 0) ? options.workers :
+	    Runtime.getRuntime().availableProcessors();
+	_workers = Math.max(1, Math.min(workers, _rows));
+	_halo = Math.min(options.halo, _rows / _workers);
+
+    } // Cluster ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start the workers, play the game on them, and save and show the
+     * result.
+     **/
+    public void run () {
+
+	// Only live cells are gathered, unless the rule can fill the universe.
+	Universe result = _rule.hasBirthOnZero() ?
+	    new BitGrid(_rows, _columns, _rule) : new SparseGrid(_rows, _columns, _rule, false);
+
+	try (ServerSocket server = new ServerSocket(0, _workers,
+						    InetAddress.getLoopbackAddress())) {
+
+	    List<Process> processes = launch(server.getLocalPort());
+	    List<Socket> sockets = new ArrayList<Socket>();
+	    List<DataInputStream> ins = new ArrayList<DataInputStream>();
+	    List<DataOutputStream> outs = new ArrayList<DataOutputStream>();
+	    for (int worker = 0; worker < _workers; worker += 1) {
+		Socket socket = server.accept();
+		sockets.add(socket);
+		ins.add(ClusterWorker.input(socket));
+		outs.add(ClusterWorker.output(socket));
+	    }
+
+	    // Hand out the strips, in order down the universe.
+	    int[] cells = _pattern.getCells();
+	    for (int worker = 0; worker < _workers; worker += 1) {
+		sendStrip(outs.get(worker), worker, cells, _pattern.getCellCount());
+	    }
+
+	    // Tell each worker where the one above it listens.
+	    int[] ports = new int[_workers];
+	    for (int worker = 0; worker < _workers; worker += 1) {
+		ports[worker] = ins.get(worker).readInt();
+	    }
+	    for (int worker = 0; worker < _workers; worker += 1) {
+		outs.get(worker).writeInt((worker > 0) ? ports[worker - 1] : 0);
+		outs.get(worker).flush();
+	    }
+
+	    // Gather the final generation, strip by strip.
+	    for (int worker = 0; worker < _workers; worker += 1) {
+		DataInputStream in = ins.get(worker);
+		int first = firstRow(worker);
+		for (long count = in.readLong(); count > 0; count -= 1) {
+		    int row = first + in.readInt();
+		    result.makeAlive(row, in.readInt());
+		}
+		sockets.get(worker).close();
+	    }
+
+	    for (Process process : processes) {
+		process.waitFor();
+	    }
+
+	} catch (IOException e) {
+	    Support.abort("ERROR: Cluster lost a worker: " + e.getMessage());
+	} catch (InterruptedException e) {
+	    Support.abort("ERROR: Interrupted while waiting for the workers");
+	}
+
+	save(result);
+	show();
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start the worker processes, each running this same program.
+     *
+     * @param port The port on which to reach the coordinator.
+     * @return The processes.
+     **/
+    private List<Process> launch (int port) throws IOException {
+
+	String java = System.getProperty("java.home") + File.separator + "bin" +
+	    File.separator + "java";
+	List<Process> processes = new ArrayList<Process>();
+	for (int worker = 0; worker < _workers; worker += 1) {
+	    ProcessBuilder builder =
+		new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				   "Life", "worker",
+				   InetAddress.getLoopbackAddress().getHostAddress(),
+				   Integer.toString(port));
+	    processes.add(builder.inheritIO().start());
+	}
+	return processes;
+
+    } // launch ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a worker its strip, along with what it needs to play it.
+     **/
+    private void sendStrip (DataOutputStream out, int worker, int[] cells, int count)
+	throws IOException {
+
+	int first = firstRow(worker);
+	int last = firstRow(worker + 1);
+
+	out.writeInt(worker);
+	out.writeInt(_workers);
+	out.writeUTF(_rule.toString());
+	out.writeInt(last - first);
+	out.writeInt(_columns);
+	out.writeInt(_halo);
+	out.writeLong(_generations);
+
+	int inside = 0;
+	for (int index = 0; index < 2 * count; index += 2) {
+	    if ((cells[index] >= first) && (cells[index] < last)) {
+		inside += 1;
+	    }
+	}
+	out.writeInt(inside);
+	for (int index = 0; index < 2 * count; index += 2) {
+	    if ((cells[index] >= first) && (cells[index] < last)) {
+		out.writeInt(cells[index] - first);
+		out.writeInt(cells[index + 1]);
+	    }
+	}
+	out.flush();
+
+    } // sendStrip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the first row of a worker's strip, or for one past the last
+     * worker, the number of rows.
+     **/
+    private int firstRow (int worker) {
+
+	return (int)((long)worker * _rows / _workers);
+
+    } // firstRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Save the final generation in the snapshot file.
+     **/
+    private void save (Universe result) {
+
+	try {
+	    Snapshot.capture(result, _generations, _rule, "cluster", false)
+		.write(_options.snapshot);
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not write " + _options.snapshot + ": " +
+			  e.getMessage());
+	}
+
+    } // save ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Show the final generation, by resuming a game from the snapshot with
+     * nothing left to play.
+     **/
+    private void show () {
+
+	if (_options.output.equals("none")) {
+	    return;
+	}
+
+	Options options = new Options();
+	options.engine = _rule.hasBirthOnZero() ? "bitgrid" : "sparse";
+	options.resume = _options.snapshot;
+	options.output = "final";
+	options.wait = 0;
+	Game game = new Game(_options.snapshot, _generations, false, options);
+	game.play();
+
+    } // show ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The initial state, and the rule it evolves by.
+     **/
+    private final Pattern _pattern;
+    private final Rule _rule;
+
+    /**
+     * The number of generations to play.
+     **/
+    private final long _generations;
+
+    /**
+     * The optional settings.
+     **/
+    private final Options _options;
+
+    /**
+     * The dimensions of the universe.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The number of workers, and the depth of the halos they trade, which is
+     * also the number of generations they play between trades.
+     **/
+    private final int _workers;
+    private final int _halo;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Cluster
+// =============================================================================
@@ -0,0 +1,423 @@
+// =============================================================================
+/**
+ * The <code>ClusterWorker</code> class.  One worker process of a
+ * <code>Cluster</code>.  A worker is handed a strip of consecutive rows of
+ * the universe by the coordinator, and plays it through every generation,
+ * packed one bit per cell as in <code>BitGrid</code>.  It keeps a halo of
+ * extra rows above and below its strip, copied from the neighboring strips,
+ * and only trades those halos with its neighbors, directly, every so many
+ * generations.
+ *
+ * <p>A halo as deep as the number of generations played between exchanges
+ * is enough: the rows beyond the halo are taken to be dead, which is wrong
+ * for every edge but the universe's own, but the error creeps inward only
+ * one row a generation, so it has just reached the strip itself when the
+ * next exchange replaces the halo.  A deeper halo means fewer, larger
+ * exchanges, for a little more calculation.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+// =============================================================================
+
+
+
+// =============================================================================
+public class ClusterWorker {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param host The host of the coordinator.
+     * @param port The port on which the coordinator listens for workers.
+     **/
+    public ClusterWorker (String host, int port) {
+
+	_host = host;
+	_port = port;
+
+    } // ClusterWorker ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take a strip from the coordinator, play it through every generation,
+     * and hand back its live cells.
+     **/
+    public void run () {
+
+	try (Socket coordinator = new Socket(_host, _port)) {
+
+	    DataInputStream in = input(coordinator);
+	    DataOutputStream out = output(coordinator);
+	    receiveStrip(in);
+	    connectNeighbors(in, out);
+
+	    ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+		    Thread thread = new Thread(runnable, "halo sender");
+		    thread.setDaemon(true);
+		    return thread;
+		});
+	    for (long played = 0; played < _generations; played += _halo) {
+		exchange(sender);
+		long steps = Math.min(_halo, _generations - played);
+		for (long step = 0; step < steps; step += 1) {
+		    evolve();
+		}
+	    }
+	    sender.shutdown();
+
+	    sendCells(out);
+
+	} catch (IOException e) {
+	    Support.abort("ERROR: Cluster worker lost its connection: " + e.getMessage());
+	}
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read this worker's strip from the coordinator: its place among the
+     * strips, the rule, the size of the strip and its halos, the number of
+     * generations to play, and the strip's live cells.
+     **/
+    private void receiveStrip (DataInputStream in) throws IOException {
+
+	int index = in.readInt();
+	int workers = in.readInt();
+	Rule rule = Rule.parse(in.readUTF());
+	_birth = rule.birthMasks();
+	_survival = rule.survivalMasks();
+	_own = in.readInt();
+	int columns = in.readInt();
+	_halo = in.readInt();
+	_generations = in.readLong();
+
+	// Only the edges between strips have halos.
+	_hasUpper = (index > 0);
+	_hasLower = (index < workers - 1);
+	_top = _hasUpper ? _halo : 0;
+	_rows = _top + _own + (_hasLower ? _halo : 0);
+	_wordsPerRow = (columns + 63) >>> 6;
+	int tail = columns & 63;
+	_lastWordMask = (tail == 0) ? -1L : (1L << tail) - 1;
+	_current = new long[_rows * _wordsPerRow];
+	_next = new long[_rows * _wordsPerRow];
+
+	for (int cells = in.readInt(); cells > 0; cells -= 1) {
+	    int row = _top + in.readInt();
+	    int column = in.readInt();
+	    _current[row * _wordsPerRow + (column >>> 6)] |= 1L << (column & 63);
+	}
+
+    } // receiveStrip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Connect to the neighboring workers.  Each worker listens for the one
+     * below it, tells the coordinator where, and is told where to find the
+     * one above it.
+     **/
+    private void connectNeighbors (DataInputStream in, DataOutputStream out)
+	throws IOException {
+
+	try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+	    out.writeInt(server.getLocalPort());
+	    out.flush();
+	    int upperPort = in.readInt();
+
+	    // The worker above is already listening, so connecting to it first
+	    // never waits on the worker below.
+	    if (_hasUpper) {
+		Socket upper = new Socket(InetAddress.getLoopbackAddress(), upperPort);
+		_upperIn = input(upper);
+		_upperOut = output(upper);
+	    }
+	    if (_hasLower) {
+		Socket lower = server.accept();
+		_lowerIn = input(lower);
+		_lowerOut = output(lower);
+	    }
+	}
+
+    } // connectNeighbors ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Trade halos with the neighbors: send the top and bottom rows of the
+     * strip, as deep as a halo, and replace the halos with what arrives.  The
+     * rows are sent on another thread while this one reads, so that two
+     * neighbors sending to each other at once never both wait for the other
+     * to read.
+     **/
+    private void exchange (ExecutorService sender) throws IOException {
+
+	Future<?> sent = sender.submit(() -> {
+		if (_hasUpper) {
+		    writeRows(_upperOut, _top);
+		}
+		if (_hasLower) {
+		    writeRows(_lowerOut, _top + _own - _halo);
+		}
+		return null;
+	    });
+
+	if (_hasUpper) {
+	    readRows(_upperIn, 0);
+	}
+	if (_hasLower) {
+	    readRows(_lowerIn, _top + _own);
+	}
+
+	try {
+	    sent.get();
+	} catch (InterruptedException | ExecutionException e) {
+	    Support.abort("ERROR: Cluster worker could not send a halo: " + e.getCause());
+	}
+
+    } // exchange ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a halo's worth of rows, starting from the given row.
+     **/
+    private void writeRows (DataOutputStream out, int first) throws IOException {
+
+	int end = (first + _halo) * _wordsPerRow;
+	for (int index = first * _wordsPerRow; index < end; index += 1) {
+	    out.writeLong(_current[index]);
+	}
+	out.flush();
+
+    } // writeRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive a halo's worth of rows, into the rows from the given one.
+     **/
+    private void readRows (DataInputStream in, int first) throws IOException {
+
+	int end = (first + _halo) * _wordsPerRow;
+	for (int index = first * _wordsPerRow; index < end; index += 1) {
+	    _current[index] = in.readLong();
+	}
+
+    } // readRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate and adopt the next generation of the strip and its halos,
+     * with every row beyond them taken to be dead.
+     **/
+    private void evolve () {
+
+	int words = _wordsPerRow;
+	for (int row = 0; row < _rows; row += 1) {
+
+	    int here = row * words;
+	    int above = (row > 0) ? here - words : -1;
+	    int below = (row < _rows - 1) ? here + words : -1;
+
+	    for (int word = 0; word < words; word += 1) {
+
+		boolean first = (word == 0);
+		boolean last = (word == words - 1);
+
+		long a = (above < 0) ? 0 : _current[above + word];
+		long aWest = (above < 0 || first) ? 0 : _current[above + word - 1];
+		long aEast = (above < 0 || last) ? 0 : _current[above + word + 1];
+		long x = _current[here + word];
+		long xWest = first ? 0 : _current[here + word - 1];
+		long xEast = last ? 0 : _current[here + word + 1];
+		long b = (below < 0) ? 0 : _current[below + word];
+		long bWest = (below < 0 || first) ? 0 : _current[below + word - 1];
+		long bEast = (below < 0 || last) ? 0 : _current[below + word + 1];
+
+		long next = BitGrid.nextWord(a, aWest, aEast, x, xWest, xEast,
+					     b, bWest, bEast, _birth, _survival);
+		if (last) {
+		    next &= _lastWordMask;
+		}
+		_next[here + word] = next;
+
+	    }
+	}
+
+	long[] swap = _current;
+	_current = _next;
+	_next = swap;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send the coordinator the live cells of the strip itself, by row within
+     * the strip and by column.
+     **/
+    private void sendCells (DataOutputStream out) throws IOException {
+
+	int start = _top * _wordsPerRow;
+	int end = (_top + _own) * _wordsPerRow;
+	long count = 0;
+	for (int index = start; index < end; index += 1) {
+	    count += Long.bitCount(_current[index]);
+	}
+
+	out.writeLong(count);
+	for (int index = start; index < end; index += 1) {
+	    long bits = _current[index];
+	    while (bits != 0) {
+		out.writeInt(index / _wordsPerRow - _top);
+		out.writeInt(((index % _wordsPerRow) << 6) + Long.numberOfTrailingZeros(bits));
+		bits &= bits - 1;
+	    }
+	}
+	out.flush();
+
+    } // sendCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wrap a socket's input for reading numbers.
+     **/
+    static DataInputStream input (Socket socket) throws IOException {
+
+	return new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+
+    } // input ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wrap a socket's output for writing numbers, which are sent as soon as
+     * they are flushed.
+     **/
+    static DataOutputStream output (Socket socket) throws IOException {
+
+	socket.setTcpNoDelay(true);
+	return new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+
+    } // output ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The size of the buffer on each stream of a connection.
+     **/
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Where to find the coordinator.
+     **/
+    private final String _host;
+    private final int _port;
+
+    /**
+     * For each neighbor count, a mask of all ones if that count causes birth
+     * or allows survival.
+     **/
+    private long[] _birth;
+    private long[] _survival;
+
+    /**
+     * The number of rows in the strip itself, the depth of each halo, which
+     * is also the number of generations played between exchanges, and the
+     * number of generations to play in all.
+     **/
+    private int _own;
+    private int _halo;
+    private long _generations;
+
+    /**
+     * Whether there are strips above and below this one.
+     **/
+    private boolean _hasUpper;
+    private boolean _hasLower;
+
+    /**
+     * The number of rows held, halos included, and the first row of the
+     * strip itself among them.
+     **/
+    private int _rows;
+    private int _top;
+
+    /**
+     * The number of <code>long</code> words that hold one row, and the bits
+     * of the last word of a row that fall within the universe.
+     **/
+    private int _wordsPerRow;
+    private long _lastWordMask;
+
+    /**
+     * The current generation of the strip and its halos, and the spare
+     * buffer into which the next is calculated.
+     **/
+    private long[] _current;
+    private long[] _next;
+
+    /**
+     * The connections to the neighboring workers.
+     **/
+    private DataInputStream _upperIn;
+    private DataOutputStream _upperOut;
+    private DataInputStream _lowerIn;
+    private DataOutputStream _lowerOut;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ClusterWorker
+// =============================================================================
@@ -0,0 +1,583 @@
+// =============================================================================
+/**
+ * The <code>CountGrid</code> class.  A storage engine that keeps, alongside
+ * the state of each cell, a running count of its live neighbors in a flat
+ * <code>byte[]</code>.  When a cell is born or dies, the counts of its eight
+ * neighbors are adjusted by one, so no neighborhood is ever recounted.  The
+ * next state of a cell is then a single table lookup on its state and count,
+ * and only cells whose state or count just changed need to be looked up at
+ * all.
+ *
+ * <p>The arrays have a one-cell border around the grid, so that adjusting a
+ * neighbor never needs a bounds check.  Border cells are never alive and are
+ * never evaluated.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class CountGrid implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which may have several states but must not give
+     *             birth on zero neighbors.
+     **/
+    public CountGrid (int rows, int columns, Rule rule) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a grid of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+
+	if (rule.hasBirthOnZero()) {
+	    Support.abort("ERROR: The counts engine cannot follow the rule " +
+			  rule);
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_stride = columns + 2;
+	_rule = rule.stateTable();
+
+	int size = (rows + 2) * _stride;
+	_states = new byte[size];
+	_counts = new byte[size];
+	_ever = new boolean[size];
+	_stamps = new int[size];
+	_stamp = 0;
+
+	_changed = new int[64];
+	_changedCount = 0;
+	_flips = new int[64];
+	_flipCount = 0;
+	_population = 0;
+	_fingerprint = new Fingerprint();
+	_rowStatistics = new Statistics[rows];
+	for (int row = 0; row < rows; row += 1) {
+	    _rowStatistics[row] = new Statistics();
+	}
+	_flippedRows = new int[64];
+	_flippedRowCount = 0;
+	_rowFlipped = new boolean[rows];
+
+    } // CountGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the grid.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the grid.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return contains(row, column) && (_states[index(row, column)] == ALIVE);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.  The counts are always exact, so this is just a lookup.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	if (!contains(row, column)) {
+	    return false;
+	}
+	int cell = index(row, column);
+	return _rule[_states[cell] * 9 + _counts[cell]] == ALIVE;
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return contains(row, column) && _ever[index(row, column)];
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if (!contains(row, column)) {
+	    Support.abort("Cannot make a cell alive outside of the grid at " +
+			  row +
+			  ", " +
+			  column);
+	}
+
+	int cell = index(row, column);
+	if (_states[cell] != ALIVE) {
+	    setState(cell, ALIVE);
+	    _rowStatistics[row].include(row, column);
+	    _changed = append(_changed, _changedCount, cell);
+	    _changedCount += 1;
+	}
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.  Cells
+     * outside of the grid are ignored.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if (contains(row, column)) {
+	    _ever[index(row, column)] = true;
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Look up the next state of every cell whose state or neighbor count
+     * changed in the last generation, and note those that will flip.
+     **/
+    public void evolve () {
+
+	_stamp += 1;
+	_flipCount = 0;
+	_evaluated = 0;
+
+	int stride = _stride;
+	for (int index = 0; index < _changedCount; index += 1) {
+
+	    int center = _changed[index];
+	    for (int dr = -stride; dr <= stride; dr += stride) {
+		for (int dc = -1; dc <= 1; dc += 1) {
+
+		    int cell = center + dr + dc;
+		    if (_stamps[cell] == _stamp) {
+			continue;
+		    }
+		    _stamps[cell] = _stamp;
+		    _evaluated += 1;
+
+		    byte state = _states[cell];
+		    byte next = _rule[state * 9 + _counts[cell]];
+		    if ((next != state) && isInside(cell)) {
+			_flips = append(_flips, _flipCount, cell);
+			_flips = append(_flips, _flipCount + 1, next);
+			_flipCount += 2;
+		    }
+
+		}
+	    }
+
+	}
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply the flips noted by <code>evolve()</code>, adjusting the neighbor
+     * counts around each one, counting the births and deaths in the
+     * statistics of each row, and telling the listener, if any.  Only the
+     * rows where cells flipped in the last generation have their births and
+     * deaths started again, and only those where cells flip in this one are
+     * settled, so that a quiet row costs nothing.
+     **/
+    public void advance () {
+
+	for (int index = 0; index < _flippedRowCount; index += 1) {
+	    int row = _flippedRows[index];
+	    _rowStatistics[row].startGeneration();
+	    _rowFlipped[row] = false;
+	}
+	_flippedRowCount = 0;
+
+	_changedCount = 0;
+	for (int index = 0; index < _flipCount; index += 2) {
+	    int cell = _flips[index];
+	    byte state = (byte)_flips[index + 1];
+	    if ((state == ALIVE) != (_states[cell] == ALIVE)) {
+		int row = cell / _stride - 1;
+		_rowStatistics[row].flip(row, cell % _stride - 1, state == ALIVE);
+		if (!_rowFlipped[row]) {
+		    _rowFlipped[row] = true;
+		    _flippedRows = append(_flippedRows, _flippedRowCount, row);
+		    _flippedRowCount += 1;
+		}
+		if (_listener != null) {
+		    _listener.flip(row, cell % _stride - 1, state == ALIVE);
+		}
+	    }
+	    setState(cell, state);
+	    _changed = append(_changed, _changedCount, cell);
+	    _changedCount += 1;
+	}
+	_flipCount = 0;
+
+	for (int index = 0; index < _flippedRowCount; index += 1) {
+	    _rowStatistics[_flippedRows[index]].settle(this);
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, which is kept up to date as cells
+     * flip.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, which is kept up to
+     * date as cells flip.  Dying cells are part of it, in their own states.
+     *
+     * @return The fingerprint of the grid.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells whose next state was looked up by the last
+     * <code>evolve()</code>: those that changed and their neighbors.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return _evaluated;
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, gathered from the
+     * statistics of the rows.
+     *
+     * @return The statistics of the grid.
+     **/
+    public Statistics getStatistics () {
+
+	Statistics statistics = new Statistics();
+	for (int row = 0; row < _rows; row += 1) {
+	    statistics.add(_rowStatistics[row]);
+	}
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as
+     * <code>advance()</code> applies it.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Change the state of a cell, adjusting its neighbors' counts if it
+     * became alive or stopped being alive.
+     *
+     * @param cell The index of the cell.
+     * @param state The new state.
+     **/
+    private void setState (int cell, byte state) {
+
+	int delta = 0;
+	if (state == ALIVE) {
+	    delta = 1;
+	    _ever[cell] = true;
+	} else if (_states[cell] == ALIVE) {
+	    delta = -1;
+	}
+	_fingerprint.change(cell / _stride - 1, cell % _stride - 1, _states[cell], state);
+	_states[cell] = state;
+
+	if (delta != 0) {
+	    int stride = _stride;
+	    _counts[cell - stride - 1] += delta;
+	    _counts[cell - stride] += delta;
+	    _counts[cell - stride + 1] += delta;
+	    _counts[cell - 1] += delta;
+	    _counts[cell + 1] += delta;
+	    _counts[cell + stride - 1] += delta;
+	    _counts[cell + stride] += delta;
+	    _counts[cell + stride + 1] += delta;
+	    _population += delta;
+	}
+
+    } // setState ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether coordinates fall within the grid.
+     **/
+    private boolean contains (int row, int column) {
+
+	return (row >= 0) && (row < _rows) && (column >= 0) && (column < _columns);
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether an array index lies inside the grid rather than on its
+     * border.
+     **/
+    private boolean isInside (int cell) {
+
+	int row = cell / _stride;
+	int column = cell % _stride;
+	return (row >= 1) && (row <= _rows) && (column >= 1) && (column <= _columns);
+
+    } // isInside ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Convert coordinates within the grid into an array index.
+     **/
+    private int index (int row, int column) {
+
+	return (row + 1) * _stride + (column + 1);
+
+    } // index ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append a value to a list, growing its array as needed.
+     *
+     * @param list The array holding the list.
+     * @param count The number of values in the list.
+     * @param value The value to append.
+     * @return The array now holding the list.
+     **/
+    private static int[] append (int[] list, int count, int value) {
+
+	if (count == list.length) {
+	    int[] longer = new int[list.length * 2];
+	    System.arraycopy(list, 0, longer, 0, count);
+	    list = longer;
+	}
+	list[count] = value;
+	return list;
+
+    } // append ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The state of a live cell.
+     **/
+    private static final byte ALIVE = 1;
+
+    /**
+     * The next state for each current state and live neighbor count.  Only
+     * live cells count as neighbors; the states beyond the live one are
+     * dying cells under a Generations rule.
+     **/
+    private final byte[] _rule;
+
+    /**
+     * The dimensions of the grid, and the length of a row in the arrays,
+     * including the border.
+     **/
+    private final int _rows;
+    private final int _columns;
+    private final int _stride;
+
+    /**
+     * The state, live neighbor count, and history of each cell.
+     **/
+    private final byte[] _states;
+    private final byte[] _counts;
+    private final boolean[] _ever;
+
+    /**
+     * For each cell, the stamp of the last generation in which it was
+     * evaluated, and the stamp of the current generation.
+     **/
+    private final int[] _stamps;
+    private int _stamp;
+
+    /**
+     * The cells that flipped in the last <code>advance()</code>.
+     **/
+    private int[] _changed;
+    private int _changedCount;
+
+    /**
+     * The flips calculated by <code>evolve()</code>, as pairs of cell index
+     * and new state.
+     **/
+    private int[] _flips;
+    private int _flipCount;
+
+    /**
+     * The number of cells looked up by the last <code>evolve()</code>.
+     **/
+    private long _evaluated;
+
+    /**
+     * The number of live cells.
+     **/
+    private long _population;
+
+    /**
+     * The fingerprint of the cells that are not dead.
+     **/
+    private final Fingerprint _fingerprint;
+
+    /**
+     * The statistics of the live cells of each row.
+     **/
+    private final Statistics[] _rowStatistics;
+
+    /**
+     * The rows where cells flipped in the last <code>advance()</code>, and
+     * whether each row is among them.
+     **/
+    private int[] _flippedRows;
+    private int _flippedRowCount;
+    private final boolean[] _rowFlipped;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CountGrid
+// =============================================================================
@@ -0,0 +1,212 @@
+// =============================================================================
+/**
+ * The <code>CycleDetector</code> class.  Watch the fingerprints of a universe
+ * from one generation to the next, and notice when one of them repeats the
+ * shape of an earlier one.  From then on the universe can only cycle: a
+ * repeat in place is a still life or an oscillator, and a repeat elsewhere is
+ * a spaceship.  Only the most recent generations are remembered, so a cycle
+ * is found only if its period fits within that window.
+ *
+ * <p>A universe with edges lets a spaceship run only until it reaches one,
+ * so there a spaceship is a statement about the present, not the future.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.HashMap;
+// =============================================================================
+
+
+
+// =============================================================================
+public class CycleDetector {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param window The number of most recent generations to remember.
+     **/
+    public CycleDetector (int window) {
+
+	if (window < 1) {
+	    Support.abort("ERROR: Cannot look back over " + window + " generations");
+	}
+
+	_shapes = new long[window];
+	_generations = new long[window];
+	_rowOffsets = new long[window];
+	_columnOffsets = new long[window];
+	_slots = new HashMap<Long, Integer>();
+	_recorded = 0;
+	_period = 0;
+
+    } // CycleDetector ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the fingerprint of a generation, and look for an earlier one of
+     * the same shape.
+     *
+     * @param generation The number of the generation.
+     * @param fingerprint The fingerprint of the generation.
+     * @return <code>true</code> if the generation repeats an earlier one.
+     **/
+    public boolean record (long generation, Fingerprint fingerprint) {
+
+	long shape = fingerprint.getShape();
+	long rowOffset = fingerprint.getRowOffset();
+	long columnOffset = fingerprint.getColumnOffset();
+
+	// The latest earlier generation of the same shape gives the period.
+	Integer earlier = _slots.get(shape);
+	if (earlier != null) {
+	    int slot = earlier;
+	    _start = _generations[slot];
+	    _period = generation - _start;
+	    _rowShift = rowOffset - _rowOffsets[slot];
+	    _columnShift = columnOffset - _columnOffsets[slot];
+	    _cellCount = fingerprint.getCellCount();
+	}
+
+	// Take the place of the oldest generation, if the window is full.
+	int slot = (int)(_recorded % _shapes.length);
+	if (_recorded >= _shapes.length) {
+	    Integer oldest = _slots.get(_shapes[slot]);
+	    if ((oldest != null) && (oldest == slot)) {
+		_slots.remove(_shapes[slot]);
+	    }
+	}
+	_shapes[slot] = shape;
+	_generations[slot] = generation;
+	_rowOffsets[slot] = rowOffset;
+	_columnOffsets[slot] = columnOffset;
+	_slots.put(shape, slot);
+	_recorded += 1;
+
+	return (earlier != null);
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of generations in the cycle found.
+     *
+     * @return The period, or 0 if no cycle has been found.
+     **/
+    public long getPeriod () {
+
+	return _period;
+
+    } // getPeriod ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the first generation of the cycle found.
+     *
+     * @return The generation at which the cycle began.
+     **/
+    public long getStart () {
+
+	return _start;
+
+    } // getStart ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cycle found moves the cells.
+     *
+     * @return <code>true</code> if the cycle is a spaceship.
+     **/
+    public boolean isMoving () {
+
+	return (_rowShift != 0) || (_columnShift != 0);
+
+    } // isMoving ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Describe the cycle found.
+     *
+     * @return A description of the cycle.
+     **/
+    public String toString () {
+
+	String kind;
+	if (_cellCount == 0) {
+	    kind = "dead";
+	} else if (isMoving()) {
+	    kind = "spaceship of period " + _period + " moving " + _rowShift +
+		" rows and " + _columnShift + " columns";
+	} else if (_period == 1) {
+	    kind = "still life";
+	} else {
+	    kind = "oscillator of period " + _period;
+	}
+	return kind + " since generation " + _start;
+
+    } // toString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The shape, generation, and offsets of each remembered generation, in a
+     * ring that is overwritten oldest first.
+     **/
+    private final long[] _shapes;
+    private final long[] _generations;
+    private final long[] _rowOffsets;
+    private final long[] _columnOffsets;
+
+    /**
+     * The slot in the ring of the latest generation of each shape.
+     **/
+    private final HashMap<Long, Integer> _slots;
+
+    /**
+     * The number of generations recorded.
+     **/
+    private long _recorded;
+
+    /**
+     * The cycle found: its first generation, its period, how far it moves
+     * the cells in each period, and how many cells it has.
+     **/
+    private long _start;
+    private long _period;
+    private long _rowShift;
+    private long _columnShift;
+    private long _cellCount;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CycleDetector
+// =============================================================================
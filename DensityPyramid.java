@@ -0,0 +1,320 @@
+// =============================================================================
+/**
+ * The <code>DensityPyramid</code> class.  The number of live cells in every
+ * square block of a universe, at several sizes of block: at level
+ * <code>k</code>, the blocks are <code>2<sup>k</sup></code> cells on a side.
+ * The display draws a universe zoomed out past one cell per pixel from the
+ * level whose blocks are the size of a pixel, so it never has to look at more
+ * blocks than there are pixels.
+ *
+ * <p>The pyramid is told of each cell that is born or dies, and adds or takes
+ * away one at every level, so keeping it up to date costs only the cells
+ * that flip, whatever the size of the universe.</p>
+ *
+ * <p>The blocks of each level are kept in square tiles of
+ * <code>TILE_SIZE</code> blocks on a side, each held in a
+ * <code>LongHashSet</code> for its level, so a hash entry is shared by a
+ * whole tile rather than taken by every block.  Only tiles in which some
+ * cell has been alive are kept.  Within a tile, the counts are packed into
+ * <code>long</code> words, each as wide as its level needs: a byte while a
+ * block holds no more than 64 cells, and wider as the blocks grow.  A count
+ * is kept one higher than the number of live cells, so that a block in which
+ * no cell has been alive holds zero.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class DensityPyramid implements FlipListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty pyramid.
+     *
+     * @param top The coarsest level to keep, at least 1.
+     **/
+    public DensityPyramid (int top) {
+
+	if (top < 1) {
+	    Support.abort("ERROR: Cannot build a density pyramid up to level " + top);
+	}
+
+	_top = top;
+	_tiles = new LongHashSet[top + 1];
+	_counts = new long[top + 1][][];
+	_widths = new int[top + 1];
+	_lastKey = new long[top + 1];
+	_lastTile = new int[top + 1];
+	for (int level = 1; level <= top; level += 1) {
+	    _tiles[level] = new LongHashSet(64);
+	    _counts[level] = new long[64][];
+	    _widths[level] = width(level);
+	    _lastTile[level] = -1;
+	}
+
+    } // DensityPyramid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count a cell that was born, or stop counting one that died, in every
+     * block that holds it.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born;
+     *              <code>false</code> if it died.
+     **/
+    public void flip (int row, int column, boolean alive) {
+
+	for (int level = 1; level <= _top; level += 1) {
+	    int blockRow = row >> level;
+	    int blockColumn = column >> level;
+	    long[] words = tile(level, blockRow >> TILE_BITS, blockColumn >> TILE_BITS);
+	    int width = _widths[level];
+	    int bit = (((blockRow & TILE_MASK) << TILE_BITS) | (blockColumn & TILE_MASK)) * width;
+	    int word = bit >>> 6;
+	    int shift = bit & 63;
+	    if (field(words[word], shift, width) == 0) {
+		words[word] += 1L << shift;
+	    }
+	    words[word] += (alive ? 1L : -1L) << shift;
+	}
+
+    } // flip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the tile of a level that holds a block, adding it if it is not
+     * kept yet.  Cells that flip together tend to lie close together, so the
+     * last tile found at each level is tried first.
+     **/
+    private long[] tile (int level, int tileRow, int tileColumn) {
+
+	long key = key(tileRow, tileColumn);
+	if ((_lastTile[level] >= 0) && (_lastKey[level] == key)) {
+	    return _counts[level][_lastTile[level]];
+	}
+
+	int index = _tiles[level].add(key);
+	if (index == _counts[level].length) {
+	    _counts[level] = Arrays.copyOf(_counts[level], 2 * index);
+	}
+	if (_counts[level][index] == null) {
+	    _counts[level][index] = new long[(TILE_SIZE * TILE_SIZE * _widths[level]) >>> 6];
+	}
+	_lastKey[level] = key;
+	_lastTile[level] = index;
+	return _counts[level][index];
+
+    } // tile ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every block of a level, within a range of blocks, in which some
+     * cell has been alive, either by looking up each tile in the range, when
+     * there are fewer of them than are kept, or else by walking the tiles
+     * kept.
+     *
+     * @param level The level.
+     * @param firstRow The first row of blocks to visit.
+     * @param firstColumn The first column of blocks to visit.
+     * @param rows The number of rows of blocks to visit.
+     * @param columns The number of columns of blocks to visit.
+     * @param visitor The visitor to hand each block and its count to.
+     **/
+    public void forEachBlock (int level, int firstRow, int firstColumn, int rows, int columns,
+			      BlockVisitor visitor) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    return;
+	}
+	long lastRow = (long)firstRow + rows - 1;
+	long lastColumn = (long)firstColumn + columns - 1;
+	int firstTileRow = firstRow >> TILE_BITS;
+	int firstTileColumn = firstColumn >> TILE_BITS;
+	int lastTileRow = (int)(lastRow >> TILE_BITS);
+	int lastTileColumn = (int)(lastColumn >> TILE_BITS);
+
+	LongHashSet tiles = _tiles[level];
+	long visible = ((long)lastTileRow - firstTileRow + 1) *
+	    ((long)lastTileColumn - firstTileColumn + 1);
+	if (visible < tiles.size()) {
+	    for (long tileRow = firstTileRow; tileRow <= lastTileRow; tileRow += 1) {
+		for (long tileColumn = firstTileColumn; tileColumn <= lastTileColumn;
+		     tileColumn += 1) {
+		    int index = tiles.indexOf(key((int)tileRow, (int)tileColumn));
+		    if (index >= 0) {
+			visitTile(level, index, firstRow, firstColumn, lastRow, lastColumn, visitor);
+		    }
+		}
+	    }
+	} else {
+	    for (int index = 0; index < tiles.size(); index += 1) {
+		long key = tiles.get(index);
+		int tileRow = (int)(key >> 32);
+		int tileColumn = (int)key;
+		if ((tileRow >= firstTileRow) && (tileRow <= lastTileRow) &&
+		    (tileColumn >= firstTileColumn) && (tileColumn <= lastTileColumn)) {
+		    visitTile(level, index, firstRow, firstColumn, lastRow, lastColumn, visitor);
+		}
+	    }
+	}
+
+    } // forEachBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit the blocks of one tile, within a range of blocks, in which some
+     * cell has been alive.
+     **/
+    private void visitTile (int level, int index, int firstRow, int firstColumn, long lastRow,
+			    long lastColumn, BlockVisitor visitor) {
+
+	long key = _tiles[level].get(index);
+	int top = (int)(key >> 32) << TILE_BITS;
+	int left = (int)key << TILE_BITS;
+	long[] words = _counts[level][index];
+	int width = _widths[level];
+	for (int line = 0; line < TILE_SIZE; line += 1) {
+	    int row = top + line;
+	    if ((row < firstRow) || (row > lastRow)) {
+		continue;
+	    }
+	    for (int place = 0; place < TILE_SIZE; place += 1) {
+		int column = left + place;
+		if ((column < firstColumn) || (column > lastColumn)) {
+		    continue;
+		}
+		int bit = ((line << TILE_BITS) | place) * width;
+		long count = field(words[bit >>> 6], bit & 63, width);
+		if (count > 0) {
+		    visitor.visit(row, column, count - 1);
+		}
+	    }
+	}
+
+    } // visitTile ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the coarsest level kept.
+     *
+     * @return The level.
+     **/
+    public int getTop () {
+
+	return _top;
+
+    } // getTop ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the number of bits in which to keep each count of a level: the
+     * narrowest of 8, 16, 32 and 64 that holds one more than the number of
+     * cells in a block.
+     **/
+    private static int width (int level) {
+
+	int width = 8;
+	while ((width < 64) && (2 * level + 1 > width)) {
+	    width *= 2;
+	}
+	return width;
+
+    } // width ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack a count from a word.
+     **/
+    private static long field (long word, int shift, int width) {
+
+	return (width == 64) ? word : (word >>> shift) & ((1L << width) - 1);
+
+    } // field ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make the key of a tile from its row and column.
+     **/
+    private static long key (int row, int column) {
+
+	return ((long)row << 32) | (column & 0xFFFFFFFFL);
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of blocks on a side of a tile, and its base-2 logarithm.
+     **/
+    private static final int TILE_BITS = 3;
+    private static final int TILE_SIZE = 1 << TILE_BITS;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    /**
+     * The coarsest level kept.
+     **/
+    private final int _top;
+
+    /**
+     * For each level from 1, the tiles in which some cell has been alive,
+     * the packed counts of each, by the tile's index, and the number of bits
+     * in each count.
+     **/
+    private final LongHashSet[] _tiles;
+    private final long[][][] _counts;
+    private final int[] _widths;
+
+    /**
+     * For each level, the key and the index of the tile last found.
+     **/
+    private final long[] _lastKey;
+    private final int[] _lastTile;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DensityPyramid
+// =============================================================================
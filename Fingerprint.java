@@ -0,0 +1,400 @@
+// =============================================================================
+/**
+ * The <code>Fingerprint</code> class.  A hash of a set of cells that is kept
+ * up to date one cell at a time, so that a universe can maintain it by
+ * touching only the cells that flip in a generation.  As in Zobrist hashing,
+ * each cell has a key, and the hash of a set is made from the keys of its
+ * members; here they are summed rather than XORed.
+ *
+ * <p>The key of the cell at <code>(row, column)</code> is
+ * <code>ROW_BASE<sup>row</sup> * COLUMN_BASE<sup>column</sup></code>, modulo
+ * 2<sup>64</sup>.  Moving every cell of a set by <code>(dr, dc)</code>
+ * therefore multiplies its hash by
+ * <code>ROW_BASE<sup>dr</sup> * COLUMN_BASE<sup>dc</sup></code>.  The sums of
+ * the row and of the column coordinates are kept as well, and the whole part
+ * of their means, which moves with the set, is divided back out.  What
+ * remains is a <i>shape</i> that is the same wherever the set is, so a
+ * spaceship is recognized as readily as an oscillator.</p>
+ *
+ * <p>For rules with more than two states, a cell's key is also multiplied by
+ * a key for its state, and every cell that is not dead is counted.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class Fingerprint {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create the fingerprint of an empty set.
+     **/
+    public Fingerprint () {
+
+	clear();
+
+    } // Fingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Forget every cell.
+     **/
+    public void clear () {
+
+	_count = 0;
+	_rowSum = 0;
+	_columnSum = 0;
+	_hash = 0;
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take on the cells of another fingerprint in place of this one's.
+     *
+     * @param other The fingerprint to copy.
+     **/
+    public void set (Fingerprint other) {
+
+	_count = other._count;
+	_rowSum = other._rowSum;
+	_columnSum = other._columnSum;
+	_hash = other._hash;
+
+    } // set ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add the cells of another fingerprint, which must hold none of the cells
+     * of this one.
+     *
+     * @param other The fingerprint to add.
+     **/
+    public void add (Fingerprint other) {
+
+	_count += other._count;
+	_rowSum += other._rowSum;
+	_columnSum += other._columnSum;
+	_hash += other._hash;
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take away the cells of another fingerprint, all of which must be among
+     * the cells of this one.
+     *
+     * @param other The fingerprint to take away.
+     **/
+    public void subtract (Fingerprint other) {
+
+	_count -= other._count;
+	_rowSum -= other._rowSum;
+	_columnSum -= other._columnSum;
+	_hash -= other._hash;
+
+    } // subtract ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that a cell of a two-state rule has flipped.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born;
+     *              <code>false</code> if it died.
+     **/
+    public void flip (int row, int column, boolean alive) {
+
+	long key = key(row, column);
+	if (alive) {
+	    _count += 1;
+	    _rowSum += row;
+	    _columnSum += column;
+	    _hash += key;
+	} else {
+	    _count -= 1;
+	    _rowSum -= row;
+	    _columnSum -= column;
+	    _hash -= key;
+	}
+
+    } // flip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that a cell has changed from one state to another, where state
+     * 0 is dead, 1 is alive, and any higher state is dying.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param from The state that the cell had.
+     * @param to The state that the cell has now.
+     **/
+    public void change (int row, int column, int from, int to) {
+
+	if (from == to) {
+	    return;
+	}
+	long key = key(row, column);
+	if (from == 0) {
+	    _count += 1;
+	    _rowSum += row;
+	    _columnSum += column;
+	} else if (to == 0) {
+	    _count -= 1;
+	    _rowSum -= row;
+	    _columnSum -= column;
+	}
+	_hash += key * (stateKey(to) - stateKey(from));
+
+    } // change ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that are not dead.
+     *
+     * @return The number of cells.
+     **/
+    public long getCellCount () {
+
+	return _count;
+
+    } // getCellCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the whole part of the mean row of the cells, which moves with
+     * them.
+     *
+     * @return The row offset of the cells, or 0 if there are none.
+     **/
+    public long getRowOffset () {
+
+	return (_count == 0) ? 0 : Math.floorDiv(_rowSum, _count);
+
+    } // getRowOffset ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the whole part of the mean column of the cells, which moves
+     * with them.
+     *
+     * @return The column offset of the cells, or 0 if there are none.
+     **/
+    public long getColumnOffset () {
+
+	return (_count == 0) ? 0 : Math.floorDiv(_columnSum, _count);
+
+    } // getColumnOffset ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a hash of the cells that is the same wherever they are.  The
+     * hash is moved back by the offsets, and then mixed with the number of
+     * cells and the fractional parts of their mean coordinates, which do not
+     * change as the cells move.
+     *
+     * @return The hash of the shape of the cells.
+     **/
+    public long getShape () {
+
+	if (_count == 0) {
+	    return 0;
+	}
+	long shape = _hash *
+	    power(ROW_INVERSE, getRowOffset()) *
+	    power(COLUMN_INVERSE, getColumnOffset());
+	shape = mix(shape + _count);
+	shape = mix(shape ^ Math.floorMod(_rowSum, _count));
+	shape = mix(shape ^ Math.floorMod(_columnSum, _count));
+	return shape;
+
+    } // getShape ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the key of a cell.  Keys of cells near the origin come from
+     * tables; others are computed.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return The key of the cell.
+     **/
+    static long key (int row, int column) {
+
+	long rowKey = ((row >= 0) && (row < TABLE_SIZE)) ?
+	    ROW_POWERS[row] : power(ROW_BASE, row);
+	long columnKey = ((column >= 0) && (column < TABLE_SIZE)) ?
+	    COLUMN_POWERS[column] : power(COLUMN_BASE, column);
+	return rowKey * columnKey;
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the key of a state.  The live state's key is 1, so that the
+     * keys of two-state rules need no multiplication.
+     **/
+    private static long stateKey (int state) {
+
+	return (state <= 1) ? state : (mix(state) | 1);
+
+    } // stateKey ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Raise a number to a power, modulo 2<sup>64</sup>.  A negative power is
+     * taken of the inverse, which only an odd number has.
+     **/
+    private static long power (long base, long exponent) {
+
+	if (exponent < 0) {
+	    base = inverse(base);
+	    exponent = -exponent;
+	}
+	long result = 1;
+	while (exponent != 0) {
+	    if ((exponent & 1) != 0) {
+		result *= base;
+	    }
+	    base *= base;
+	    exponent >>>= 1;
+	}
+	return result;
+
+    } // power ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the inverse of an odd number, modulo 2<sup>64</sup>, by Newton's
+     * method.  Each step doubles the number of correct low bits, starting
+     * from three.
+     **/
+    private static long inverse (long odd) {
+
+	long inverse = odd;
+	for (int step = 0; step < 5; step += 1) {
+	    inverse *= 2 - odd * inverse;
+	}
+	return inverse;
+
+    } // inverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Scramble the bits of a number.
+     **/
+    private static long mix (long value) {
+
+	value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+	value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+	return value ^ (value >>> 31);
+
+    } // mix ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tabulate the powers of a base.
+     **/
+    private static long[] powers (long base) {
+
+	long[] powers = new long[TABLE_SIZE];
+	long power = 1;
+	for (int exponent = 0; exponent < TABLE_SIZE; exponent += 1) {
+	    powers[exponent] = power;
+	    power *= base;
+	}
+	return powers;
+
+    } // powers ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The bases whose powers make the keys, which must be odd, and their
+     * inverses.
+     **/
+    private static final long ROW_BASE = 0x9E3779B97F4A7C15L;
+    private static final long COLUMN_BASE = 0xC2B2AE3D27D4EB4FL;
+    private static final long ROW_INVERSE = inverse(ROW_BASE);
+    private static final long COLUMN_INVERSE = inverse(COLUMN_BASE);
+
+    /**
+     * The tabulated powers of the bases.
+     **/
+    private static final int TABLE_SIZE = 1 << 14;
+    private static final long[] ROW_POWERS = powers(ROW_BASE);
+    private static final long[] COLUMN_POWERS = powers(COLUMN_BASE);
+
+    /**
+     * The number of cells, the sums of their coordinates, and the sum of
+     * their keys.
+     **/
+    private long _count;
+    private long _rowSum;
+    private long _columnSum;
+    private long _hash;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Fingerprint
+// =============================================================================
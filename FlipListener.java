@@ -0,0 +1,34 @@
+// =============================================================================
+/**
+ * A <code>FlipListener</code> is told of each cell that a
+ * <code>Universe</code> brings to life or kills as it moves from one
+ * generation to the next, so that whatever follows the universe can keep up
+ * with it at the cost of the cells that changed.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface FlipListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note one cell that flipped.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born;
+     *              <code>false</code> if it died.
+     **/
+    public void flip (int row, int column, boolean alive);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface FlipListener
+// =============================================================================
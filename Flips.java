@@ -0,0 +1,212 @@
+// =============================================================================
+/**
+ * The <code>Flips</code> class.  The cells that flipped in reaching one
+ * generation from another, as told to it by a universe, kept as two lists of
+ * keys, one of births and one of deaths.  The keys are made by
+ * <code>LiveCells</code>, so each list can be sorted into the order of the
+ * cells, by row and then by column, and the two merged in a single pass.
+ * Collecting them costs nothing beyond the cells that flipped, however
+ * large the universe is.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Flips implements FlipListener {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty list of flips.
+     **/
+    public Flips () {
+
+	_births = new long[1024];
+	_deaths = new long[1024];
+	_birthCount = 0;
+	_deathCount = 0;
+	_sorted = true;
+
+    } // Flips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note one cell that flipped.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born;
+     *              <code>false</code> if it died.
+     **/
+    public void flip (int row, int column, boolean alive) {
+
+	long key = LiveCells.key(row, column);
+	if (alive) {
+	    if (_birthCount == _births.length) {
+		_births = LiveCells.grow(_births);
+	    }
+	    _births[_birthCount++] = key;
+	} else {
+	    if (_deathCount == _deaths.length) {
+		_deaths = LiveCells.grow(_deaths);
+	    }
+	    _deaths[_deathCount++] = key;
+	}
+	_sorted = false;
+
+    } // flip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Forget every flip, to start collecting those of another generation.
+     **/
+    public void clear () {
+
+	_birthCount = 0;
+	_deathCount = 0;
+	_sorted = true;
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that flipped.
+     *
+     * @return The number of births and deaths.
+     **/
+    public long size () {
+
+	return (long)_birthCount + _deathCount;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that were born.
+     *
+     * @return The number of births.
+     **/
+    public long getBirths () {
+
+	return _birthCount;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that died.
+     *
+     * @return The number of deaths.
+     **/
+    public long getDeaths () {
+
+	return _deathCount;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell another listener of every flip, births first, in no particular
+     * order.
+     *
+     * @param listener The listener.
+     **/
+    public void forEach (FlipListener listener) {
+
+	for (int index = 0; index < _birthCount; index += 1) {
+	    listener.flip(LiveCells.row(_births[index]), LiveCells.column(_births[index]), true);
+	}
+	for (int index = 0; index < _deathCount; index += 1) {
+	    listener.flip(LiveCells.row(_deaths[index]), LiveCells.column(_deaths[index]), false);
+	}
+
+    } // forEach ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that flipped, born or died, in order by row and then
+     * by column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachInOrder (CellVisitor visitor) {
+
+	if (!_sorted) {
+	    Arrays.sort(_births, 0, _birthCount);
+	    Arrays.sort(_deaths, 0, _deathCount);
+	    _sorted = true;
+	}
+
+	// A cell is never both born and killed, so the lists never share a key.
+	int born = 0;
+	int died = 0;
+	while ((born < _birthCount) || (died < _deathCount)) {
+	    long key;
+	    if ((died == _deathCount) || ((born < _birthCount) && (_births[born] < _deaths[died]))) {
+		key = _births[born++];
+	    } else {
+		key = _deaths[died++];
+	    }
+	    visitor.visit(LiveCells.row(key), LiveCells.column(key));
+	}
+
+    } // forEachInOrder ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The keys of the cells born and of those that died, and how many of
+     * each there are.
+     **/
+    private long[] _births;
+    private long[] _deaths;
+    private int _birthCount;
+    private int _deathCount;
+
+    /**
+     * Whether both lists are known to be sorted.
+     **/
+    private boolean _sorted;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Flips
+// =============================================================================
@@ -0,0 +1,383 @@
+// =============================================================================
+/**
+ * The <code>Frame</code> class.  A snapshot of what the visible part of a
+ * universe looks like at one generation, taken by the simulation thread so
+ * that the display never has to read the universe while it changes.  Each
+ * visible cell has one of four looks: never alive, once alive, alive, or
+ * alive but about to die.  Zoomed out past one cell per pixel, each pixel is
+ * instead a block of cells, which looks as dense as it is.  A frame is reused
+ * for later generations and views, so it is only ever held by one thread at a
+ * time; a <code>FrameExchange</code> hands it from one to the other.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Frame {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty frame of a view.
+     *
+     * @param view The part of the universe shown, and how closely.
+     **/
+    public Frame (Viewport view) {
+
+	_view = view;
+	_looks = new byte[view.getRows() * view.getColumns()];
+	_sequence = 0;
+
+    } // Frame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the looks of the visible cells, or blocks of cells, from the
+     * current generation of a game.  Each cell shown whole looks alive or
+     * dying only if the game's next generation has been calculated; each
+     * block looks as dense as it is, by the game's density pyramid.
+     *
+     * @param game The game to take the looks from.
+     * @param view The part of the universe to show, and how closely.
+     * @param pyramid The live cells in each block of the game's current
+     *                generation, needed only at any level but 0.
+     * @param knowsNext Whether the game's next generation has been
+     *                  calculated, so that dying cells can be told apart.
+     **/
+    public void capture (Game game, Viewport view, DensityPyramid pyramid, boolean knowsNext) {
+
+	setView(view);
+	if (view.getLevel() > 0) {
+	    captureBlocks(pyramid);
+	} else if ((long)_looks.length < game.getPopulation()) {
+	    captureRegion(game, knowsNext);
+	} else {
+	    captureCells(game, knowsNext);
+	}
+	_generation = game.getGeneration();
+
+    } // capture ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the looks of the visible cells by visiting every cell that has
+     * been alive, which is cheaper than looking at every visible cell when
+     * few of them are alive.
+     **/
+    private void captureCells (Game game, boolean knowsNext) {
+
+	byte[] looks = _looks;
+	Arrays.fill(looks, NEVER_ALIVE);
+	game.forEachEverAliveCell((row, column) -> {
+		int index = index(row, column);
+		if (index >= 0) {
+		    looks[index] = EVER_ALIVE;
+		}
+	    });
+	game.forEachLiveCell((row, column) -> {
+		int index = index(row, column);
+		if (index >= 0) {
+		    looks[index] = (!knowsNext || game.willBeAlive(row, column)) ? ALIVE : DYING;
+		}
+	    });
+
+    } // captureCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the looks of the visible cells by looking at each of them, which
+     * is cheaper than visiting the live cells when the universe holds many
+     * more of them than are visible.
+     **/
+    private void captureRegion (Game game, boolean knowsNext) {
+
+	Arrays.fill(_looks, NEVER_ALIVE);
+	int firstRow = Math.max(0, _view.getFirstRow());
+	int lastRow = Math.min(game.getRows(), _view.getFirstRow() + _view.getRows());
+	int firstColumn = Math.max(0, _view.getFirstColumn());
+	int lastColumn = Math.min(game.getColumns(), _view.getFirstColumn() + _view.getColumns());
+	for (int row = firstRow; row < lastRow; row += 1) {
+	    for (int column = firstColumn; column < lastColumn; column += 1) {
+		byte look = NEVER_ALIVE;
+		if (game.isAlive(row, column)) {
+		    look = (!knowsNext || game.willBeAlive(row, column)) ? ALIVE : DYING;
+		} else if (game.wasEverAlive(row, column)) {
+		    look = EVER_ALIVE;
+		}
+		_looks[index(row, column)] = look;
+	    }
+	}
+
+    } // captureRegion ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the looks of the visible blocks from a density pyramid, which
+     * hands over only the blocks in which some cell has been alive.
+     **/
+    private void captureBlocks (DensityPyramid pyramid) {
+
+	int level = _view.getLevel();
+	int rows = _view.getRows();
+	int columns = _view.getColumns();
+	int firstRow = _view.getFirstRow() >> level;
+	int firstColumn = _view.getFirstColumn() >> level;
+
+	Arrays.fill(_looks, NEVER_ALIVE);
+	pyramid.forEachBlock(level, firstRow, firstColumn, rows, columns,
+			     (row, column, count) ->
+			     _looks[(row - firstRow) * columns + (column - firstColumn)] =
+			     density(count, level));
+
+    } // captureBlocks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the looks of the visible cells, or blocks of cells, from the live
+     * cells of a past generation.  Only whether a cell was alive is known,
+     * so every other cell looks never alive.
+     *
+     * @param pattern The live cells, in universe coordinates.
+     * @param generation The generation they were alive at.
+     * @param view The part of the universe to show, and how closely.
+     **/
+    public void capture (Pattern pattern, long generation, Viewport view) {
+
+	setView(view);
+	int[] cells = pattern.getCells();
+	int level = view.getLevel();
+	if (level == 0) {
+	    Arrays.fill(_looks, NEVER_ALIVE);
+	    for (int cell = 0; cell < pattern.getCellCount(); cell += 1) {
+		int index = index(cells[2 * cell], cells[2 * cell + 1]);
+		if (index >= 0) {
+		    _looks[index] = ALIVE;
+		}
+	    }
+	} else {
+	    int[] counts = new int[_looks.length];
+	    for (int cell = 0; cell < pattern.getCellCount(); cell += 1) {
+		int index = index(cells[2 * cell], cells[2 * cell + 1]);
+		if (index >= 0) {
+		    counts[index] += 1;
+		}
+	    }
+	    for (int index = 0; index < counts.length; index += 1) {
+		_looks[index] = (counts[index] == 0) ? NEVER_ALIVE : density(counts[index], level);
+	    }
+	}
+	_generation = generation;
+
+    } // capture ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Show another view, resizing the looks if it shows a different number
+     * of cells or blocks.
+     **/
+    private void setView (Viewport view) {
+
+	int size = view.getRows() * view.getColumns();
+	if (size != _looks.length) {
+	    _looks = new byte[size];
+	}
+	_view = view;
+
+    } // setView ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the look of a block from the number of live cells in it: one of
+     * <code>SHADES</code> shades from sparse to full, or once alive if no
+     * cell in it is alive now.
+     *
+     * @param count The number of live cells.
+     * @param level The level of the block.
+     * @return The look.
+     **/
+    static byte density (long count, int level) {
+
+	if (count <= 0) {
+	    return EVER_ALIVE;
+	}
+	long area = 1L << (2 * level);
+	return (byte)(DENSE + Math.min(SHADES - 1, (count * SHADES - 1) / area));
+
+    } // density ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the look of each visible cell, row by row.
+     *
+     * @return The looks, which the caller must not change.
+     **/
+    public byte[] getLooks () {
+
+	return _looks;
+
+    } // getLooks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the view captured.
+     *
+     * @return The part of the universe shown, and how closely.
+     **/
+    public Viewport getView () {
+
+	return _view;
+
+    } // getView ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the generation captured.
+     *
+     * @return The generation number.
+     **/
+    public long getGeneration () {
+
+	return _generation;
+
+    } // getGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of the publication that this frame belongs to.
+     *
+     * @return The sequence number, or 0 if the frame was never published.
+     **/
+    long getSequence () {
+
+	return _sequence;
+
+    } // getSequence ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Number the publication that this frame belongs to.
+     *
+     * @param sequence The sequence number.
+     **/
+    void setSequence (long sequence) {
+
+	_sequence = sequence;
+
+    } // setSequence ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the place of a universe cell among the visible cells, or of the
+     * block that holds it among the visible blocks.
+     *
+     * @return The index of the cell or block, or -1 if it is not visible.
+     **/
+    private int index (int row, int column) {
+
+	int y = row - _view.getFirstRow();
+	int x = column - _view.getFirstColumn();
+	if ((y < 0) || (x < 0)) {
+	    return -1;
+	}
+	y >>= _view.getLevel();
+	x >>= _view.getLevel();
+	if ((y >= _view.getRows()) || (x >= _view.getColumns())) {
+	    return -1;
+	}
+	return y * _view.getColumns() + x;
+
+    } // index ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The looks of a cell.
+     **/
+    public static final byte NEVER_ALIVE = 0;
+    public static final byte EVER_ALIVE = 1;
+    public static final byte ALIVE = 2;
+    public static final byte DYING = 3;
+
+    /**
+     * The looks of a block with live cells in it, from the sparsest,
+     * <code>DENSE</code>, through <code>SHADES</code> shades to the fullest.
+     **/
+    public static final byte DENSE = 4;
+    public static final int SHADES = 8;
+
+    /**
+     * The part of the universe shown, and how closely.
+     **/
+    private Viewport _view;
+
+    /**
+     * The look of each visible cell or block, row by row.
+     **/
+    private byte[] _looks;
+
+    /**
+     * The generation captured, and the publication the frame belongs to.
+     **/
+    private long _generation;
+    private long _sequence;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Frame
+// =============================================================================
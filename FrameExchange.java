@@ -0,0 +1,251 @@
+// =============================================================================
+/**
+ * The <code>FrameExchange</code> class.  Hands frames from the simulation
+ * thread to the display without locks, as a triple buffer.  Each of the
+ * three frames belongs to exactly one place at a time: the simulation's back
+ * frame, which it fills; the display's front frame, which it draws; and the
+ * ready frame between them, held in an atomic reference.  Publishing swaps
+ * the back frame with the ready one, and taking swaps the ready frame with
+ * the front one, so neither side ever sees a frame that the other is
+ * writing.  The display always takes the latest frame, and any published in
+ * between are simply written over.
+ *
+ * <p>Capturing a frame costs a pass over the live cells, so the simulation
+ * only needs to capture one once the display has taken the last.</p>
+ *
+ * <p>The exchange also carries the other way the view that the display
+ * wants, as the user pans and zooms.  A new view calls for a new frame at
+ * once, so the simulation thread can wait for one between generations, and
+ * that wait is the only place a lock is taken.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.atomic.AtomicReference;
+// =============================================================================
+
+
+
+// =============================================================================
+public class FrameExchange {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create the three frames of a view.
+     *
+     * @param view The part of the universe shown at first, and how closely.
+     **/
+    public FrameExchange (Viewport view) {
+
+	_back = new Frame(view);
+	_ready = new AtomicReference<Frame>(new Frame(view));
+	_front = new Frame(view);
+	_published = 0;
+	_taken = 0;
+	_view = view;
+	_publishedView = view;
+
+    } // FrameExchange ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the display has taken the last frame published, so
+     * that a new one would be seen.  Called by the simulation thread.
+     *
+     * @return <code>true</code> if a new frame is wanted.
+     **/
+    public boolean isWanted () {
+
+	return _taken == _published;
+
+    } // isWanted ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the frame for the simulation thread to fill.
+     *
+     * @return The back frame.
+     **/
+    public Frame getBackFrame () {
+
+	return _back;
+
+    } // getBackFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Publish the filled back frame as the latest one, and take the ready
+     * frame, which the display has either drawn or passed over, as the next
+     * back frame.  Called by the simulation thread.
+     **/
+    public void publish () {
+
+	_published += 1;
+	_publishedView = _back.getView();
+	_back.setSequence(_published);
+	_back = _ready.getAndSet(_back);
+
+    } // publish ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the latest frame published, if it is newer than the one the
+     * display already has.  Called by the display.
+     *
+     * @return The front frame, which stays the display's until the next
+     *         call.  It is blank if nothing has been published yet.
+     **/
+    public Frame takeLatest () {
+
+	// The ready frame is only older than the front one when the display
+	// put it there itself, by taking the front one.
+	if (_ready.get().getSequence() > _front.getSequence()) {
+	    _front = _ready.getAndSet(_front);
+	    _taken = _front.getSequence();
+	}
+	return _front;
+
+    } // takeLatest ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Ask for frames of another view.  Called by the display.
+     *
+     * @param view The part of the universe to show, and how closely.
+     **/
+    public void setView (Viewport view) {
+
+	synchronized (_viewLock) {
+	    _view = view;
+	    _viewLock.notifyAll();
+	}
+
+    } // setView ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the view the display wants.
+     *
+     * @return The part of the universe to show, and how closely.
+     **/
+    public Viewport getView () {
+
+	return _view;
+
+    } // getView ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the display wants another view than the last frame
+     * published showed.  Called by the simulation thread.
+     *
+     * @return <code>true</code> if the view has changed.
+     **/
+    public boolean isViewChanged () {
+
+	return _view != _publishedView;
+
+    } // isViewChanged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until the display wants another view than the last frame
+     * published showed, or until a time has passed.  Called by the
+     * simulation thread.
+     *
+     * @param millis The longest time to wait, in milliseconds.
+     * @return <code>true</code> if the view has changed.
+     **/
+    public boolean awaitView (long millis) {
+
+	long deadline = System.currentTimeMillis() + millis;
+	synchronized (_viewLock) {
+	    long left = millis;
+	    while (!isViewChanged() && (left > 0)) {
+		try {
+		    _viewLock.wait(left);
+		} catch (InterruptedException e) {
+		    break;
+		}
+		left = deadline - System.currentTimeMillis();
+	    }
+	}
+	return isViewChanged();
+
+    } // awaitView ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The frame the simulation thread fills, and the number of frames it has
+     * published.  Only the simulation thread uses them.
+     **/
+    private Frame _back;
+    private long _published;
+
+    /**
+     * The latest frame published and not yet taken, or else the one the
+     * display last gave back.
+     **/
+    private final AtomicReference<Frame> _ready;
+
+    /**
+     * The frame the display draws.  Only the display uses it.
+     **/
+    private Frame _front;
+
+    /**
+     * The sequence number of the frame the display last took.
+     **/
+    private volatile long _taken;
+
+    /**
+     * The view the display wants, the lock on which the simulation thread
+     * waits for it to change, and the view of the last frame published,
+     * which only the simulation thread uses.
+     **/
+    private volatile Viewport _view;
+    private final Object _viewLock = new Object();
+    private Viewport _publishedView;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FrameExchange
+// =============================================================================
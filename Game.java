@@ -12,18 +12,15 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.Scanner;
-import java.util.NoSuchElementException;
-import java.util.InputMismatchException;
 import java.io.File;
-import java.io.IOException;
-import java.io.FileNotFoundException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 // =============================================================================
 
 
 
 // =============================================================================
-public class Game{
+public class Game implements AutoCloseable {
 // =============================================================================
 
 
@@ -32,19 +29,29 @@ public class Game{
     // DATA MEMBERS
 
     /**
-     * The grid itself.
+     * The universe itself, held in whichever storage engine was chosen.
      **/
-    private Grid _grid;
+    private Universe _universe;
+
+    /**
+     * The optional settings given on the command line.
+     **/
+    private Options _options;
+
+    /**
+     * The rule by which the universe evolves.
+     **/
+    private Rule _rule;
 
     /**
      * The current generation number.
      **/
-    private int _generation;
+    private long _generation;
 
     /**
      * Number of generations to play
      **/
-    private int maxGenerations;
+    private long maxGenerations;
 
     /**
      * Window size of visualization
@@ -79,9 +86,87 @@ public class Game{
 	private UserInterface _userInterface;
 
     /**
-     * The <code>VisualInterface</code> that displays the game.
+     * The <code>VisualInterface</code> that displays the game, and the
+     * exchange through which it is handed frames.
      **/
     private VisualInterface _visualInterface;
+    private FrameExchange _frames;
+
+    /**
+     * The writer of checkpoints, if they are to be saved, and the generation
+     * at which the next is due.
+     **/
+    private Checkpointer _checkpointer;
+    private long _nextCheckpoint;
+
+    /**
+     * The universe's storage engine, if it is kept in a mapped file, which
+     * is then its own checkpoint.
+     **/
+    private MappedGrid _mapping;
+
+    /**
+     * The past generations kept for the display to step back through, if
+     * they are kept.
+     **/
+    private History _history;
+
+    /**
+     * The recording of each generation, if the run is recorded.
+     **/
+    private Recording _recording;
+
+    /**
+     * The live cells in each block of the universe, for showing it zoomed
+     * out past one cell per pixel, while it is.
+     **/
+    private DensityPyramid _pyramid;
+
+    /**
+     * The cells that flipped in reaching the next generation, if anything
+     * follows them.
+     **/
+    private Flips _flips;
+
+    /**
+     * The listener told of the cells that flipped in reaching each
+     * generation, if any.
+     **/
+    private FlipListener _listener;
+
+    /**
+     * The live cells of the last generation and of the current one, for
+     * finding the cells that flipped in a universe that does not report
+     * them.
+     **/
+    private LiveCells _previous;
+    private LiveCells _live;
+
+    /**
+     * The statistics of the current generation, if they have been gathered
+     * since the universe last advanced.
+     **/
+    private Statistics _statistics;
+
+    /**
+     * Whether births and deaths are counted from the cells that flip, for a
+     * universe that does not count them, and, if so, the number of cells
+     * born and the number that died in reaching the current generation.
+     **/
+    private boolean _countsFlips;
+    private long _births;
+    private long _deaths;
+
+    /**
+     * The detector watching for the universe to repeat itself, if it is
+     * watched.
+     **/
+    private CycleDetector _detector;
+
+    /**
+     * The latencies of each phase of the simulation loop, if they are timed.
+     **/
+    private PhaseTimings _timings;
     // =========================================================================
 
 
@@ -95,102 +180,565 @@ public class Game{
      * @param initialStatePath The file from which the initial state of the
      *                         universe is taken.
      **/
-    public Game (String initialStatePath,int maxGenerationsArg,boolean showGraphicsArg) {
+    public Game (String initialStatePath,long maxGenerationsArg,boolean showGraphicsArg) {
+
+	this(initialStatePath, maxGenerationsArg, showGraphicsArg, new Options());
+
+    }// Game()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Read the initial state of a game from a provided
+     * pathname, creating the universe and the specified live cells.
+     *
+     * @param initialStatePath The file from which the initial state of the
+     *                         universe is taken.
+     * @param options The optional settings, such as the storage engine.
+     **/
+    public Game (String initialStatePath,long maxGenerationsArg,boolean showGraphicsArg,Options options) {
 		this.showGraphics   = showGraphicsArg;
+		_options            = options;
 		this.maxGenerations = maxGenerationsArg;
-		_userInterface      = new UserInterface(this);
+		_userInterface      = new UserInterface(this, _options.output, _options.every,
+		                                        new FileOutputStream(FileDescriptor.out).getChannel());
+
+		_timings            = new PhaseTimings(_options.timings);
+		this.wait           = _options.wait;
+
+        // Read the initial state, creating a grid of cells as specified, or
+        // pick up where an earlier run left off.
+        String loadPath = (_options.resume != null) ? _options.resume :
+                          (_options.replay != null) ? _options.replay : initialStatePath;
+        LoadEvent load = new LoadEvent();
+        load.begin();
+        long start = _timings.start();
+        if ((_options.resume != null) && _options.engine.equals("mapped")) {
+            restoreMapping(_options.resume);
+        } else if (_options.resume != null) {
+            restoreSnapshot(_options.resume);
+        } else if (_options.replay != null) {
+            restoreRecording(_options.replay);
+        } else {
+            readInitialState(initialStatePath);
+
+            // Start counting at generation 0.
+            _generation = 0;
+        }
+        _timings.stop(PhaseTimings.LOAD, start);
+        load.end();
+        if (load.shouldCommit()) {
+            load.path = loadPath;
+            load.cells = _universe.getPopulation();
+            load.bytesRead = new File(loadPath).length();
+            load.commit();
+        }
 
-        // Read the initial state, creating a grid of cells as specified.
-        readInitialState(initialStatePath);
+        startPlaying();
+
+    }// Game()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Start a game, without graphics, from a pattern that
+     * is already in memory, such as a random soup.  Many such games may be
+     * played at once on different threads, as long as their output mode is
+     * <code>none</code>.
+     *
+     * @param pattern The initial state of the universe.
+     * @param maxGenerationsArg The number of generations to play.
+     * @param options The optional settings, such as the storage engine.
+     **/
+    public Game (Pattern pattern, long maxGenerationsArg, Options options) {
+		this.showGraphics   = false;
+		_options            = options;
+		this.maxGenerations = maxGenerationsArg;
+		_userInterface      = new UserInterface(this, _options.output, _options.every,
+		                                        new FileOutputStream(FileDescriptor.out).getChannel());
+
+		_timings            = new PhaseTimings(_options.timings);
+		this.wait           = _options.wait;
+
+        placePattern(pattern);
+        _generation = 0;
+
+        startPlaying();
+
+    }// Game()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set up what the game needs once its universe exists: checkpoints,
+     * watching for repeats, and the visual interface, as the options ask.
+     **/
+    private void startPlaying () {
+
+        // Save checkpoints along the way if asked to.  A mapped universe is
+        // checkpointed by syncing its own file instead.
+        if (_options.checkpoint > 0) {
+            if (_mapping == null) {
+                _checkpointer = new Checkpointer(_options.snapshot);
+            }
+            _nextCheckpoint = _generation + _options.checkpoint;
+        }
+
+        // Watch for the universe repeating itself if asked to.
+        if (!_options.detect.equals("off")) {
+            if (!_options.detect.equals("report") &&
+                !_options.detect.equals("stop") &&
+                !_options.detect.equals("skip")) {
+                Support.abort("ERROR: Unknown detect setting " + _options.detect);
+            }
+            _detector = new CycleDetector(_options.window);
+            _detector.record(_generation, _universe.getFingerprint());
+        }
+
+        // Keep past generations if asked to, from this one on.
+        if (_options.rewind > 0) {
+            _history = new History(_options.keyframe, (long)_options.rewind << 20,
+                                   getRows(), getColumns(), _rule);
+            _history.record(_generation, _universe, null);
+        }
+
+        // Record the run if asked to, from this generation on.
+        if (_options.record != null) {
+            _recording = Recording.create(_options.record, _universe, _generation, _rule,
+                                          _options.engine, _options.history,
+                                          _options.compress);
+        }
+
+		// Births and deaths, if they are shown, are counted from the
+		// cells that flip when the universe does not count them itself.
+		_countsFlips = _userInterface.showsChanges() &&
+			!_universe.getStatistics().countsChanges();
+
+		// Follow the cells that flip, if the display may need them, past
+		// generations are kept, the run is recorded, or births and deaths
+		// are counted from them.
+		if (showGraphics || (_history != null) || (_recording != null) ||
+		    _countsFlips) {
+			followFlips();
+		}
 
 		// Create visual interface if needed.
+        // A universe the size of the window is shown whole but for its margins;
+        // any other is shown as closely as it fits, and can be panned and zoomed.
         if (showGraphics) {
-            _visualInterface = new VisualInterface(this);
+            Viewport view;
+            if (_options.universe.equals("window")) {
+                int padding = offscreenMargins / 2;
+                view = new Viewport(getRows(), getColumns(), HEIGHT, WIDTH, 0, boxsize,
+                                    padding, padding);
+            } else {
+                view = Viewport.fit(getRows(), getColumns(), HEIGHT, WIDTH, boxsize);
+            }
+            _frames = new FrameExchange(view);
+            _visualInterface = new VisualInterface(this, _frames);
         }
 
-        // Start counting at generation 0.
-        _generation = 0;
+    } // startPlaying ()
+    // =========================================================================
 
-    }// Game()
+
+
+    // =========================================================================
+    /**
+     * Create the universe in the storage engine named by the options.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @return The new, entirely dead universe.
+     **/
+    private Universe createUniverse (int rows, int columns) {
+
+        return prepareEngine(createEngine(rows, columns));
+
+    } // createUniverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run a storage engine on several threads, and check it, as the options
+     * ask.
+     *
+     * @param universe The storage engine, entirely dead.
+     * @return The universe to play.
+     **/
+    private Universe prepareEngine (Universe universe) {
+
+        int rows = universe.getRows();
+        int columns = universe.getColumns();
+        if (_options.threads != 1) {
+            universe = parallelize(universe);
+        }
+        if (_options.verify) {
+            if (!_options.topology.equals(PaddedGrid.DEAD)) {
+                Support.abort("ERROR: Only a universe with dead edges can be verified");
+            }
+            universe = new CheckedUniverse(universe, new Grid(rows, columns, _rule));
+        }
+        return universe;
+
+    } // prepareEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run a storage engine on several threads.
+     *
+     * @param universe The engine to run.
+     * @return The engine, split into bands of rows.
+     **/
+    private Universe parallelize (Universe universe) {
+
+        // Only engines that can be split into bands of rows run in parallel.
+        // The incremental grid tracks changes across the whole grid, so it
+        // cannot be split even though its cells could be.
+        if (!(universe instanceof BandedUniverse) ||
+            (universe instanceof IncrementalGrid)) {
+            Support.abort("ERROR: The " + _options.engine +
+                          " engine cannot run on several threads");
+        }
+        // Empty bands may only be skipped if empty space stays empty, and if
+        // no band's neighbors lie across a wrapped edge.
+        return new ParallelUniverse((BandedUniverse)universe, _options.threads,
+                                    !_rule.hasBirthOnZero() &&
+                                    _options.topology.equals(PaddedGrid.DEAD));
+
+    } // parallelize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the engine must keep the cells ever alive.  Only the
+     * display shows them, and only checkpoints and recordings that include
+     * the history save them.
+     *
+     * @return <code>true</code> if the cells ever alive are needed.
+     **/
+    private boolean keepsEverAlive () {
+
+        return showGraphics ||
+            (_options.history && ((_options.checkpoint > 0) || (_options.record != null)));
+
+    } // keepsEverAlive ()
     // =========================================================================
 
 
 
     // =========================================================================
     /**
-     * Read the initial state file, creating a <code>Grid</code> and
-     * initializing it with <code>Cell</code>s as specified by that file.
+     * Indicate whether the engine named by the options holds cells at any
+     * coordinates, rather than only within the rows and columns of the
+     * universe.  A verified engine does not, since the grid it is checked
+     * against has edges.
+     *
+     * @return <code>true</code> if the engine has no edges.
+     **/
+    private boolean hasNoEdges () {
+
+        String engine = _options.engine;
+        return (engine.equals("sparse") || engine.equals("tiles") || engine.equals("hashlife")) &&
+            !_options.verify;
+
+    } // hasNoEdges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the storage engine named by the options.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @return The new, entirely dead universe.
+     **/
+    private Universe createEngine (int rows, int columns) {
+
+        String engine = _options.engine;
+        if (!engine.equals("padded") && !_options.topology.equals(PaddedGrid.DEAD)) {
+            Support.abort("ERROR: Only the padded engine can have a " +
+                          _options.topology + " topology");
+        }
+        if (engine.equals("grid")) {
+            return new Grid(rows, columns, _rule);
+        } else if (engine.equals("bitgrid")) {
+            return new BitGrid(rows, columns, _rule);
+        } else if (engine.equals("hashlife")) {
+            return new HashLife(rows, columns, _rule, _options.step, _options.nodes);
+        } else if (engine.equals("sparse")) {
+            return new SparseGrid(rows, columns, _rule, keepsEverAlive());
+        } else if (engine.equals("incremental")) {
+            return new IncrementalGrid(rows, columns, _rule);
+        } else if (engine.equals("counts")) {
+            return new CountGrid(rows, columns, _rule);
+        } else if (engine.equals("tiles")) {
+            return new TileGrid(rows, columns, _rule, keepsEverAlive());
+        } else if (engine.equals("padded")) {
+            return new PaddedGrid(rows, columns, _rule, _options.topology);
+        } else if (engine.equals("mapped")) {
+            _mapping = new MappedGrid(rows, columns, _rule, _options.mapping);
+            return _mapping;
+        } else if (engine.equals("vector")) {
+            return createVectorGrid(rows, columns);
+        }
+
+        Support.abort("ERROR: Unknown engine " + engine);
+        return null;
+
+    } // createEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the <code>vector</code> engine.  It is compiled separately,
+     * against the incubating Vector API, so it is looked up by name rather
+     * than referred to directly; the rest of the game still compiles and runs
+     * without it.
+     *
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @return The new, entirely dead universe.
+     **/
+    private Universe createVectorGrid (int rows, int columns) {
+
+        try {
+            Class<?> type = Class.forName("VectorGrid");
+            return (Universe)type.getConstructor(int.class, int.class, Rule.class)
+                .newInstance(rows, columns, _rule);
+        } catch (ClassNotFoundException | LinkageError e) {
+            Support.abort("ERROR: The vector engine is not available.  " +
+                          "Compile vector/VectorGrid.java and run with " +
+                          "--add-modules jdk.incubator.vector");
+        } catch (ReflectiveOperationException e) {
+            Support.abort("ERROR: Could not create the vector engine: " +
+                          e.getCause());
+        }
+        return null;
+
+    } // createVectorGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the initial state file, creating the universe and
+     * initializing its live cells as specified by that file.
      *
      * @param initialStatePath The file from which the initial state of the
      *                         universe is taken.
      **/
     private void readInitialState (String initialStatePath) {
 
-        // Create the reader for this file.
-        Scanner reader = null;
-        try {
-            reader = new Scanner(new File(initialStatePath));
-        } catch (FileNotFoundException e) {
-            Support.abort("ERROR: File not found: " + initialStatePath);
+        placePattern(PatternReader.read(initialStatePath));
+    }// readInitialState ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the universe for a pattern, and bring its cells to life.
+     *
+     * @param pattern The initial state of the universe.
+     **/
+    private void placePattern (Pattern pattern) {
+
+        chooseRule(pattern.getRule());
+
+        // Cells too far apart to move into a universe keep their own
+        // coordinates, which only an engine without edges can hold.
+        if (pattern.isOversized()) {
+            if (!hasNoEdges()) {
+                Support.abort("ERROR: The pattern spans " + pattern.getRowSpan() +
+                              " rows and " + pattern.getColumnSpan() +
+                              " columns, too many for the " + _options.engine + " engine" +
+                              (_options.verify ? " to verify" : ""));
+            }
+            placeUniverse(pattern.getRows(), pattern.getColumns());
+        } else {
+            int[] offset = placeUniverse(pattern.getRows(), pattern.getColumns());
+            pattern.translate(offset[0], offset[1]);
         }
+        _universe.makeAllAlive(pattern.getCells(), pattern.getCellCount());
 
-        int rows    = -1;
-        int columns = -1;
+    } // placePattern ()
+    // =========================================================================
 
-        // Dimensions to be used with graphics mode
-        int graphicsRows = HEIGHT/(boxsize);
-        int graphicsColumns = WIDTH/(boxsize);
 
-        // Read the first line, which contains the dimensions of the grid for nographics mode.
-        try {
-            rows    = reader.nextInt();
-            columns = reader.nextInt();
-        } catch (InputMismatchException e) {
-            Support.abort("ERROR: Invalid dimensions at line 1");
+
+    // =========================================================================
+    /**
+     * Read a snapshot saved by an earlier run, creating the universe and
+     * restoring its cells and its generation.
+     *
+     * @param snapshotPath The snapshot file.
+     **/
+    private void restoreSnapshot (String snapshotPath) {
+
+        Snapshot snapshot = Snapshot.open(snapshotPath);
+        chooseRule(snapshot.getRule());
+
+        int[] offset = placeUniverse(snapshot.getRows(), snapshot.getColumns());
+        snapshot.restore(_universe, offset[0], offset[1]);
+        _generation = snapshot.getGeneration();
+
+    } // restoreSnapshot ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Open a recording made by an earlier run, to play it back in place of
+     * calculating the generations: the universe starts from the recording's
+     * snapshot and reads each generation after it from the recording.  The
+     * game stops where the recording does.
+     *
+     * @param recordingPath The recording file.
+     **/
+    private void restoreRecording (String recordingPath) {
+
+        if (_options.threads != 1) {
+            Support.abort("ERROR: A recording cannot be played back on several threads");
         }
+        if (_options.detect.equals("skip")) {
+            Support.abort("ERROR: A recording cannot be played back skipping ahead");
+        }
+        Recording recording = Recording.open(recordingPath);
+        Snapshot snapshot = recording.getSnapshot();
+        chooseRule(snapshot.getRule());
+
+        int[] place = placement(snapshot.getRows(), snapshot.getColumns());
+        _universe = prepareEngine(new ReplayGrid(recording, place[0], place[1],
+                                                 place[2], place[3]));
+        snapshot.restore(_universe, place[2], place[3]);
+        _generation = snapshot.getGeneration();
+        maxGenerations = Math.min(maxGenerations, recording.getLastGeneration());
+
+    } // restoreRecording ()
+    // =========================================================================
 
 
-        // Create a Grid with these dimensions
-        // For graphics mode the grid size depends on window size and not on dimensions specified in first line of init file
-        if(showGraphics) {
-            _grid = new Grid(graphicsRows+offscreenMargins, graphicsColumns+offscreenMargins);
+
+    // =========================================================================
+    /**
+     * Reopen the file of a mapped universe synced by an earlier run, which
+     * holds the universe's cells, its rule, and its generation.  The cells
+     * are used where they are, so they cannot be checked against a plain
+     * grid, which would have to start from the same cells.
+     *
+     * @param mappingPath The mapped file.
+     **/
+    private void restoreMapping (String mappingPath) {
+
+        if (_options.verify) {
+            Support.abort("ERROR: A resumed mapped universe cannot be verified");
         }
-        else {
-            _grid = new Grid(rows, columns);
+        _mapping = MappedGrid.open(mappingPath);
+        _rule = _mapping.getRule();
+        _universe = prepareEngine(_mapping);
+        _generation = _mapping.getGeneration();
+
+    } // restoreMapping ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the rule by which the universe evolves.
+     *
+     * @param ruleText The rule named by the initial state, or
+     *                 <code>null</code> if it names none.
+     **/
+    private void chooseRule (String ruleText) {
+
+        // The initial state may name a rule, but one given on the command
+        // line takes precedence.
+        if (_options.rule != null) {
+            ruleText = _options.rule;
         }
+        _rule = (ruleText == null) ? Rule.CONWAY : Rule.parse(ruleText);
 
-        // Read coordinates for initially live cells until the end-of-file is
-        // reached.
-        int lineNumber = 2;
-        while (true) {
-
-            int row = -1;
-            int col = -1;
-            try {
-            row = reader.nextInt();
-            col = reader.nextInt();
-            } catch (InputMismatchException e) {
-            Support.abort("ERROR: From initial state file, " +
-                      "could not read coordinates at line " +
-                      lineNumber);
-            } catch (NoSuchElementException e) {
-            break;
-            }
+    } // chooseRule ()
+    // =========================================================================
 
-            System.out.printf("DEBUG: Setting initially live cell at " + row + ", " + col + "\n");
 
-            // Set the cells to be alive at the center of the screen for graphics mode
-            if (showGraphics) {
-                _grid.getCell((graphicsRows + offscreenMargins - rows) / 2 + row, (graphicsColumns + offscreenMargins - columns) / 2 + col).makeAlive();
-            }
 
-            // Set the cell to be alive at coordinates specified by init file for nographics mode
-            else{
-                _grid.getCell(row,col).makeAlive();
-            }
-            lineNumber += 1;
+    // =========================================================================
+    /**
+     * Create the universe for an initial state of the given size.
+     *
+     * @param rows The number of rows in the initial state.
+     * @param columns The number of columns in the initial state.
+     * @return The amount to move each initial cell down and right, to place
+     *         it in the universe.
+     **/
+    private int[] placeUniverse (int rows, int columns) {
+
+        int[] place = placement(rows, columns);
+        _universe = createUniverse(place[0], place[1]);
+        return new int[] { place[2], place[3] };
+
+    } // placeUniverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the size of the universe for an initial state of the given size.
+     *
+     * @param rows The number of rows in the initial state.
+     * @param columns The number of columns in the initial state.
+     * @return The number of rows and columns in the universe, and then the
+     *         amount to move each initial cell down and right, to place it
+     *         in the universe.
+     **/
+    private int[] placement (int rows, int columns) {
+
+        // Dimensions to be used with graphics mode
+        int graphicsRows = HEIGHT/(boxsize);
+        int graphicsColumns = WIDTH/(boxsize);
+
+        if (!_options.universe.equals("window") && !_options.universe.equals("file")) {
+            Support.abort("ERROR: Unknown universe setting " + _options.universe);
         }
-    }// readInitialState ()
+
+        // Create a Grid with these dimensions
+        // For graphics mode the grid size depends on window size and not on dimensions specified in first line of init file,
+        // unless the options ask for the file's size
+        if(showGraphics && _options.universe.equals("window")) {
+
+            // Set the cells to be alive at the center of the screen for graphics mode
+            return new int[] { graphicsRows + offscreenMargins, graphicsColumns + offscreenMargins,
+                               (graphicsRows + offscreenMargins - rows) / 2,
+                               (graphicsColumns + offscreenMargins - columns) / 2 };
+        }
+        else {
+            return new int[] { rows, columns, 0, 0 };
+        }
+
+    } // placement ()
     // =========================================================================
 
 
@@ -198,9 +746,9 @@ public class Game{
     // =========================================================================
     /**
      * Evolve a game of Life through its generations, emitting the state of the
-     * game at each generation.  Evolution will continue until the universe
-     * becomes static or until the given maximum number of generations is
-     * reached.
+     * game at each generation.  Evolution will continue until the given
+     * maximum number of generations is reached, or, if the options ask for
+     * it, until the universe is found to repeat itself.
      *
      * @param generations The number of generations to evolve.
      **/
@@ -209,28 +757,330 @@ public class Game{
 		
 		while(_generation < maxGenerations)
 		{
-			evolve();
-			//System.out.println("evolved");
-			// Wait before showing the next frame of visualization.
-			try{
-				Thread.sleep(wait);
+			if (!step()) {
+				break;
 			}
-			catch(InterruptedException e){}
+		} // evolution loop
 
-            // If in graphics mode, draw the current stage.
-			if(showGraphics)_visualInterface.repaint();
+		// Display the final stage, if only that is wanted.
+		_userInterface.displayFinal();
+
+		// Let the last checkpoint finish writing.
+		if (_checkpointer != null) {
+			_checkpointer.close();
+		}
+
+		// Write the rest of the recording.
+		if (_recording != null) {
+			_recording.close();
+		}
+
+		// Leave a mapped universe's file where it can be resumed from.
+		if (_mapping != null) {
+			_mapping.sync(_generation);
+		}
+
+		// Summarize how long each phase took, if it was timed.
+		_timings.print(System.err);
+
+		// Let the universe's workers go.  Its cells can still be read, so
+		// the display may go on showing them.
+		close();
+
+		// Keep showing the final stage, in whatever view the display
+		// asks for, until closing the window ends the program.
+		if (showGraphics) {
+			publishFrame(false);
+			while (true) {
+				if (_frames.awaitView(1000)) {
+					publishFrame(false);
+				}
+			}
+		}
+	} // play ()
+    // =========================================================================
 
-			// Display the current stage.
-			_userInterface.display();
 
-			// Advance to the next stage.
-			
-			advance();
-			//System.out.println("advanced");
-            // Increment the generation counter
-            _generation+=1;
-		} // evolution loop
-	} // play ()
+
+    // =========================================================================
+    /**
+     * Let go of the universe's workers, if it runs on several threads, once
+     * the game is over.  Its cells can still be read, but it cannot be
+     * evolved again.  A game that is stepped rather than played must be
+     * closed by whoever steps it.
+     **/
+    public void close () {
+
+        _universe.close();
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Evolve the game by one step, which is one generation for most engines,
+     * displaying it and saving or watching it as the options ask.
+     *
+     * @return <code>false</code> if the universe was found to repeat itself
+     *         and the options ask to stop there.
+     **/
+	public boolean step () {
+
+		// Keep an engine that jumps several generations at once from
+		// jumping past the last one asked for.
+		if (_generation < maxGenerations) {
+			_universe.limitStep(maxGenerations - _generation);
+		}
+
+		// Each phase is timed, and reported to a flight recording if
+		// one is running.
+		PhaseEvent event = new PhaseEvent();
+		event.begin();
+		long start = _timings.start();
+		evolve();
+		//System.out.println("evolved");
+		endPhase(event, PhaseTimings.EVOLVE, start);
+
+		// Wait between generations, if asked to.  The display no longer
+		// needs the time: it draws on its own thread.
+		// While waiting, show the display any other view it asks for.
+		if (wait > 0) {
+			event = new PhaseEvent();
+			event.begin();
+			start = _timings.start();
+			if (showGraphics) {
+				long deadline = System.currentTimeMillis() + wait;
+				for (long left = wait; left > 0; left = deadline - System.currentTimeMillis()) {
+					if (_frames.awaitView(left)) {
+						publishFrame(true);
+					}
+				}
+			} else {
+				try{
+					Thread.sleep(wait);
+				}
+				catch(InterruptedException e){}
+			}
+			endPhase(event, PhaseTimings.SLEEP, start);
+		}
+
+        // If in graphics mode, hand the current stage to the display, but
+        // only once it has taken the last one or asked for another view, or
+        // if this is the last.
+		if(showGraphics &&
+		   (_frames.isWanted() || _frames.isViewChanged() ||
+		    (_generation + _universe.getGenerationsPerStep() >= maxGenerations))) {
+			event = new PhaseEvent();
+			event.begin();
+			start = _timings.start();
+			publishFrame(true);
+			endPhase(event, PhaseTimings.REPAINT, start);
+		}
+
+		// Display the current stage.
+		event = new PhaseEvent();
+		event.begin();
+		start = _timings.start();
+		_userInterface.display();
+		endPhase(event, PhaseTimings.DISPLAY, start);
+
+		// Advance to the next stage.
+		event = new PhaseEvent();
+		event.begin();
+		start = _timings.start();
+		advance();
+		//System.out.println("advanced");
+		endPhase(event, PhaseTimings.ADVANCE, start);
+        // Increment the generation counter, which may jump several
+        // generations at once for some engines.
+        _generation+=_universe.getGenerationsPerStep();
+
+        // Hand the cells that flipped to whatever follows them, such as
+        // the history of past generations and the recording of the run.
+        if (_flips != null) {
+            handOnFlips();
+        }
+
+        // Save a checkpoint if one is due.
+        if ((_options.checkpoint > 0) && (_generation >= _nextCheckpoint)) {
+            if (_mapping != null) {
+                _mapping.sync(_generation);
+            } else {
+                _checkpointer.save(Snapshot.capture(_universe, _generation, _rule,
+                                                    _options.engine, _options.history));
+            }
+            _nextCheckpoint = _generation + _options.checkpoint;
+        }
+
+        // Report the universe repeating itself, and then stop, skip
+        // ahead, or just stop watching, as the options ask.
+        if ((_detector != null) &&
+            _detector.record(_generation, _universe.getFingerprint())) {
+            _userInterface.displayCycle(_detector);
+            if (_options.detect.equals("stop") ||
+                (_options.detect.equals("skip") && _detector.isMoving())) {
+                return false;
+            }
+            if (_options.detect.equals("skip")) {
+                long period = _detector.getPeriod();
+                _generation += ((maxGenerations - _generation) / period) * period;
+            }
+            _detector = null;
+        }
+
+		return true;
+	} // step ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Capture the current stage, in the view the display wants, and publish
+     * it to the display.  Only this thread reads the universe; the display
+     * only ever reads frames.
+     *
+     * @param knowsNext Whether the next stage has been calculated.
+     **/
+    private void publishFrame (boolean knowsNext) {
+
+	// Blocks of cells are shown from the density pyramid, which is only
+	// kept while it is needed.  Once built from the live cells, it is kept
+	// up to date by the cells that flip.
+	Viewport view = _frames.getView();
+	if (view.getLevel() == 0) {
+	    _pyramid = null;
+	} else if (_pyramid == null) {
+	    DensityPyramid pyramid = new DensityPyramid(view.getMaxLevel());
+	    _universe.forEachLiveCell((row, column) -> pyramid.flip(row, column, true));
+	    _pyramid = pyramid;
+	}
+
+	Frame frame = _frames.getBackFrame();
+	frame.capture(this, view, _pyramid, knowsNext);
+	_frames.publish();
+
+    } // publishFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start following the cells that flip, which the universe reports as it
+     * evolves and advances if it can.  If it cannot, they are found by
+     * comparing the live cells of each generation with those of the one
+     * before.
+     **/
+    private void followFlips () {
+
+	_flips = new Flips();
+	if (!_universe.setFlipListener(_flips)) {
+	    _previous = new LiveCells();
+	    _live = new LiveCells();
+	    _previous.gather(_universe::forEachLiveCell);
+	}
+
+    } // followFlips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of the cells that flip in reaching each generation from
+     * now on, once the game has stepped to it.
+     *
+     * @param listener The listener.
+     **/
+    public void followFlips (FlipListener listener) {
+
+	_listener = listener;
+	if (_flips == null) {
+	    followFlips();
+	}
+
+    } // followFlips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand the cells that flipped in reaching the current generation to
+     * whatever follows them, and start collecting those of the next.
+     **/
+    private void handOnFlips () {
+
+	if (_previous != null) {
+	    _live.gather(_universe::forEachLiveCell);
+	    _live.forEachFlip(_previous,
+			      (row, column) -> _flips.flip(row, column, true),
+			      (row, column) -> _flips.flip(row, column, false));
+	    LiveCells swap = _previous;
+	    _previous = _live;
+	    _live = swap;
+	}
+
+	if (_countsFlips) {
+	    _births = _flips.getBirths();
+	    _deaths = _flips.getDeaths();
+	    if (_statistics != null) {
+		_statistics.setChanges(_births, _deaths);
+	    }
+	}
+	if (_pyramid != null) {
+	    _flips.forEach(_pyramid);
+	}
+	if (_listener != null) {
+	    _flips.forEach(_listener);
+	}
+	if (_history != null) {
+	    _history.record(_generation, _universe, _flips);
+	}
+	if (_recording != null) {
+	    _recording.record(_generation, _flips);
+	}
+	_flips.clear();
+
+    } // handOnFlips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Finish timing a phase of the simulation loop, and fill in and commit its
+     * flight recorder event if a recording wants it.  The counts are only
+     * gathered for an event that will be committed.
+     *
+     * @param event The event begun with the phase.
+     * @param phase The phase, such as <code>PhaseTimings.EVOLVE</code>.
+     * @param start The time at which the phase was started.
+     **/
+    private void endPhase (PhaseEvent event, int phase, long start) {
+
+	_timings.stop(phase, start);
+	event.end();
+	if (!event.shouldCommit()) {
+	    return;
+	}
+
+	event.phase = PhaseTimings.name(phase);
+	event.generation = _generation;
+	if (phase == PhaseTimings.EVOLVE) {
+	    event.cellsEvaluated = _universe.getCellsEvaluated();
+	} else if (phase == PhaseTimings.DISPLAY) {
+	    event.bytesWritten = _userInterface.getBytesWritten();
+	} else if (phase == PhaseTimings.ADVANCE) {
+	    Statistics statistics = getStatistics();
+	    event.cellsChanged = statistics.getBirths() + statistics.getDeaths();
+	}
+	event.commit();
+
+    } // endPhase ()
     // =========================================================================
 
 
@@ -241,13 +1091,9 @@ public class Game{
      * the next.
      **/
     public void evolve () {
-		
-        //WRITE ME
-    	for(int iteratingRow = 0; iteratingRow < getRows(); iteratingRow++) {
-    		for (int iteratingCol = 0; iteratingCol < getColumns(); iteratingCol++) {
-    			this.getCell(iteratingRow, iteratingCol).evolve();
-    		}
-    	}
+
+	_universe.evolve();
+
 	} // evolve ()
     // =========================================================================
 
@@ -259,12 +1105,9 @@ public class Game{
      **/
 	public void advance(){
 
-		//WRITE ME
-		for(int iteratingRow = 0; iteratingRow < getRows(); iteratingRow++) {
-    		for (int iteratingCol = 0; iteratingCol < getColumns(); iteratingCol++) {
-    			this.getCell(iteratingRow, iteratingCol).advance();
-    		}
-    	}
+	_universe.advance();
+	_statistics = null;
+
 	} // advance ()
     // =========================================================================
 
@@ -276,7 +1119,7 @@ public class Game{
      *
      * @return The current generation number for this universe.
      **/
-    public int getGeneration () {
+    public long getGeneration () {
 
 	return _generation;
 
@@ -285,29 +1128,196 @@ public class Game{
 
 
 
+    // =========================================================================
+    /**
+     * Indicate whether past generations are kept, so that they can be
+     * recalled.
+     *
+     * @return <code>true</code> if past generations are kept.
+     **/
+    public boolean keepsHistory () {
+
+	return _history != null;
+
+    } // keepsHistory ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Recall the live cells of a past generation.  Recalling costs at most
+     * the work of replaying one keyframe's worth of changes, however far back
+     * the generation is.  A generation that the game stepped over, as when
+     * skipping ahead past a repeat, was never played, so it cannot be
+     * recalled.  This may be called from any thread.
+     *
+     * @param generation The generation to recall.
+     * @return The live cells, or <code>null</code> if past generations are
+     *         not kept, or this one has not been reached, was stepped over,
+     *         or is no longer kept.
+     **/
+    public Pattern recall (long generation) {
+
+	return (_history == null) ? null : _history.recall(generation);
+
+    } // recall ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the earliest generation that can still be recalled, although
+     * some later ones may have been dropped to stay within the memory
+     * allowed.
+     *
+     * @return The generation, or -1 if past generations are not kept.
+     **/
+    public long getEarliestKept () {
+
+	return (_history == null) ? -1 : _history.getEarliest();
+
+    } // getEarliestKept ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Provide the number of live cells.
      *
      * @return The number of live cells in the current universe.
      **/
-    public int getPopulation () {
-        
-        //WRITE ME
-    	int population = 0;
-    	for(int iteratingRow = 0; iteratingRow < getRows(); iteratingRow++) {
-    		for (int iteratingCol = 0; iteratingCol < getColumns(); iteratingCol++) {
-    			if (getCell(iteratingRow, iteratingCol).isAlive() == true) {
-    				population++;
-    			}
-    		}
-    	}
-    	return population;
+    public long getPopulation () {
+
+	return _universe.getPopulation();
+
     } // getPopulation()
     // =========================================================================
 
 
 
+    // =========================================================================
+    /**
+     * Provide the fingerprint of the current generation.
+     *
+     * @return The fingerprint of the universe.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _universe.getFingerprint();
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation: the population, the
+     * births and deaths that led to it, and the box around the live cells.
+     * Most engines keep these up to date as cells flip, so gathering them
+     * costs a pass over the rows rather than over every cell.  For an engine
+     * that does not count births and deaths, they are only known if the user
+     * interface shows them, when they are counted from the cells that flip.
+     *
+     * @return The statistics of the current generation.
+     **/
+    public Statistics getStatistics () {
+
+	if (_statistics == null) {
+	    _statistics = _universe.getStatistics();
+	    if (!_statistics.countsChanges()) {
+		_statistics.setChanges(_births, _deaths);
+	    }
+	}
+	return _statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that came to life in reaching the current
+     * generation.
+     *
+     * @return The number of births.
+     **/
+    public long getBirths () {
+
+	return getStatistics().getBirths();
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that died in reaching the current
+     * generation.
+     *
+     * @return The number of deaths.
+     **/
+    public long getDeaths () {
+
+	return getStatistics().getDeaths();
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell of this universe, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	_universe.forEachLiveCell(visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell of this universe that has ever been alive, in order by
+     * row and then by column.
+     *
+     * @param visitor The visitor to hand each such cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	_universe.forEachEverAliveCell(visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule by which the universe evolves.
+     *
+     * @return The rule.
+     **/
+    public Rule getRule () {
+
+	return _rule;
+
+    } // getRule()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Provide the number of rows in the universe.
@@ -316,7 +1326,7 @@ public class Game{
      **/
     public int getRows () {
 
-	return _grid.getRows();
+	return _universe.getRows();
 
     } // getRows()
     // =========================================================================
@@ -331,26 +1341,91 @@ public class Game{
      **/
     public int getColumns () {
 
-	return _grid.getColumns();
+	return _universe.getColumns();
 
     } // getColumns()
     // =========================================================================
 
     // =========================================================================
     /**
-     * Provide direct access to a <code>Cell</code> from this universe.
+     * Provide direct access to a <code>Cell</code> from this universe.  Only
+     * the <code>grid</code> engine keeps <code>Cell</code> objects.
      *
      * @param row The row coordinate of the <code>Cell</code>.
      * @param column The column coordinate of the <code>Cell</code>.
+     * @return The <code>Cell</code>, or <code>null</code> if the coordinates
+     *         are outside the universe or the engine keeps no cells.
      **/
     public Cell getCell (int row, int column) {
 
-	return _grid.getCell(row, column);
+	Universe universe = _universe;
+	if (universe instanceof CheckedUniverse) {
+	    universe = ((CheckedUniverse)universe).getUniverse();
+	}
+	if (universe instanceof ParallelUniverse) {
+	    universe = ((ParallelUniverse)universe).getUniverse();
+	}
+	if (universe instanceof Grid) {
+	    return ((Grid)universe).getCell(row, column);
+	}
+	return null;
 
     } // getCell()
     // =========================================================================
 
 
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell of this universe is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return _universe.isAlive(row, column);
+
+    } // isAlive()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell of this universe will be alive in the next
+     * generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return _universe.willBeAlive(row, column);
+
+    } // willBeAlive()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell of this universe has ever been alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return _universe.wasEverAlive(row, column);
+
+    } // wasEverAlive()
+    // =========================================================================
+
+
 // =============================================================================
 } // class Game
 // =============================================================================
\ No newline at end of file
@@ -1,14 +1,15 @@
 // =============================================================================
 /**
  * The <code>Grid</code> class.  Manage a two-dimentional collection of
- * <code>Cell</code>s.
+ * <code>Cell</code>s.  This is the original storage engine, with one
+ * <code>Cell</code> object per square of the universe.
  **/
 // =============================================================================
 
 
 
 // =============================================================================
-public class Grid {
+public class Grid implements BandedUniverse {
 // =============================================================================
 
 
@@ -22,6 +23,24 @@ public class Grid {
      **/
     public Grid (int rows, int columns) {
 
+	this(rows, columns, Rule.CONWAY);
+
+    } // Grid()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of <code>Cell</code>s, in their default
+     * initial states, that evolve by the given rule.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must have only two states.
+     **/
+    public Grid (int rows, int columns, Rule rule) {
+
 	// Ensure that the sizes are valid.
 	if ((rows <= 0) || (columns <= 0)) {
 	    Support.abort("Cannot construct a grid of size " +
@@ -30,6 +49,12 @@ public class Grid {
 			  columns);
 	}
 
+	if (!rule.isTwoState()) {
+	    Support.abort("ERROR: Cells of a grid cannot follow the " +
+			  "multi-state rule " + rule);
+	}
+	_ruleTable = rule.stateTable();
+
 	// Create the underlying 2-D array that will track the Cells.
 	_array = new Cell[rows][columns];
 
@@ -40,6 +65,15 @@ public class Grid {
 	    }
 	}
 
+	// Each row keeps its own fingerprint and statistics, so that bands of
+	// rows advanced on different threads never update the same ones.
+	_rowFingerprints = new Fingerprint[rows];
+	_rowStatistics = new Statistics[rows];
+	for (int row = 0; row < rows; row += 1) {
+	    _rowFingerprints[row] = new Fingerprint();
+	    _rowStatistics[row] = new Statistics();
+	}
+
     } // Grid()
     // =========================================================================
 
@@ -105,13 +139,399 @@ public class Grid {
 
 
 
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive; <code>false</code> if it
+     *         is dead or outside of the grid.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	Cell cell = getCell(row, column);
+	return (cell != null) && cell.isAlive();
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	Cell cell = getCell(row, column);
+	if (cell == null) {
+	    return false;
+	}
+
+	// A cell that will not change keeps its current liveness.
+	return cell._willChange ? cell._willBeAlive : cell.isAlive();
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	Cell cell = getCell(row, column);
+	return (cell != null) && cell._wasEverAlive;
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	Cell cell = getCell(row, column);
+	if (cell == null) {
+	    Support.abort("Cannot make a cell alive outside of the grid at " +
+			  row +
+			  ", " +
+			  column);
+	}
+	if (!cell.isAlive()) {
+	    cell.makeAlive();
+	    _rowFingerprints[row].flip(row, column, true);
+	    _rowStatistics[row].include(row, column);
+	}
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.  Cells
+     * outside of the grid are ignored.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	Cell cell = getCell(row, column);
+	if (cell != null) {
+	    cell._wasEverAlive = true;
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next state of every <code>Cell</code> in the grid.
+     **/
+    public void evolve () {
+
+	evolveRows(0, getRows());
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next state of every <code>Cell</code> in a band of rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void evolveRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    for (int column = 0; column < getColumns(); column += 1) {
+		_array[row][column].evolve();
+	    }
+	}
+
+    } // evolveRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Skip a band of rows that will stay dead.  Any <code>Cell</code> there
+     * that is still marked to change can only be marked to die, which leaves
+     * it as it is, so there is nothing to do.  The band's births and deaths
+     * are still to be shown, so they are only cleared by
+     * <code>startRows()</code> once the next generation is adopted.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void skipRows (int first, int last) {
+
+    } // skipRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance every <code>Cell</code> in the grid to its next state.
+     **/
+    public void advance () {
+
+	advanceRows(0, getRows());
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance every <code>Cell</code> in a band of rows to its next state.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band afterwards.
+     **/
+    public long advanceRows (int first, int last) {
+
+	startRows(first, last);
+	for (int row = first; row < last; row += 1) {
+	    for (int column = 0; column < getColumns(); column += 1) {
+		Cell cell = _array[row][column];
+		boolean wasAlive = cell.isAlive();
+		cell.advance();
+		if (cell.isAlive() != wasAlive) {
+		    flipped(row, column, !wasAlive);
+		}
+	    }
+	}
+	return settleRows(first, last);
+
+    } // advanceRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that a <code>Cell</code> has flipped, in the fingerprint and the
+     * statistics of its row, and tell the listener, if any.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born;
+     *              <code>false</code> if it died.
+     **/
+    void flipped (int row, int column, boolean alive) {
+
+	_rowFingerprints[row].flip(row, column, alive);
+	_rowStatistics[row].flip(row, column, alive);
+	if (_listener != null) {
+	    _listener.flip(row, column, alive);
+	}
+
+    } // flipped ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation in a band of
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void startRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].startGeneration();
+	}
+
+    } // startRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Settle the statistics of a band of rows once its cells have flipped.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    long settleRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].settle(this);
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // settleRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, gathered from the
+     * statistics of the rows.
+     *
+     * @return The statistics of the grid.
+     **/
+    public Statistics getStatistics () {
+
+	Statistics statistics = new Statistics();
+	for (int row = 0; row < _rowStatistics.length; row += 1) {
+	    statistics.add(_rowStatistics[row]);
+	}
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as its band of
+     * rows advances.  Bands advanced on other threads tell it on those
+     * threads, so whoever advances bands at once must hand the listener
+     * their flips itself, as <code>ParallelUniverse</code> does.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, gathered from the
+     * fingerprints of the rows.
+     *
+     * @return The fingerprint of the grid.
+     **/
+    public Fingerprint getFingerprint () {
+
+	Fingerprint fingerprint = new Fingerprint();
+	for (int row = 0; row < _rowFingerprints.length; row += 1) {
+	    fingerprint.add(_rowFingerprints[row]);
+	}
+	return fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, summed from the rows.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return countRows(0, getRows());
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a band of rows, from the statistics of the
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    public long countRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // countRows ()
+    // =========================================================================
+
+
+
     // =========================================================================
     // DATA MEMBERS
 
     /**
      * The actual 2-D collection of Cells.
      **/
-    private Cell[][] _array;
+    Cell[][] _array;
+
+    /**
+     * The next liveness of a <code>Cell</code>, indexed by its current
+     * liveness times nine plus its number of live neighbors.
+     **/
+    byte[] _ruleTable;
+
+    /**
+     * The fingerprint of the live cells of each row, kept up to date as
+     * cells flip.
+     **/
+    private Fingerprint[] _rowFingerprints;
+
+    /**
+     * The statistics of the live cells of each row, kept up to date as cells
+     * flip.
+     **/
+    private Statistics[] _rowStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
 
     /**
      * Whether to provide debugging information.
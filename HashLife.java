@@ -0,0 +1,1236 @@
+// =============================================================================
+/**
+ * The <code>HashLife</code> class.  A storage engine that holds the universe
+ * as a quadtree whose nodes are canonicalized in a hash table, so that every
+ * distinct square of cells is stored exactly once.  Each node memoizes its
+ * own future, which lets a single step jump 2<sup>k</sup> generations at
+ * once.  This pays off enormously on large, regular or periodic patterns such
+ * as guns and breeders.
+ *
+ * <p>The universe is unbounded: the root node is grown as the pattern
+ * spreads and trimmed again when its border is empty.  Its coordinates are
+ * centered on the origin, so the known region reported by
+ * <code>getRows()</code> and <code>getColumns()</code> is only the window that
+ * is displayed.  Cells are numbered by <code>int</code> coordinates, so a
+ * pattern that would grow past their range is stopped instead.</p>
+ *
+ * <p>Each step, the new root is compared with the old one to find the cells
+ * that flipped, which keep the fingerprint and the statistics up to date.
+ * Equal squares are the same canonical node, so the comparison only goes
+ * down into the parts of the tree that changed.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.math.BigInteger;
+// =============================================================================
+
+
+
+// =============================================================================
+public class HashLife implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A <code>Node</code> is a square of 2<sup>level</sup> cells on a side,
+     * made of four children one level down.  Nodes are immutable once they
+     * are in the table, except for the memoized result.
+     **/
+    static final class Node {
+
+	final Node nw, ne, sw, se;
+	final int level;
+	final long population;
+	final int hash;
+
+	/**
+	 * The chain of nodes sharing a bucket of the hash table.
+	 **/
+	Node next;
+
+	/**
+	 * The center of this node advanced 2<sup>resultStep</sup>
+	 * generations, or <code>null</code> if not yet computed.
+	 **/
+	Node result;
+	int resultStep;
+
+	// Create a leaf, which is a single cell.
+	Node (boolean alive) {
+	    nw = ne = sw = se = null;
+	    level = 0;
+	    population = alive ? 1 : 0;
+	    hash = alive ? 1 : 0;
+	}
+
+	// Create an interior node from its four children.
+	Node (Node nw, Node ne, Node sw, Node se, int hash) {
+	    this.nw = nw;
+	    this.ne = ne;
+	    this.sw = sw;
+	    this.se = se;
+	    level = nw.level + 1;
+	    population = nw.population + ne.population +
+		sw.population + se.population;
+	    this.hash = hash;
+	}
+
+    } // class Node
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty universe.
+     *
+     * @param rows The number of rows in the displayed window.
+     * @param columns The number of columns in the displayed window.
+     * @param rule The rule, which must have two states and must not give
+     *             birth on zero neighbors.
+     * @param stepLog2 Each step jumps 2<sup>stepLog2</sup> generations.
+     * @param maxNodes The number of canonical nodes to keep before the table
+     *                 is garbage collected.
+     **/
+    public HashLife (int rows, int columns, Rule rule, int stepLog2, int maxNodes) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a universe of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+	if (!rule.isTwoState() || rule.hasBirthOnZero()) {
+	    Support.abort("ERROR: The hashlife engine cannot follow the rule " +
+			  rule);
+	}
+	// A step of 2^k generations needs a root of level k + 4, which
+	// must not pass the deepest level the table can hold.
+	if ((stepLog2 < 0) || (stepLog2 > MAX_LEVEL - 4)) {
+	    Support.abort("ERROR: Cannot step 2^" + stepLog2 +
+			  " generations at once; the step must be from 0 to " +
+			  (MAX_LEVEL - 4));
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_neighborhoods = rule.neighborhoodTable();
+	_maxStepLog2 = stepLog2;
+	_stepLog2 = stepLog2;
+	_maxNodes = maxNodes;
+	_generation = BigInteger.ZERO;
+
+	_table = new Node[INITIAL_TABLE_SIZE];
+	_empty = new Node[MAX_LEVEL + 1];
+	_fingerprint = null;
+	_statistics = null;
+	_countsChanges = false;
+	_changesKnown = true;
+
+	// Start with a root large enough to hold the displayed window.
+	_root = emptyNode(3);
+	while (!contains(_root, rows - 1, columns - 1)) {
+	    _root = expand(_root);
+	}
+
+    } // HashLife ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the displayed window.
+     *
+     * @return The number of rows in the window.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the displayed window.
+     *
+     * @return The number of columns in the window.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of generations adopted by each
+     * <code>advance()</code>.
+     *
+     * @return 2<sup>k</sup>, for the current step <code>k</code>.
+     **/
+    public long getGenerationsPerStep () {
+
+	return 1L << _stepLog2;
+
+    } // getGenerationsPerStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep the next step from jumping more than the given number of
+     * generations, by stepping the largest power of two that fits, up to the
+     * configured step.  The results of each step size are cached apart, so
+     * changing it costs nothing beyond the new results.
+     *
+     * @param generations The most generations the next step may jump, at
+     *                    least one.
+     **/
+    public void limitStep (long generations) {
+
+	int fits = 63 - Long.numberOfLeadingZeros(Math.max(generations, 1));
+	_stepLog2 = Math.min(_maxStepLog2, fits);
+
+    } // limitStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of generations computed so far.  This may grow far
+     * beyond the range of an <code>int</code>.
+     *
+     * @return The current generation number.
+     **/
+    public BigInteger getGeneration () {
+
+	return _generation;
+
+    } // getGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return getCell(_root, row, column);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive after
+     * the step calculated by the last <code>evolve()</code>.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return getCell((_nextRoot != null) ? _nextRoot : _root, row, column);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The quadtree keeps no history, so no cell is remembered as having been
+     * alive in the past.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> only if the cell is alive now.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return isAlive(row, column);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive, growing the root if
+     * the cell lies beyond it.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if (isAlive(row, column)) {
+	    return;
+	}
+	if (_fingerprint != null) {
+	    _fingerprint.flip(row, column, true);
+	}
+	_statistics = null;
+
+	while (!contains(_root, row, column)) {
+	    _root = expand(_root);
+	}
+	long half = 1L << (_root.level - 1);
+	_root = setCell(_root, row + half, column + half);
+	_nextRoot = null;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.  The tree
+     * is walked a horizontal strip of nodes at a time: each strip is split
+     * into the strip of its children's top halves and the strip of their
+     * bottom halves, leaving out empty children, until the strips are single
+     * rows of cells.  Only the nodes that hold live cells are ever visited.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	if (_root.population == 0) {
+	    return;
+	}
+	long half = 1L << (_root.level - 1);
+	visitStrip(new Node[] { _root }, new long[] { -half }, 1, -half, visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, which for this engine are just
+     * the live cells.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	forEachLiveCell(visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit the live cells of a strip of non-empty nodes of the same level,
+     * side by side from left to right.
+     *
+     * @param nodes The nodes of the strip.
+     * @param lefts The column of each node's left edge.
+     * @param count The number of nodes in the strip.
+     * @param top The row of the strip's top edge.
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    private static void visitStrip (Node[] nodes, long[] lefts, int count, long top,
+				    CellVisitor visitor) {
+
+	// Every live cell has int coordinates, as evolve() sees to.
+	if (nodes[0].level == 0) {
+	    for (int index = 0; index < count; index += 1) {
+		visitor.visit((int)top, (int)lefts[index]);
+	    }
+	    return;
+	}
+
+	long half = 1L << (nodes[0].level - 1);
+	Node[] upper = new Node[2 * count];
+	long[] upperLefts = new long[2 * count];
+	int upperCount = 0;
+	Node[] lower = new Node[2 * count];
+	long[] lowerLefts = new long[2 * count];
+	int lowerCount = 0;
+
+	for (int index = 0; index < count; index += 1) {
+	    Node node = nodes[index];
+	    long left = lefts[index];
+	    if (node.nw.population != 0) {
+		upper[upperCount] = node.nw;
+		upperLefts[upperCount++] = left;
+	    }
+	    if (node.ne.population != 0) {
+		upper[upperCount] = node.ne;
+		upperLefts[upperCount++] = left + half;
+	    }
+	    if (node.sw.population != 0) {
+		lower[lowerCount] = node.sw;
+		lowerLefts[lowerCount++] = left;
+	    }
+	    if (node.se.population != 0) {
+		lower[lowerCount] = node.se;
+		lowerLefts[lowerCount++] = left + half;
+	    }
+	}
+
+	if (upperCount > 0) {
+	    visitStrip(upper, upperLefts, upperCount, top, visitor);
+	}
+	if (lowerCount > 0) {
+	    visitStrip(lower, lowerLefts, lowerCount, top + half, visitor);
+	}
+
+    } // visitStrip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the universe 2<sup>k</sup> generations ahead.  The root is
+     * first padded with empty space, so that nothing the pattern can reach in
+     * that time falls outside of the result.
+     **/
+    public void evolve () {
+
+	Node node = _root;
+	while (node.level < _stepLog2 + 2) {
+	    node = expand(node);
+	}
+	node = expand(expand(node));
+	_nextRoot = successor(node, _stepLog2);
+
+	if (!withinRange(_nextRoot)) {
+	    Support.abort("ERROR: The pattern has grown past the range of int coordinates");
+	}
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the universe calculated by <code>evolve()</code>, trim any empty
+     * border from the root, and collect the node table if it has grown too
+     * large.  The cells that flipped are only found, by comparing the old
+     * root with the new, if something follows them: a listener, the
+     * fingerprint, or the births and deaths of the statistics.  Otherwise a
+     * step costs no more than the nodes it creates.
+     **/
+    public void advance () {
+
+	if (_nextRoot == null) {
+	    evolve();
+	}
+
+	_changesKnown = (_listener != null) || (_fingerprint != null) || _countsChanges;
+	if (_changesKnown) {
+	    // The new root is larger than the old one, and both are centered on
+	    // the origin, so the old one is grown to match before comparing.
+	    Node before = _root;
+	    while (before.level < _nextRoot.level) {
+		before = expand(before);
+	    }
+	    long half = 1L << (before.level - 1);
+	    _births = 0;
+	    _deaths = 0;
+	    compare(before, _nextRoot, -half, -half);
+	}
+	_statistics = null;
+
+	_root = _nextRoot;
+	_nextRoot = null;
+	_generation = _generation.add(BigInteger.ONE.shiftLeft(_stepLog2));
+
+	// Trim the root while its outer ring of grandchildren is empty.
+	while ((_root.level > 3) &&
+	       (_root.nw.nw.population == 0) && (_root.nw.ne.population == 0) &&
+	       (_root.nw.sw.population == 0) && (_root.ne.nw.population == 0) &&
+	       (_root.ne.ne.population == 0) && (_root.ne.se.population == 0) &&
+	       (_root.sw.nw.population == 0) && (_root.sw.sw.population == 0) &&
+	       (_root.sw.se.population == 0) && (_root.se.ne.population == 0) &&
+	       (_root.se.sw.population == 0) && (_root.se.se.population == 0) &&
+	       contains(centre(_root), _rows - 1, _columns - 1)) {
+	    _root = centre(_root);
+	}
+
+	if (_count > _maxNodes) {
+	    collect();
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count every cell that differs between two nodes of the same level,
+     * and tell the listener of it, going down only into children that
+     * differ.
+     *
+     * @param before The node in the old generation.
+     * @param after The node at the same place in the new generation.
+     * @param top The row of the nodes' top edge.
+     * @param left The column of the nodes' left edge.
+     **/
+    private void compare (Node before, Node after, long top, long left) {
+
+	if ((before == after) || ((before.population == 0) && (after.population == 0))) {
+	    return;
+	}
+
+	// Both roots hold only cells with int coordinates.
+	if (before.level == 0) {
+	    boolean alive = (after.population != 0);
+	    if (_fingerprint != null) {
+		_fingerprint.flip((int)top, (int)left, alive);
+	    }
+	    if (alive) {
+		_births += 1;
+	    } else {
+		_deaths += 1;
+	    }
+	    if (_listener != null) {
+		_listener.flip((int)top, (int)left, alive);
+	    }
+	    return;
+	}
+
+	long half = 1L << (before.level - 1);
+	compare(before.nw, after.nw, top, left);
+	compare(before.ne, after.ne, top, left + half);
+	compare(before.sw, after.sw, top + half, left);
+	compare(before.se, after.se, top + half, left + half);
+
+    } // compare ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells in the universe.
+     **/
+    public long getPopulation () {
+
+	return _root.population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation.  The first time it is
+     * asked for, it is taken from the live cells; from then on, it is kept up
+     * to date as cells flip.
+     *
+     * @return The fingerprint of the universe.
+     **/
+    public Fingerprint getFingerprint () {
+
+	if (_fingerprint == null) {
+	    Fingerprint fingerprint = new Fingerprint();
+	    forEachLiveCell((row, column) -> fingerprint.flip(row, column, true));
+	    _fingerprint = fingerprint;
+	}
+	return _fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation.  The population is
+     * the root's, and the box is found by going down the tree along each of
+     * its edges, never into an empty node, so no cell is visited one by one.
+     * Births and deaths are counted from the first time the statistics are
+     * asked for, and are only known for a generation reached after that.
+     *
+     * @return The statistics of the universe.
+     **/
+    public Statistics getStatistics () {
+
+	if (_statistics == null) {
+	    _statistics = new Statistics(_changesKnown);
+	    if (_root.population > 0) {
+		long half = 1L << (_root.level - 1);
+		_statistics.setCells(_root.population,
+				     (int)first(_root, true, -half, Long.MAX_VALUE),
+				     (int)first(_root, false, -half, Long.MAX_VALUE),
+				     (int)last(_root, true, -half, Long.MIN_VALUE),
+				     (int)last(_root, false, -half, Long.MIN_VALUE));
+	    }
+	    if (_changesKnown) {
+		_statistics.setChanges(_births, _deaths);
+	    }
+	    _countsChanges = true;
+	}
+	return _statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the first row, or the first column, that holds a live cell of a
+     * node.  The half of the node nearer that edge is searched first, and the
+     * other half only if the nearer one is empty.
+     *
+     * @param node The node.
+     * @param rows <code>true</code> to find a row; <code>false</code> to
+     *             find a column.
+     * @param offset The row or column of the node's top or left edge.
+     * @param best The first found so far, beyond which nothing is searched.
+     * @return The first row or column found, or <code>best</code>.
+     **/
+    private static long first (Node node, boolean rows, long offset, long best) {
+
+	if ((node.population == 0) || (offset >= best)) {
+	    return best;
+	}
+	if (node.level == 0) {
+	    return offset;
+	}
+
+	long half = 1L << (node.level - 1);
+	Node near = rows ? node.ne : node.sw;
+	Node far = rows ? node.sw : node.ne;
+	if ((node.nw.population != 0) || (near.population != 0)) {
+	    return first(near, rows, offset, first(node.nw, rows, offset, best));
+	}
+	return first(node.se, rows, offset + half, first(far, rows, offset + half, best));
+
+    } // first ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the last row, or the last column, that holds a live cell of a
+     * node, searching the half of the node nearer that edge first.
+     *
+     * @param node The node.
+     * @param rows <code>true</code> to find a row; <code>false</code> to
+     *             find a column.
+     * @param offset The row or column of the node's top or left edge.
+     * @param best The last found so far, before which nothing is searched.
+     * @return The last row or column found, or <code>best</code>.
+     **/
+    private static long last (Node node, boolean rows, long offset, long best) {
+
+	if ((node.population == 0) || (offset + (1L << node.level) - 1 <= best)) {
+	    return best;
+	}
+	if (node.level == 0) {
+	    return offset;
+	}
+
+	long half = 1L << (node.level - 1);
+	Node near = rows ? node.sw : node.ne;
+	Node far = rows ? node.ne : node.sw;
+	if ((node.se.population != 0) || (near.population != 0)) {
+	    return last(near, rows, offset + half, last(node.se, rows, offset + half, best));
+	}
+	return last(node.nw, rows, offset, last(far, rows, offset, best));
+
+    } // last ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as
+     * <code>advance()</code> finds it by comparing the old root with the
+     * new.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compute the center of a node advanced 2<sup>step</sup> generations,
+     * where the step is limited to what the node's size allows.  Results are
+     * memoized on the node.
+     *
+     * @param node The node, at level 2 or higher.
+     * @param step The base-2 logarithm of the generations to advance.
+     * @return The center of the node, one level down, in the future.
+     **/
+    private Node successor (Node node, int step) {
+
+	step = Math.min(step, node.level - 2);
+
+	if (node.population == 0) {
+	    return emptyNode(node.level - 1);
+	}
+	if ((node.result != null) && (node.resultStep == step)) {
+	    return node.result;
+	}
+
+	Node result;
+	if (node.level == 2) {
+
+	    result = lifeFourByFour(node);
+
+	} else {
+
+	    // Nine overlapping sub-squares, each advanced as far as allowed.
+	    Node c1 = successor(join(node.nw.nw, node.nw.ne, node.nw.sw, node.nw.se), step);
+	    Node c2 = successor(join(node.nw.ne, node.ne.nw, node.nw.se, node.ne.sw), step);
+	    Node c3 = successor(join(node.ne.nw, node.ne.ne, node.ne.sw, node.ne.se), step);
+	    Node c4 = successor(join(node.nw.sw, node.nw.se, node.sw.nw, node.sw.ne), step);
+	    Node c5 = successor(join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw), step);
+	    Node c6 = successor(join(node.ne.sw, node.ne.se, node.se.nw, node.se.ne), step);
+	    Node c7 = successor(join(node.sw.nw, node.sw.ne, node.sw.sw, node.sw.se), step);
+	    Node c8 = successor(join(node.sw.ne, node.se.nw, node.sw.se, node.se.sw), step);
+	    Node c9 = successor(join(node.se.nw, node.se.ne, node.se.sw, node.se.se), step);
+
+	    if (step < node.level - 2) {
+
+		// The nine squares are already far enough ahead; just take
+		// their centers.
+		result = join(join(c1.se, c2.sw, c4.ne, c5.nw),
+			      join(c2.se, c3.sw, c5.ne, c6.nw),
+			      join(c4.se, c5.sw, c7.ne, c8.nw),
+			      join(c5.se, c6.sw, c8.ne, c9.nw));
+
+	    } else {
+
+		// Advance a second time to cover the full step.
+		result = join(successor(join(c1, c2, c4, c5), step),
+			      successor(join(c2, c3, c5, c6), step),
+			      successor(join(c4, c5, c7, c8), step),
+			      successor(join(c5, c6, c8, c9), step));
+
+	    }
+
+	}
+
+	node.result = result;
+	node.resultStep = step;
+	return result;
+
+    } // successor ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compute the center 2&times;2 cells of a 4&times;4 node one generation
+     * ahead, by looking up each center cell's 3&times;3 neighborhood.
+     *
+     * @param node A node at level 2.
+     * @return The center of the node, one generation later.
+     **/
+    private Node lifeFourByFour (Node node) {
+
+	// Pack the 16 cells into bits, row by row, from the top-left.
+	int bits = 0;
+	for (int row = 0; row < 4; row += 1) {
+	    for (int column = 0; column < 4; column += 1) {
+		if (getCell(node, row, column, 4)) {
+		    bits |= 1 << (row * 4 + column);
+		}
+	    }
+	}
+
+	return join(_leaves[_neighborhoods[neighborhood(bits, 1, 1)]],
+		    _leaves[_neighborhoods[neighborhood(bits, 1, 2)]],
+		    _leaves[_neighborhoods[neighborhood(bits, 2, 1)]],
+		    _leaves[_neighborhoods[neighborhood(bits, 2, 2)]]);
+
+    } // lifeFourByFour ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Extract the 9-bit neighborhood of one cell of a packed 4&times;4 block.
+     *
+     * @param bits The block, packed as by <code>lifeFourByFour()</code>.
+     * @param row The row of the center cell, either 1 or 2.
+     * @param column The column of the center cell, either 1 or 2.
+     * @return The neighborhood, with the center cell at bit 4.
+     **/
+    private static int neighborhood (int bits, int row, int column) {
+
+	int result = 0;
+	for (int dr = -1; dr <= 1; dr += 1) {
+	    int line = (bits >>> ((row + dr) * 4 + column - 1)) & 7;
+	    result |= line << ((dr + 1) * 3);
+	}
+	return result;
+
+    } // neighborhood ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find or create the canonical node with the given children.
+     *
+     * @param nw The north-west child.
+     * @param ne The north-east child.
+     * @param sw The south-west child.
+     * @param se The south-east child.
+     * @return The unique node with those children.
+     **/
+    private Node join (Node nw, Node ne, Node sw, Node se) {
+
+	int hash = hash(nw, ne, sw, se);
+	int index = hash & (_table.length - 1);
+	for (Node node = _table[index]; node != null; node = node.next) {
+	    if ((node.nw == nw) && (node.ne == ne) &&
+		(node.sw == sw) && (node.se == se)) {
+		return node;
+	    }
+	}
+
+	Node node = new Node(nw, ne, sw, se, hash);
+	node.next = _table[index];
+	_table[index] = node;
+	_count += 1;
+	if (_count > _table.length - (_table.length >>> 2)) {
+	    resize(_table.length << 1);
+	}
+	return node;
+
+    } // join ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Combine the hashes of four children.
+     **/
+    private static int hash (Node nw, Node ne, Node sw, Node se) {
+
+	int h = nw.hash;
+	h = h * 1000003 ^ ne.hash;
+	h = h * 1000003 ^ sw.hash;
+	h = h * 1000003 ^ se.hash;
+	return h ^ (h >>> 16);
+
+    } // hash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Grow the hash table, keeping every node already in it.
+     *
+     * @param size The new number of buckets, a power of two.
+     **/
+    private void resize (int size) {
+
+	Node[] old = _table;
+	_table = new Node[size];
+	for (int index = 0; index < old.length; index += 1) {
+	    Node node = old[index];
+	    while (node != null) {
+		Node next = node.next;
+		int bucket = node.hash & (size - 1);
+		node.next = _table[bucket];
+		_table[bucket] = node;
+		node = next;
+	    }
+	}
+
+    } // resize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Garbage collect the node table, keeping only the nodes reachable from
+     * the root and forgetting every memoized result.
+     **/
+    private void collect () {
+
+	_table = new Node[INITIAL_TABLE_SIZE];
+	_count = 0;
+	_empty = new Node[MAX_LEVEL + 1];
+	rehome(_root);
+
+    } // collect ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Put a node and its descendants back into the table, if not already
+     * there.
+     *
+     * @param node The node to keep.
+     **/
+    private void rehome (Node node) {
+
+	if (node.level == 0) {
+	    return;
+	}
+	for (Node other = _table[node.hash & (_table.length - 1)];
+	     other != null;
+	     other = other.next) {
+	    if (other == node) {
+		return;
+	    }
+	}
+
+	node.result = null;
+	rehome(node.nw);
+	rehome(node.ne);
+	rehome(node.sw);
+	rehome(node.se);
+
+	int index = node.hash & (_table.length - 1);
+	node.next = _table[index];
+	_table[index] = node;
+	_count += 1;
+	if (_count > _table.length - (_table.length >>> 2)) {
+	    resize(_table.length << 1);
+	}
+
+    } // rehome ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the canonical empty node of a given level.
+     *
+     * @param level The level of the node.
+     * @return A node of that level with no live cells.
+     **/
+    private Node emptyNode (int level) {
+
+	if (level == 0) {
+	    return _leaves[0];
+	}
+	if (_empty[level] == null) {
+	    Node child = emptyNode(level - 1);
+	    _empty[level] = join(child, child, child, child);
+	}
+	return _empty[level];
+
+    } // emptyNode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Surround a node with empty space, producing a node one level up with
+     * the original at its center.
+     *
+     * @param node The node to expand.
+     * @return The expanded node.
+     **/
+    private Node expand (Node node) {
+
+	if (node.level >= MAX_LEVEL) {
+	    Support.abort("ERROR: The universe has grown too large");
+	}
+	Node empty = emptyNode(node.level - 1);
+	return join(join(empty, empty, empty, node.nw),
+		    join(empty, empty, node.ne, empty),
+		    join(empty, node.sw, empty, empty),
+		    join(node.se, empty, empty, empty));
+
+    } // expand ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the center of a node, one level down.
+     *
+     * @param node The node.
+     * @return The node made of the innermost grandchildren.
+     **/
+    private Node centre (Node node) {
+
+	return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+
+    } // centre ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether every live cell of a root node has <code>int</code>
+     * coordinates.  The square of level <code>INT_LEVEL</code> at its center
+     * covers exactly their range, so it must hold every live cell.  That
+     * square is made of the innermost descendant of each quadrant one level
+     * down, which are reached through the existing children, so that no new
+     * node is made just to be counted.
+     **/
+    private static boolean withinRange (Node root) {
+
+	if (root.level <= INT_LEVEL) {
+	    return true;
+	}
+	Node nw = root.nw;
+	Node ne = root.ne;
+	Node sw = root.sw;
+	Node se = root.se;
+	while (nw.level > INT_LEVEL - 1) {
+	    nw = nw.se;
+	    ne = ne.sw;
+	    sw = sw.ne;
+	    se = se.nw;
+	}
+	return nw.population + ne.population + sw.population + se.population ==
+	    root.population;
+
+    } // withinRange ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a root node covers the given coordinates.
+     **/
+    private static boolean contains (Node root, long row, long column) {
+
+	long half = 1L << (root.level - 1);
+	return (row >= -half) && (row < half) &&
+	    (column >= -half) && (column < half);
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read one cell, given coordinates relative to the center of a root.
+     **/
+    private boolean getCell (Node root, long row, long column) {
+
+	if (!contains(root, row, column)) {
+	    return false;
+	}
+	long half = 1L << (root.level - 1);
+	return getCell(root, row + half, column + half, 1L << root.level);
+
+    } // getCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read one cell, given coordinates relative to the top-left corner of a
+     * node of the given size.
+     **/
+    private static boolean getCell (Node node, long row, long column, long size) {
+
+	while (node.level > 0) {
+	    if (node.population == 0) {
+		return false;
+	    }
+	    size >>>= 1;
+	    if (row < size) {
+		node = (column < size) ? node.nw : node.ne;
+	    } else {
+		node = (column < size) ? node.sw : node.se;
+		row -= size;
+	    }
+	    if (column >= size) {
+		column -= size;
+	    }
+	}
+	return node.population != 0;
+
+    } // getCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Produce a copy of a node with one more live cell, given coordinates
+     * relative to the node's top-left corner.
+     **/
+    private Node setCell (Node node, long row, long column) {
+
+	if (node.level == 0) {
+	    return _leaves[1];
+	}
+	long half = 1L << (node.level - 1);
+	if (row < half) {
+	    if (column < half) {
+		return join(setCell(node.nw, row, column), node.ne, node.sw, node.se);
+	    }
+	    return join(node.nw, setCell(node.ne, row, column - half), node.sw, node.se);
+	}
+	if (column < half) {
+	    return join(node.nw, node.ne, setCell(node.sw, row - half, column), node.se);
+	}
+	return join(node.nw, node.ne, node.sw, setCell(node.se, row - half, column - half));
+
+    } // setCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The starting number of hash table buckets.
+     **/
+    private static final int INITIAL_TABLE_SIZE = 1 << 16;
+
+    /**
+     * The largest level of node, beyond which coordinates would overflow.
+     **/
+    private static final int MAX_LEVEL = 62;
+
+    /**
+     * The level of the root node centered on the origin that covers exactly
+     * the range of <code>int</code> coordinates.
+     **/
+    private static final int INT_LEVEL = 32;
+
+    /**
+     * The dead and live leaves.
+     **/
+    private final Node[] _leaves = { new Node(false), new Node(true) };
+
+    /**
+     * The dimensions of the displayed window.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The next state of a cell for each possible 3&times;3 neighborhood.
+     **/
+    private final byte[] _neighborhoods;
+
+    /**
+     * Each step jumps 2<sup>_stepLog2</sup> generations, which is
+     * 2<sup>_maxStepLog2</sup> unless a step has been limited.
+     **/
+    private final int _maxStepLog2;
+    private int _stepLog2;
+
+    /**
+     * The number of nodes to allow before collecting the table.
+     **/
+    private final int _maxNodes;
+
+    /**
+     * The hash table of canonical nodes, and how many it holds.
+     **/
+    private Node[] _table;
+    private int _count;
+
+    /**
+     * The canonical empty node of each level, created as needed.
+     **/
+    private Node[] _empty;
+
+    /**
+     * The current universe, centered on the origin.
+     **/
+    private Node _root;
+
+    /**
+     * The universe calculated by <code>evolve()</code>, if any.
+     **/
+    private Node _nextRoot;
+
+    /**
+     * The number of generations computed so far.
+     **/
+    private BigInteger _generation;
+
+    /**
+     * The fingerprint of the current generation, once it has been asked for,
+     * and its statistics, once they have been gathered.
+     **/
+    private Fingerprint _fingerprint;
+    private Statistics _statistics;
+
+    /**
+     * Whether births and deaths are to be counted, and whether those of the
+     * current generation were, and how many of each there were.
+     **/
+    private boolean _countsChanges;
+    private boolean _changesKnown;
+    private long _births;
+    private long _deaths;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HashLife
+// =============================================================================
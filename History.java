@@ -0,0 +1,462 @@
+// =============================================================================
+/**
+ * The <code>History</code> class.  Remembers the past generations of a game,
+ * so that any of them can be looked at again without playing the game over
+ * from the start.  The live cells of every <code>K</code>th generation are
+ * kept as a keyframe, and each generation in between as the list of cells
+ * that flipped to reach it, so recalling a generation takes its segment's
+ * keyframe and at most <code>K</code> lists of flips.  The flips are those
+ * the universe reports, so recording a generation costs only the cells that
+ * changed; only a keyframe walks the live cells.
+ *
+ * <p>Keyframes and flips are kept compressed.  Each cell is a key that
+ * orders cells by row and then by column, a list of cells is sorted by key,
+ * and each key is written as its distance from the one before, zig-zag
+ * encoded, seven bits to a byte, as in a <code>Snapshot</code>.  Most cells
+ * lie near the one before, so a cell usually takes a byte or two.</p>
+ *
+ * <p>The history is held to a budget of memory.  When it is over budget,
+ * whole segments, each a keyframe and its flips, are dropped, least recently
+ * recorded or recalled first, so the generations most often looked at stay.
+ * The segment still being recorded is never dropped.  Only whether cells are
+ * alive is kept, not the dying states of a multi-state rule, nor which cells
+ * were ever alive.</p>
+ *
+ * <p>The game's thread records generations while the display's thread may
+ * recall them, so every public method is synchronized.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+// =============================================================================
+
+
+
+// =============================================================================
+public class History {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A keyframe and the flips of the generations that follow it.
+     **/
+    private static final class Segment {
+
+	/**
+	 * The generation of the keyframe, and its live cells.
+	 **/
+	long start;
+	byte[] keyframe;
+
+	/**
+	 * The generation reached by each list of flips, in order, and the
+	 * flips.
+	 **/
+	long[] generations = new long[8];
+	byte[][] flips = new byte[8][];
+	int count;
+
+	/**
+	 * When the segment was last recorded into or recalled from, and the
+	 * memory it takes.
+	 **/
+	long used;
+	long bytes;
+
+    } // class Segment
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty history.
+     *
+     * @param keyframeInterval The number of generations from one keyframe to
+     *                         the next.
+     * @param budget The number of bytes that the history may take.
+     * @param rows The number of rows in the universe.
+     * @param columns The number of columns in the universe.
+     * @param rule The rule the universe follows.
+     **/
+    public History (int keyframeInterval, long budget, int rows, int columns, Rule rule) {
+
+	if (keyframeInterval < 1) {
+	    Support.abort("ERROR: Cannot keep a keyframe every " + keyframeInterval +
+			  " generations");
+	}
+
+	_interval = keyframeInterval;
+	_budget = budget;
+	_rows = rows;
+	_columns = columns;
+	_rule = rule.toString();
+	_segments = new ArrayList<Segment>();
+	_scratch = new ByteArrayOutputStream();
+
+    } // History ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the current generation of a universe.  Generations must be
+     * recorded in order.
+     *
+     * @param generation The generation.
+     * @param universe The universe, whose live cells make each keyframe.
+     * @param flips The cells that flipped since the last generation
+     *              recorded, or <code>null</code> for the first.
+     **/
+    public synchronized void record (long generation, Universe universe, Flips flips) {
+
+	Segment segment = _segments.isEmpty() ? null : _segments.get(_segments.size() - 1);
+	if ((segment == null) || (segment.count + 1 >= _interval)) {
+	    segment = new Segment();
+	    segment.start = generation;
+	    segment.keyframe = encode(universe);
+	    segment.bytes = SEGMENT_BYTES + segment.keyframe.length;
+	    _segments.add(segment);
+	    _lastBytes = 0;
+	} else {
+	    if (segment.count == segment.flips.length) {
+		segment.generations = Arrays.copyOf(segment.generations, 2 * segment.count);
+		segment.flips = Arrays.copyOf(segment.flips, 2 * segment.count);
+	    }
+	    byte[] encoded = encode(flips);
+	    segment.generations[segment.count] = generation;
+	    segment.flips[segment.count] = encoded;
+	    segment.count += 1;
+	    segment.bytes += FLIPS_BYTES + encoded.length;
+	}
+	segment.used = ++_clock;
+	_bytes += segment.bytes - _lastBytes;
+	_lastBytes = segment.bytes;
+
+	evict();
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Recall the live cells of a past generation.  Only a generation that was
+     * recorded can be recalled; one that was stepped over, as by an engine
+     * that jumps several at once, was never seen, and is not made up from
+     * the one before it.
+     *
+     * @param generation The generation.
+     * @return The live cells, or <code>null</code> if the generation has not
+     *         been reached, was stepped over, or is no longer kept.
+     **/
+    public synchronized Pattern recall (long generation) {
+
+	int index = find(generation);
+	if (index < 0) {
+	    return null;
+	}
+	Segment segment = _segments.get(index);
+
+	// A generation after the keyframe must be one that the flips reach.
+	int steps = 0;
+	if (generation > segment.start) {
+	    steps = Arrays.binarySearch(segment.generations, 0, segment.count, generation) + 1;
+	    if (steps <= 0) {
+		return null;
+	    }
+	}
+
+	long[] cells = decode(segment.keyframe);
+	for (int step = 0; step < steps; step += 1) {
+	    cells = flip(cells, decode(segment.flips[step]));
+	}
+	segment.used = ++_clock;
+
+	Pattern pattern = new Pattern();
+	pattern.setSize(_rows, _columns);
+	pattern.setRule(_rule);
+	for (long key : cells) {
+	    pattern.add(LiveCells.row(key), LiveCells.column(key));
+	}
+	return pattern;
+
+    } // recall ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the earliest generation still kept.
+     *
+     * @return The generation, or -1 if nothing has been recorded.
+     **/
+    public synchronized long getEarliest () {
+
+	return _segments.isEmpty() ? -1 : _segments.get(0).start;
+
+    } // getEarliest ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of bytes that the history takes.
+     *
+     * @return The number of bytes.
+     **/
+    public synchronized long getBytes () {
+
+	return _bytes;
+
+    } // getBytes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the segment whose keyframe is the last at or before a generation.
+     *
+     * @return The index of the segment, or -1 if there is none.
+     **/
+    private int find (long generation) {
+
+	int low = 0;
+	int high = _segments.size() - 1;
+	int found = -1;
+	while (low <= high) {
+	    int middle = (low + high) >>> 1;
+	    if (_segments.get(middle).start <= generation) {
+		found = middle;
+		low = middle + 1;
+	    } else {
+		high = middle - 1;
+	    }
+	}
+	return found;
+
+    } // find ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Drop the least recently used segments until the history is within its
+     * budget, keeping the one still being recorded.
+     **/
+    private void evict () {
+
+	while ((_bytes > _budget) && (_segments.size() > 1)) {
+	    int oldest = 0;
+	    for (int index = 1; index < _segments.size() - 1; index += 1) {
+		if (_segments.get(index).used < _segments.get(oldest).used) {
+		    oldest = index;
+		}
+	    }
+	    _bytes -= _segments.remove(oldest).bytes;
+	}
+
+    } // evict ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Encode the live cells of a universe, which visits them in order.
+     **/
+    private byte[] encode (Universe universe) {
+
+	_scratch.reset();
+	_lastKey = 0;
+	universe.forEachLiveCell(this::putCell);
+	return _scratch.toByteArray();
+
+    } // encode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Encode the cells that flipped, in order.
+     **/
+    private byte[] encode (Flips flips) {
+
+	_scratch.reset();
+	_lastKey = 0;
+	flips.forEachInOrder(this::putCell);
+	return _scratch.toByteArray();
+
+    } // encode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decode a list of cells, in order.
+     **/
+    private static long[] decode (byte[] bytes) {
+
+	long[] keys = new long[16];
+	int count = 0;
+	long last = 0;
+	int position = 0;
+	while (position < bytes.length) {
+	    long value = 0;
+	    int shift = 0;
+	    byte b;
+	    do {
+		b = bytes[position++];
+		value |= (long)(b & 0x7F) << shift;
+		shift += 7;
+	    } while (b < 0);
+	    last += (value >>> 1) ^ -(value & 1);
+	    if (count == keys.length) {
+		keys = Arrays.copyOf(keys, 2 * count);
+	    }
+	    keys[count++] = last;
+	}
+	return Arrays.copyOf(keys, count);
+
+    } // decode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Flip a sorted list of cells into a sorted list of live cells: those
+     * only in one or the other.
+     **/
+    private static long[] flip (long[] cells, long[] flips) {
+
+	long[] result = new long[cells.length + flips.length];
+	int count = 0;
+	int from = 0;
+	int flipped = 0;
+	while ((from < cells.length) || (flipped < flips.length)) {
+	    if (flipped == flips.length) {
+		result[count++] = cells[from++];
+	    } else if (from == cells.length) {
+		result[count++] = flips[flipped++];
+	    } else if (cells[from] < flips[flipped]) {
+		result[count++] = cells[from++];
+	    } else if (cells[from] > flips[flipped]) {
+		result[count++] = flips[flipped++];
+	    } else {
+		from += 1;
+		flipped += 1;
+	    }
+	}
+	return Arrays.copyOf(result, count);
+
+    } // flip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a cell of a sorted list, as its distance from the one before.
+     **/
+    private void putCell (int row, int column) {
+
+	long key = LiveCells.key(row, column);
+	putSigned(key - _lastKey);
+	_lastKey = key;
+
+    } // putCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a signed number, zig-zag encoded, seven bits to a byte.
+     **/
+    private void putSigned (long value) {
+
+	long bits = (value << 1) ^ (value >> 63);
+	while ((bits & ~0x7FL) != 0) {
+	    _scratch.write((int)((bits & 0x7F) | 0x80));
+	    bits >>>= 7;
+	}
+	_scratch.write((int)bits);
+
+    } // putSigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The memory taken by a segment and by a list of flips beyond their
+     * encoded cells, roughly.
+     **/
+    private static final long SEGMENT_BYTES = 200;
+    private static final long FLIPS_BYTES = 40;
+
+    /**
+     * The number of generations from one keyframe to the next, and the
+     * number of bytes the history may take.
+     **/
+    private final int _interval;
+    private final long _budget;
+
+    /**
+     * The size and the rule of the universe, for the patterns recalled.
+     **/
+    private final int _rows;
+    private final int _columns;
+    private final String _rule;
+
+    /**
+     * The segments kept, in order of their keyframes.
+     **/
+    private final List<Segment> _segments;
+
+    /**
+     * The number of bytes taken, and how many of them the last segment took
+     * when last counted.
+     **/
+    private long _bytes;
+    private long _lastBytes;
+
+    /**
+     * A count of the records and recalls, which tells how recently each
+     * segment was used.
+     **/
+    private long _clock;
+
+    /**
+     * Where lists of cells are encoded, and the last cell written there.
+     **/
+    private final ByteArrayOutputStream _scratch;
+    private long _lastKey;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class History
+// =============================================================================
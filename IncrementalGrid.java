@@ -0,0 +1,279 @@
+// =============================================================================
+/**
+ * The <code>IncrementalGrid</code> class.  A <code>Grid</code> that only
+ * re-evaluates the cells that could possibly change.  A cell's next state
+ * depends only on its own neighborhood, so if nothing in that neighborhood
+ * changed during the last <code>advance()</code>, neither will the cell.  The
+ * grid therefore keeps a list of the cells that changed, and the next
+ * <code>evolve()</code> visits only those cells and their neighbors.  Once a
+ * pattern settles into still lifes and a few oscillators, each generation
+ * costs time in proportion to the activity rather than the area.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class IncrementalGrid extends Grid {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of dead <code>Cell</code>s.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must not give birth on zero neighbors,
+     *             since empty space far from any change would then be
+     *             missed.
+     **/
+    public IncrementalGrid (int rows, int columns, Rule rule) {
+
+	super(rows, columns, rule);
+	if (rule.hasBirthOnZero()) {
+	    Support.abort("ERROR: The incremental engine cannot follow the " +
+			  "rule " + rule);
+	}
+
+	_changed = new int[64];
+	_changedCount = 0;
+	_candidates = new int[64];
+	_candidateCount = 0;
+	_stamps = new int[rows * columns];
+	_stamp = 0;
+	_population = 0;
+	_flippedRows = new int[64];
+	_flippedRowCount = 0;
+	_rowFlipped = new boolean[rows];
+
+    } // IncrementalGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive, and note it as
+     * changed so that its neighborhood is evaluated.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	boolean wasAlive = isAlive(row, column);
+	super.makeAlive(row, column);
+	if (!wasAlive) {
+	    _population += 1;
+	    _changed = append(_changed, _changedCount, row * getColumns() + column);
+	    _changedCount += 1;
+	}
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next state of each cell that changed in the last
+     * generation, and of each of their neighbors.  Every other cell keeps its
+     * current state, which it already records by not being marked to change.
+     **/
+    public void evolve () {
+
+	// A new stamp marks which cells have been visited in this generation.
+	_stamp += 1;
+	_candidateCount = 0;
+
+	int rows = getRows();
+	int columns = getColumns();
+	for (int index = 0; index < _changedCount; index += 1) {
+
+	    int row = _changed[index] / columns;
+	    int column = _changed[index] % columns;
+
+	    int firstRow = Math.max(row - 1, 0);
+	    int lastRow = Math.min(row + 1, rows - 1);
+	    int firstColumn = Math.max(column - 1, 0);
+	    int lastColumn = Math.min(column + 1, columns - 1);
+	    for (int r = firstRow; r <= lastRow; r += 1) {
+		for (int c = firstColumn; c <= lastColumn; c += 1) {
+
+		    int cell = r * columns + c;
+		    if (_stamps[cell] != _stamp) {
+			_stamps[cell] = _stamp;
+			_array[r][c].evolve();
+			_candidates = append(_candidates, _candidateCount, cell);
+			_candidateCount += 1;
+		    }
+
+		}
+	    }
+
+	}
+	_evaluated = _candidateCount;
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advance each evaluated cell, and record which of them changed.  Only
+     * the rows where cells flipped in the last generation have their births
+     * and deaths started again, and only those where cells flip in this one
+     * are settled, so that a quiet row costs nothing.
+     **/
+    public void advance () {
+
+	int columns = getColumns();
+	for (int index = 0; index < _flippedRowCount; index += 1) {
+	    int row = _flippedRows[index];
+	    startRows(row, row + 1);
+	    _rowFlipped[row] = false;
+	}
+	_flippedRowCount = 0;
+
+	_changedCount = 0;
+	for (int index = 0; index < _candidateCount; index += 1) {
+
+	    int cell = _candidates[index];
+	    Cell candidate = _array[cell / columns][cell % columns];
+	    if (!candidate._willChange) {
+		continue;
+	    }
+
+	    boolean wasAlive = candidate.isAlive();
+	    candidate.advance();
+	    if (candidate.isAlive() != wasAlive) {
+		_population += wasAlive ? -1 : 1;
+		int row = cell / columns;
+		flipped(row, cell % columns, !wasAlive);
+		if (!_rowFlipped[row]) {
+		    _rowFlipped[row] = true;
+		    _flippedRows = append(_flippedRows, _flippedRowCount, row);
+		    _flippedRowCount += 1;
+		}
+		_changed = append(_changed, _changedCount, cell);
+		_changedCount += 1;
+	    }
+
+	}
+	_candidateCount = 0;
+	for (int index = 0; index < _flippedRowCount; index += 1) {
+	    int row = _flippedRows[index];
+	    settleRows(row, row + 1);
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, which is kept up to date as cells
+     * change.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells evaluated by the last <code>evolve()</code>:
+     * those that changed and their neighbors.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return _evaluated;
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append a value to a list, growing its array as needed.
+     *
+     * @param list The array holding the list.
+     * @param count The number of values in the list.
+     * @param value The value to append.
+     * @return The array now holding the list.
+     **/
+    private static int[] append (int[] list, int count, int value) {
+
+	if (count == list.length) {
+	    int[] longer = new int[list.length * 2];
+	    System.arraycopy(list, 0, longer, 0, count);
+	    list = longer;
+	}
+	list[count] = value;
+	return list;
+
+    } // append ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The cells, by index, that changed in the last <code>advance()</code>.
+     **/
+    private int[] _changed;
+    private int _changedCount;
+
+    /**
+     * The rows where cells flipped in the last <code>advance()</code>, and
+     * whether each row is among them.
+     **/
+    private int[] _flippedRows;
+    private int _flippedRowCount;
+    private final boolean[] _rowFlipped;
+
+    /**
+     * The cells, by index, that were evaluated by the last
+     * <code>evolve()</code>.
+     **/
+    private int[] _candidates;
+    private int _candidateCount;
+
+    /**
+     * The number of cells evaluated by the last <code>evolve()</code>.
+     **/
+    private long _evaluated;
+
+    /**
+     * For each cell, the stamp of the last generation in which it was
+     * evaluated, and the stamp of the current generation.
+     **/
+    private int[] _stamps;
+    private int _stamp;
+
+    /**
+     * The number of live cells.
+     **/
+    private long _population;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class IncrementalGrid
+// =============================================================================
@@ -22,20 +22,57 @@ public class Life {
      *
      * @param args Command line arguments containing the pathname to the initial
      *             state of the universe and the number of generations to
-     *             compute.
+     *             compute, followed by any optional settings.
      **/
     public static void main (String[] args) {
 
-	if (args.length != 3) {
+	if (args.length < 3) {
 		showUsageAndExit();
 	}
+	else if (args[0].equals("census")) {
+		long soups=0;
+		long seed=0;
+		try {
+			soups = Long.parseLong(args[1]);
+			seed = Long.parseLong(args[2]);
+		} catch (NumberFormatException e) {
+			showUsageAndExit();
+		}
+
+		// Play many random soups at once, and count what they leave behind.
+		Options options = Options.parse(args, 3);
+		new SoupSearch(soups, seed, options).run();
+	}
+	else if (args[0].equals("cluster")) {
+		long generations=0;
+		try {
+			generations = Long.parseLong(args[2]);
+		} catch (NumberFormatException e) {
+			showUsageAndExit();
+		}
+
+		// Play one game across several worker processes.
+		Options options = Options.parse(args, 3);
+		new Cluster(args[1], generations, options).run();
+	}
+	else if (args[0].equals("worker")) {
+		int port=0;
+		try {
+			port = Integer.parseInt(args[2]);
+		} catch (NumberFormatException e) {
+			showUsageAndExit();
+		}
+
+		// Play one strip of a cluster's game, as its coordinator directs.
+		new ClusterWorker(args[1], port).run();
+	}
 	else {
 		String initialStatePathname = args[0];
 
-		int generations=0;
+		long generations=0;
 		boolean graphics=true;
 		try {
-			generations = Integer.parseInt(args[1]);
+			generations = Long.parseLong(args[1]);
 		} catch (NumberFormatException e) {
 			showUsageAndExit();
 		}
@@ -43,8 +80,11 @@ public class Life {
 		if (args[2].equals("nographics"))
 			graphics=false;
 
+		// Any further arguments are optional settings.
+		Options options = Options.parse(args, 3);
+
 		// Create and play the game, evolving one generation at a time.
-		Game game = new Game(initialStatePathname,generations,graphics);
+		Game game = new Game(initialStatePathname,generations,graphics,options);
 		game.play();
 		
 	}
@@ -63,7 +103,42 @@ public class Life {
 
 	Support.abort("USAGE: java Life <initial state pathname>\n" +
 		      "                 <number of generations to compute>\n"+
-			"				<\"graphics\" or \"nographics\">");
+			"				<\"graphics\" or \"nographics\">\n" +
+		      "                 [engine=<grid|bitgrid|hashlife|sparse|incremental|counts|tiles|padded|mapped|vector>]\n" +
+		      "                 [topology=<dead|torus|klein, for the padded engine>]\n" +
+		      "                 [universe=<window|file, the size of a universe with graphics>]\n" +
+		      "                 [step=<log2 generations per hashlife step>]\n" +
+		      "                 [nodes=<hashlife node cache size>]\n" +
+		      "                 [threads=<number of worker threads>]\n" +
+		      "                 [rule=<rulestring, such as B36/S23>]\n" +
+		      "                 [verify=<true to check against the grid engine>]\n" +
+		      "                 [resume=<snapshot or mapped file to resume from, instead of the initial state>]\n" +
+		      "                 [checkpoint=<generations between checkpoints>]\n" +
+		      "                 [snapshot=<checkpoint file, by default life.snapshot>]\n" +
+		      "                 [mapping=<file for the mapped engine, by default life.map>]\n" +
+		      "                 [history=<false to leave ever-alive cells out of checkpoints>]\n" +
+		      "                 [rewind=<megabytes of past generations to keep, 0 for none>]\n" +
+		      "                 [keyframe=<generations between whole kept generations>]\n" +
+		      "                 [record=<file to record each generation's changes in>]\n" +
+		      "                 [compress=<true to deflate the recording>]\n" +
+		      "                 [replay=<recording to play back, instead of the initial state>]\n" +
+		      "                 [output=<grid|stats|final|none>]\n" +
+		      "                 [every=<generations between outputs>]\n" +
+		      "                 [detect=<off|report|stop|skip>]\n" +
+		      "                 [window=<generations to search for a repeat>]\n" +
+		      "                 [timings=<true to print phase latencies at the end>]\n" +
+		      "                 [wait=<milliseconds between generations>]\n" +
+		      "       java Life census <number of soups> <seed>\n" +
+		      "                 [rule=<rulestring, such as B36/S23>]\n" +
+		      "                 [workers=<soups to play at once>]\n" +
+		      "                 [soupsize=<width and height of each soup>]\n" +
+		      "       java Life cluster <initial state pathname>\n" +
+		      "                 <number of generations to compute>\n" +
+		      "                 [rule=<rulestring, such as B36/S23>]\n" +
+		      "                 [workers=<number of worker processes>]\n" +
+		      "                 [halo=<generations between exchanges of strip edges>]\n" +
+		      "                 [snapshot=<file for the final state, by default life.snapshot>]\n" +
+		      "                 [output=<final|none>]");
 	
     }
     // =========================================================================
@@ -0,0 +1,244 @@
+// =============================================================================
+/**
+ * The <code>LineCounts</code> class.  The number of live cells on each row,
+ * or on each column, of an unbounded set, held with open addressing so that
+ * no coordinate is ever boxed.  Only lines holding live cells are kept: a
+ * line is dropped as soon as its count reaches zero, so that the nearest line
+ * to an edge of the set can be found among those still held.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class LineCounts {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty set of counts.
+     **/
+    public LineCounts () {
+
+	_lines = new int[16];
+	_counts = new int[16];
+	_size = 0;
+
+    } // LineCounts ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count one more live cell on a line.
+     *
+     * @param line The row or column coordinate.
+     **/
+    public void add (int line) {
+
+	int mask = _lines.length - 1;
+	int slot = hash(line) & mask;
+	while (_counts[slot] != 0) {
+	    if (_lines[slot] == line) {
+		_counts[slot] += 1;
+		return;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	_lines[slot] = line;
+	_counts[slot] = 1;
+	_size += 1;
+
+	// Keep the table at most half full.
+	if (_size * 2 > _lines.length) {
+	    rehash(_lines.length * 2);
+	}
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count one fewer live cell on a line, which must hold one.  A line left
+     * with none is dropped, and the lines after it in its run of slots are
+     * moved back, so that no slot is ever marked as deleted.
+     *
+     * @param line The row or column coordinate.
+     **/
+    public void remove (int line) {
+
+	int mask = _lines.length - 1;
+	int slot = hash(line) & mask;
+	while (_lines[slot] != line) {
+	    slot = (slot + 1) & mask;
+	}
+	_counts[slot] -= 1;
+	if (_counts[slot] > 0) {
+	    return;
+	}
+	_size -= 1;
+
+	// Move back each later entry of the run that may no longer be found
+	// past the gap.
+	int gap = slot;
+	for (int next = (gap + 1) & mask; _counts[next] != 0; next = (next + 1) & mask) {
+	    int home = hash(_lines[next]) & mask;
+	    if (((next - home) & mask) >= ((next - gap) & mask)) {
+		_lines[gap] = _lines[next];
+		_counts[gap] = _counts[next];
+		_counts[next] = 0;
+		gap = next;
+	    }
+	}
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a line holds any live cells.
+     *
+     * @param line The row or column coordinate.
+     * @return <code>true</code> if the line holds a live cell.
+     **/
+    public boolean contains (int line) {
+
+	int mask = _lines.length - 1;
+	int slot = hash(line) & mask;
+	while (_counts[slot] != 0) {
+	    if (_lines[slot] == line) {
+		return true;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	return false;
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the line nearest an edge that holds live cells, going in from the
+     * edge.  Lines are tried one at a time, but no more of them than are
+     * held; past a gap that wide, the nearest is picked from the held lines
+     * instead.  At least one line must be held, and none beyond the edge.
+     *
+     * @param edge The first line to try.
+     * @param step 1 to go up from the edge; -1 to go down from it.
+     * @return The nearest line holding a live cell.
+     **/
+    public int nearest (int edge, int step) {
+
+	int line = edge;
+	for (int tried = 0; tried < _size; tried += 1, line += step) {
+	    if (contains(line)) {
+		return line;
+	    }
+	}
+
+	int nearest = (step > 0) ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+	for (int slot = 0; slot < _lines.length; slot += 1) {
+	    if (_counts[slot] != 0) {
+		nearest = (step > 0) ? Math.min(nearest, _lines[slot]) :
+		    Math.max(nearest, _lines[slot]);
+	    }
+	}
+	return nearest;
+
+    } // nearest ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of lines that hold live cells.
+     *
+     * @return The number of lines.
+     **/
+    public int size () {
+
+	return _size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Rebuild the table with a new number of slots.
+     *
+     * @param capacity The new number of slots, a power of two.
+     **/
+    private void rehash (int capacity) {
+
+	int[] lines = _lines;
+	int[] counts = _counts;
+	_lines = new int[capacity];
+	_counts = new int[capacity];
+	int mask = capacity - 1;
+	for (int old = 0; old < lines.length; old += 1) {
+	    if (counts[old] == 0) {
+		continue;
+	    }
+	    int slot = hash(lines[old]) & mask;
+	    while (_counts[slot] != 0) {
+		slot = (slot + 1) & mask;
+	    }
+	    _lines[slot] = lines[old];
+	    _counts[slot] = counts[old];
+	}
+
+    } // rehash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Scramble a coordinate so that nearby lines spread across the table.
+     *
+     * @param line The coordinate.
+     * @return The scrambled hash.
+     **/
+    private static int hash (int line) {
+
+	int h = line * 0x9E3779B9;
+	return h ^ (h >>> 16);
+
+    } // hash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The open-addressed table: the coordinate of each line held, and its
+     * count of live cells.  A slot whose count is zero is empty.
+     **/
+    private int[] _lines;
+    private int[] _counts;
+
+    /**
+     * The number of lines held.
+     **/
+    private int _size;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LineCounts
+// =============================================================================
@@ -0,0 +1,215 @@
+// =============================================================================
+/**
+ * The <code>LiveCells</code> class.  The live cells of one generation, as a
+ * sorted array of <code>long</code> keys, for comparing one generation with
+ * another.  Each key holds a cell's row in its high half and its column,
+ * with the sign bit flipped, in its low half, so that the keys sort in the
+ * same order as the cells, by row and then by column, negative coordinates
+ * included.  Since every universe visits its live cells in that order, the
+ * keys are sorted as they are gathered, and two generations can be compared
+ * in a single pass that finds every cell that flipped between them.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+// =============================================================================
+
+
+
+// =============================================================================
+public class LiveCells {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty list of cells.
+     **/
+    public LiveCells () {
+
+	_keys = new long[1024];
+	_size = 0;
+
+    } // LiveCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Replace the cells with those visited by a walk over live cells, such
+     * as <code>universe::forEachLiveCell</code>, which must visit them in
+     * order by row and then by column.
+     *
+     * @param walk The walk, which hands each cell to the visitor given it.
+     **/
+    public void gather (Consumer<CellVisitor> walk) {
+
+	_size = 0;
+	walk.accept((row, column) -> {
+		if (_size == _keys.length) {
+		    _keys = grow(_keys);
+		}
+		_keys[_size++] = key(row, column);
+	    });
+
+    } // gather ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that flipped from an earlier generation to this one,
+     * in order by row and then by column.
+     *
+     * @param before The cells of the earlier generation.
+     * @param born The visitor to hand each cell that came to life.
+     * @param died The visitor to hand each cell that died.
+     **/
+    public void forEachFlip (LiveCells before, CellVisitor born, CellVisitor died) {
+
+	long[] previous = before._keys;
+	int previousSize = before._size;
+	int old = 0;
+	int now = 0;
+	while ((old < previousSize) || (now < _size)) {
+	    if ((now == _size) || ((old < previousSize) && (previous[old] < _keys[now]))) {
+		died.visit(row(previous[old]), column(previous[old]));
+		old += 1;
+	    } else if ((old == previousSize) || (previous[old] > _keys[now])) {
+		born.visit(row(_keys[now]), column(_keys[now]));
+		now += 1;
+	    } else {
+		old += 1;
+		now += 1;
+	    }
+	}
+
+    } // forEachFlip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells.
+     *
+     * @return The number of cells.
+     **/
+    public int size () {
+
+	return _size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the key of a cell.
+     *
+     * @param index The index of the cell, below <code>size()</code>, in
+     *              order by row and then by column.
+     * @return The key.
+     **/
+    public long get (int index) {
+
+	return _keys[index];
+
+    } // get ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make room for more keys, up to as many as an array can hold.
+     *
+     * @param keys The keys, all in use.
+     * @return A longer copy of the keys.
+     **/
+    static long[] grow (long[] keys) {
+
+	if (keys.length >= MAX_KEYS) {
+	    Support.abort("ERROR: Cannot keep more than " + MAX_KEYS + " cells in a list");
+	}
+	return Arrays.copyOf(keys, (int)Math.min(2L * keys.length, MAX_KEYS));
+
+    } // grow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pack a pair of coordinates into a key that sorts in the order of the
+     * cells.
+     *
+     * @param row The row coordinate.
+     * @param column The column coordinate.
+     * @return The key.
+     **/
+    public static long key (int row, int column) {
+
+	return ((long)row << 32) | ((column ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the row coordinate from a key.
+     **/
+    public static int row (long key) {
+
+	return (int)(key >> 32);
+
+    } // row ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the column coordinate from a key.
+     **/
+    public static int column (long key) {
+
+	return (int)key ^ Integer.MIN_VALUE;
+
+    } // column ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The most keys an array can hold.
+     **/
+    private static final int MAX_KEYS = Integer.MAX_VALUE - 8;
+
+    /**
+     * The keys of the cells, in order, and how many of them there are.
+     **/
+    private long[] _keys;
+    private int _size;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LiveCells
+// =============================================================================
@@ -0,0 +1,60 @@
+// =============================================================================
+/**
+ * The <code>LoadEvent</code> class.  A JDK Flight Recorder event for reading
+ * the initial state of a game, from a pattern file or from a snapshot.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+// =============================================================================
+
+
+
+// =============================================================================
+@Name("life.Load")
+@Label("Initial State Load")
+@Category("Game of Life")
+@Description("Reading the initial state of a game")
+public class LoadEvent extends Event {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The file that was read.
+     **/
+    @Label("Path")
+    String path;
+
+    /**
+     * The number of live cells read.
+     **/
+    @Label("Cells")
+    long cells;
+
+    /**
+     * The size of the file.
+     **/
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LoadEvent
+// =============================================================================
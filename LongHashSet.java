@@ -0,0 +1,260 @@
+// =============================================================================
+/**
+ * The <code>LongHashSet</code> class.  A set of primitive <code>long</code>
+ * keys, held with open addressing so that no key is ever boxed.  Keys are
+ * also kept in a dense list in the order they were added, which gives each
+ * key a stable index for the life of the set and makes iteration a simple
+ * array walk.  Keys cannot be removed individually, only all at once.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class LongHashSet {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty set.
+     *
+     * @param expected The number of keys expected, used to size the table.
+     **/
+    public LongHashSet (int expected) {
+
+	int capacity = 16;
+	while (capacity < expected * 2) {
+	    capacity <<= 1;
+	}
+	_slots = new int[capacity];
+	_keys = new long[Math.max(expected, 16)];
+	_size = 0;
+
+    } // LongHashSet ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a key to the set, if it is not already present.
+     *
+     * @param key The key to add.
+     * @return The index of the key in the order of addition.
+     **/
+    public int add (long key) {
+
+	int mask = _slots.length - 1;
+	int slot = hash(key) & mask;
+	while (true) {
+	    int entry = _slots[slot];
+	    if (entry == 0) {
+		break;
+	    }
+	    if (_keys[entry - 1] == key) {
+		return entry - 1;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+
+	// The key is new, so append it to the dense list.
+	if (_size == _keys.length) {
+	    long[] keys = new long[_keys.length * 2];
+	    System.arraycopy(_keys, 0, keys, 0, _size);
+	    _keys = keys;
+	}
+	int index = _size;
+	_keys[index] = key;
+	_size += 1;
+	_slots[slot] = index + 1;
+
+	// Keep the table at most half full.
+	if (_size * 2 > _slots.length) {
+	    rehash(_slots.length * 2);
+	}
+	return index;
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a key is in the set.
+     *
+     * @param key The key to find.
+     * @return <code>true</code> if the key is present.
+     **/
+    public boolean contains (long key) {
+
+	return indexOf(key) >= 0;
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the index of a key in the order of addition.
+     *
+     * @param key The key to find.
+     * @return The index of the key, or <code>-1</code> if it is absent.
+     **/
+    public int indexOf (long key) {
+
+	int mask = _slots.length - 1;
+	int slot = hash(key) & mask;
+	while (true) {
+	    int entry = _slots[slot];
+	    if (entry == 0) {
+		return -1;
+	    }
+	    if (_keys[entry - 1] == key) {
+		return entry - 1;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+
+    } // indexOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the key at an index in the order of addition.
+     *
+     * @param index The index, from zero up to <code>size()</code>.
+     * @return The key.
+     **/
+    public long get (int index) {
+
+	return _keys[index];
+
+    } // get ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of keys in the set.
+     *
+     * @return The number of keys.
+     **/
+    public int size () {
+
+	return _size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove every key, keeping the storage for reuse.
+     **/
+    public void clear () {
+
+	if (_size == 0) {
+	    return;
+	}
+
+	// Clearing only the occupied slots is cheaper when the set is sparse.
+	if (_size * 8 < _slots.length) {
+	    int mask = _slots.length - 1;
+	    for (int index = 0; index < _size; index += 1) {
+		int slot = hash(_keys[index]) & mask;
+		while (_slots[slot] != 0) {
+		    _slots[slot] = 0;
+		    slot = (slot + 1) & mask;
+		}
+	    }
+	} else {
+	    Arrays.fill(_slots, 0);
+	}
+	_size = 0;
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Rebuild the table with a new number of slots.
+     *
+     * @param capacity The new number of slots, a power of two.
+     **/
+    private void rehash (int capacity) {
+
+	_slots = new int[capacity];
+	int mask = capacity - 1;
+	for (int index = 0; index < _size; index += 1) {
+	    int slot = hash(_keys[index]) & mask;
+	    while (_slots[slot] != 0) {
+		slot = (slot + 1) & mask;
+	    }
+	    _slots[slot] = index + 1;
+	}
+
+    } // rehash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Scramble a key so that nearby coordinates spread across the table.
+     *
+     * @param key The key.
+     * @return The scrambled hash.
+     **/
+    private static int hash (long key) {
+
+	long h = key * 0x9E3779B97F4A7C15L;
+	return (int)(h ^ (h >>> 32));
+
+    } // hash ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The open-addressed table.  Each slot holds one more than the index of
+     * its key in <code>_keys</code>, or zero when the slot is empty.
+     **/
+    private int[] _slots;
+
+    /**
+     * The keys, in the order they were added.
+     **/
+    private long[] _keys;
+
+    /**
+     * The number of keys in the set.
+     **/
+    private int _size;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LongHashSet
+// =============================================================================
@@ -0,0 +1,1053 @@
+// =============================================================================
+/**
+ * The <code>MappedGrid</code> class.  A storage engine that keeps the
+ * universe in a memory-mapped file rather than on the heap, so that its size
+ * is bounded by the disk and the page cache instead.  Cells are packed one
+ * bit each into rows of <code>long</code> words, as in <code>BitGrid</code>,
+ * and each generation is calculated as a single sweep down the rows, reading
+ * three rows of the current generation and writing one of the next, which
+ * the operating system can page in and out in order.  Nothing is allocated
+ * as the universe evolves, so the size of the universe puts no load on the
+ * garbage collector.
+ *
+ * <p>The file holds a header of one page, followed by three planes of the
+ * same size: two generation buffers, which take turns holding the current
+ * and the next generation, and the cells that were ever alive.  The header
+ * holds, big-endian, the bytes <code>LIFEGRID</code>, the format version,
+ * whether the file is a clean checkpoint, the number of rows and columns,
+ * which buffer holds the current generation, the generation, and the rule
+ * as a length-prefixed string.  The planes are in the machine's own byte
+ * order.  Words that stay empty are never written, so the file stays sparse
+ * where the universe is empty.</p>
+ *
+ * <p>The file is its own checkpoint: <code>sync()</code> records the
+ * generation in the header and forces the mapping to disk.  From then until
+ * the universe is next changed, the file can be reopened by
+ * <code>open()</code> and the run carried on.  Once the universe changes,
+ * the header is marked as no longer clean, since the next generations
+ * overwrite the buffers in place.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class MappedGrid implements BandedUniverse {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead,
+     * in a new mapped file, replacing any file already there.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must have only two states.
+     * @param path The pathname of the file to keep the grid in.
+     **/
+    public MappedGrid (int rows, int columns, Rule rule, String path) {
+
+	this(rows, columns, rule, path, true);
+
+	// The header describes the grid from the start, but the file only
+	// becomes a checkpoint once it is synced.
+	_header.put(MAGIC);
+	_header.putInt(VERSION_AT, VERSION);
+	_header.putInt(STATE_AT, DIRTY);
+	_header.putInt(ROWS_AT, rows);
+	_header.putInt(COLUMNS_AT, columns);
+	byte[] ruleText = rule.toString().getBytes(StandardCharsets.UTF_8);
+	_header.putShort(RULE_AT, (short)ruleText.length);
+	_header.position(RULE_AT + 2);
+	_header.put(ruleText);
+
+    } // MappedGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Map a grid's file, creating it if asked to.
+     **/
+    private MappedGrid (int rows, int columns, Rule rule, String path, boolean create) {
+
+	// Ensure that the sizes are valid.
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a grid of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+
+	if (!rule.isTwoState()) {
+	    Support.abort("ERROR: A mapped grid cannot follow the multi-state " +
+			  "rule " + rule);
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_rule = rule;
+	_path = path;
+	_wordsPerRow = (columns + 63) >>> 6;
+	_birth = rule.birthMasks();
+	_survival = rule.survivalMasks();
+
+	// The unused high bits of the last word in each row must stay clear.
+	int tail = columns & 63;
+	_lastWordMask = (tail == 0) ? -1L : (1L << tail) - 1;
+
+	// A single mapping cannot exceed two gigabytes, so the planes are
+	// mapped in chunks of whole rows.
+	long rowBytes = 8L * _wordsPerRow;
+	long planeRows = (long)PLANES * rows;
+	_rowsPerChunk = (int)Math.max(1, CHUNK_BYTES / rowBytes);
+	int chunks = (int)((planeRows + _rowsPerChunk - 1) / _rowsPerChunk);
+	_maps = new MappedByteBuffer[chunks];
+	_chunks = new LongBuffer[chunks];
+
+	try (FileChannel channel = create ?
+	     FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+			      StandardOpenOption.READ, StandardOpenOption.WRITE,
+			      StandardOpenOption.TRUNCATE_EXISTING) :
+	     FileChannel.open(Paths.get(path), StandardOpenOption.READ,
+			      StandardOpenOption.WRITE)) {
+	    _header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+	    for (int chunk = 0; chunk < chunks; chunk += 1) {
+		long first = (long)chunk * _rowsPerChunk;
+		long count = Math.min(_rowsPerChunk, planeRows - first);
+		_maps[chunk] = channel.map(FileChannel.MapMode.READ_WRITE,
+					   HEADER_BYTES + first * rowBytes,
+					   count * rowBytes);
+		_chunks[chunk] = _maps[chunk].order(ByteOrder.nativeOrder()).asLongBuffer();
+	    }
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not map " + path + ": " + e.getMessage());
+	}
+
+	// Each row keeps its own fingerprint and statistics, so that bands of
+	// rows advanced on different threads never update the same ones, and
+	// its own note of which buffer holds its current generation, so that a
+	// band can adopt its next generation without touching the others.
+	_parity = new byte[rows];
+	_rowFingerprints = new Fingerprint[rows];
+	_rowStatistics = new Statistics[rows];
+	for (int row = 0; row < rows; row += 1) {
+	    _rowFingerprints[row] = new Fingerprint();
+	    _rowStatistics[row] = new Statistics();
+	}
+	_clean = false;
+
+    } // MappedGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Reopen a grid from a file that was synced by an earlier run.
+     *
+     * @param path The pathname of the grid's file.
+     * @return The grid, in the generation at which it was last synced.
+     **/
+    public static MappedGrid open (String path) {
+
+	// Read the header, which says how big the rest of the file is.
+	int rows = 0;
+	int columns = 0;
+	int state = DIRTY;
+	String ruleText = null;
+	try (FileChannel channel = FileChannel.open(Paths.get(path),
+						    StandardOpenOption.READ)) {
+	    if (channel.size() < HEADER_BYTES) {
+		Support.abort("ERROR: " + path + " is not a mapped grid");
+	    }
+	    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						  HEADER_BYTES);
+	    byte[] magic = new byte[MAGIC.length];
+	    header.get(magic);
+	    if (!Arrays.equals(magic, MAGIC) ||
+		(header.getInt(VERSION_AT) != VERSION)) {
+		Support.abort("ERROR: " + path + " is not a mapped grid");
+	    }
+	    state = header.getInt(STATE_AT);
+	    rows = header.getInt(ROWS_AT);
+	    columns = header.getInt(COLUMNS_AT);
+	    byte[] ruleBytes = new byte[header.getShort(RULE_AT)];
+	    header.position(RULE_AT + 2);
+	    header.get(ruleBytes);
+	    ruleText = new String(ruleBytes, StandardCharsets.UTF_8);
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not read " + path + ": " + e.getMessage());
+	}
+
+	if (state != CLEAN) {
+	    Support.abort("ERROR: " + path + " was changed after it was last " +
+			  "synced, and cannot be resumed");
+	}
+
+	MappedGrid grid = new MappedGrid(rows, columns, Rule.parse(ruleText), path, false);
+	grid._generation = grid._header.getLong(GENERATION_AT);
+	grid._clean = true;
+	Arrays.fill(grid._parity, (byte)grid._header.getInt(PARITY_AT));
+
+	// Rebuild the fingerprint and statistics of each row from its cells.
+	grid.visitBits(false, (row, column) -> {
+		grid._rowFingerprints[row].flip(row, column, true);
+		grid._rowStatistics[row].include(row, column);
+	    });
+	return grid;
+
+    } // open ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make the file a checkpoint: record the generation, and force every
+     * change to the grid out to the disk.  The header is only marked clean
+     * once the cells are safely written.
+     *
+     * @param generation The generation the grid is in.
+     **/
+    public void sync (long generation) {
+
+	for (MappedByteBuffer map : _maps) {
+	    map.force();
+	}
+
+	// Between generations, every row's current generation is in the same
+	// buffer.
+	_generation = generation;
+	_header.putInt(PARITY_AT, _parity[0]);
+	_header.putLong(GENERATION_AT, generation);
+	_header.putInt(STATE_AT, CLEAN);
+	_header.force();
+	_clean = true;
+
+    } // sync ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note that the grid is about to change, so that its file is no longer
+     * the checkpoint it was last synced as.  The header is forced at once,
+     * so that it never claims to be clean while its cells are not.  Bands on
+     * several threads may all do this at once, which is harmless, since they
+     * all write the same.
+     **/
+    private void touch () {
+
+	if (_clean) {
+	    _clean = false;
+	    _header.putInt(STATE_AT, DIRTY);
+	    _header.force();
+	}
+
+    } // touch ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule that the grid follows.
+     *
+     * @return The rule.
+     **/
+    public Rule getRule () {
+
+	return _rule;
+
+    } // getRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the generation at which the grid was last synced.
+     *
+     * @return The generation, or 0 if it has never been synced.
+     **/
+    public long getGeneration () {
+
+	return _generation;
+
+    } // getGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the pathname of the grid's file.
+     *
+     * @return The pathname.
+     **/
+    public String getPath () {
+
+	return _path;
+
+    } // getPath ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the grid.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the grid.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive; <code>false</code> if it
+     *         is dead or outside of the grid.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return isInside(row, column) && getBit(_parity[row], row, column);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return isInside(row, column) && getBit(1 - _parity[row], row, column);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return isInside(row, column) && getBit(EVER, row, column);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if (!isInside(row, column)) {
+	    Support.abort("Cannot make a cell alive outside of the grid at " +
+			  row +
+			  ", " +
+			  column);
+	}
+
+	touch();
+	int word = column >>> 6;
+	long bit = 1L << (column & 63);
+	LongBuffer current = chunk(_parity[row], row);
+	int index = start(_parity[row], row) + word;
+	long bits = current.get(index);
+	if ((bits & bit) == 0) {
+	    _rowFingerprints[row].flip(row, column, true);
+	    _rowStatistics[row].include(row, column);
+	    current.put(index, bits | bit);
+	}
+	setEverAlive(row, word, bit);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.  Cells
+     * outside of the grid are ignored.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if (isInside(row, column)) {
+	    touch();
+	    setEverAlive(row, column >>> 6, 1L << (column & 63));
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set bits of one word of the cells that were ever alive, writing the
+     * word only if it changes.
+     **/
+    private void setEverAlive (int row, int word, long bits) {
+
+	LongBuffer ever = chunk(EVER, row);
+	int index = start(EVER, row) + word;
+	long old = ever.get(index);
+	if ((old | bits) != old) {
+	    ever.put(index, old | bits);
+	}
+
+    } // setEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column, skipping a
+     * whole word of dead cells at a time.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	visitBits(false, visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	visitBits(true, visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell whose bit is set in either the current generation or
+     * the cells that were ever alive, in order.
+     **/
+    private void visitBits (boolean ever, CellVisitor visitor) {
+
+	for (int row = 0; row < _rows; row += 1) {
+	    int plane = ever ? EVER : _parity[row];
+	    LongBuffer buffer = chunk(plane, row);
+	    int start = start(plane, row);
+	    for (int word = 0; word < _wordsPerRow; word += 1) {
+		long bits = buffer.get(start + word);
+		while (bits != 0) {
+		    visitor.visit(row, (word << 6) + Long.numberOfTrailingZeros(bits));
+		    bits &= bits - 1;
+		}
+	    }
+	}
+
+    } // visitBits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation into the spare buffer, in one sweep down
+     * the rows.
+     **/
+    public void evolve () {
+
+	evolveRows(0, _rows);
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a band of rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void evolveRows (int first, int last) {
+
+	touch();
+	for (int row = first; row < last; row += 1) {
+	    evolveRow(row);
+	}
+
+    } // evolveRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Clear the next generation of a band of rows that will stay dead,
+     * writing only the words that are not already clear.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void skipRows (int first, int last) {
+
+	touch();
+	for (int row = first; row < last; row += 1) {
+	    int plane = 1 - _parity[row];
+	    LongBuffer next = chunk(plane, row);
+	    int start = start(plane, row);
+	    for (int index = start; index < start + _wordsPerRow; index += 1) {
+		if (next.get(index) != 0) {
+		    next.put(index, 0L);
+		}
+	    }
+	}
+
+    } // skipRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a single row.  The rows above and
+     * below the grid are treated as dead.  Each word of the three rows is
+     * read once, as the sweep along the row slides it from east, to the
+     * middle, to west.
+     *
+     * @param row The row to calculate.
+     **/
+    private void evolveRow (int row) {
+
+	int words = _wordsPerRow;
+	LongBuffer aboveBuffer = null;
+	LongBuffer belowBuffer = null;
+	int above = 0;
+	int below = 0;
+	if (row > 0) {
+	    aboveBuffer = chunk(_parity[row - 1], row - 1);
+	    above = start(_parity[row - 1], row - 1);
+	}
+	if (row < _rows - 1) {
+	    belowBuffer = chunk(_parity[row + 1], row + 1);
+	    below = start(_parity[row + 1], row + 1);
+	}
+	LongBuffer hereBuffer = chunk(_parity[row], row);
+	int here = start(_parity[row], row);
+	LongBuffer nextBuffer = chunk(1 - _parity[row], row);
+	int next = start(1 - _parity[row], row);
+
+	long aWest = 0;
+	long xWest = 0;
+	long bWest = 0;
+	long a = read(aboveBuffer, above);
+	long x = hereBuffer.get(here);
+	long b = read(belowBuffer, below);
+
+	for (int word = 0; word < words; word += 1) {
+
+	    boolean last = (word == words - 1);
+	    long aEast = last ? 0 : read(aboveBuffer, above + word + 1);
+	    long xEast = last ? 0 : hereBuffer.get(here + word + 1);
+	    long bEast = last ? 0 : read(belowBuffer, below + word + 1);
+
+	    long result = BitGrid.nextWord(a, aWest, aEast, x, xWest, xEast,
+					   b, bWest, bEast, _birth, _survival);
+	    if (last) {
+		result &= _lastWordMask;
+	    }
+
+	    // Leave an empty word unwritten if it is already empty, so that
+	    // empty stretches of the file are never touched.
+	    int index = next + word;
+	    if ((result != 0) || (nextBuffer.get(index) != 0)) {
+		nextBuffer.put(index, result);
+	    }
+
+	    aWest = a;
+	    a = aEast;
+	    xWest = x;
+	    x = xEast;
+	    bWest = b;
+	    b = bEast;
+
+	}
+
+    } // evolveRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation, and record which cells have ever been
+     * alive.
+     **/
+    public void advance () {
+
+	advanceRows(0, _rows);
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation for a band of rows.  Nothing is
+     * copied: each row simply takes the other buffer as its current one, once
+     * the cells that flip are recorded in its fingerprint and statistics, and
+     * told to the listener, if any, and the cells born are added to those that
+     * were ever alive.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band afterwards.
+     **/
+    public long advanceRows (int first, int last) {
+
+	startRows(first, last);
+
+	for (int row = first; row < last; row += 1) {
+	    int plane = _parity[row];
+	    LongBuffer current = chunk(plane, row);
+	    LongBuffer next = chunk(1 - plane, row);
+	    LongBuffer ever = chunk(EVER, row);
+	    int currentStart = start(plane, row);
+	    int nextStart = start(1 - plane, row);
+	    int everStart = start(EVER, row);
+
+	    for (int word = 0; word < _wordsPerRow; word += 1) {
+		long bits = next.get(nextStart + word);
+		long flips = bits ^ current.get(currentStart + word);
+		if (flips == 0) {
+		    continue;
+		}
+		while (flips != 0) {
+		    int bit = Long.numberOfTrailingZeros(flips);
+		    int column = (word << 6) + bit;
+		    boolean alive = ((bits >>> bit) & 1L) != 0;
+		    _rowFingerprints[row].flip(row, column, alive);
+		    _rowStatistics[row].flip(row, column, alive);
+		    if (_listener != null) {
+			_listener.flip(row, column, alive);
+		    }
+		    flips &= flips - 1;
+		}
+		long old = ever.get(everStart + word);
+		if ((old | bits) != old) {
+		    ever.put(everStart + word, old | bits);
+		}
+	    }
+
+	    _parity[row] = (byte)(1 - plane);
+	}
+
+	return settleRows(first, last);
+
+    } // advanceRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, gathered from the
+     * fingerprints of the rows.
+     *
+     * @return The fingerprint of the grid.
+     **/
+    public Fingerprint getFingerprint () {
+
+	Fingerprint fingerprint = new Fingerprint();
+	for (int row = 0; row < _rows; row += 1) {
+	    fingerprint.add(_rowFingerprints[row]);
+	}
+	return fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation in a band of
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void startRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].startGeneration();
+	}
+
+    } // startRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Settle the statistics of a band of rows once its cells have flipped.
+     *
+     * @return The number of live cells in the band.
+     **/
+    private long settleRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].settle(this);
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // settleRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, gathered from the
+     * statistics of the rows.
+     *
+     * @return The statistics of the grid.
+     **/
+    public Statistics getStatistics () {
+
+	Statistics statistics = new Statistics();
+	for (int row = 0; row < _rows; row += 1) {
+	    statistics.add(_rowStatistics[row]);
+	}
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as its band of
+     * rows advances.  Bands advanced on other threads tell it on those
+     * threads, so whoever advances bands at once must hand the listener
+     * their flips itself, as <code>ParallelUniverse</code> does.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, summed from the rows.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return countRows(0, _rows);
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a band of rows, from the statistics of the
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    public long countRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // countRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether coordinates fall within the grid.
+     **/
+    private boolean isInside (int row, int column) {
+
+	return (row >= 0) && (row < _rows) && (column >= 0) && (column < _columns);
+
+    } // isInside ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read one cell's bit from a plane.
+     **/
+    private boolean getBit (int plane, int row, int column) {
+
+	long word = chunk(plane, row).get(start(plane, row) + (column >>> 6));
+	return ((word >>> (column & 63)) & 1L) != 0;
+
+    } // getBit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the mapped chunk that holds a row of a plane.
+     **/
+    private LongBuffer chunk (int plane, int row) {
+
+	return _chunks[(plane * _rows + row) / _rowsPerChunk];
+
+    } // chunk ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the index of the first word of a row of a plane within its
+     * chunk.
+     **/
+    private int start (int plane, int row) {
+
+	return ((plane * _rows + row) % _rowsPerChunk) * _wordsPerRow;
+
+    } // start ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a word of a row, where a missing row reads as dead.
+     **/
+    private static long read (LongBuffer buffer, int index) {
+
+	return (buffer == null) ? 0 : buffer.get(index);
+
+    } // read ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The planes of the file: the two generation buffers, and the cells that
+     * were ever alive.
+     **/
+    private static final int PLANES = 3;
+    private static final int EVER = 2;
+
+    /**
+     * The largest chunk of the planes mapped at once.
+     **/
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    /**
+     * The size of the header, one page, and where each of its fields is.
+     **/
+    private static final int HEADER_BYTES = 4096;
+    private static final int VERSION_AT = 8;
+    private static final int STATE_AT = 12;
+    private static final int ROWS_AT = 16;
+    private static final int COLUMNS_AT = 20;
+    private static final int PARITY_AT = 24;
+    private static final int GENERATION_AT = 32;
+    private static final int RULE_AT = 40;
+
+    /**
+     * The bytes that start every grid file, and the version of the format.
+     **/
+    private static final byte[] MAGIC = "LIFEGRID".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    /**
+     * Whether the file is a checkpoint that can be resumed.
+     **/
+    private static final int DIRTY = 0;
+    private static final int CLEAN = 1;
+
+    /**
+     * The dimensions of the grid.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The number of <code>long</code> words that hold one row.
+     **/
+    private final int _wordsPerRow;
+
+    /**
+     * The bits of the last word of a row that fall within the grid.
+     **/
+    private final long _lastWordMask;
+
+    /**
+     * The rule, and for each neighbor count, a mask of all ones if that count
+     * causes birth or allows survival.
+     **/
+    private final Rule _rule;
+    private final long[] _birth;
+    private final long[] _survival;
+
+    /**
+     * The pathname of the grid's file.
+     **/
+    private final String _path;
+
+    /**
+     * The mapped header.
+     **/
+    private MappedByteBuffer _header;
+
+    /**
+     * The mapped chunks of the planes, each of a whole number of rows, and
+     * the same chunks viewed as words.
+     **/
+    private final MappedByteBuffer[] _maps;
+    private final LongBuffer[] _chunks;
+    private final int _rowsPerChunk;
+
+    /**
+     * For each row, which generation buffer holds its current generation.
+     **/
+    private final byte[] _parity;
+
+    /**
+     * Whether the file is still the checkpoint it was last synced as, and
+     * the generation it was synced at.
+     **/
+    private boolean _clean;
+    private long _generation;
+
+    /**
+     * The fingerprint of the live cells of each row, kept up to date as
+     * cells flip.
+     **/
+    private final Fingerprint[] _rowFingerprints;
+
+    /**
+     * The statistics of the live cells of each row, kept up to date as cells
+     * flip.
+     **/
+    private final Statistics[] _rowStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class MappedGrid
+// =============================================================================
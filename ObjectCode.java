@@ -0,0 +1,263 @@
+// =============================================================================
+/**
+ * The <code>ObjectCode</code> class.  Names the objects left behind by a
+ * soup.  An object is run on its own until it repeats, which tells whether it
+ * is a still life, an oscillator, or a spaceship, and its period.  Its name
+ * is then the same whatever its position, orientation, or phase: every phase
+ * is drawn in each of the eight orientations, and the shortest drawing, or
+ * the first in order among the shortest, is kept.
+ *
+ * <p>The names follow the usual census notation.  A prefix gives the kind:
+ * <code>xs</code> and the population for a still life, <code>xp</code> and
+ * the period for an oscillator, and <code>xq</code> and the period for a
+ * spaceship.  The drawing cuts the object into strips five rows tall, and
+ * writes each column of a strip as one character for its five bits, top row
+ * lowest; runs of empty columns are shortened, and strips are separated by
+ * <code>z</code>.  A block is <code>xs4_33</code>, a blinker
+ * <code>xp2_7</code>, and a glider <code>xq4_153</code>.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class ObjectCode {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Name an object.
+     *
+     * @param cells The row and column of each live cell of the object, in
+     *              pairs.
+     * @param count The number of live cells.
+     * @param rule The rule the object lives under, which must suit the
+     *             sparse engine.
+     * @return The name of the object, or <code>UNSTABLE</code> if it does not
+     *         repeat from its first generation within <code>MAX_PERIOD</code>
+     *         generations.
+     **/
+    public static String name (int[] cells, int count, Rule rule) {
+
+	SparseGrid universe = new SparseGrid(1, 1, rule, false);
+	universe.makeAllAlive(cells, count);
+	CycleDetector detector = new CycleDetector(MAX_PERIOD + 1);
+	detector.record(0, universe.getFingerprint());
+
+	for (int generation = 1; generation <= MAX_PERIOD; generation += 1) {
+	    universe.evolve();
+	    universe.advance();
+	    if (detector.record(generation, universe.getFingerprint())) {
+		if (detector.getStart() != 0) {
+		    return UNSTABLE;
+		}
+		return prefix(detector, count) + "_" + draw(universe, generation);
+	    }
+	}
+	return UNSTABLE;
+
+    } // name ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Give the prefix for the kind of object that a cycle shows.
+     **/
+    private static String prefix (CycleDetector detector, int population) {
+
+	if (detector.isMoving()) {
+	    return "xq" + detector.getPeriod();
+	} else if (detector.getPeriod() == 1) {
+	    return "xs" + population;
+	} else {
+	    return "xp" + detector.getPeriod();
+	}
+
+    } // prefix ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the best drawing of an object over every phase of its period,
+     * stepping the universe through them.
+     **/
+    private static String draw (Universe universe, int period) {
+
+	String best = null;
+	for (int phase = 0; phase < period; phase += 1) {
+	    int[] cells = new int[2 * (int)universe.getPopulation()];
+	    int[] count = new int[1];
+	    universe.forEachLiveCell((row, column) -> {
+		    cells[count[0]++] = row;
+		    cells[count[0]++] = column;
+		});
+	    for (int orientation = 0; orientation < 8; orientation += 1) {
+		String drawing = draw(cells, orientation);
+		if ((best == null) || isBetter(drawing, best)) {
+		    best = drawing;
+		}
+	    }
+	    universe.evolve();
+	    universe.advance();
+	}
+	return best;
+
+    } // draw ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Draw one phase of an object in one of its eight orientations: turned
+     * about the diagonal or not, and then flipped across each axis or not.
+     **/
+    private static String draw (int[] cells, int orientation) {
+
+	// Orient the cells, and find the box around them.
+	int[] oriented = new int[cells.length];
+	int top = Integer.MAX_VALUE;
+	int left = Integer.MAX_VALUE;
+	for (int index = 0; index < cells.length; index += 2) {
+	    int row = cells[index];
+	    int column = cells[index + 1];
+	    if ((orientation & 4) != 0) {
+		int swap = row;
+		row = column;
+		column = swap;
+	    }
+	    if ((orientation & 2) != 0) {
+		row = -row;
+	    }
+	    if ((orientation & 1) != 0) {
+		column = -column;
+	    }
+	    oriented[index] = row;
+	    oriented[index + 1] = column;
+	    top = Math.min(top, row);
+	    left = Math.min(left, column);
+	}
+	int height = 0;
+	int width = 0;
+	for (int index = 0; index < oriented.length; index += 2) {
+	    oriented[index] -= top;
+	    oriented[index + 1] -= left;
+	    height = Math.max(height, oriented[index] + 1);
+	    width = Math.max(width, oriented[index + 1] + 1);
+	}
+
+	// Gather the five bits of each column of each strip.
+	int strips = (height + STRIP - 1) / STRIP;
+	int[] columns = new int[strips * width];
+	for (int index = 0; index < oriented.length; index += 2) {
+	    int row = oriented[index];
+	    columns[(row / STRIP) * width + oriented[index + 1]] |= 1 << (row % STRIP);
+	}
+
+	StringBuilder drawing = new StringBuilder();
+	for (int strip = 0; strip < strips; strip += 1) {
+	    if (strip > 0) {
+		drawing.append('z');
+	    }
+	    int end = width;
+	    while ((end > 0) && (columns[strip * width + end - 1] == 0)) {
+		end -= 1;
+	    }
+	    int empty = 0;
+	    for (int column = 0; column < end; column += 1) {
+		int bits = columns[strip * width + column];
+		if (bits == 0) {
+		    empty += 1;
+		    continue;
+		}
+		appendEmpty(drawing, empty);
+		empty = 0;
+		drawing.append(DIGITS.charAt(bits));
+	    }
+	}
+	return drawing.toString();
+
+    } // draw ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a run of empty columns: <code>0</code> for one, <code>w</code>
+     * for two, <code>x</code> for three, and <code>y</code> followed by a
+     * digit for four to thirty-nine.
+     **/
+    private static void appendEmpty (StringBuilder drawing, int empty) {
+
+	while (empty >= 4) {
+	    int run = Math.min(empty, 39);
+	    drawing.append('y').append(DIGITS.charAt(run - 4));
+	    empty -= run;
+	}
+	if (empty == 1) {
+	    drawing.append('0');
+	} else if (empty == 2) {
+	    drawing.append('w');
+	} else if (empty == 3) {
+	    drawing.append('x');
+	}
+
+    } // appendEmpty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether one drawing is preferred to another: it is shorter,
+     * or as long and earlier in order.
+     **/
+    private static boolean isBetter (String drawing, String other) {
+
+	if (drawing.length() != other.length()) {
+	    return drawing.length() < other.length();
+	}
+	return drawing.compareTo(other) < 0;
+
+    } // isBetter ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The name given to an object that does not settle into a cycle on its
+     * own.
+     **/
+    public static final String UNSTABLE = "unstable";
+
+    /**
+     * The longest period looked for.
+     **/
+    public static final int MAX_PERIOD = 64;
+
+    /**
+     * The height of a strip of a drawing.
+     **/
+    private static final int STRIP = 5;
+
+    /**
+     * The characters for the bits of a column, and for lengths of runs.
+     **/
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ObjectCode
+// =============================================================================
@@ -0,0 +1,352 @@
+// =============================================================================
+/**
+ * The <code>Options</code> class.  Hold the optional settings that may follow
+ * the required arguments on the command line, each given in the form
+ * <code>name=value</code>.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class Options {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The storage engine for the universe: <code>grid</code> for one
+     * <code>Cell</code> object per square, <code>bitgrid</code> for one bit
+     * per square, <code>hashlife</code> for a canonical quadtree,
+     * <code>sparse</code> for a set of only the live cells,
+     * <code>incremental</code> for a grid of <code>Cell</code> objects that
+     * only re-evaluates cells near the last generation's changes, or
+     * <code>counts</code> for flat arrays of states and running neighbor
+     * counts, <code>tiles</code> for an unbounded map of 64 by 64 tiles that
+     * sleep while nothing near them changes, <code>padded</code> for flat
+     * arrays of bytes with a border of ghost cells, <code>mapped</code> for
+     * one bit per square in a memory-mapped file, or <code>vector</code> for
+     * flat arrays of bytes computed with the Vector API.
+     **/
+    public String engine = "grid";
+
+    /**
+     * How the edges of the universe meet: <code>dead</code> for edges beyond
+     * which every cell is dead, <code>torus</code> for opposite edges joined,
+     * or <code>klein</code> for the left and right edges joined and the top
+     * and bottom edges joined with a flip.  Only the <code>padded</code>
+     * engine wraps its edges.
+     **/
+    public String topology = "dead";
+
+    /**
+     * With graphics, how large a universe to play: <code>window</code> for
+     * one just larger than the window, or <code>file</code> for the size
+     * given by the initial state file, however large, which the display can
+     * pan across and zoom in and out of.
+     **/
+    public String universe = "window";
+
+    /**
+     * For the <code>hashlife</code> engine, the base-2 logarithm of the
+     * number of generations that each step jumps.
+     **/
+    public int step = 0;
+
+    /**
+     * For the <code>hashlife</code> engine, the number of canonical nodes to
+     * keep before the node table is garbage collected.
+     **/
+    public int nodes = 4000000;
+
+    /**
+     * The number of threads to run the <code>grid</code>,
+     * <code>bitgrid</code>, <code>padded</code>, or <code>mapped</code> engine
+     * on.
+     **/
+    public int threads = 1;
+
+    /**
+     * The rule, such as <code>B36/S23</code>, overriding any rule named in
+     * the initial state file.  By default, Conway's rule B3/S23.
+     **/
+    public String rule = null;
+
+    /**
+     * Whether to check every generation of the chosen engine against a
+     * plain <code>grid</code>, stopping at the first disagreement.
+     **/
+    public boolean verify = false;
+
+    /**
+     * A snapshot file to resume from, in place of the initial state file, or
+     * for the <code>mapped</code> engine, a mapped file synced by an earlier
+     * run.
+     **/
+    public String resume = null;
+
+    /**
+     * The number of generations between checkpoints, or 0 for none.
+     **/
+    public int checkpoint = 0;
+
+    /**
+     * The file to save checkpoints in.
+     **/
+    public String snapshot = "life.snapshot";
+
+    /**
+     * For the <code>mapped</code> engine, the file to keep the universe in.
+     **/
+    public String mapping = "life.map";
+
+    /**
+     * Whether checkpoints include the cells that were ever alive.
+     **/
+    public boolean history = true;
+
+    /**
+     * The number of megabytes of memory in which to keep past generations,
+     * so that the display can step back through them, or 0 to keep none.
+     **/
+    public int rewind = 0;
+
+    /**
+     * For a game that keeps past generations, the number of generations
+     * from one whole kept generation to the next; those in between are kept
+     * as the cells that changed.
+     **/
+    public int keyframe = 100;
+
+    /**
+     * A file to record the run in, as its first generation and then the
+     * cells that flipped in each generation after it, or <code>null</code>
+     * to record nothing.
+     **/
+    public String record = null;
+
+    /**
+     * Whether to deflate a recording as it is written.
+     **/
+    public boolean compress = false;
+
+    /**
+     * A recording to play back, in place of the initial state file, without
+     * calculating its generations again.
+     **/
+    public String replay = null;
+
+    /**
+     * What to show on standard output: <code>grid</code> for the whole grid,
+     * <code>stats</code> for a line of statistics, <code>final</code> for
+     * only the grid at the end, or <code>none</code> for nothing.
+     **/
+    public String output = "grid";
+
+    /**
+     * Show the grid or statistics every this many generations.
+     **/
+    public int every = 1;
+
+    /**
+     * What to do once the universe is found to repeat itself: nothing
+     * (<code>off</code>), report it and carry on (<code>report</code>),
+     * report it and stop (<code>stop</code>), or report it and skip ahead by
+     * whole periods (<code>skip</code>).  A spaceship cannot be skipped past,
+     * since the known region does not move with it, so it is stopped at.
+     **/
+    public String detect = "off";
+
+    /**
+     * The number of most recent generations to look back over for a repeat,
+     * which bounds the longest period that can be found.
+     **/
+    public int window = 1024;
+
+    /**
+     * Whether to time each phase of the simulation loop and print a summary
+     * of their latencies when the run ends.
+     **/
+    public boolean timings = false;
+
+    /**
+     * The number of milliseconds to wait between generations, which only
+     * paces the game; the display draws on its own thread.
+     **/
+    public int wait = 100;
+
+    /**
+     * For a census, the number of soups played at once, or for a cluster,
+     * the number of worker processes; or 0 for one per processor.
+     **/
+    public int workers = 0;
+
+    /**
+     * For a cluster, the number of generations each worker plays between
+     * trading the edges of its strip with its neighbors, which is also how
+     * many rows deep those edges are.
+     **/
+    public int halo = 8;
+
+    /**
+     * For a census, the width and height of each random soup.
+     **/
+    public int soupsize = 16;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse the optional settings from the command line.
+     *
+     * @param args The command line arguments.
+     * @param first The index of the first optional argument.
+     * @return The settings, with defaults for anything not given.
+     **/
+    public static Options parse (String[] args, int first) {
+
+	Options options = new Options();
+	for (int index = first; index < args.length; index += 1) {
+
+	    String arg = args[index];
+	    int split = arg.indexOf('=');
+	    if (split <= 0) {
+		Support.abort("ERROR: Expected an option of the form " +
+			      "name=value, but found " + arg);
+	    }
+	    options.set(arg.substring(0, split), arg.substring(split + 1));
+
+	}
+	return options;
+
+    } // parse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set a single named option.
+     *
+     * @param name The name of the option.
+     * @param value The value to give it.
+     **/
+    public void set (String name, String value) {
+
+	if (name.equals("engine")) {
+	    engine = value;
+	} else if (name.equals("topology")) {
+	    topology = value;
+	} else if (name.equals("universe")) {
+	    universe = value;
+	} else if (name.equals("step")) {
+	    step = parseInt(name, value);
+	} else if (name.equals("nodes")) {
+	    nodes = parseInt(name, value);
+	} else if (name.equals("threads")) {
+	    threads = parseInt(name, value);
+	} else if (name.equals("rule")) {
+	    rule = value;
+	} else if (name.equals("verify")) {
+	    verify = parseBoolean(name, value);
+	} else if (name.equals("resume")) {
+	    resume = value;
+	} else if (name.equals("checkpoint")) {
+	    checkpoint = parseInt(name, value);
+	} else if (name.equals("snapshot")) {
+	    snapshot = value;
+	} else if (name.equals("mapping")) {
+	    mapping = value;
+	} else if (name.equals("history")) {
+	    history = parseBoolean(name, value);
+	} else if (name.equals("rewind")) {
+	    rewind = parseInt(name, value);
+	} else if (name.equals("keyframe")) {
+	    keyframe = parseInt(name, value);
+	} else if (name.equals("record")) {
+	    record = value;
+	} else if (name.equals("compress")) {
+	    compress = parseBoolean(name, value);
+	} else if (name.equals("replay")) {
+	    replay = value;
+	} else if (name.equals("output")) {
+	    output = value;
+	} else if (name.equals("every")) {
+	    every = parseInt(name, value);
+	} else if (name.equals("detect")) {
+	    detect = value;
+	} else if (name.equals("window")) {
+	    window = parseInt(name, value);
+	} else if (name.equals("timings")) {
+	    timings = parseBoolean(name, value);
+	} else if (name.equals("wait")) {
+	    wait = parseInt(name, value);
+	} else if (name.equals("workers")) {
+	    workers = parseInt(name, value);
+	} else if (name.equals("halo")) {
+	    halo = parseInt(name, value);
+	} else if (name.equals("soupsize")) {
+	    soupsize = parseInt(name, value);
+	} else {
+	    Support.abort("ERROR: Unknown option " + name);
+	}
+
+    } // set ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse the integer value of an option.
+     *
+     * @param name The name of the option, for the error message.
+     * @param value The text to parse.
+     * @return The integer value.
+     **/
+    private static int parseInt (String name, String value) {
+
+	try {
+	    return Integer.parseInt(value);
+	} catch (NumberFormatException e) {
+	    Support.abort("ERROR: Option " + name + " needs an integer, " +
+			  "but found " + value);
+	}
+	return 0;
+
+    } // parseInt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse the boolean value of an option, given as <code>true</code> or
+     * <code>false</code>.
+     *
+     * @param name The name of the option, for the error message.
+     * @param value The text to parse.
+     * @return The boolean value.
+     **/
+    private static boolean parseBoolean (String name, String value) {
+
+	if (value.equals("true")) {
+	    return true;
+	} else if (!value.equals("false")) {
+	    Support.abort("ERROR: Option " + name + " needs true or false, " +
+			  "but found " + value);
+	}
+	return false;
+
+    } // parseBoolean ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Options
+// =============================================================================
@@ -0,0 +1,711 @@
+// =============================================================================
+/**
+ * The <code>PaddedGrid</code> class.  A storage engine that keeps each
+ * generation as a flat <code>byte[]</code>, one byte per cell, surrounded by
+ * a border of ghost cells one cell wide.  A cell's eight neighbors are
+ * always at the same offsets in the array, border or not, so each cell's next
+ * state is eight loads, a sum, and a lookup in the rule's table of next
+ * states, with no bounds checks and no branches.  The next generation is
+ * calculated into a second array, and the two are exchanged by reference.
+ *
+ * <p>The ghost cells give the grid its topology.  With dead edges they are
+ * simply never alive, as outside any other grid.  On a torus, each ghost is a
+ * copy of the cell on the opposite edge, and on a Klein bottle the same,
+ * except that the ghosts above and below the grid are copied from the
+ * opposite edge flipped from left to right.  Each ghost knows the cell it
+ * copies, so after each generation the ghosts are brought up to date in one
+ * pass, and the inner loop never wraps a coordinate itself.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class PaddedGrid implements BandedUniverse {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead,
+     * whose edges are dead.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must have only two states.
+     **/
+    public PaddedGrid (int rows, int columns, Rule rule) {
+
+	this(rows, columns, rule, DEAD);
+
+    } // PaddedGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must have only two states.
+     * @param topology How the edges of the grid meet: <code>DEAD</code>,
+     *                 <code>TORUS</code>, or <code>KLEIN</code>.
+     **/
+    public PaddedGrid (int rows, int columns, Rule rule, String topology) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a grid of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+	if (!rule.isTwoState()) {
+	    Support.abort("ERROR: The padded engine cannot follow the " +
+			  "multi-state rule " + rule);
+	}
+	if (!topology.equals(DEAD) && !topology.equals(TORUS) &&
+	    !topology.equals(KLEIN)) {
+	    Support.abort("ERROR: Unknown topology " + topology);
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_stride = columns + 2;
+	_table = rule.stateTable();
+
+	int size = (rows + 2) * _stride;
+	_current = new byte[size];
+	_next = new byte[size];
+	_ever = new byte[size];
+
+	// Dead edges have no ghosts to refresh.
+	if (topology.equals(DEAD)) {
+	    _ghosts = new int[0];
+	    _sources = new int[0];
+	    _ghostStarts = new int[rows + 1];
+	} else {
+	    findGhosts(topology.equals(KLEIN));
+	}
+
+	// Each row keeps its own fingerprint and statistics, so that bands of
+	// rows advanced on different threads never update the same ones.
+	_rowFingerprints = new Fingerprint[rows];
+	_rowStatistics = new Statistics[rows];
+	for (int row = 0; row < rows; row += 1) {
+	    _rowFingerprints[row] = new Fingerprint();
+	    _rowStatistics[row] = new Statistics();
+	}
+
+    } // PaddedGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the cell that each ghost copies, for a torus or a Klein bottle,
+     * and order the ghosts by the row of the cell they copy, so that a band
+     * of rows can refresh just the ghosts that copy it.
+     **/
+    private void findGhosts (boolean flip) {
+
+	int count = 2 * (_rows + _columns) + 4;
+	int[] ghosts = new int[count];
+	int[] sources = new int[count];
+	int[] sourceRows = new int[count];
+	int found = 0;
+
+	for (int row = -1; row <= _rows; row += 1) {
+	    for (int column = -1; column <= _columns; column += 1) {
+		if ((row >= 0) && (row < _rows) && (column >= 0) && (column < _columns)) {
+		    continue;
+		}
+
+		// Past the top or the bottom, wrap to the other edge, flipped
+		// for a Klein bottle; past the left or the right, just wrap.
+		int sourceRow = row;
+		int sourceColumn = column;
+		if ((row < 0) || (row >= _rows)) {
+		    sourceRow = Math.floorMod(row, _rows);
+		    if (flip) {
+			sourceColumn = _columns - 1 - column;
+		    }
+		}
+		sourceColumn = Math.floorMod(sourceColumn, _columns);
+
+		ghosts[found] = (row + 1) * _stride + (column + 1);
+		sources[found] = index(sourceRow, sourceColumn);
+		sourceRows[found] = sourceRow;
+		found += 1;
+	    }
+	}
+
+	// Sort the ghosts by source row, counting how many each row has.
+	_ghostStarts = new int[_rows + 1];
+	for (int ghost = 0; ghost < count; ghost += 1) {
+	    _ghostStarts[sourceRows[ghost] + 1] += 1;
+	}
+	for (int row = 0; row < _rows; row += 1) {
+	    _ghostStarts[row + 1] += _ghostStarts[row];
+	}
+	int[] next = _ghostStarts.clone();
+	_ghosts = new int[count];
+	_sources = new int[count];
+	for (int ghost = 0; ghost < count; ghost += 1) {
+	    int slot = next[sourceRows[ghost]]++;
+	    _ghosts[slot] = ghosts[ghost];
+	    _sources[slot] = sources[ghost];
+	}
+
+    } // findGhosts ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the grid.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the grid.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive; <code>false</code> if it
+     *         is dead or outside of the grid.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return contains(row, column) && (_current[index(row, column)] != 0);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return contains(row, column) && (_next[index(row, column)] != 0);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return contains(row, column) && (_ever[index(row, column)] != 0);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if (!contains(row, column)) {
+	    Support.abort("Cannot make a cell alive outside of the grid at " +
+			  row +
+			  ", " +
+			  column);
+	}
+	if (_current[index(row, column)] == 0) {
+	    _rowFingerprints[row].flip(row, column, true);
+	    _rowStatistics[row].include(row, column);
+	}
+	_current[index(row, column)] = 1;
+	_ever[index(row, column)] = 1;
+	refreshGhosts(row, row + 1);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.  Cells
+     * outside of the grid are ignored.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if (contains(row, column)) {
+	    _ever[index(row, column)] = 1;
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of every row.
+     **/
+    public void evolve () {
+
+	evolveRows(0, _rows);
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a band of rows.  Every neighbor is
+     * read at a fixed offset, the ghosts standing in for any that lie past an
+     * edge.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void evolveRows (int first, int last) {
+
+	byte[] current = _current;
+	byte[] next = _next;
+	byte[] table = _table;
+	int stride = _stride;
+
+	for (int row = first; row < last; row += 1) {
+	    int start = (row + 1) * stride + 1;
+	    int end = start + _columns;
+	    for (int here = start; here < end; here += 1) {
+		int count = current[here - stride - 1] + current[here - stride] +
+		    current[here - stride + 1] + current[here - 1] +
+		    current[here + 1] + current[here + stride - 1] +
+		    current[here + stride] + current[here + stride + 1];
+		next[here] = table[current[here] * 9 + count];
+	    }
+	}
+
+    } // evolveRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Clear the next generation of a band of rows that will stay dead.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void skipRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    int start = (row + 1) * _stride + 1;
+	    Arrays.fill(_next, start, start + _columns, (byte)0);
+	}
+
+    } // skipRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation by exchanging the two arrays, record
+     * which cells have ever been alive, and bring the ghosts up to date.
+     **/
+    public void advance () {
+
+	startRows(0, _rows);
+	recordFlips(0, _rows);
+
+	byte[] swap = _current;
+	_current = _next;
+	_next = swap;
+	recordEver(0, _rows);
+	refreshGhosts(0, _rows);
+	settleRows(0, _rows);
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation for a band of rows.  The arrays are
+     * shared by every band, so the band's cells are copied rather than the
+     * arrays exchanged.  The band refreshes only the ghosts that copy its own
+     * cells, so bands never write the same ghost.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band afterwards.
+     **/
+    public long advanceRows (int first, int last) {
+
+	startRows(first, last);
+	recordFlips(first, last);
+	for (int row = first; row < last; row += 1) {
+	    int start = (row + 1) * _stride + 1;
+	    System.arraycopy(_next, start, _current, start, _columns);
+	}
+	recordEver(first, last);
+	refreshGhosts(first, last);
+	return settleRows(first, last);
+
+    } // advanceRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Copy into each ghost the current state of the cell it stands for, for
+     * the ghosts that copy the cells of a band of rows.
+     **/
+    private void refreshGhosts (int first, int last) {
+
+	byte[] current = _current;
+	for (int ghost = _ghostStarts[first]; ghost < _ghostStarts[last]; ghost += 1) {
+	    current[_ghosts[ghost]] = current[_sources[ghost]];
+	}
+
+    } // refreshGhosts ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the cells of a band of rows that differ between the current and
+     * the calculated generation in the fingerprints and the statistics of
+     * their rows, and tell the listener, if any.
+     **/
+    private void recordFlips (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    Fingerprint fingerprint = _rowFingerprints[row];
+	    Statistics statistics = _rowStatistics[row];
+	    int start = (row + 1) * _stride + 1;
+	    for (int column = 0; column < _columns; column += 1) {
+		if (_current[start + column] != _next[start + column]) {
+		    boolean alive = (_next[start + column] != 0);
+		    fingerprint.flip(row, column, alive);
+		    statistics.flip(row, column, alive);
+		    if (_listener != null) {
+			_listener.flip(row, column, alive);
+		    }
+		}
+	    }
+	}
+
+    } // recordFlips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Mark the live cells of a band of rows as having been alive.
+     **/
+    private void recordEver (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    int start = (row + 1) * _stride + 1;
+	    for (int index = start; index < start + _columns; index += 1) {
+		_ever[index] |= _current[index];
+	    }
+	}
+
+    } // recordEver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, gathered from the
+     * fingerprints of the rows.
+     *
+     * @return The fingerprint of the grid.
+     **/
+    public Fingerprint getFingerprint () {
+
+	Fingerprint fingerprint = new Fingerprint();
+	for (int row = 0; row < _rows; row += 1) {
+	    fingerprint.add(_rowFingerprints[row]);
+	}
+	return fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation in a band of
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void startRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].startGeneration();
+	}
+
+    } // startRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Settle the statistics of a band of rows once its cells have flipped.
+     *
+     * @return The number of live cells in the band.
+     **/
+    private long settleRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].settle(this);
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // settleRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, gathered from the
+     * statistics of the rows.
+     *
+     * @return The statistics of the grid.
+     **/
+    public Statistics getStatistics () {
+
+	Statistics statistics = new Statistics();
+	for (int row = 0; row < _rows; row += 1) {
+	    statistics.add(_rowStatistics[row]);
+	}
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as its band of
+     * rows advances.  Bands advanced on other threads tell it on those
+     * threads, so whoever advances bands at once must hand the listener
+     * their flips itself, as <code>ParallelUniverse</code> does.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, summed from the rows.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return countRows(0, _rows);
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a band of rows, from the statistics of the
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    public long countRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // countRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether coordinates fall within the grid.
+     **/
+    private boolean contains (int row, int column) {
+
+	return (row >= 0) && (row < _rows) && (column >= 0) && (column < _columns);
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Convert coordinates within the grid into an array index.
+     **/
+    private int index (int row, int column) {
+
+	return (row + 1) * _stride + (column + 1);
+
+    } // index ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The topologies: edges beyond which every cell is dead, a torus, and a
+     * Klein bottle.
+     **/
+    public static final String DEAD = "dead";
+    public static final String TORUS = "torus";
+    public static final String KLEIN = "klein";
+
+    /**
+     * The dimensions of the grid, and the length of a row in the arrays,
+     * including the border.
+     **/
+    private final int _rows;
+    private final int _columns;
+    private final int _stride;
+
+    /**
+     * The rule's next state for each state and count of live neighbors.
+     **/
+    private final byte[] _table;
+
+    /**
+     * The current generation, the next generation as calculated by
+     * <code>evolve()</code>, and every cell that has ever been alive.
+     **/
+    private byte[] _current;
+    private byte[] _next;
+    private final byte[] _ever;
+
+    /**
+     * The index of each ghost and of the cell it copies, ordered by the row
+     * of that cell, and where the ghosts for each row start.
+     **/
+    private int[] _ghosts;
+    private int[] _sources;
+    private int[] _ghostStarts;
+
+    /**
+     * The fingerprint of the live cells of each row, kept up to date as
+     * cells flip.
+     **/
+    private final Fingerprint[] _rowFingerprints;
+
+    /**
+     * The statistics of the live cells of each row, kept up to date as cells
+     * flip.
+     **/
+    private final Statistics[] _rowStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PaddedGrid
+// =============================================================================
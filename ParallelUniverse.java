@@ -0,0 +1,547 @@
+// =============================================================================
+/**
+ * The <code>ParallelUniverse</code> class.  Run the phases of a
+ * <code>BandedUniverse</code> on several threads at once.  The rows are split
+ * into fixed bands, and a <code>ForkJoinPool</code> hands them out to its
+ * workers by work-stealing.  Each band reads only the current generation and
+ * writes only its own rows, so the result is identical to the sequential
+ * path regardless of how the bands are scheduled.
+ *
+ * <p>The population of each band is counted while it advances, which keeps
+ * the total population without another pass over the grid and also shows
+ * which bands are empty.  An empty band whose neighbors are empty too cannot
+ * have any births, so it is skipped entirely.</p>
+ *
+ * <p>A listener told of the cells that flip is never called from the
+ * workers.  Each band collects its own flips as it advances, and they are
+ * handed on, band by band, once the whole generation has advanced.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+// =============================================================================
+
+
+
+// =============================================================================
+public class ParallelUniverse implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Wrap a universe to be run in parallel.
+     *
+     * @param universe The universe whose phases will be split into bands.
+     * @param threads The number of worker threads.
+     * @param skipEmpty Whether bands far from any live cell may be skipped,
+     *                  which is only safe if empty space stays empty.
+     **/
+    public ParallelUniverse (BandedUniverse universe, int threads, boolean skipEmpty) {
+
+	if (threads <= 0) {
+	    Support.abort("Cannot run with " + threads + " threads");
+	}
+
+	_universe = universe;
+	_skipEmpty = skipEmpty;
+	_pool = new ForkJoinPool(threads);
+
+	// Several bands per thread give work-stealing something to balance.
+	int rows = universe.getRows();
+	_bandRows = Math.max(MIN_BAND_ROWS,
+			     (rows + threads * BANDS_PER_THREAD - 1) /
+			     (threads * BANDS_PER_THREAD));
+	_bands = (rows + _bandRows - 1) / _bandRows;
+	_bandPopulation = new long[_bands];
+	_skipped = new boolean[_bands];
+	_counted = false;
+
+    } // ParallelUniverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the universe being run in parallel.
+     *
+     * @return The wrapped universe.
+     **/
+    public BandedUniverse getUniverse () {
+
+	return _universe;
+
+    } // getUniverse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the wrapped universe.
+     *
+     * @return The number of rows.
+     **/
+    public int getRows () {
+
+	return _universe.getRows();
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the wrapped universe.
+     *
+     * @return The number of columns.
+     **/
+    public int getColumns () {
+
+	return _universe.getColumns();
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell of the wrapped universe is alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return _universe.isAlive(row, column);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell of the wrapped universe will be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return _universe.willBeAlive(row, column);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a cell of the wrapped universe was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return _universe.wasEverAlive(row, column);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set a cell to be alive.  The band populations must then be recounted.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	_universe.makeAlive(row, column);
+	_counted = false;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	_universe.makeEverAlive(row, column);
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	_universe.forEachLiveCell(visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	_universe.forEachEverAliveCell(visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation, one band per task.
+     **/
+    public void evolve () {
+
+	count();
+	_pool.invoke(new Phase(EVOLVE, 0, _bands));
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the next generation, one band per task, counting each band's
+     * population as it goes.
+     **/
+    public void advance () {
+
+	_pool.invoke(new Phase(ADVANCE, 0, _bands));
+
+	if (_listener != null) {
+	    for (int band = 0; band < _bands; band += 1) {
+		_bandFlips[band].forEach(_listener);
+		_bandFlips[band].clear();
+	    }
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation of the wrapped universe.
+     *
+     * @return The fingerprint.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _universe.getFingerprint();
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells of the wrapped universe evaluated by the last
+     * <code>evolve()</code>.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return _universe.getCellsEvaluated();
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation of the wrapped universe.
+     *
+     * @return The statistics.
+     **/
+    public Statistics getStatistics () {
+
+	return _universe.getStatistics();
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, on the thread
+     * that calls <code>advance()</code>, once every band has advanced.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code> if the wrapped universe reports its flips.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	if (listener == null) {
+	    _listener = null;
+	    _bandFlips = null;
+	    return _universe.setFlipListener(null);
+	}
+
+	// Each band's rows are only advanced by one task, so each list of
+	// flips is only ever added to by one worker at a time.
+	Flips[] bandFlips = new Flips[_bands];
+	for (int band = 0; band < _bands; band += 1) {
+	    bandFlips[band] = new Flips();
+	}
+	boolean reported = _universe.setFlipListener((row, column, alive) ->
+						     bandFlips[row / _bandRows].flip(row, column, alive));
+	if (reported) {
+	    _listener = listener;
+	    _bandFlips = bandFlips;
+	}
+	return reported;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, summed from the band populations.
+     *
+     * @return The number of live cells.
+     **/
+    public long getPopulation () {
+
+	count();
+	long population = 0;
+	for (int band = 0; band < _bands; band += 1) {
+	    population += _bandPopulation[band];
+	}
+	return population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the population of every band, if cells have been set since they
+     * were last counted.
+     **/
+    private void count () {
+
+	if (!_counted) {
+	    _pool.invoke(new Phase(COUNT, 0, _bands));
+	    _counted = true;
+	}
+
+    } // count ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Shut down the workers, and let go of the wrapped universe.  The
+     * universe cannot be evolved again.
+     **/
+    public void close () {
+
+	_pool.shutdown();
+	_universe.close();
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Apply one phase to a single band.
+     *
+     * @param phase The phase to apply.
+     * @param band The band to apply it to.
+     **/
+    private void apply (int phase, int band) {
+
+	int first = band * _bandRows;
+	int last = Math.min(first + _bandRows, _universe.getRows());
+
+	if (phase == EVOLVE) {
+
+	    // A band with no live cells nearby stays dead.
+	    boolean empty = _skipEmpty && (_bandPopulation[band] == 0) &&
+		((band == 0) || (_bandPopulation[band - 1] == 0)) &&
+		((band == _bands - 1) || (_bandPopulation[band + 1] == 0));
+	    _skipped[band] = empty;
+	    if (empty) {
+		_universe.skipRows(first, last);
+	    } else {
+		_universe.evolveRows(first, last);
+	    }
+
+	} else if (phase == ADVANCE) {
+
+	    // A skipped band stays dead, but the births and deaths that led
+	    // to the generation just shown must still be cleared.
+	    if (_skipped[band]) {
+		_universe.startRows(first, last);
+	    } else {
+		_bandPopulation[band] = _universe.advanceRows(first, last);
+	    }
+
+	} else {
+
+	    _bandPopulation[band] = _universe.countRows(first, last);
+
+	}
+
+    } // apply ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A task that applies a phase to a range of bands, splitting the range in
+     * half until only one band is left.  Tasks are never serialized.
+     **/
+    @SuppressWarnings("serial")
+    private class Phase extends RecursiveAction {
+
+	Phase (int phase, int firstBand, int lastBand) {
+	    _phase = phase;
+	    _firstBand = firstBand;
+	    _lastBand = lastBand;
+	}
+
+	protected void compute () {
+	    if (_lastBand - _firstBand == 1) {
+		apply(_phase, _firstBand);
+	    } else {
+		int middle = (_firstBand + _lastBand) >>> 1;
+		invokeAll(new Phase(_phase, _firstBand, middle),
+			  new Phase(_phase, middle, _lastBand));
+	    }
+	}
+
+	private final int _phase;
+	private final int _firstBand;
+	private final int _lastBand;
+
+    } // class Phase
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The phases that a task can apply.
+     **/
+    private static final int EVOLVE = 0;
+    private static final int ADVANCE = 1;
+    private static final int COUNT = 2;
+
+    /**
+     * The smallest band worth handing to a thread.
+     **/
+    private static final int MIN_BAND_ROWS = 8;
+
+    /**
+     * The number of bands to aim for per thread.
+     **/
+    private static final int BANDS_PER_THREAD = 8;
+
+    /**
+     * The universe being run in parallel.
+     **/
+    private final BandedUniverse _universe;
+
+    /**
+     * Whether bands far from any live cell may be skipped.
+     **/
+    private final boolean _skipEmpty;
+
+    /**
+     * The workers.
+     **/
+    private final ForkJoinPool _pool;
+
+    /**
+     * The number of rows in each band, and the number of bands.
+     **/
+    private final int _bandRows;
+    private final int _bands;
+
+    /**
+     * The live cells in each band of the current generation.
+     **/
+    private final long[] _bandPopulation;
+
+    /**
+     * Which bands were skipped by the last <code>evolve()</code>.
+     **/
+    private final boolean[] _skipped;
+
+    /**
+     * Whether the band populations are up to date.
+     **/
+    private boolean _counted;
+
+    /**
+     * The listener told of each cell that flips, if any, and the flips
+     * collected by each band as it advances.
+     **/
+    private FlipListener _listener;
+    private Flips[] _bandFlips;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ParallelUniverse
+// =============================================================================
@@ -0,0 +1,328 @@
+// =============================================================================
+/**
+ * The <code>Pattern</code> class.  The initial state of a game as read from a
+ * file, before any universe exists to hold it: the size of the universe, the
+ * rule if the file names one, and the coordinates of the live cells.  The
+ * coordinates are kept as row and column pairs in a single <code>int[]</code>,
+ * so that even a pattern of millions of cells is one array rather than
+ * millions of objects, and can be handed to a universe all at once.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class Pattern {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty pattern of unknown size.
+     **/
+    public Pattern () {
+
+	_rows = -1;
+	_columns = -1;
+	_rule = null;
+	_cells = new int[256];
+	_count = 0;
+	_minRow = Integer.MAX_VALUE;
+	_minColumn = Integer.MAX_VALUE;
+	_maxRow = Integer.MIN_VALUE;
+	_maxColumn = Integer.MIN_VALUE;
+
+    } // Pattern ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the size of the universe that the pattern is meant for.
+     *
+     * @param rows The number of rows.
+     * @param columns The number of columns.
+     **/
+    public void setSize (int rows, int columns) {
+
+	_rows = rows;
+	_columns = columns;
+
+    } // setSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the file gave the size of the universe.
+     *
+     * @return <code>true</code> if the size is known.
+     **/
+    public boolean hasSize () {
+
+	return (_rows >= 0) && (_columns >= 0);
+
+    } // hasSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the universe that the pattern is meant
+     * for.
+     *
+     * @return The number of rows.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the universe that the pattern is meant
+     * for.
+     *
+     * @return The number of columns.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the rule that the file names.
+     *
+     * @param rule The rulestring, or <code>null</code> for none.
+     **/
+    public void setRule (String rule) {
+
+	_rule = rule;
+
+    } // setRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule that the file names.
+     *
+     * @return The rulestring, or <code>null</code> if the file names none.
+     **/
+    public String getRule () {
+
+	return _rule;
+
+    } // getRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a live cell.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void add (int row, int column) {
+
+	if (2 * _count == _cells.length) {
+	    int[] cells = new int[_cells.length * 2];
+	    System.arraycopy(_cells, 0, cells, 0, 2 * _count);
+	    _cells = cells;
+	}
+	_cells[2 * _count] = row;
+	_cells[2 * _count + 1] = column;
+	_count += 1;
+
+	_minRow = Math.min(_minRow, row);
+	_minColumn = Math.min(_minColumn, column);
+	_maxRow = Math.max(_maxRow, row);
+	_maxColumn = Math.max(_maxColumn, column);
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move every live cell by the same amount.
+     *
+     * @param rows The number of rows to move down.
+     * @param columns The number of columns to move right.
+     **/
+    public void translate (int rows, int columns) {
+
+	for (int index = 0; index < 2 * _count; index += 2) {
+	    _cells[index] += rows;
+	    _cells[index + 1] += columns;
+	}
+	if (_count > 0) {
+	    _minRow += rows;
+	    _maxRow += rows;
+	    _minColumn += columns;
+	    _maxColumn += columns;
+	}
+
+    } // translate ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move the live cells so that the topmost is in row 0 and the leftmost
+     * in column 0, and, if the file gave no size, make the universe just
+     * large enough to hold them.  Cells that span more rows or columns than
+     * a universe can have are not moved, but keep the coordinates the file
+     * gave them, and the universe is made as large as it can be.
+     **/
+    public void normalize () {
+
+	if (!isOversized()) {
+	    if (_count > 0) {
+		translate(-_minRow, -_minColumn);
+	    }
+	    if (!hasSize()) {
+		setSize((int)getRowSpan(), (int)getColumnSpan());
+	    }
+	} else if (!hasSize()) {
+	    setSize((int)Math.min(getRowSpan(), Integer.MAX_VALUE),
+		    (int)Math.min(getColumnSpan(), Integer.MAX_VALUE));
+	}
+
+    } // normalize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows from the topmost live cell to the
+     * bottommost, which may be more than an <code>int</code> can hold.
+     *
+     * @return The number of rows spanned, or 0 if there are no live cells.
+     **/
+    public long getRowSpan () {
+
+	return (_count > 0) ? (long)_maxRow - _minRow + 1 : 0;
+
+    } // getRowSpan ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns from the leftmost live cell to the
+     * rightmost, which may be more than an <code>int</code> can hold.
+     *
+     * @return The number of columns spanned, or 0 if there are no live cells.
+     **/
+    public long getColumnSpan () {
+
+	return (_count > 0) ? (long)_maxColumn - _minColumn + 1 : 0;
+
+    } // getColumnSpan ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the live cells span more rows or columns than a
+     * universe can have, so that they cannot be moved into one and only an
+     * engine without edges can hold them.
+     *
+     * @return <code>true</code> if the cells are too far apart.
+     **/
+    public boolean isOversized () {
+
+	return (getRowSpan() > Integer.MAX_VALUE) || (getColumnSpan() > Integer.MAX_VALUE);
+
+    } // isOversized ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells.
+     **/
+    public int getCellCount () {
+
+	return _count;
+
+    } // getCellCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the live cells, as the row and then the column of each.  Only
+     * the first <code>2 * getCellCount()</code> entries are meaningful.
+     *
+     * @return The coordinates of the live cells.
+     **/
+    public int[] getCells () {
+
+	return _cells;
+
+    } // getCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The size of the universe, or -1 if the file did not give one.
+     **/
+    private int _rows;
+    private int _columns;
+
+    /**
+     * The rulestring named by the file, if any.
+     **/
+    private String _rule;
+
+    /**
+     * The row and column of each live cell, and the number of cells.
+     **/
+    private int[] _cells;
+    private int _count;
+
+    /**
+     * The bounding box of the live cells.
+     **/
+    private int _minRow;
+    private int _minColumn;
+    private int _maxRow;
+    private int _maxColumn;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Pattern
+// =============================================================================
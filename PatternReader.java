@@ -0,0 +1,574 @@
+// =============================================================================
+/**
+ * The <code>PatternReader</code> class.  Reads an initial state file into a
+ * <code>Pattern</code>.  The file is memory-mapped, a window at a time, and
+ * parsed byte by byte, so that no <code>String</code> is made for each number
+ * and even a file of millions of cells loads in about the time it takes to
+ * read it.  The format is recognized from the start of the file:
+ *
+ * <ul>
+ *   <li>Our own <code>.init</code> format: the number of rows and columns,
+ *       optionally followed by a rule, then the row and column of each live
+ *       cell.</li>
+ *   <li>Run-length encoded <code>.rle</code>, with its <code>x = , y = ,
+ *       rule = </code> header.</li>
+ *   <li>Life 1.06, a <code>#Life 1.06</code> line followed by the column and
+ *       row of each live cell, which may be negative.</li>
+ *   <li>Plaintext <code>.cells</code>, with <code>O</code> for each live cell
+ *       and <code>.</code> for each dead one.</li>
+ * </ul>
+ *
+ * <p>Only the <code>.init</code> format gives the size of the universe.  For
+ * the others, the universe is just large enough to hold the pattern.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+// =============================================================================
+
+
+
+// =============================================================================
+public class PatternReader {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a pattern from a file, recognizing its format.
+     *
+     * @param path The pathname of the file.
+     * @return The pattern.
+     **/
+    public static Pattern read (String path) {
+
+	try (FileChannel channel = FileChannel.open(Paths.get(path),
+						    StandardOpenOption.READ)) {
+	    return new PatternReader(channel).read();
+	} catch (NoSuchFileException e) {
+	    Support.abort("ERROR: File not found: " + path);
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not read " + path + ": " + e.getMessage());
+	}
+	return null;
+
+    } // read ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param channel The open file to read from.
+     **/
+    private PatternReader (FileChannel channel) throws IOException {
+
+	_channel = channel;
+	_size = channel.size();
+	rewind();
+
+    } // PatternReader ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Recognize the format of the file and read it.
+     *
+     * @return The pattern.
+     **/
+    private Pattern read () throws IOException {
+
+	Pattern pattern = new Pattern();
+
+	skipWhitespace();
+	int first = peek();
+	if (first == '#') {
+
+	    // Both Life 1.06 and RLE files may start with comment lines.
+	    String header = readLine();
+	    rewind();
+	    if (header.startsWith("#Life 1.06")) {
+		readLife106(pattern);
+	    } else if (header.startsWith("#Life")) {
+		Support.abort("ERROR: Unsupported pattern format " + header.trim());
+	    } else {
+		readRunLength(pattern);
+	    }
+
+	} else if (first == 'x') {
+	    readRunLength(pattern);
+	} else if ((first == '!') || (first == '.') || (first == 'O') || (first == '*')) {
+	    readPlaintext(pattern);
+	} else if (isDigit(first)) {
+	    readInit(pattern);
+	} else {
+	    Support.abort("ERROR: Unrecognized pattern format at line " + _line);
+	}
+
+	return pattern;
+
+    } // read ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read our own format: the size of the universe and an optional rule on
+     * the first line, and then the row and column of each live cell.
+     **/
+    private void readInit (Pattern pattern) throws IOException {
+
+	int rows = readNumber("dimensions");
+	int columns = readNumber("dimensions");
+	pattern.setSize(rows, columns);
+
+	// Anything else on the first line is the rule, which may itself start
+	// with a digit, as in 23/3.
+	skipSpaces();
+	if ((peek() != -1) && (peek() != '\n')) {
+	    String rule = readWord();
+	    if (rule.chars().allMatch(Character::isDigit)) {
+		// Not a rule after all, but the row of the first live cell.
+		int row = Integer.parseInt(rule);
+		pattern.add(row, readNumber("coordinates"));
+	    } else {
+		pattern.setRule(rule);
+	    }
+	}
+
+	while (true) {
+	    skipWhitespace();
+	    if (peek() == -1) {
+		break;
+	    }
+	    int row = readNumber("coordinates");
+	    int column = readNumber("coordinates");
+	    pattern.add(row, column);
+	}
+
+    } // readInit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a run-length encoded pattern.  Comment lines start with
+     * <code>#</code>, except that an old-style <code>#r</code> line names the
+     * rule.  The header gives the width, the height, and perhaps the rule.
+     * Then each run is an optional count followed by <code>b</code> or
+     * <code>.</code> for dead cells, <code>o</code> or <code>A</code> for live
+     * ones, or <code>$</code> for the end of a row, up to a closing
+     * <code>!</code>.  Cells in the further states of a multi-state rule are
+     * read as dead.
+     **/
+    private void readRunLength (Pattern pattern) throws IOException {
+
+	// The comments, which may name a rule.
+	skipWhitespace();
+	while (peek() == '#') {
+	    String line = readLine();
+	    if (line.startsWith("#r")) {
+		pattern.setRule(line.substring(2).trim());
+	    }
+	    skipWhitespace();
+	}
+
+	// The header line: x = width, y = height, rule = rulestring.
+	int width = -1;
+	int height = -1;
+	for (String field : readLine().split(",")) {
+	    int equals = field.indexOf('=');
+	    if (equals < 0) {
+		Support.abort("ERROR: Invalid RLE header at line " + (_line - 1));
+	    }
+	    String name = field.substring(0, equals).trim();
+	    String value = field.substring(equals + 1).trim();
+	    try {
+		if (name.equals("x")) {
+		    width = Integer.parseInt(value);
+		} else if (name.equals("y")) {
+		    height = Integer.parseInt(value);
+		} else if (name.equals("rule")) {
+		    pattern.setRule(value);
+		}
+	    } catch (NumberFormatException e) {
+		Support.abort("ERROR: Invalid RLE header at line " + (_line - 1));
+	    }
+	}
+	if ((width < 0) || (height < 0)) {
+	    Support.abort("ERROR: The RLE header needs both x and y");
+	}
+	pattern.setSize(height, width);
+
+	// The runs.
+	int row = 0;
+	int column = 0;
+	while (true) {
+
+	    skipWhitespace();
+	    int next = peek();
+	    if ((next == -1) || (next == '!')) {
+		break;
+	    }
+
+	    int count = 1;
+	    if (isDigit(next)) {
+		count = readNumber("run count");
+		skipWhitespace();
+		next = peek();
+	    }
+	    next = next();
+
+	    if ((next == 'b') || (next == '.')) {
+		column += count;
+	    } else if ((next == 'o') || (next == 'A')) {
+		for (int index = 0; index < count; index += 1) {
+		    pattern.add(row, column + index);
+		}
+		column += count;
+	    } else if (next == '$') {
+		row += count;
+		column = 0;
+	    } else if ((next >= 'p') && (next <= 'y')) {
+		// The first half of a two-letter state, all of which are dying.
+		next();
+		column += count;
+	    } else if ((next >= 'B') && (next <= 'X')) {
+		column += count;
+	    } else {
+		Support.abort("ERROR: Unexpected '" + (char)next +
+			      "' in RLE data at line " + _line);
+	    }
+
+	}
+
+    } // readRunLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a Life 1.06 pattern: after the header and any comments, the
+     * column and then the row of each live cell, centered on the origin.
+     **/
+    private void readLife106 (Pattern pattern) throws IOException {
+
+	while (true) {
+	    skipWhitespace();
+	    int next = peek();
+	    if (next == -1) {
+		break;
+	    } else if (next == '#') {
+		readLine();
+		continue;
+	    }
+	    int column = readNumber("coordinates");
+	    int row = readNumber("coordinates");
+	    pattern.add(row, column);
+	}
+	pattern.normalize();
+
+    } // readLife106 ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a plaintext pattern: comment lines starting with <code>!</code>,
+     * then one line per row, with <code>O</code> or <code>*</code> for each
+     * live cell and anything else for a dead one.
+     **/
+    private void readPlaintext (Pattern pattern) throws IOException {
+
+	int row = 0;
+	int width = 0;
+	boolean comments = true;
+	while (peek() != -1) {
+
+	    if (comments && (peek() == '!')) {
+		readLine();
+		continue;
+	    }
+	    comments = false;
+
+	    int column = 0;
+	    for (int next = next(); (next != -1) && (next != '\n'); next = next()) {
+		if ((next == 'O') || (next == '*')) {
+		    pattern.add(row, column);
+		}
+		if (next != '\r') {
+		    column += 1;
+		}
+	    }
+	    width = Math.max(width, column);
+	    row += 1;
+
+	}
+	pattern.setSize(row, width);
+
+    } // readPlaintext ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read an integer, with an optional minus sign, after any whitespace.
+     *
+     * @param what What the number is, for the error message.
+     * @return The integer.
+     **/
+    private int readNumber (String what) throws IOException {
+
+	skipWhitespace();
+	boolean negative = false;
+	if (peek() == '-') {
+	    negative = true;
+	    next();
+	}
+	if (!isDigit(peek())) {
+	    Support.abort("ERROR: From initial state file, could not read " +
+			  what + " at line " + _line);
+	}
+
+	long value = 0;
+	while (isDigit(peek())) {
+	    value = value * 10 + (next() - '0');
+	    if (value > Integer.MAX_VALUE) {
+		Support.abort("ERROR: From initial state file, " + what +
+			      " too large at line " + _line);
+	    }
+	}
+	return (int)(negative ? -value : value);
+
+    } // readNumber ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read up to the next whitespace.
+     **/
+    private String readWord () throws IOException {
+
+	StringBuilder word = new StringBuilder();
+	while ((peek() != -1) && !isWhitespace(peek())) {
+	    word.append((char)next());
+	}
+	return word.toString();
+
+    } // readWord ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the rest of the current line, and the end of line itself.
+     **/
+    private String readLine () throws IOException {
+
+	StringBuilder line = new StringBuilder();
+	for (int next = next(); (next != -1) && (next != '\n'); next = next()) {
+	    if (next != '\r') {
+		line.append((char)next);
+	    }
+	}
+	return line.toString();
+
+    } // readLine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Skip spaces and tabs, but not the end of the line.
+     **/
+    private void skipSpaces () throws IOException {
+
+	while ((peek() == ' ') || (peek() == '\t') || (peek() == '\r')) {
+	    next();
+	}
+
+    } // skipSpaces ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Skip any whitespace, including ends of lines.
+     **/
+    private void skipWhitespace () throws IOException {
+
+	while (isWhitespace(peek())) {
+	    next();
+	}
+
+    } // skipWhitespace ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the next byte without consuming it.
+     *
+     * @return The byte, or -1 at the end of the file.
+     **/
+    private int peek () throws IOException {
+
+	if ((_index == _limit) && !map()) {
+	    return -1;
+	}
+	return _buffer.get(_index) & 0xFF;
+
+    } // peek ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Consume the next byte, counting lines as they end.
+     *
+     * @return The byte, or -1 at the end of the file.
+     **/
+    private int next () throws IOException {
+
+	int next = peek();
+	if (next != -1) {
+	    _index += 1;
+	    if (next == '\n') {
+		_line += 1;
+	    }
+	}
+	return next;
+
+    } // next ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Map the window of the file that follows the current one.
+     *
+     * @return <code>false</code> if the file has no more to map.
+     **/
+    private boolean map () throws IOException {
+
+	long offset = _offset + _limit;
+	if (offset >= _size) {
+	    return false;
+	}
+	_offset = offset;
+	_limit = (int)Math.min(WINDOW, _size - _offset);
+	_buffer = _channel.map(FileChannel.MapMode.READ_ONLY, _offset, _limit);
+	_index = 0;
+	return true;
+
+    } // map ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Go back to the start of the file.
+     **/
+    private void rewind () {
+
+	_buffer = null;
+	_offset = 0;
+	_limit = 0;
+	_index = 0;
+	_line = 1;
+
+    } // rewind ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a byte is a decimal digit.
+     **/
+    private static boolean isDigit (int next) {
+
+	return (next >= '0') && (next <= '9');
+
+    } // isDigit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a byte is whitespace.
+     **/
+    private static boolean isWhitespace (int next) {
+
+	return (next == ' ') || (next == '\n') || (next == '\t') || (next == '\r');
+
+    } // isWhitespace ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of bytes of the file mapped at once.
+     **/
+    private static final int WINDOW = 1 << 26;
+
+    /**
+     * The file, and its length in bytes.
+     **/
+    private final FileChannel _channel;
+    private final long _size;
+
+    /**
+     * The window of the file currently mapped, its offset in the file, and
+     * its length.
+     **/
+    private MappedByteBuffer _buffer;
+    private long _offset;
+    private int _limit;
+
+    /**
+     * The position of the next byte within the window, and the line that it
+     * is on.
+     **/
+    private int _index;
+    private int _line;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PatternReader
+// =============================================================================
@@ -0,0 +1,76 @@
+// =============================================================================
+/**
+ * The <code>PhaseEvent</code> class.  A JDK Flight Recorder event for one
+ * phase of one generation of the simulation loop: calculating the next
+ * generation, waiting between frames, drawing, displaying, or advancing.
+ * When no recording is running, an event costs next to nothing, so the loop
+ * always creates them.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+// =============================================================================
+
+
+
+// =============================================================================
+@Name("life.Phase")
+@Label("Simulation Phase")
+@Category("Game of Life")
+@Description("One phase of one generation of the simulation loop")
+public class PhaseEvent extends Event {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The name of the phase.
+     **/
+    @Label("Phase")
+    String phase;
+
+    /**
+     * The generation that the phase worked on.
+     **/
+    @Label("Generation")
+    long generation;
+
+    /**
+     * The number of cells whose next state was calculated.
+     **/
+    @Label("Cells Evaluated")
+    long cellsEvaluated;
+
+    /**
+     * The number of cells that were born or died, which is 0 for an engine
+     * that does not count them unless the output shows them.
+     **/
+    @Label("Cells Changed")
+    long cellsChanged;
+
+    /**
+     * The number of bytes written to standard output.
+     **/
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PhaseEvent
+// =============================================================================
@@ -0,0 +1,241 @@
+// =============================================================================
+/**
+ * The <code>PhaseTimings</code> class.  A latency histogram for each phase of
+ * the simulation loop, kept in the process and printed as a summary when the
+ * run ends.  Each power of two of nanoseconds is split into eight buckets, so
+ * a percentile is reported to within an eighth of its value.  Recording is a
+ * clock read and an array increment; when timings are turned off, it is not
+ * even the clock read.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.PrintStream;
+// =============================================================================
+
+
+
+// =============================================================================
+public class PhaseTimings {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param enabled Whether to record anything.
+     **/
+    public PhaseTimings (boolean enabled) {
+
+	_enabled = enabled;
+	_counts = new long[NAMES.length][BUCKETS];
+	_totals = new long[NAMES.length];
+	_maximums = new long[NAMES.length];
+
+    } // PhaseTimings ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Note the start of a phase.
+     *
+     * @return The time to hand back to <code>stop()</code>.
+     **/
+    public long start () {
+
+	return _enabled ? System.nanoTime() : 0;
+
+    } // start ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the time taken by a phase.
+     *
+     * @param phase The phase, such as <code>EVOLVE</code>.
+     * @param start The time returned by <code>start()</code>.
+     **/
+    public void stop (int phase, long start) {
+
+	if (!_enabled) {
+	    return;
+	}
+	long nanos = Math.max(System.nanoTime() - start, 0);
+	_counts[phase][bucket(nanos)] += 1;
+	_totals[phase] += nanos;
+	_maximums[phase] = Math.max(_maximums[phase], nanos);
+
+    } // stop ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print a line for each phase that was recorded: how often it ran, and
+     * the mean, median, 90th and 99th percentile, and longest of its times,
+     * in microseconds.
+     *
+     * @param out Where to print the summary.
+     **/
+    public void print (PrintStream out) {
+
+	if (!_enabled) {
+	    return;
+	}
+	out.println(String.format("%-8s %10s %10s %10s %10s %10s %10s",
+				  "Phase", "Count", "Mean (us)", "p50 (us)",
+				  "p90 (us)", "p99 (us)", "Max (us)"));
+	for (int phase = 0; phase < NAMES.length; phase += 1) {
+	    long count = 0;
+	    for (int bucket = 0; bucket < BUCKETS; bucket += 1) {
+		count += _counts[phase][bucket];
+	    }
+	    if (count == 0) {
+		continue;
+	    }
+	    out.println(String.format("%-8s %10d %10.1f %10.1f %10.1f %10.1f %10.1f",
+				      NAMES[phase], count,
+				      _totals[phase] / 1000.0 / count,
+				      percentile(phase, count, 0.50) / 1000.0,
+				      percentile(phase, count, 0.90) / 1000.0,
+				      percentile(phase, count, 0.99) / 1000.0,
+				      _maximums[phase] / 1000.0));
+	}
+
+    } // print ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the name of a phase.
+     *
+     * @param phase The phase, such as <code>EVOLVE</code>.
+     * @return The name of the phase.
+     **/
+    public static String name (int phase) {
+
+	return NAMES[phase];
+
+    } // name ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the time below which a given fraction of a phase's times fall,
+     * as the upper end of the bucket that holds it.
+     **/
+    private long percentile (int phase, long count, double fraction) {
+
+	long rank = (long)Math.ceil(fraction * count);
+	long seen = 0;
+	for (int bucket = 0; bucket < BUCKETS; bucket += 1) {
+	    seen += _counts[phase][bucket];
+	    if (seen >= rank) {
+		return Math.min(lowest(bucket + 1) - 1, _maximums[phase]);
+	    }
+	}
+	return _maximums[phase];
+
+    } // percentile ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the bucket for a time.  Times below eight nanoseconds have a
+     * bucket each; above that, the top three bits after the leading one
+     * choose among the eight buckets of its power of two.
+     **/
+    private static int bucket (long nanos) {
+
+	if (nanos < SUB_BUCKETS) {
+	    return (int)nanos;
+	}
+	int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+	int sub = (int)(nanos >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+	return (exponent - 2) * SUB_BUCKETS + sub;
+
+    } // bucket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the smallest time that falls in a bucket.
+     **/
+    private static long lowest (int bucket) {
+
+	if (bucket < SUB_BUCKETS) {
+	    return bucket;
+	}
+	int exponent = bucket / SUB_BUCKETS + 2;
+	long sub = bucket % SUB_BUCKETS;
+	return (SUB_BUCKETS + sub) << (exponent - 3);
+
+    } // lowest ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The phases.
+     **/
+    public static final int LOAD = 0;
+    public static final int EVOLVE = 1;
+    public static final int SLEEP = 2;
+    public static final int REPAINT = 3;
+    public static final int DISPLAY = 4;
+    public static final int ADVANCE = 5;
+
+    /**
+     * The names of the phases, in order.
+     **/
+    private static final String[] NAMES = {
+	"load", "evolve", "sleep", "repaint", "display", "advance"
+    };
+
+    /**
+     * The number of buckets within each power of two, and in all.
+     **/
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = 62 * SUB_BUCKETS;
+
+    /**
+     * Whether anything is recorded.
+     **/
+    private final boolean _enabled;
+
+    /**
+     * For each phase, the number of times in each bucket, the sum of the
+     * times, and the longest time.
+     **/
+    private final long[][] _counts;
+    private final long[] _totals;
+    private final long[] _maximums;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PhaseTimings
+// =============================================================================
@@ -0,0 +1,653 @@
+// =============================================================================
+/**
+ * The <code>Recording</code> class.  A binary log of a whole run, from which
+ * the run can be played back without calculating it again.  The log starts
+ * with a snapshot of the first generation, and then holds, for each
+ * generation after it, only the cells that flipped, so a universe that
+ * barely changes takes only a few bytes a generation, however large it is.
+ * The flips are those the universe reports, so recording a generation costs
+ * only the cells that changed.
+ *
+ * <p>The file holds, in order, with every number big-endian:</p>
+ *
+ * <ul>
+ *   <li>The header: the bytes <code>LIFERECD</code>, the format version, a
+ *       set of flags, and the size of the snapshot.</li>
+ *   <li>The snapshot of the first generation, as a <code>Snapshot</code>
+ *       file holds it, with its checksum.</li>
+ *   <li>Blocks of generations, each with a header giving its size as stored
+ *       and as recorded, its last generation, its number of generations,
+ *       and a CRC-32 checksum of its stored bytes.  If the
+ *       <code>COMPRESSED</code> flag is set, each block is stored
+ *       deflated.</li>
+ * </ul>
+ *
+ * <p>Each generation in a block is the number of generations since the last
+ * one recorded, which is usually one, and the cells that flipped, run-length
+ * encoded by rows as a snapshot encodes its cells: the number of rows that
+ * hold any, and for each such row, its distance down from the last one and
+ * its runs of consecutive cells, each as its length and its distance from
+ * the end of the last run, ended by a zero length.  The numbers are variable
+ * length, seven bits to a byte, with signed distances zig-zag encoded.</p>
+ *
+ * <p>Generations are collected into blocks in memory and each block is
+ * written with a single call, so the file is only written in large pieces.
+ * A run that dies loses at most the block it was collecting; a block cut off
+ * at the end of the file is ignored when the recording is opened.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Recording {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start recording a run in a new file, with a snapshot of its first
+     * generation.
+     *
+     * @param path The pathname of the file, which is replaced if it exists.
+     * @param universe The universe, at the first generation.
+     * @param generation The universe's generation.
+     * @param rule The rule the universe follows.
+     * @param engine The name of the universe's storage engine.
+     * @param history Whether the snapshot includes the cells that were ever
+     *                alive.
+     * @param compress Whether to deflate each block of generations.
+     * @return The recording, ready to record each generation in turn.
+     **/
+    public static Recording create (String path, Universe universe, long generation, Rule rule,
+				     String engine, boolean history, boolean compress) {
+
+	Recording recording = new Recording(path);
+	recording._compressed = compress;
+	recording._lastGeneration = generation;
+	recording._flips = new long[1024];
+	recording._block = ByteBuffer.allocate(BLOCK_SIZE + 1024);
+	if (compress) {
+	    recording._deflater = new Deflater(Deflater.BEST_SPEED);
+	}
+
+	Snapshot snapshot = Snapshot.capture(universe, generation, rule, engine, history);
+	try {
+	    recording._channel = FileChannel.open(Paths.get(path),
+						  StandardOpenOption.CREATE,
+						  StandardOpenOption.TRUNCATE_EXISTING,
+						  StandardOpenOption.WRITE);
+	    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+	    header.put(MAGIC);
+	    header.putInt(VERSION);
+	    header.putInt(compress ? COMPRESSED : 0);
+	    header.putLong(snapshot.getSize());
+	    header.flip();
+	    while (header.hasRemaining()) {
+		recording._channel.write(header);
+	    }
+	    snapshot.write(recording._channel);
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not write " + path + ": " + e.getMessage());
+	}
+	return recording;
+
+    } // create ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Open a recording to play it back, checking its header and its
+     * snapshot, and finding how far it goes.
+     *
+     * @param path The pathname of the file.
+     * @return The recording, ready to hand out each generation in turn.
+     **/
+    public static Recording open (String path) {
+
+	Recording recording = new Recording(path);
+	try {
+	    FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+	    recording._channel = channel;
+	    long size = channel.size();
+
+	    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+	    if ((size < HEADER_SIZE) || (readFully(channel, header, 0) < HEADER_SIZE)) {
+		Support.abort("ERROR: Not a recording: " + path);
+	    }
+	    byte[] magic = new byte[MAGIC.length];
+	    header.get(magic);
+	    if (!Arrays.equals(magic, MAGIC)) {
+		Support.abort("ERROR: Not a recording: " + path);
+	    }
+	    int version = header.getInt();
+	    if (version != VERSION) {
+		Support.abort("ERROR: Unsupported recording version " + version + " in " + path);
+	    }
+	    recording._compressed = (header.getInt() & COMPRESSED) != 0;
+	    long snapshotSize = header.getLong();
+	    if ((snapshotSize > Integer.MAX_VALUE) || (HEADER_SIZE + snapshotSize > size)) {
+		Support.abort("ERROR: Recording is damaged: " + path);
+	    }
+
+	    // The mapping stays valid after the channel is closed.
+	    recording._snapshot =
+		Snapshot.open(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, snapshotSize),
+			      path);
+
+	    // Walk the block headers to the last whole block.
+	    recording._firstBlock = HEADER_SIZE + snapshotSize;
+	    recording._lastGeneration = recording._snapshot.getGeneration();
+	    ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	    long position = recording._firstBlock;
+	    while (readFully(channel, blockHeader.clear(), position) == BLOCK_HEADER_SIZE) {
+		long end = position + BLOCK_HEADER_SIZE + blockHeader.getInt(0);
+		if (end > size) {
+		    break;
+		}
+		recording._lastGeneration = blockHeader.getLong(8);
+		recording._endOfBlocks = end;
+		position = end;
+	    }
+	    recording._endOfBlocks = Math.max(recording._endOfBlocks, recording._firstBlock);
+
+	} catch (NoSuchFileException e) {
+	    Support.abort("ERROR: File not found: " + path);
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not read " + path + ": " + e.getMessage());
+	}
+
+	recording._nextBlock = recording._firstBlock;
+	recording._generation = recording._snapshot.getGeneration();
+	recording._block = ByteBuffer.allocate(0);
+	if (recording._compressed) {
+	    recording._inflater = new Inflater();
+	}
+	return recording;
+
+    } // open ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor, for <code>create()</code> and <code>open()</code>.
+     **/
+    private Recording (String path) {
+
+	_path = path;
+
+    } // Recording ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record a generation of the universe, which must come after the last
+     * one recorded.
+     *
+     * @param generation The generation.
+     * @param flips The cells that flipped since the last generation
+     *              recorded.
+     **/
+    public void record (long generation, Flips flips) {
+
+	// Collect the flips, in order, before encoding them, since the number
+	// of rows that hold them comes first.
+	_flipCount = 0;
+	flips.forEachInOrder(this::addFlip);
+
+	ensure(20);
+	putUnsigned(generation - _lastGeneration);
+	int rows = 0;
+	for (int index = 0; index < _flipCount; index += 1) {
+	    if ((index == 0) || (LiveCells.row(_flips[index]) != LiveCells.row(_flips[index - 1]))) {
+		rows += 1;
+	    }
+	}
+	putUnsigned(rows);
+
+	long row = 0;
+	int index = 0;
+	while (index < _flipCount) {
+	    int thisRow = LiveCells.row(_flips[index]);
+	    putSigned(thisRow - row);
+	    row = thisRow;
+	    long previousEnd = 0;
+	    while ((index < _flipCount) && (LiveCells.row(_flips[index]) == thisRow)) {
+		long start = LiveCells.column(_flips[index]);
+		long end = start + 1;
+		index += 1;
+		while ((index < _flipCount) && (_flips[index] == _flips[index - 1] + 1) &&
+		       (LiveCells.row(_flips[index]) == thisRow)) {
+		    end += 1;
+		    index += 1;
+		}
+		putUnsigned(end - start);
+		putSigned(start - previousEnd);
+		previousEnd = end;
+	    }
+	    putUnsigned(0);
+	}
+
+	_lastGeneration = generation;
+	_records += 1;
+
+	if (_block.position() >= BLOCK_SIZE) {
+	    writeBlock();
+	}
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Collect a cell that flipped.
+     **/
+    private void addFlip (int row, int column) {
+
+	if (_flipCount == _flips.length) {
+	    _flips = LiveCells.grow(_flips);
+	}
+	_flips[_flipCount++] = LiveCells.key(row, column);
+
+    } // addFlip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the block of generations collected so far, deflated if asked
+     * to, with its header.
+     **/
+    private void writeBlock () {
+
+	byte[] raw = _block.array();
+	int rawSize = _block.position();
+	byte[] stored = raw;
+	int storedSize = rawSize;
+	if (_compressed) {
+	    _deflater.reset();
+	    _deflater.setInput(raw, 0, rawSize);
+	    _deflater.finish();
+	    stored = new byte[rawSize + rawSize / 8 + 64];
+	    storedSize = 0;
+	    while (!_deflater.finished()) {
+		if (storedSize == stored.length) {
+		    stored = Arrays.copyOf(stored, 2 * stored.length);
+		}
+		storedSize += _deflater.deflate(stored, storedSize, stored.length - storedSize);
+	    }
+	}
+
+	CRC32 crc = new CRC32();
+	crc.update(stored, 0, storedSize);
+	ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	header.putInt(storedSize);
+	header.putInt(rawSize);
+	header.putLong(_lastGeneration);
+	header.putInt(_records);
+	header.putInt((int)crc.getValue());
+	header.flip();
+
+	ByteBuffer[] pieces = { header, ByteBuffer.wrap(stored, 0, storedSize) };
+	try {
+	    while (pieces[1].hasRemaining()) {
+		_channel.write(pieces);
+	    }
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not write " + _path + ": " + e.getMessage());
+	}
+
+	_block.clear();
+	_records = 0;
+
+    } // writeBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Finish recording: write the last block, and close the file.
+     **/
+    public void close () {
+
+	if (_records > 0) {
+	    writeBlock();
+	}
+	try {
+	    _channel.force(true);
+	    _channel.close();
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not write " + _path + ": " + e.getMessage());
+	}
+
+    } // close ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the snapshot of the first generation of an opened recording.
+     *
+     * @return The snapshot, ready to restore.
+     **/
+    public Snapshot getSnapshot () {
+
+	return _snapshot;
+
+    } // getSnapshot ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the last generation recorded.
+     *
+     * @return The generation.
+     **/
+    public long getLastGeneration () {
+
+	return _lastGeneration;
+
+    } // getLastGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand each cell that flipped in reaching the next generation of an
+     * opened recording to a visitor, in order by row and then by column.
+     *
+     * @param visitor The visitor.
+     * @return The generation reached, or -1 if the recording has ended.
+     **/
+    public long next (CellVisitor visitor) {
+
+	if (!_block.hasRemaining()) {
+	    if (_nextBlock >= _endOfBlocks) {
+		return -1;
+	    }
+	    readBlock();
+	}
+
+	_generation += getUnsigned();
+	long rows = getUnsigned();
+	long row = 0;
+	for (long count = 0; count < rows; count += 1) {
+	    row += getSigned();
+	    long column = 0;
+	    for (long length = getUnsigned(); length != 0; length = getUnsigned()) {
+		column += getSigned();
+		for (long end = column + length; column < end; column += 1) {
+		    visitor.visit((int)row, (int)column);
+		}
+	    }
+	}
+	return _generation;
+
+    } // next ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the next block of generations, checking it and inflating it if
+     * it is stored deflated.
+     **/
+    private void readBlock () {
+
+	try {
+	    ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	    readFully(_channel, header, _nextBlock);
+	    int storedSize = header.getInt(0);
+	    int rawSize = header.getInt(4);
+	    byte[] stored = new byte[storedSize];
+	    readFully(_channel, ByteBuffer.wrap(stored), _nextBlock + BLOCK_HEADER_SIZE);
+
+	    CRC32 crc = new CRC32();
+	    crc.update(stored);
+	    if ((int)crc.getValue() != header.getInt(20)) {
+		Support.abort("ERROR: Recording is damaged after generation " + _generation +
+			      ": " + _path);
+	    }
+
+	    byte[] raw = stored;
+	    if (_compressed) {
+		raw = new byte[rawSize];
+		_inflater.reset();
+		_inflater.setInput(stored);
+		if (_inflater.inflate(raw) != rawSize) {
+		    Support.abort("ERROR: Recording is damaged after generation " + _generation +
+				  ": " + _path);
+		}
+	    }
+	    _block = ByteBuffer.wrap(raw);
+	    _nextBlock += BLOCK_HEADER_SIZE + storedSize;
+
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not read " + _path + ": " + e.getMessage());
+	} catch (DataFormatException e) {
+	    Support.abort("ERROR: Recording is damaged after generation " + _generation +
+			  ": " + _path);
+	}
+
+    } // readBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read from a channel at a position until a buffer is full or the file
+     * ends, and then make the buffer ready to read.
+     *
+     * @return The number of bytes read.
+     **/
+    private static int readFully (FileChannel channel, ByteBuffer buffer, long position)
+	throws IOException {
+
+	int read = 0;
+	while (buffer.hasRemaining()) {
+	    int count = channel.read(buffer, position + read);
+	    if (count < 0) {
+		break;
+	    }
+	    read += count;
+	}
+	buffer.flip();
+	return read;
+
+    } // readFully ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make room for more bytes in the block being collected.
+     **/
+    private void ensure (int bytes) {
+
+	if (_block.remaining() < bytes) {
+	    ByteBuffer larger = ByteBuffer.allocate(2 * _block.capacity() + bytes);
+	    _block.flip();
+	    larger.put(_block);
+	    _block = larger;
+	}
+
+    } // ensure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a non-negative number, seven bits to a byte, low bits first, with
+     * the top bit of each byte set if more follow.
+     **/
+    private void putUnsigned (long value) {
+
+	ensure(10);
+	while ((value & ~0x7FL) != 0) {
+	    _block.put((byte)((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	_block.put((byte)value);
+
+    } // putUnsigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a signed number, zig-zag encoded.
+     **/
+    private void putSigned (long value) {
+
+	putUnsigned((value << 1) ^ (value >> 63));
+
+    } // putSigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a number written by <code>putUnsigned()</code>.
+     **/
+    private long getUnsigned () {
+
+	long value = 0;
+	int shift = 0;
+	byte next;
+	do {
+	    next = _block.get();
+	    value |= (long)(next & 0x7F) << shift;
+	    shift += 7;
+	} while (next < 0);
+	return value;
+
+    } // getUnsigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a number written by <code>putSigned()</code>.
+     **/
+    private long getSigned () {
+
+	long value = getUnsigned();
+	return (value >>> 1) ^ -(value & 1);
+
+    } // getSigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The bytes that start every recording, and the version of the format.
+     **/
+    private static final byte[] MAGIC = "LIFERECD".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    /**
+     * The flag marking a recording whose blocks are deflated.
+     **/
+    private static final int COMPRESSED = 1;
+
+    /**
+     * The sizes of the file's header and of each block's header.
+     **/
+    private static final int HEADER_SIZE = 24;
+    private static final int BLOCK_HEADER_SIZE = 24;
+
+    /**
+     * The size past which a block of generations is written.
+     **/
+    private static final int BLOCK_SIZE = 1 << 18;
+
+    /**
+     * The pathname of the file, for error messages, and the channel to it.
+     **/
+    private final String _path;
+    private FileChannel _channel;
+
+    /**
+     * Whether the blocks are deflated.
+     **/
+    private boolean _compressed;
+
+    /**
+     * The last generation recorded.
+     **/
+    private long _lastGeneration;
+
+    /**
+     * While recording, the cells that flipped since the last generation
+     * recorded, the block being collected and the number of generations in
+     * it, and the deflater that compresses it.
+     **/
+    private long[] _flips;
+    private int _flipCount;
+    private ByteBuffer _block;
+    private int _records;
+    private Deflater _deflater;
+
+    /**
+     * While playing back, the snapshot of the first generation, where the
+     * blocks start and end, where the next block starts, the generation last
+     * handed out, and the inflater that expands each block.  The block being
+     * read is kept in <code>_block</code>.
+     **/
+    private Snapshot _snapshot;
+    private long _firstBlock;
+    private long _endOfBlocks;
+    private long _nextBlock;
+    private long _generation;
+    private Inflater _inflater;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Recording
+// =============================================================================
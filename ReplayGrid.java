@@ -0,0 +1,501 @@
+// =============================================================================
+/**
+ * The <code>ReplayGrid</code> class.  A storage engine that plays back a
+ * <code>Recording</code> instead of calculating anything: each generation,
+ * it reads the cells that flipped from the recording, and every live cell
+ * among them dies while every other one comes to life.  The cost is in
+ * proportion to the number of flips, so a run can be watched or measured
+ * again, forwards, at the speed the disk can read it.  Like the sparse
+ * engine, it keeps only the coordinates of live cells, and the universe is
+ * unbounded.
+ *
+ * <p>The recording starts from its snapshot, which must be restored into
+ * this universe, offset the same way, before the first generation is played
+ * back.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class ReplayGrid implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty universe that plays back a
+     * recording.
+     *
+     * @param recording The recording, opened and not yet played back.
+     * @param rows The number of rows in the displayed window.
+     * @param columns The number of columns in the displayed window.
+     * @param rowOffset The amount to move each recorded cell down.
+     * @param columnOffset The amount to move each recorded cell right.
+     **/
+    public ReplayGrid (Recording recording, int rows, int columns, int rowOffset,
+		       int columnOffset) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a universe of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+
+	_recording = recording;
+	_rows = rows;
+	_columns = columns;
+	_rowOffset = rowOffset;
+	_columnOffset = columnOffset;
+	_generation = recording.getSnapshot().getGeneration();
+	_step = 1;
+	_live = new LongHashSet(1024);
+	_next = new LongHashSet(1024);
+	_ever = new LongHashSet(1024);
+	_flips = new LongHashSet(1024);
+	_fingerprint = new Fingerprint();
+	_nextFingerprint = new Fingerprint();
+	_statistics = new Statistics(true, true);
+	_nextStatistics = new Statistics();
+
+    } // ReplayGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the displayed window.
+     *
+     * @return The number of rows in the window.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the displayed window.
+     *
+     * @return The number of columns in the window.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return _live.contains(LiveCells.key(row, column));
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return _next.contains(LiveCells.key(row, column));
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return _ever.contains(LiveCells.key(row, column));
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	long key = LiveCells.key(row, column);
+	int population = _live.size();
+	if (_live.add(key) == population) {
+	    _fingerprint.flip(row, column, true);
+	    _statistics.include(row, column);
+	}
+	_ever.add(key);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	_ever.add(LiveCells.key(row, column));
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	visitSorted(_live, visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	visitSorted(_ever, visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit the cells of a set in order.  The set keeps its keys in the order
+     * they were added, so they are copied and sorted first; the keys are made
+     * by <code>LiveCells</code>, so they sort in the order of the cells.
+     **/
+    private static void visitSorted (LongHashSet cells, CellVisitor visitor) {
+
+	int size = cells.size();
+	long[] keys = new long[size];
+	for (int index = 0; index < size; index += 1) {
+	    keys[index] = cells.get(index);
+	}
+	Arrays.sort(keys);
+	for (int index = 0; index < size; index += 1) {
+	    visitor.visit(LiveCells.row(keys[index]), LiveCells.column(keys[index]));
+	}
+
+    } // visitSorted ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the next generation from the recording.  Each cell that flipped
+     * changes; every other live cell stays alive.
+     **/
+    public void evolve () {
+
+	_flips.clear();
+	_next.clear();
+	long generation = _recording.next((row, column) ->
+					  _flips.add(LiveCells.key(row + _rowOffset,
+								   column + _columnOffset)));
+	if (generation < 0) {
+	    Support.abort("ERROR: The recording ends at generation " + _generation);
+	}
+	_step = generation - _generation;
+	_generation = generation;
+
+	int population = _live.size();
+	for (int index = 0; index < population; index += 1) {
+	    long key = _live.get(index);
+	    if (!_flips.contains(key)) {
+		_next.add(key);
+	    }
+	}
+
+	// Note each flip in the fingerprint and statistics of the next
+	// generation, and tell the listener.
+	_nextFingerprint.set(_fingerprint);
+	_nextStatistics.set(_statistics);
+	_nextStatistics.startGeneration();
+	int flips = _flips.size();
+	for (int index = 0; index < flips; index += 1) {
+	    long key = _flips.get(index);
+	    boolean next = !_live.contains(key);
+	    if (next) {
+		_next.add(key);
+	    }
+	    _nextFingerprint.flip(LiveCells.row(key), LiveCells.column(key), next);
+	    _nextStatistics.flip(LiveCells.row(key), LiveCells.column(key), next);
+	    if (_listener != null) {
+		_listener.flip(LiveCells.row(key), LiveCells.column(key), next);
+	    }
+	}
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the generation read by <code>evolve()</code>.
+     **/
+    public void advance () {
+
+	LongHashSet swap = _live;
+	_live = _next;
+	_next = swap;
+	_next.clear();
+
+	Fingerprint fingerprint = _fingerprint;
+	_fingerprint = _nextFingerprint;
+	_nextFingerprint = fingerprint;
+
+	Statistics statistics = _statistics;
+	_statistics = _nextStatistics;
+	_nextStatistics = statistics;
+	_statistics.settle(this);
+
+	int flips = _flips.size();
+	for (int index = 0; index < flips; index += 1) {
+	    if (_live.contains(_flips.get(index))) {
+		_ever.add(_flips.get(index));
+	    }
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells examined by the last <code>evolve()</code>:
+     * the cells that flipped.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return _flips.size();
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, which is kept up to
+     * date as cells flip.
+     *
+     * @return The fingerprint of the universe.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, which are kept up to
+     * date as cells flip.
+     *
+     * @return The statistics of the universe.
+     **/
+    public Statistics getStatistics () {
+
+	return _statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as
+     * <code>evolve()</code> reads it.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells in the universe.
+     **/
+    public long getPopulation () {
+
+	return _live.size();
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of generations the last <code>evolve()</code> moved
+     * forward, which is more than one where the recorded run skipped ahead.
+     *
+     * @return The number of generations.
+     **/
+    public long getGenerationsPerStep () {
+
+	return _step;
+
+    } // getGenerationsPerStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The recording played back.
+     **/
+    private final Recording _recording;
+
+    /**
+     * The dimensions of the displayed window.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The amounts each recorded cell is moved down and right.
+     **/
+    private final int _rowOffset;
+    private final int _columnOffset;
+
+    /**
+     * The generation last read from the recording, and how far it was from
+     * the one before.
+     **/
+    private long _generation;
+    private long _step;
+
+    /**
+     * The live cells of the current generation.
+     **/
+    private LongHashSet _live;
+
+    /**
+     * The live cells of the next generation, as read by
+     * <code>evolve()</code>.
+     **/
+    private LongHashSet _next;
+
+    /**
+     * Every cell that has ever been alive.
+     **/
+    private LongHashSet _ever;
+
+    /**
+     * The cells that flipped in reaching the next generation.
+     **/
+    private LongHashSet _flips;
+
+    /**
+     * The fingerprints of the current generation and of the next, as
+     * read by <code>evolve()</code>.
+     **/
+    private Fingerprint _fingerprint;
+    private Fingerprint _nextFingerprint;
+
+    /**
+     * The statistics of the current generation and of the next, as
+     * read by <code>evolve()</code>.
+     **/
+    private Statistics _statistics;
+    private Statistics _nextStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ReplayGrid
+// =============================================================================
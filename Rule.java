@@ -0,0 +1,376 @@
+// =============================================================================
+/**
+ * The <code>Rule</code> class.  Describe a Life-like rule: the neighbor counts
+ * at which a dead cell is born, the counts at which a live cell survives, and,
+ * for "Generations" rules, the number of states that a cell passes through as
+ * it dies.  A rule is parsed from a standard rulestring and compiled into
+ * lookup tables, so that the engines never branch on the rule itself.
+ *
+ * <p>Accepted rulestrings are <code>B3/S23</code>, the older survival-first
+ * form <code>23/3</code>, and the Generations forms <code>B2/S/C3</code> and
+ * <code>/2/3</code> (survival, birth, states).  A lettered rulestring must
+ * give both its B and its S part, and no part more than once.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class Rule {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a rule from its parts.
+     *
+     * @param birth The neighbor counts causing birth, as bits 0 to 8.
+     * @param survival The neighbor counts allowing survival, as bits 0 to 8.
+     * @param states The number of cell states, at least 2.
+     **/
+    public Rule (int birth, int survival, int states) {
+
+	if (states < 2 || states > MAX_STATES) {
+	    Support.abort("ERROR: A rule must have between 2 and " +
+			  MAX_STATES + " states, not " + states);
+	}
+
+	_birth = birth;
+	_survival = survival;
+	_states = states;
+
+    } // Rule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse a rulestring.
+     *
+     * @param text The rulestring, such as <code>B36/S23</code>.
+     * @return The rule it describes.
+     **/
+    public static Rule parse (String text) {
+
+	String[] parts = text.trim().split("/", -1);
+	if ((parts.length < 2) || (parts.length > 3)) {
+	    Support.abort("ERROR: Cannot understand the rule " + text);
+	}
+
+	int birth = 0;
+	int survival = 0;
+	int states = 2;
+
+	boolean lettered = (parts[0].length() > 0) &&
+	    Character.isLetter(parts[0].charAt(0));
+	String seen = "";
+	for (int index = 0; index < parts.length; index += 1) {
+
+	    String part = parts[index];
+	    char kind;
+	    if (lettered) {
+		if (part.length() == 0) {
+		    Support.abort("ERROR: Cannot understand the rule " + text);
+		}
+		kind = Character.toUpperCase(part.charAt(0));
+		part = part.substring(1);
+		if (kind == 'G') {
+		    kind = 'C';
+		}
+		if (seen.indexOf(kind) >= 0) {
+		    Support.abort("ERROR: The rule " + text + " gives its " +
+				  kind + " part more than once");
+		}
+		seen += kind;
+	    } else {
+		// Survival, then birth, then the number of states.
+		kind = "SBC".charAt(index);
+	    }
+
+	    if (kind == 'B') {
+		birth = parseCounts(part, text);
+	    } else if (kind == 'S') {
+		survival = parseCounts(part, text);
+	    } else if (kind == 'C') {
+		try {
+		    states = Integer.parseInt(part);
+		} catch (NumberFormatException e) {
+		    Support.abort("ERROR: Cannot understand the rule " + text);
+		}
+	    } else {
+		Support.abort("ERROR: Cannot understand the rule " + text);
+	    }
+
+	}
+
+	if (lettered && ((seen.indexOf('B') < 0) || (seen.indexOf('S') < 0))) {
+	    Support.abort("ERROR: The rule " + text + " must give both a B and an S part");
+	}
+	return new Rule(birth, survival, states);
+
+    } // parse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse a list of neighbor counts, such as <code>23</code>.
+     *
+     * @param digits The counts, one digit each.
+     * @param text The whole rulestring, for the error message.
+     * @return The counts as bits 0 to 8.
+     **/
+    private static int parseCounts (String digits, String text) {
+
+	int counts = 0;
+	for (int index = 0; index < digits.length(); index += 1) {
+	    int count = digits.charAt(index) - '0';
+	    if ((count < 0) || (count > 8)) {
+		Support.abort("ERROR: Cannot understand the rule " + text);
+	    }
+	    counts |= 1 << count;
+	}
+	return counts;
+
+    } // parseCounts ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a dead cell with the given count is born.
+     *
+     * @param count The number of live neighbors.
+     * @return <code>true</code> if the cell is born.
+     **/
+    public boolean isBirth (int count) {
+
+	return ((_birth >>> count) & 1) != 0;
+
+    } // isBirth ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a live cell with the given count survives.
+     *
+     * @param count The number of live neighbors.
+     * @return <code>true</code> if the cell survives.
+     **/
+    public boolean isSurvival (int count) {
+
+	return ((_survival >>> count) & 1) != 0;
+
+    } // isSurvival ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cell states.  Plain Life-like rules have two;
+     * Generations rules have more, the extra states being cells that are
+     * dying.
+     *
+     * @return The number of states.
+     **/
+    public int getStates () {
+
+	return _states;
+
+    } // getStates ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether cells have only the two states, alive and dead.
+     *
+     * @return <code>true</code> for a plain Life-like rule.
+     **/
+    public boolean isTwoState () {
+
+	return _states == 2;
+
+    } // isTwoState ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a dead cell with no live neighbors is born, in which
+     * case empty space does not stay empty.
+     *
+     * @return <code>true</code> if the rule includes B0.
+     **/
+    public boolean hasBirthOnZero () {
+
+	return isBirth(0);
+
+    } // hasBirthOnZero ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compile the rule into a table of next states, indexed by
+     * <code>state * 9 + count</code>, where the count is of live neighbors
+     * only.  A live cell that does not survive passes into the first dying
+     * state, and each dying state passes into the next until the cell is
+     * dead.
+     *
+     * @return A table of <code>getStates() * 9</code> next states.
+     **/
+    public byte[] stateTable () {
+
+	byte[] table = new byte[_states * 9];
+	for (int count = 0; count <= 8; count += 1) {
+
+	    table[count] = (byte)(isBirth(count) ? 1 : 0);
+	    table[9 + count] = (byte)(isSurvival(count) ? 1 : (_states > 2) ? 2 : 0);
+	    for (int state = 2; state < _states; state += 1) {
+		table[state * 9 + count] = (byte)((state + 1) % _states);
+	    }
+
+	}
+	return table;
+
+    } // stateTable ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compile a two-state rule into a table of next states for every
+     * 3&times;3 neighborhood.  The neighborhood is read row by row from the
+     * top-left, one bit per cell, so the center cell is bit 4.
+     *
+     * @return A table of 512 next states, each 0 or 1.
+     **/
+    public byte[] neighborhoodTable () {
+
+	byte[] table = new byte[512];
+	for (int neighborhood = 0; neighborhood < 512; neighborhood += 1) {
+	    boolean alive = (neighborhood & 0x10) != 0;
+	    int count = Integer.bitCount(neighborhood & ~0x10);
+	    table[neighborhood] = (byte)((alive ? isSurvival(count) : isBirth(count)) ? 1 : 0);
+	}
+	return table;
+
+    } // neighborhoodTable ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compile the birth counts into masks for bit-parallel engines: entry
+     * <code>count</code> has every bit set if that count causes birth, and
+     * no bits set otherwise.
+     *
+     * @return Nine masks, one per neighbor count.
+     **/
+    public long[] birthMasks () {
+
+	long[] masks = new long[9];
+	for (int count = 0; count <= 8; count += 1) {
+	    masks[count] = isBirth(count) ? -1L : 0L;
+	}
+	return masks;
+
+    } // birthMasks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compile the survival counts into masks for bit-parallel engines, in
+     * the same form as <code>birthMasks()</code>.
+     *
+     * @return Nine masks, one per neighbor count.
+     **/
+    public long[] survivalMasks () {
+
+	long[] masks = new long[9];
+	for (int count = 0; count <= 8; count += 1) {
+	    masks[count] = isSurvival(count) ? -1L : 0L;
+	}
+	return masks;
+
+    } // survivalMasks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rulestring in its standard form.
+     *
+     * @return The rulestring, such as <code>B3/S23</code> or
+     *         <code>B2/S/C3</code>.
+     **/
+    public String toString () {
+
+	StringBuilder text = new StringBuilder("B");
+	for (int count = 0; count <= 8; count += 1) {
+	    if (isBirth(count)) {
+		text.append(count);
+	    }
+	}
+	text.append("/S");
+	for (int count = 0; count <= 8; count += 1) {
+	    if (isSurvival(count)) {
+		text.append(count);
+	    }
+	}
+	if (_states > 2) {
+	    text.append("/C").append(_states);
+	}
+	return text.toString();
+
+    } // toString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The most states that a cell may have.
+     **/
+    public static final int MAX_STATES = 127;
+
+    /**
+     * Conway's rule, B3/S23.
+     **/
+    public static final Rule CONWAY = new Rule(1 << 3, (1 << 2) | (1 << 3), 2);
+
+    /**
+     * The neighbor counts causing birth and allowing survival, as bits.
+     **/
+    private final int _birth;
+    private final int _survival;
+
+    /**
+     * The number of cell states.
+     **/
+    private final int _states;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Rule
+// =============================================================================
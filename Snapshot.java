@@ -0,0 +1,663 @@
+// =============================================================================
+/**
+ * The <code>Snapshot</code> class.  A compact binary copy of a universe at
+ * one generation, from which a long run can later resume.  A snapshot is
+ * captured from a universe into memory, which is quick, and then written to
+ * a file, which may be done on another thread while the game goes on.  A
+ * snapshot file is read back through a memory map, and its cells are set
+ * into a new universe at a cost that depends only on the size of the file.
+ *
+ * <p>The file holds, in order, with every number big-endian:</p>
+ *
+ * <ul>
+ *   <li>The header: the bytes <code>LIFESNAP</code>, the format version, a
+ *       set of flags, the number of rows and columns, the generation, and
+ *       the rule and the engine as length-prefixed strings.</li>
+ *   <li>The live cells.</li>
+ *   <li>If the <code>HISTORY</code> flag is set, the cells that were ever
+ *       alive.</li>
+ *   <li>A CRC-32 checksum of everything before it.</li>
+ * </ul>
+ *
+ * <p>Each set of cells is run-length encoded by rows.  It starts with the
+ * number of cells and the number of rows that hold any, and then for each
+ * such row gives the distance down from the last one and its runs of
+ * consecutive cells.  Each run is its length and its distance from the end of
+ * the last run, and a zero length ends the row.  The numbers are variable
+ * length, seven bits to a byte, with signed distances zig-zag encoded, so
+ * that a still life or a sparse soup takes only a few bytes per row.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+// =============================================================================
+
+
+
+// =============================================================================
+public class Snapshot {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Capture the state of a universe.
+     *
+     * @param universe The universe.
+     * @param generation The universe's generation.
+     * @param rule The rule the universe follows.
+     * @param engine The name of the universe's storage engine.
+     * @param history Whether to include the cells that were ever alive.
+     * @return The snapshot, held in memory until written.
+     **/
+    public static Snapshot capture (Universe universe, long generation, Rule rule,
+				    String engine, boolean history) {
+
+	Snapshot snapshot = new Snapshot();
+	snapshot._rows = universe.getRows();
+	snapshot._columns = universe.getColumns();
+	snapshot._generation = generation;
+	snapshot._rule = rule.toString();
+	snapshot._engine = engine;
+	snapshot._history = history;
+
+	snapshot._buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+	snapshot.putHeader();
+
+	Encoder live = snapshot.new Encoder();
+	universe.forEachLiveCell(live);
+	live.finish();
+
+	if (history) {
+	    Encoder ever = snapshot.new Encoder();
+	    universe.forEachEverAliveCell(ever);
+	    ever.finish();
+	}
+
+	snapshot._buffer.flip();
+	return snapshot;
+
+    } // capture ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Open a snapshot file, checking its checksum and reading its header.
+     *
+     * @param path The pathname of the file.
+     * @return The snapshot, ready to restore.
+     **/
+    public static Snapshot open (String path) {
+
+	ByteBuffer buffer = null;
+	try (FileChannel channel = FileChannel.open(Paths.get(path),
+						    StandardOpenOption.READ)) {
+
+	    long size = channel.size();
+	    if (size > Integer.MAX_VALUE) {
+		Support.abort("ERROR: Snapshot too large: " + path);
+	    }
+	    // The mapping stays valid after the channel is closed.
+	    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+	} catch (NoSuchFileException e) {
+	    Support.abort("ERROR: File not found: " + path);
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not read " + path + ": " + e.getMessage());
+	}
+
+	return open(buffer, path);
+
+    } // open ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Open a snapshot held in a buffer, as written by
+     * <code>write()</code>, checking its checksum and reading its header.
+     *
+     * @param buffer The snapshot's bytes, from its position to its limit.
+     * @param path The pathname of the file that holds it, for error
+     *             messages.
+     * @return The snapshot, ready to restore.
+     **/
+    public static Snapshot open (ByteBuffer buffer, String path) {
+
+	Snapshot snapshot = new Snapshot();
+	ByteBuffer content = buffer.slice();
+	if (content.remaining() < MAGIC.length + 4) {
+	    Support.abort("ERROR: Not a snapshot: " + path);
+	}
+	int end = content.remaining() - 4;
+	CRC32 crc = new CRC32();
+	crc.update(content.duplicate().limit(end));
+	if ((int)crc.getValue() != content.getInt(end)) {
+	    Support.abort("ERROR: Snapshot is damaged: " + path);
+	}
+	snapshot._buffer = content.limit(end);
+
+	snapshot.getHeader(path);
+	return snapshot;
+
+    } // open ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor, for <code>capture()</code> and <code>open()</code>.
+     **/
+    private Snapshot () {}
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a captured snapshot to a file, followed by its checksum.  The
+     * snapshot is first written beside the file and then moved into its
+     * place, so that the file always holds a complete snapshot, even if the
+     * program dies while writing.
+     *
+     * @param path The pathname of the file.
+     **/
+    public void write (String path) throws IOException {
+
+	Path target = Paths.get(path);
+	Path temporary = Paths.get(path + ".tmp");
+	try (FileChannel channel = FileChannel.open(temporary,
+						    StandardOpenOption.CREATE,
+						    StandardOpenOption.TRUNCATE_EXISTING,
+						    StandardOpenOption.WRITE)) {
+	    write(channel);
+	    channel.force(true);
+	}
+	Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+		   StandardCopyOption.ATOMIC_MOVE);
+
+    } // write ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a captured snapshot, followed by its checksum, at the current
+     * position of a channel, as part of a larger file.
+     *
+     * @param channel The channel.
+     **/
+    public void write (FileChannel channel) throws IOException {
+
+	ByteBuffer content = _buffer.duplicate();
+	CRC32 crc = new CRC32();
+	crc.update(content.duplicate());
+	ByteBuffer trailer = ByteBuffer.allocateDirect(4);
+	trailer.putInt(0, (int)crc.getValue());
+
+	while (content.hasRemaining()) {
+	    channel.write(content);
+	}
+	while (trailer.hasRemaining()) {
+	    channel.write(trailer);
+	}
+
+    } // write ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of bytes that <code>write()</code> writes.
+     *
+     * @return The size of the snapshot and its checksum.
+     **/
+    public long getSize () {
+
+	return _buffer.remaining() + 4;
+
+    } // getSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the live cells of an opened snapshot, and the cells that were ever
+     * alive if it has them, into an empty universe.
+     *
+     * @param universe The universe.
+     * @param rowOffset The amount to move each cell down.
+     * @param columnOffset The amount to move each cell right.
+     **/
+    public void restore (Universe universe, int rowOffset, int columnOffset) {
+
+	ByteBuffer buffer = _buffer.duplicate().position(_cellsOffset);
+	decode(buffer, (row, column) ->
+	       universe.makeAlive(row + rowOffset, column + columnOffset));
+	if (_history) {
+	    decode(buffer, (row, column) ->
+		   universe.makeEverAlive(row + rowOffset, column + columnOffset));
+	}
+
+    } // restore ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows of the universe that was captured.
+     *
+     * @return The number of rows.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns of the universe that was captured.
+     *
+     * @return The number of columns.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the generation that was captured.
+     *
+     * @return The generation.
+     **/
+    public long getGeneration () {
+
+	return _generation;
+
+    } // getGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the rule that the captured universe followed.
+     *
+     * @return The rulestring.
+     **/
+    public String getRule () {
+
+	return _rule;
+
+    } // getRule ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the name of the storage engine that was captured.
+     *
+     * @return The engine's name.
+     **/
+    public String getEngine () {
+
+	return _engine;
+
+    } // getEngine ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the header.
+     **/
+    private void putHeader () {
+
+	_buffer.put(MAGIC);
+	_buffer.putInt(VERSION);
+	_buffer.putInt(_history ? HISTORY : 0);
+	_buffer.putInt(_rows);
+	_buffer.putInt(_columns);
+	_buffer.putLong(_generation);
+	putString(_rule);
+	putString(_engine);
+
+    } // putHeader ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read and check the header of an opened snapshot.
+     *
+     * @param path The pathname of the file, for error messages.
+     **/
+    private void getHeader (String path) {
+
+	ByteBuffer buffer = _buffer.duplicate();
+	try {
+
+	    byte[] magic = new byte[MAGIC.length];
+	    buffer.get(magic);
+	    if (!Arrays.equals(magic, MAGIC)) {
+		Support.abort("ERROR: Not a snapshot: " + path);
+	    }
+	    int version = buffer.getInt();
+	    if (version != VERSION) {
+		Support.abort("ERROR: Unsupported snapshot version " + version +
+			      " in " + path);
+	    }
+	    _history = (buffer.getInt() & HISTORY) != 0;
+	    _rows = buffer.getInt();
+	    _columns = buffer.getInt();
+	    _generation = buffer.getLong();
+	    _rule = getString(buffer);
+	    _engine = getString(buffer);
+	    _cellsOffset = buffer.position();
+
+	} catch (RuntimeException e) {
+	    Support.abort("ERROR: Snapshot header is damaged: " + path);
+	}
+
+    } // getHeader ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hand each cell of an encoded set to a visitor, leaving the buffer just
+     * past the set.
+     **/
+    private static void decode (ByteBuffer buffer, CellVisitor visitor) {
+
+	buffer.getLong();
+	int rows = buffer.getInt();
+	long row = 0;
+	for (int index = 0; index < rows; index += 1) {
+	    row += getSigned(buffer);
+	    long column = 0;
+	    for (long length = getUnsigned(buffer); length != 0; length = getUnsigned(buffer)) {
+		column += getSigned(buffer);
+		for (long end = column + length; column < end; column += 1) {
+		    visitor.visit((int)row, (int)column);
+		}
+	    }
+	}
+
+    } // decode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make room for more bytes in a snapshot being captured.
+     **/
+    private void ensure (int bytes) {
+
+	if (_buffer.remaining() < bytes) {
+	    ByteBuffer larger = ByteBuffer.allocateDirect(2 * _buffer.capacity() + bytes);
+	    _buffer.flip();
+	    larger.put(_buffer);
+	    _buffer = larger;
+	}
+
+    } // ensure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a string as its length and its bytes.
+     **/
+    private void putString (String text) {
+
+	byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+	ensure(2 + bytes.length);
+	_buffer.putShort((short)bytes.length);
+	_buffer.put(bytes);
+
+    } // putString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a string written by <code>putString()</code>.
+     **/
+    private static String getString (ByteBuffer buffer) {
+
+	byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+	buffer.get(bytes);
+	return new String(bytes, StandardCharsets.UTF_8);
+
+    } // getString ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a non-negative number, seven bits to a byte, low bits first, with
+     * the top bit of each byte set if more follow.
+     **/
+    private void putUnsigned (long value) {
+
+	ensure(10);
+	while ((value & ~0x7FL) != 0) {
+	    _buffer.put((byte)((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	_buffer.put((byte)value);
+
+    } // putUnsigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a signed number, zig-zag encoded so that small negative numbers
+     * are as short as small positive ones.
+     **/
+    private void putSigned (long value) {
+
+	putUnsigned((value << 1) ^ (value >> 63));
+
+    } // putSigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a number written by <code>putUnsigned()</code>.
+     **/
+    private static long getUnsigned (ByteBuffer buffer) {
+
+	long value = 0;
+	int shift = 0;
+	byte next;
+	do {
+	    next = buffer.get();
+	    value |= (long)(next & 0x7F) << shift;
+	    shift += 7;
+	} while (next < 0);
+	return value;
+
+    } // getUnsigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a number written by <code>putSigned()</code>.
+     **/
+    private static long getSigned (ByteBuffer buffer) {
+
+	long value = getUnsigned(buffer);
+	return (value >>> 1) ^ -(value & 1);
+
+    } // getSigned ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * An <code>Encoder</code> writes the run-length encoding of a set of
+     * cells as it visits them, which must be in order by row and then by
+     * column.  The counts at the start of the set are filled in once the set
+     * is finished.
+     **/
+    private class Encoder implements CellVisitor {
+
+	Encoder () {
+	    ensure(12);
+	    _start = _buffer.position();
+	    _buffer.putLong(0);
+	    _buffer.putInt(0);
+	}
+
+	public void visit (int row, int column) {
+
+	    if ((_rowCount == 0) || (row != _row)) {
+		if (_rowCount > 0) {
+		    endRun();
+		    putUnsigned(0);
+		}
+		putSigned((long)row - _row);
+		_row = row;
+		_rowCount += 1;
+		_previousEnd = 0;
+	    } else if (column == _runEnd) {
+		_runEnd += 1;
+		_cellCount += 1;
+		return;
+	    } else {
+		endRun();
+	    }
+	    _runStart = column;
+	    _runEnd = (long)column + 1;
+	    _cellCount += 1;
+
+	}
+
+	void finish () {
+	    if (_rowCount > 0) {
+		endRun();
+		putUnsigned(0);
+	    }
+	    _buffer.putLong(_start, _cellCount);
+	    _buffer.putInt(_start + 8, _rowCount);
+	}
+
+	private void endRun () {
+	    putUnsigned(_runEnd - _runStart);
+	    putSigned(_runStart - _previousEnd);
+	    _previousEnd = _runEnd;
+	}
+
+	// Where the counts are to be filled in, and the counts themselves.
+	private final int _start;
+	private long _cellCount;
+	private int _rowCount;
+
+	// The current row, the current run, and the end of the last run.
+	private int _row;
+	private long _runStart;
+	private long _runEnd;
+	private long _previousEnd;
+
+    } // class Encoder
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The bytes that start every snapshot file, and the version of the format.
+     **/
+    private static final byte[] MAGIC = "LIFESNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    /**
+     * The flag marking a snapshot that includes the cells ever alive.
+     **/
+    private static final int HISTORY = 1;
+
+    /**
+     * The starting size of the buffer for a captured snapshot.
+     **/
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * The header fields.
+     **/
+    private int _rows;
+    private int _columns;
+    private long _generation;
+    private String _rule;
+    private String _engine;
+    private boolean _history;
+
+    /**
+     * The snapshot's bytes, without the checksum: a direct buffer for a
+     * captured snapshot, or a mapped one for an opened file.
+     **/
+    private ByteBuffer _buffer;
+
+    /**
+     * Where the cells start, in an opened snapshot.
+     **/
+    private int _cellsOffset;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Snapshot
+// =============================================================================
@@ -0,0 +1,539 @@
+// =============================================================================
+/**
+ * The <code>SoupSearch</code> class.  Takes a census of random soups: plays
+ * many independent games at once, each from a soup of random cells, until
+ * each settles down, and then counts the still lifes, oscillators, and
+ * spaceships that it leaves behind.  The soups are numbered, and each is
+ * made from its own random generator seeded from its number, so any soup of
+ * a census can be made again.
+ *
+ * <p>A soup is played in the unbounded sparse engine, so that spaceships fly
+ * away rather than crash into an edge.  A soup has settled once the
+ * <code>CycleDetector</code> finds its universe repeating, in place or, for a
+ * lone spaceship, moved.  A soup that leaves both ash and spaceships never
+ * repeats as a whole, since the spaceships keep moving away from the ash, so
+ * the cells of a home box around the soup are watched as well.  Once they
+ * repeat in place, whatever has left the box should be spaceships, and the
+ * soup has settled if every object can be named; if not, something outside
+ * the box is still active, and the box is grown to take it in.  The live
+ * cells are split into objects, which are cells that touch one another, even
+ * at a corner, and each object is named by <code>ObjectCode</code>.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+public class SoupSearch {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param soups The number of soups to play.
+     * @param seed The seed from which every soup is made.
+     * @param options The optional settings: the rule, the number of workers,
+     *                and the size of the soups.
+     **/
+    public SoupSearch (long soups, long seed, Options options) {
+
+	if (soups < 1) {
+	    Support.abort("ERROR: Cannot take a census of " + soups + " soups");
+	}
+	if (options.soupsize < 1) {
+	    Support.abort("ERROR: Cannot make a soup of size " + options.soupsize);
+	}
+
+	_soups = soups;
+	_seed = seed;
+	_size = options.soupsize;
+	_workers = (options.workers > 0) ? options.workers :
+	    Runtime.getRuntime().availableProcessors();
+
+	// Every game plays quietly and as fast as it can.
+	_gameOptions = new Options();
+	_gameOptions.engine = "sparse";
+	_gameOptions.rule = options.rule;
+	_gameOptions.output = "none";
+	_gameOptions.wait = 0;
+	_gameOptions.detect = "stop";
+	_gameOptions.window = MAX_PERIOD;
+
+	_next = new AtomicLong(0);
+	_counts = new ConcurrentHashMap<String, LongAdder>();
+	_unsettled = new LongAdder();
+
+    } // SoupSearch ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play every soup, and print the census and how quickly it was taken.
+     **/
+    public void run () {
+
+	long start = System.nanoTime();
+
+	// Each worker takes the next soup until there are none left.
+	ExecutorService executor = Executors.newFixedThreadPool(_workers);
+	List<Future<?>> workers = new ArrayList<Future<?>>();
+	for (int worker = 0; worker < _workers; worker += 1) {
+	    workers.add(executor.submit(() -> {
+			for (long soup = _next.getAndIncrement(); soup < _soups;
+			     soup = _next.getAndIncrement()) {
+			    search(soup);
+			}
+		    }));
+	}
+	try {
+	    for (Future<?> worker : workers) {
+		worker.get();
+	    }
+	} catch (InterruptedException | ExecutionException e) {
+	    Support.abort("ERROR: A soup could not be played: " + e.getCause());
+	} finally {
+	    executor.shutdown();
+	}
+
+	report((System.nanoTime() - start) / 1e9);
+
+    } // run ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play one soup until it settles, and count its objects.  The game stops
+     * itself once it repeats as a whole.  The home box starts
+     * <code>HOME_MARGIN</code> beyond the soup, and each time its cells
+     * repeat in place while something outside is still active, it is grown
+     * to <code>HOME_MARGIN</code> beyond every live cell.
+     *
+     * @param soup The number of the soup.
+     **/
+    private void search (long soup) {
+
+	Game game = new Game(makeSoup(soup), MAX_GENERATIONS, _gameOptions);
+	Home home = new Home(game, -HOME_MARGIN, -HOME_MARGIN,
+			     _size - 1 + HOME_MARGIN, _size - 1 + HOME_MARGIN);
+	while (game.getGeneration() < MAX_GENERATIONS) {
+	    if (!game.step()) {
+		census(game, true);
+		return;
+	    }
+	    if (home.repeats(game.getGeneration())) {
+		if (census(game, false)) {
+		    return;
+		}
+		Statistics statistics = game.getStatistics();
+		home = new Home(game,
+				statistics.getTop() - HOME_MARGIN,
+				statistics.getLeft() - HOME_MARGIN,
+				statistics.getBottom() + HOME_MARGIN,
+				statistics.getRight() + HOME_MARGIN);
+	    }
+	}
+	_unsettled.increment();
+
+    } // search ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a soup, in which each cell is alive with even odds.
+     *
+     * @param soup The number of the soup.
+     * @return The soup.
+     **/
+    private Pattern makeSoup (long soup) {
+
+	SplittableRandom random = new SplittableRandom(_seed * SEED_STRIDE + soup);
+	Pattern pattern = new Pattern();
+	pattern.setSize(_size, _size);
+	for (int row = 0; row < _size; row += 1) {
+	    for (int column = 0; column < _size; column += 1) {
+		if (random.nextBoolean()) {
+		    pattern.add(row, column);
+		}
+	    }
+	}
+	return pattern;
+
+    } // makeSoup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Split the live cells of a settled game into objects, and count each by
+     * its name.  Cells that touch, even at a corner, are first gathered into
+     * pieces.  A piece that does not last on its own, such as one side of a
+     * still life whose sides hold each other up, is joined to every piece
+     * within two cells of it, and the whole is named instead.  Nothing is
+     * counted if some object still cannot be named, unless the game has
+     * repeated as a whole.
+     *
+     * @param game The game to count.
+     * @param repeated Whether the game has repeated as a whole.
+     * @return <code>true</code> if the objects were counted.
+     **/
+    private boolean census (Game game, boolean repeated) {
+
+	// Gather the live cells, so that each has an index.
+	LongHashSet live = new LongHashSet(1024);
+	game.forEachLiveCell((row, column) -> live.add(key(row, column)));
+	int cells = live.size();
+
+	// Find the piece of each cell by a search outward from it to the live
+	// cells among its eight neighbors, listing the cells piece by piece.
+	int[] pieceOf = new int[cells];
+	Arrays.fill(pieceOf, -1);
+	int[] order = new int[cells];
+	int[] start = new int[cells + 1];
+	int pieces = 0;
+	int listed = 0;
+	for (int first = 0; first < cells; first += 1) {
+	    if (pieceOf[first] >= 0) {
+		continue;
+	    }
+	    start[pieces] = listed;
+	    pieceOf[first] = pieces;
+	    order[listed++] = first;
+	    for (int next = start[pieces]; next < listed; next += 1) {
+		long key = live.get(order[next]);
+		for (int dr = -1; dr <= 1; dr += 1) {
+		    for (int dc = -1; dc <= 1; dc += 1) {
+			int neighbor = live.indexOf(key(row(key) + dr, column(key) + dc));
+			if ((neighbor >= 0) && (pieceOf[neighbor] < 0)) {
+			    pieceOf[neighbor] = pieces;
+			    order[listed++] = neighbor;
+			}
+		    }
+		}
+	    }
+	    pieces += 1;
+	}
+	start[pieces] = listed;
+
+	// Name each piece, and join each that does not last on its own to the
+	// pieces near it.
+	Rule rule = game.getRule();
+	String[] names = new String[pieces];
+	int[] joined = new int[pieces];
+	for (int piece = 0; piece < pieces; piece += 1) {
+	    names[piece] = ObjectCode.name(cellsOf(live, order, start[piece], start[piece + 1]),
+					   start[piece + 1] - start[piece], rule);
+	    joined[piece] = piece;
+	}
+	for (int piece = 0; piece < pieces; piece += 1) {
+	    if (!names[piece].equals(ObjectCode.UNSTABLE)) {
+		continue;
+	    }
+	    for (int index = start[piece]; index < start[piece + 1]; index += 1) {
+		long key = live.get(order[index]);
+		for (int dr = -2; dr <= 2; dr += 1) {
+		    for (int dc = -2; dc <= 2; dc += 1) {
+			int neighbor = live.indexOf(key(row(key) + dr, column(key) + dc));
+			if (neighbor >= 0) {
+			    joined[find(joined, piece)] = find(joined, pieceOf[neighbor]);
+			}
+		    }
+		}
+	    }
+	}
+
+	// Name each piece that stands alone by its name, and each group of
+	// joined pieces by the name of the whole, listing its cells together.
+	List<String> found = new ArrayList<String>();
+	int[] members = new int[pieces];
+	for (int piece = 0; piece < pieces; piece += 1) {
+	    members[find(joined, piece)] += 1;
+	}
+	for (int piece = 0; piece < pieces; piece += 1) {
+	    int group = find(joined, piece);
+	    if (members[group] == 1) {
+		found.add(names[piece]);
+	    } else if (group == piece) {
+		int[] grouped = new int[cells];
+		int count = 0;
+		for (int other = 0; other < pieces; other += 1) {
+		    if (find(joined, other) == group) {
+			for (int index = start[other]; index < start[other + 1]; index += 1) {
+			    grouped[count++] = order[index];
+			}
+		    }
+		}
+		found.add(ObjectCode.name(cellsOf(live, grouped, 0, count), count, rule));
+	    }
+	}
+
+	if (!repeated && found.contains(ObjectCode.UNSTABLE)) {
+	    return false;
+	}
+	for (String name : found) {
+	    count(name);
+	}
+	return true;
+
+    } // census ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * List the coordinates of some of the live cells.
+     **/
+    private static int[] cellsOf (LongHashSet live, int[] indices, int from, int to) {
+
+	int[] cells = new int[2 * (to - from)];
+	for (int index = from; index < to; index += 1) {
+	    long key = live.get(indices[index]);
+	    cells[2 * (index - from)] = row(key);
+	    cells[2 * (index - from) + 1] = column(key);
+	}
+	return cells;
+
+    } // cellsOf ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the piece that stands for a group of joined pieces, shortening the
+     * path to it along the way.
+     **/
+    private static int find (int[] joined, int piece) {
+
+	while (joined[piece] != piece) {
+	    joined[piece] = joined[joined[piece]];
+	    piece = joined[piece];
+	}
+	return piece;
+
+    } // find ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count one more of an object.
+     **/
+    private void count (String name) {
+
+	_counts.computeIfAbsent(name, key -> new LongAdder()).increment();
+
+    } // count ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pack the coordinates of a cell into one key.
+     **/
+    private static long key (int row, int column) {
+
+	return ((long)row << 32) | (column & 0xFFFFFFFFL);
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the row of a cell from its key.
+     **/
+    private static int row (long key) {
+
+	return (int)(key >> 32);
+
+    } // row ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the column of a cell from its key.
+     **/
+    private static int column (long key) {
+
+	return (int)key;
+
+    } // column ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print the census, most common objects first, and the rate at which the
+     * soups were played.
+     *
+     * @param seconds The time taken to play every soup.
+     **/
+    private void report (double seconds) {
+
+	List<Map.Entry<String, LongAdder>> entries =
+	    new ArrayList<Map.Entry<String, LongAdder>>(_counts.entrySet());
+	entries.sort((one, other) -> {
+		int order = Long.compare(other.getValue().sum(), one.getValue().sum());
+		return (order != 0) ? order : one.getKey().compareTo(other.getKey());
+	    });
+
+	StringBuilder report = new StringBuilder();
+	report.append("Census of " + _soups + " soups of " + _size + " by " + _size +
+		      " cells, seed " + _seed + "\n");
+	report.append(String.format("%12s  %s%n", "Count", "Object"));
+	for (Map.Entry<String, LongAdder> entry : entries) {
+	    report.append(String.format("%12d  %s%n", entry.getValue().sum(), entry.getKey()));
+	}
+	report.append("Unsettled soups = " + _unsettled.sum() + "\n");
+	report.append(String.format("Played %d soups in %.2f seconds: %.1f soups/second%n",
+				    _soups, seconds, _soups / seconds));
+	System.out.print(report);
+
+    } // report ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The cells of a soup within a box around where it started.  Their
+     * fingerprint is the game's, less that of the cells outside the box,
+     * which is kept up to date from the cells that flip there.  Those are
+     * only the few that have left, so watching the box costs little more
+     * than playing the game.
+     **/
+    private static class Home implements FlipListener {
+
+	Home (Game game, int top, int left, int bottom, int right) {
+	    _game = game;
+	    _top = top;
+	    _left = left;
+	    _bottom = bottom;
+	    _right = right;
+	    _outside = new Fingerprint();
+	    _inside = new Fingerprint();
+	    game.forEachLiveCell((row, column) -> flip(row, column, true));
+	    _detector = new CycleDetector(MAX_PERIOD);
+	    repeats(game.getGeneration());
+	    game.followFlips(this);
+	}
+
+	public void flip (int row, int column, boolean alive) {
+	    if ((row < _top) || (row > _bottom) ||
+		(column < _left) || (column > _right)) {
+		_outside.flip(row, column, alive);
+	    }
+	}
+
+	boolean repeats (long generation) {
+	    _inside.set(_game.getFingerprint());
+	    _inside.subtract(_outside);
+	    return _detector.record(generation, _inside) && !_detector.isMoving();
+	}
+
+	private final Game _game;
+	private final int _top;
+	private final int _left;
+	private final int _bottom;
+	private final int _right;
+	private final Fingerprint _outside;
+	private final Fingerprint _inside;
+	private final CycleDetector _detector;
+
+    } // class Home
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of generations a soup may take to settle.
+     **/
+    private static final long MAX_GENERATIONS = 50000;
+
+    /**
+     * The longest period looked for in a settled soup.
+     **/
+    private static final int MAX_PERIOD = 60;
+
+    /**
+     * How far beyond the soup, or beyond its live cells once something
+     * outside has been found still active, the home box reaches.
+     **/
+    private static final int HOME_MARGIN = 64;
+
+    /**
+     * The spacing of the seeds of one census from those of the next.
+     **/
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The number of soups, the seed they are made from, their size, and the
+     * number played at once.
+     **/
+    private final long _soups;
+    private final long _seed;
+    private final int _size;
+    private final int _workers;
+
+    /**
+     * The options each game is played with.
+     **/
+    private final Options _gameOptions;
+
+    /**
+     * The number of the next soup to play.
+     **/
+    private final AtomicLong _next;
+
+    /**
+     * The number of each object found, by name, and the number of soups that
+     * did not settle.
+     **/
+    private final ConcurrentHashMap<String, LongAdder> _counts;
+    private final LongAdder _unsettled;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SoupSearch
+// =============================================================================
@@ -0,0 +1,599 @@
+// =============================================================================
+/**
+ * The <code>SparseGrid</code> class.  A storage engine that keeps only the
+ * coordinates of live cells, packed into <code>long</code> keys of a
+ * <code>LongHashSet</code>.  Each generation, every live cell adds one to the
+ * neighbor count of the cells around it, so only live cells and their
+ * neighbors are ever examined and the cost is proportional to the population
+ * rather than the area.  The universe is unbounded: any <code>int</code>
+ * coordinates, negative or not, may hold a live cell.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+// =============================================================================
+
+
+
+// =============================================================================
+public class SparseGrid implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty universe.
+     *
+     * @param rows The number of rows in the displayed window.
+     * @param columns The number of columns in the displayed window.
+     * @param rule The rule, which must have two states and must not give
+     *             birth on zero neighbors.
+     * @param keepsEverAlive Whether to keep the cells ever alive, which
+     *                       costs a key for every cell the pattern has ever
+     *                       touched.  If not, a cell only counts as ever
+     *                       alive while it is alive.
+     **/
+    public SparseGrid (int rows, int columns, Rule rule, boolean keepsEverAlive) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a universe of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+
+	if (!rule.isTwoState() || rule.hasBirthOnZero()) {
+	    Support.abort("ERROR: The sparse engine cannot follow the rule " +
+			  rule);
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_rule = rule.stateTable();
+	_live = new LongHashSet(1024);
+	_next = new LongHashSet(1024);
+	_ever = keepsEverAlive ? new LongHashSet(1024) : null;
+	_births = new long[1024];
+	_candidates = new LongHashSet(8192);
+	_counts = new byte[8192];
+	_fingerprint = new Fingerprint();
+	_nextFingerprint = new Fingerprint();
+	_statistics = new Statistics(true, true);
+	_nextStatistics = new Statistics();
+
+    } // SparseGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the displayed window.
+     *
+     * @return The number of rows in the window.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the displayed window.
+     *
+     * @return The number of columns in the window.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return _live.contains(key(row, column));
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return _next.contains(key(row, column));
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	if (_ever == null) {
+	    return isAlive(row, column);
+	}
+	return _ever.contains(key(row, column));
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	long key = key(row, column);
+	int population = _live.size();
+	if (_live.add(key) == population) {
+	    _fingerprint.flip(row, column, true);
+	    _statistics.include(row, column);
+	}
+	if (_ever != null) {
+	    _ever.add(key);
+	}
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if (_ever != null) {
+	    _ever.add(key(row, column));
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	visitSorted(_live, visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	if (_ever == null) {
+	    forEachLiveCell(visitor);
+	    return;
+	}
+	visitSorted(_ever, visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit the cells of a set in order.  The set keeps its keys in the order
+     * they were added, so they are copied and sorted first.  Flipping the
+     * sign bit of each column makes the sorted order of the keys the same as
+     * the order of the signed coordinates.
+     **/
+    private static void visitSorted (LongHashSet cells, CellVisitor visitor) {
+
+	int size = cells.size();
+	long[] keys = new long[size];
+	for (int index = 0; index < size; index += 1) {
+	    keys[index] = cells.get(index) ^ 0x80000000L;
+	}
+	Arrays.sort(keys);
+	for (int index = 0; index < size; index += 1) {
+	    long key = keys[index] ^ 0x80000000L;
+	    visitor.visit(row(key), column(key));
+	}
+
+    } // visitSorted ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation.  Every live cell is a candidate, and it
+     * adds one to the neighbor count of each of its eight neighbors, which
+     * become candidates as well.  Only the candidates can be alive next.  A
+     * live cell also adds <code>SELF</code> to its own count, so that the
+     * count records the cell's liveness along with its neighbors.
+     **/
+    public void evolve () {
+
+	// The neighbors of a cell on the edge of the range of coordinates
+	// cannot be numbered, so the pattern may grow no further.
+	if (_statistics.reachesLimits()) {
+	    Support.abort("ERROR: The pattern has grown past the range of int coordinates");
+	}
+
+	_candidates.clear();
+	_next.clear();
+	_birthCount = 0;
+
+	int population = _live.size();
+	for (int index = 0; index < population; index += 1) {
+
+	    long key = _live.get(index);
+	    int row = row(key);
+	    int column = column(key);
+
+	    // A live cell must be examined even if it has no live neighbors.
+	    count(key, SELF);
+
+	    count(key(row - 1, column - 1), 1);
+	    count(key(row - 1, column), 1);
+	    count(key(row - 1, column + 1), 1);
+	    count(key(row, column - 1), 1);
+	    count(key(row, column + 1), 1);
+	    count(key(row + 1, column - 1), 1);
+	    count(key(row + 1, column), 1);
+	    count(key(row + 1, column + 1), 1);
+
+	}
+
+	// Look up each candidate's liveness and count in the rule table, and
+	// note each flip in the fingerprint and statistics of the next
+	// generation, and tell the listener.  Only a birth can add a cell to
+	// those ever alive, so the births are kept for advance().
+	_nextFingerprint.set(_fingerprint);
+	_nextStatistics.set(_statistics);
+	_nextStatistics.startGeneration();
+	int candidates = _candidates.size();
+	for (int index = 0; index < candidates; index += 1) {
+	    int count = _counts[index];
+	    boolean alive = (count >= SELF);
+	    boolean next = (_rule[(count / SELF) * 9 + (count % SELF)] != 0);
+	    if (next) {
+		_next.add(_candidates.get(index));
+	    }
+	    if (next != alive) {
+		long key = _candidates.get(index);
+		_nextFingerprint.flip(row(key), column(key), next);
+		_nextStatistics.flip(row(key), column(key), next);
+		if (next && (_ever != null)) {
+		    if (_birthCount == _births.length) {
+			_births = Arrays.copyOf(_births, _births.length * 2);
+		    }
+		    _births[_birthCount] = key;
+		    _birthCount += 1;
+		}
+		if (_listener != null) {
+		    _listener.flip(row(key), column(key), next);
+		}
+	    }
+	}
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add to the neighbor count of a candidate cell.
+     *
+     * @param key The candidate cell.
+     * @param amount The amount to add to its count.
+     **/
+    private void count (long key, int amount) {
+
+	int before = _candidates.size();
+	int index = _candidates.add(key);
+	if (index == before) {
+
+	    // A new candidate starts with no neighbors counted.
+	    if (index == _counts.length) {
+		byte[] counts = new byte[_counts.length * 2];
+		System.arraycopy(_counts, 0, counts, 0, _counts.length);
+		_counts = counts;
+	    }
+	    _counts[index] = 0;
+
+	}
+	_counts[index] += amount;
+
+    } // count ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the generation calculated by <code>evolve()</code>.
+     **/
+    public void advance () {
+
+	LongHashSet swap = _live;
+	_live = _next;
+	_next = swap;
+	_next.clear();
+
+	Fingerprint fingerprint = _fingerprint;
+	_fingerprint = _nextFingerprint;
+	_nextFingerprint = fingerprint;
+
+	Statistics statistics = _statistics;
+	_statistics = _nextStatistics;
+	_nextStatistics = statistics;
+	_statistics.settle(this);
+
+	if (_ever != null) {
+	    for (int index = 0; index < _birthCount; index += 1) {
+		_ever.add(_births[index]);
+	    }
+	}
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells examined by the last <code>evolve()</code>:
+     * the live cells and their neighbors.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return _candidates.size();
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, which is kept up to
+     * date as cells flip.
+     *
+     * @return The fingerprint of the universe.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, which are kept up to
+     * date as cells flip.
+     *
+     * @return The statistics of the universe.
+     **/
+    public Statistics getStatistics () {
+
+	return _statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as
+     * <code>evolve()</code> finds it.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells in the universe.
+     **/
+    public long getPopulation () {
+
+	return _live.size();
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pack a pair of coordinates into a single key.
+     *
+     * @param row The row coordinate.
+     * @param column The column coordinate.
+     * @return The row in the high 32 bits and the column in the low 32 bits.
+     **/
+    static long key (int row, int column) {
+
+	return ((long)row << 32) | (column & 0xFFFFFFFFL);
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the row coordinate from a key.
+     **/
+    static int row (long key) {
+
+	return (int)(key >> 32);
+
+    } // row ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the column coordinate from a key.
+     **/
+    static int column (long key) {
+
+	return (int)key;
+
+    } // column ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The amount a live cell adds to its own count, larger than any number
+     * of neighbors.
+     **/
+    private static final int SELF = 16;
+
+    /**
+     * The next liveness for each current liveness and neighbor count.
+     **/
+    private final byte[] _rule;
+
+    /**
+     * The dimensions of the displayed window.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The live cells of the current generation.
+     **/
+    private LongHashSet _live;
+
+    /**
+     * The live cells of the next generation, as calculated by
+     * <code>evolve()</code>.
+     **/
+    private LongHashSet _next;
+
+    /**
+     * Every cell that has ever been alive, or <code>null</code> if they are
+     * not kept.
+     **/
+    private LongHashSet _ever;
+
+    /**
+     * The cells born in the generation calculated by <code>evolve()</code>,
+     * added to those ever alive by <code>advance()</code>.
+     **/
+    private long[] _births;
+    private int _birthCount;
+
+    /**
+     * The cells that might be alive in the next generation, and the number
+     * of live neighbors of each, indexed in the same order.
+     **/
+    private LongHashSet _candidates;
+    private byte[] _counts;
+
+    /**
+     * The fingerprints of the current generation and of the next, as
+     * calculated by <code>evolve()</code>.
+     **/
+    private Fingerprint _fingerprint;
+    private Fingerprint _nextFingerprint;
+
+    /**
+     * The statistics of the current generation and of the next, as
+     * calculated by <code>evolve()</code>.
+     **/
+    private Statistics _statistics;
+    private Statistics _nextStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SparseGrid
+// =============================================================================
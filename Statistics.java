@@ -0,0 +1,480 @@
+// =============================================================================
+/**
+ * The <code>Statistics</code> class.  Running counts of a set of live cells:
+ * how many there are, how many were born and how many died in reaching the
+ * current generation, and the smallest box that holds them all.  A storage
+ * engine keeps them up to date as cells flip, usually one set per row so that
+ * rows advanced on different threads never share one, and merges them when
+ * asked.
+ *
+ * <p>The box grows at once when a cell is born outside of it, but a death on
+ * its edge only marks it as stale, since finding the new edge means looking
+ * for the next live cell.  <code>settle()</code> does that looking.  A set of
+ * a single row looks along the row.  An unbounded set that spans many rows
+ * counts the live cells on each row and on each column as well, so that each
+ * edge moves in to the nearest line still holding one, without looking at
+ * any cell.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class Statistics {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create the statistics of an empty set whose births
+     * and deaths are counted.
+     **/
+    public Statistics () {
+
+	this(true);
+
+    } // Statistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create the statistics of an empty set.
+     *
+     * @param countsChanges Whether births and deaths will be counted.
+     **/
+    public Statistics (boolean countsChanges) {
+
+	this(countsChanges, false);
+
+    } // Statistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create the statistics of an empty set.
+     *
+     * @param countsChanges Whether births and deaths will be counted.
+     * @param byLine Whether the live cells on each row and on each column
+     *               are counted as well, for an unbounded set that spans
+     *               many rows.
+     **/
+    public Statistics (boolean countsChanges, boolean byLine) {
+
+	_countsChanges = countsChanges;
+	_rowCounts = byLine ? new LineCounts() : null;
+	_columnCounts = byLine ? new LineCounts() : null;
+	_population = 0;
+	_births = 0;
+	_deaths = 0;
+	_stale = false;
+
+    } // Statistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The population.
+     **/
+    public long getPopulation () {
+
+	return _population;
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells born in reaching the current generation.
+     *
+     * @return The number of births.
+     **/
+    public long getBirths () {
+
+	return _births;
+
+    } // getBirths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells that died in reaching the current
+     * generation.
+     *
+     * @return The number of deaths.
+     **/
+    public long getDeaths () {
+
+	return _deaths;
+
+    } // getDeaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether births and deaths are counted.  If not, they are
+     * zero unless they are set from outside.
+     *
+     * @return <code>true</code> if births and deaths are counted.
+     **/
+    public boolean countsChanges () {
+
+	return _countsChanges;
+
+    } // countsChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the top row of the box around the live cells, which is only
+     * meaningful if there are any.
+     *
+     * @return The smallest row coordinate of a live cell.
+     **/
+    public int getTop () {
+
+	return _top;
+
+    } // getTop ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the left column of the box around the live cells, which is only
+     * meaningful if there are any.
+     *
+     * @return The smallest column coordinate of a live cell.
+     **/
+    public int getLeft () {
+
+	return _left;
+
+    } // getLeft ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the bottom row of the box around the live cells, which is only
+     * meaningful if there are any.
+     *
+     * @return The largest row coordinate of a live cell.
+     **/
+    public int getBottom () {
+
+	return _bottom;
+
+    } // getBottom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the right column of the box around the live cells, which is
+     * only meaningful if there are any.
+     *
+     * @return The largest column coordinate of a live cell.
+     **/
+    public int getRight () {
+
+	return _right;
+
+    } // getRight ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a live cell lies on the edge of the range of
+     * <code>int</code> coordinates, so that some of its neighbors lie
+     * beyond it.  The box must be settled.
+     *
+     * @return <code>true</code> if the box touches the edge of the range.
+     **/
+    public boolean reachesLimits () {
+
+	return (_population > 0) &&
+	    ((_top == Integer.MIN_VALUE) || (_left == Integer.MIN_VALUE) ||
+	     (_bottom == Integer.MAX_VALUE) || (_right == Integer.MAX_VALUE));
+
+    } // reachesLimits ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count a cell that is alive, without counting it as a birth.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void include (int row, int column) {
+
+	if (_population == 0) {
+	    _top = row;
+	    _bottom = row;
+	    _left = column;
+	    _right = column;
+	} else {
+	    _top = Math.min(_top, row);
+	    _bottom = Math.max(_bottom, row);
+	    _left = Math.min(_left, column);
+	    _right = Math.max(_right, column);
+	}
+	_population += 1;
+
+	if (_rowCounts != null) {
+	    _rowCounts.add(row);
+	    _columnCounts.add(column);
+	}
+
+    } // include ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count a cell that has been born or has died.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @param alive <code>true</code> if the cell was born;
+     *              <code>false</code> if it died.
+     **/
+    public void flip (int row, int column, boolean alive) {
+
+	if (alive) {
+	    include(row, column);
+	    _births += 1;
+	} else {
+	    _population -= 1;
+	    _deaths += 1;
+	    _stale = (_population > 0) &&
+		(_stale ||
+		 (row == _top) || (row == _bottom) ||
+		 (column == _left) || (column == _right));
+	    if (_rowCounts != null) {
+		_rowCounts.remove(row);
+		_columnCounts.remove(column);
+	    }
+	}
+
+    } // flip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the population and the box around the live cells, for a universe
+     * that finds them itself rather than from each cell.
+     *
+     * @param population The number of live cells, at least one.
+     * @param top The first row holding a live cell.
+     * @param left The first column holding a live cell.
+     * @param bottom The last row holding a live cell.
+     * @param right The last column holding a live cell.
+     **/
+    public void setCells (long population, int top, int left, int bottom, int right) {
+
+	_population = population;
+	_top = top;
+	_left = left;
+	_bottom = bottom;
+	_right = right;
+	_stale = false;
+
+    } // setCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation.
+     **/
+    public void startGeneration () {
+
+	_births = 0;
+	_deaths = 0;
+
+    } // startGeneration ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the births and deaths, for a universe that does not count them.
+     *
+     * @param births The number of births.
+     * @param deaths The number of deaths.
+     **/
+    public void setChanges (long births, long deaths) {
+
+	_births = births;
+	_deaths = deaths;
+
+    } // setChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take on the counts of another set in place of this one's.  The counts
+     * of its rows and columns, if it keeps them, are shared rather than
+     * copied: they are only read to settle the box, and an engine that keeps
+     * the statistics of two generations settles only the newer.
+     *
+     * @param other The statistics to copy.
+     **/
+    public void set (Statistics other) {
+
+	_countsChanges = other._countsChanges;
+	_population = other._population;
+	_births = other._births;
+	_deaths = other._deaths;
+	_top = other._top;
+	_left = other._left;
+	_bottom = other._bottom;
+	_right = other._right;
+	_stale = other._stale;
+	_rowCounts = other._rowCounts;
+	_columnCounts = other._columnCounts;
+
+    } // set ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add the counts of another set, which must hold none of the cells of
+     * this one.  Its box should be settled first.
+     *
+     * @param other The statistics to add.
+     **/
+    public void add (Statistics other) {
+
+	if (other._population > 0) {
+	    if (_population == 0) {
+		_top = other._top;
+		_bottom = other._bottom;
+		_left = other._left;
+		_right = other._right;
+	    } else {
+		_top = Math.min(_top, other._top);
+		_bottom = Math.max(_bottom, other._bottom);
+		_left = Math.min(_left, other._left);
+		_right = Math.max(_right, other._right);
+	    }
+	}
+	_population += other._population;
+	_births += other._births;
+	_deaths += other._deaths;
+	_countsChanges &= other._countsChanges;
+	_stale |= other._stale;
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Shrink a stale box to fit the live cells.  A set that counts its lines
+     * moves each edge in to the nearest line still holding a live cell.  Any
+     * other set must hold a single row, which is narrowed from each end until
+     * a live cell is found.
+     *
+     * @param universe The universe holding the cells.
+     **/
+    public void settle (Universe universe) {
+
+	if (!_stale) {
+	    return;
+	}
+	_stale = false;
+
+	if (_rowCounts != null) {
+	    _top = _rowCounts.nearest(_top, 1);
+	    _bottom = _rowCounts.nearest(_bottom, -1);
+	    _left = _columnCounts.nearest(_left, 1);
+	    _right = _columnCounts.nearest(_right, -1);
+	} else {
+	    while (!universe.isAlive(_top, _left)) {
+		_left += 1;
+	    }
+	    while (!universe.isAlive(_top, _right)) {
+		_right -= 1;
+	    }
+	}
+
+    } // settle ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * Whether births and deaths are counted.
+     **/
+    private boolean _countsChanges;
+
+    /**
+     * The number of live cells, and the numbers born and died in reaching
+     * the current generation.
+     **/
+    private long _population;
+    private long _births;
+    private long _deaths;
+
+    /**
+     * The box around the live cells, and whether a death on its edge may
+     * have left it too large.
+     **/
+    private int _top;
+    private int _left;
+    private int _bottom;
+    private int _right;
+    private boolean _stale;
+
+    /**
+     * The number of live cells on each row and on each column, for a set
+     * that counts its lines; otherwise <code>null</code>.
+     **/
+    private LineCounts _rowCounts;
+    private LineCounts _columnCounts;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Statistics
+// =============================================================================
@@ -0,0 +1,826 @@
+// =============================================================================
+/**
+ * The <code>TileGrid</code> class.  A storage engine that splits an unbounded
+ * universe into tiles of 64 by 64 cells, each packed into 64
+ * <code>long</code> words as in the <code>BitGrid</code>, and kept in a map
+ * by tile coordinates.  Only tiles that hold live cells, or that border
+ * tiles that do, exist at all: a tile is made when a neighbor's edge comes
+ * alive, and dropped once it is empty and quiet.
+ *
+ * <p>Most of a large pattern is usually empty space and settled ash, so a
+ * tile that did not change in the last generation, and whose neighbors did
+ * not change along the edges it shares with them, cannot change in the next
+ * one either.  Such a tile sleeps: it is not calculated again until a change
+ * at one of those edges wakes it.  Only the tiles that are awake are
+ * calculated, a whole word at a time.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+// =============================================================================
+
+
+
+// =============================================================================
+public class TileGrid implements Universe {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A tile of the universe.  Its next generation always matches its
+     * current one while it sleeps, so that <code>willBeAlive()</code> need
+     * not know which tiles were calculated.
+     **/
+    static final class Tile {
+
+	Tile (int row, int column) {
+	    this.row = row;
+	    this.column = column;
+	    cells = new long[SIZE];
+	    next = new long[SIZE];
+	}
+
+	/**
+	 * The tile coordinates: the cell coordinates divided by the tile
+	 * size, rounded down.
+	 **/
+	final int row;
+	final int column;
+
+	/**
+	 * The current and calculated next generation, one word per row,
+	 * with column <code>c</code> of the tile in bit <code>c</code>.
+	 **/
+	final long[] cells;
+	final long[] next;
+
+	/**
+	 * Whether the tile is to be calculated in the next generation, and
+	 * which of the edges it shares with its neighbors changed in the last
+	 * one that was calculated.
+	 **/
+	boolean awake;
+	int changedEdges;
+
+    } // class Tile
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create an empty universe.
+     *
+     * @param rows The number of rows in the displayed window.
+     * @param columns The number of columns in the displayed window.
+     * @param rule The rule, which must have two states and must not give
+     *             birth on zero neighbors.
+     * @param keepsEverAlive Whether to keep the cells ever alive, which
+     *                       costs a tile's worth of memory for every tile
+     *                       the pattern has ever touched.  If not, a cell
+     *                       only counts as ever alive while it is alive.
+     **/
+    public TileGrid (int rows, int columns, Rule rule, boolean keepsEverAlive) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a universe of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+
+	if (!rule.isTwoState() || rule.hasBirthOnZero()) {
+	    Support.abort("ERROR: The tiles engine cannot follow the rule " +
+			  rule);
+	}
+
+	_rows = rows;
+	_columns = columns;
+	_birth = rule.birthMasks();
+	_survival = rule.survivalMasks();
+	_tiles = new HashMap<Long, Tile>();
+	_ever = keepsEverAlive ? new HashMap<Long, long[]>() : null;
+	_awake = new ArrayList<Tile>();
+	_calculated = new ArrayList<Tile>();
+	_west = new long[SIZE + 2];
+	_middle = new long[SIZE + 2];
+	_east = new long[SIZE + 2];
+	_fingerprint = new Fingerprint();
+	_nextFingerprint = new Fingerprint();
+	_statistics = new Statistics(true, true);
+	_nextStatistics = new Statistics();
+
+    } // TileGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the displayed window.
+     *
+     * @return The number of rows in the window.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the displayed window.
+     *
+     * @return The number of columns in the window.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	Tile tile = _tiles.get(key(row >> SHIFT, column >> SHIFT));
+	return (tile != null) && isSet(tile.cells, row, column);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	Tile tile = _tiles.get(key(row >> SHIFT, column >> SHIFT));
+	return (tile != null) && isSet(tile.next, row, column);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	if (_ever == null) {
+	    return isAlive(row, column);
+	}
+	long[] ever = _ever.get(key(row >> SHIFT, column >> SHIFT));
+	return (ever != null) && isSet(ever, row, column);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive, and wake its tile
+     * and the tiles around it.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	Tile tile = wake(row >> SHIFT, column >> SHIFT);
+	if (!isSet(tile.cells, row, column)) {
+	    tile.cells[row & MASK] |= 1L << (column & MASK);
+	    tile.next[row & MASK] |= 1L << (column & MASK);
+	    _fingerprint.flip(row, column, true);
+	    _statistics.include(row, column);
+	}
+	tile.changedEdges = ALL_EDGES;
+	wakeNeighbors(tile);
+	makeEverAlive(row, column);
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if (_ever == null) {
+	    return;
+	}
+	long[] ever = _ever.computeIfAbsent(key(row >> SHIFT, column >> SHIFT),
+					    key -> new long[SIZE]);
+	ever[row & MASK] |= 1L << (column & MASK);
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public void forEachLiveCell (CellVisitor visitor) {
+
+	Map<Long, long[]> cells = new HashMap<Long, long[]>();
+	for (Map.Entry<Long, Tile> entry : _tiles.entrySet()) {
+	    cells.put(entry.getKey(), entry.getValue().cells);
+	}
+	visitSorted(cells, visitor);
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public void forEachEverAliveCell (CellVisitor visitor) {
+
+	if (_ever == null) {
+	    forEachLiveCell(visitor);
+	    return;
+	}
+	visitSorted(_ever, visitor);
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit the set bits of a map of tiles in order.  The tiles are sorted
+     * by row and then by column, and each row of cells is visited across
+     * every tile of its band before the next row.
+     **/
+    private static void visitSorted (Map<Long, long[]> tiles, CellVisitor visitor) {
+
+	// Flipping the sign bit of each column makes the sorted order of the
+	// keys the same as the order of the signed coordinates.
+	long[] keys = new long[tiles.size()];
+	int count = 0;
+	for (long key : tiles.keySet()) {
+	    keys[count++] = key ^ 0x80000000L;
+	}
+	Arrays.sort(keys);
+
+	int band = 0;
+	while (band < count) {
+	    int end = band;
+	    while ((end < count) && (row(keys[end]) == row(keys[band]))) {
+		end += 1;
+	    }
+	    int top = row(keys[band]) << SHIFT;
+	    for (int line = 0; line < SIZE; line += 1) {
+		for (int index = band; index < end; index += 1) {
+		    long key = keys[index] ^ 0x80000000L;
+		    long word = tiles.get(key)[line];
+		    int left = column(key) << SHIFT;
+		    while (word != 0) {
+			visitor.visit(top + line, left + Long.numberOfTrailingZeros(word));
+			word &= word - 1;
+		    }
+		}
+	    }
+	    band = end;
+	}
+
+    } // visitSorted ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of every tile that is awake.  The rest
+     * already hold their next generation, which is their current one.
+     **/
+    public void evolve () {
+
+	// The neighbors of a cell on the edge of the range of coordinates
+	// cannot be numbered, so the pattern may grow no further.
+	if (_statistics.reachesLimits()) {
+	    Support.abort("ERROR: The pattern has grown past the range of int coordinates");
+	}
+
+	ArrayList<Tile> calculated = _calculated;
+	_calculated = _awake;
+	_awake = calculated;
+	_awake.clear();
+
+	_nextFingerprint.set(_fingerprint);
+	_nextStatistics.set(_statistics);
+	_nextStatistics.startGeneration();
+
+	for (Tile tile : _calculated) {
+	    tile.awake = false;
+	    evolveTile(tile);
+	}
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a tile.  The tile's words, with the
+     * edge rows of the tiles above and below, are laid out in a column, and
+     * likewise for the tiles to the west and east, so that every word has
+     * its neighbors at hand; a missing tile is all dead.  Each flip is noted
+     * in the next generation's fingerprint and statistics, and each edge
+     * that changes is noted so that the neighbors across it can be woken.
+     **/
+    private void evolveTile (Tile tile) {
+
+	gather(_west, tile.row, tile.column - 1);
+	gather(_middle, tile.row, tile.column);
+	gather(_east, tile.row, tile.column + 1);
+
+	int top = tile.row << SHIFT;
+	int left = tile.column << SHIFT;
+	long westEdge = 0;
+	long eastEdge = 0;
+	for (int line = 0; line < SIZE; line += 1) {
+	    long next = BitGrid.nextWord(_middle[line], _west[line], _east[line],
+					 _middle[line + 1], _west[line + 1], _east[line + 1],
+					 _middle[line + 2], _west[line + 2], _east[line + 2],
+					 _birth, _survival);
+	    tile.next[line] = next;
+	    long flips = next ^ tile.cells[line];
+	    westEdge |= flips & 1L;
+	    eastEdge |= flips >>> MASK;
+	    while (flips != 0) {
+		int bit = Long.numberOfTrailingZeros(flips);
+		boolean alive = ((next >>> bit) & 1L) != 0;
+		_nextFingerprint.flip(top + line, left + bit, alive);
+		_nextStatistics.flip(top + line, left + bit, alive);
+		if (_listener != null) {
+		    _listener.flip(top + line, left + bit, alive);
+		}
+		flips &= flips - 1;
+	    }
+	}
+
+	long topFlips = tile.next[0] ^ tile.cells[0];
+	long bottomFlips = tile.next[MASK] ^ tile.cells[MASK];
+	int edges = 0;
+	for (int line = 0; line < SIZE; line += 1) {
+	    if (tile.next[line] != tile.cells[line]) {
+		edges |= SELF;
+		break;
+	    }
+	}
+	if (topFlips != 0) {
+	    edges |= NORTH;
+	}
+	if (bottomFlips != 0) {
+	    edges |= SOUTH;
+	}
+	if (westEdge != 0) {
+	    edges |= WEST;
+	}
+	if (eastEdge != 0) {
+	    edges |= EAST;
+	}
+	if ((topFlips & 1L) != 0) {
+	    edges |= NORTHWEST;
+	}
+	if ((topFlips >>> MASK) != 0) {
+	    edges |= NORTHEAST;
+	}
+	if ((bottomFlips & 1L) != 0) {
+	    edges |= SOUTHWEST;
+	}
+	if ((bottomFlips >>> MASK) != 0) {
+	    edges |= SOUTHEAST;
+	}
+	tile.changedEdges = edges;
+
+    } // evolveTile ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Lay out the words of a tile in a column, with the bottom row of the
+     * tile above before them and the top row of the tile below after them.
+     **/
+    private void gather (long[] words, int row, int column) {
+
+	Tile above = _tiles.get(key(row - 1, column));
+	Tile here = _tiles.get(key(row, column));
+	Tile below = _tiles.get(key(row + 1, column));
+	words[0] = (above == null) ? 0 : above.cells[MASK];
+	if (here == null) {
+	    Arrays.fill(words, 1, SIZE + 1, 0L);
+	} else {
+	    System.arraycopy(here.cells, 0, words, 1, SIZE);
+	}
+	words[SIZE + 1] = (below == null) ? 0 : below.cells[0];
+
+    } // gather ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the generation calculated by <code>evolve()</code>.  Each tile
+     * that changed is woken for the next generation, along with the
+     * neighbors across each edge that changed, which are made if they do not
+     * exist.  A tile that is left empty and quiet is dropped.
+     **/
+    public void advance () {
+
+	for (Tile tile : _calculated) {
+	    if ((tile.changedEdges & SELF) == 0) {
+		continue;
+	    }
+	    System.arraycopy(tile.next, 0, tile.cells, 0, SIZE);
+	    if (_ever != null) {
+		long[] ever = _ever.computeIfAbsent(key(tile.row, tile.column),
+						    key -> new long[SIZE]);
+		for (int line = 0; line < SIZE; line += 1) {
+		    ever[line] |= tile.cells[line];
+		}
+	    }
+	    wake(tile.row, tile.column);
+	    wakeNeighbors(tile);
+	}
+
+	for (Tile tile : _calculated) {
+	    if (!tile.awake && isEmpty(tile)) {
+		_tiles.remove(key(tile.row, tile.column));
+	    }
+	}
+
+	Fingerprint fingerprint = _fingerprint;
+	_fingerprint = _nextFingerprint;
+	_nextFingerprint = fingerprint;
+
+	Statistics statistics = _statistics;
+	_statistics = _nextStatistics;
+	_nextStatistics = statistics;
+	_statistics.settle(this);
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wake the neighbors across each edge of a tile that changed.
+     **/
+    private void wakeNeighbors (Tile tile) {
+
+	int edges = tile.changedEdges;
+	for (int direction = 0; direction < 8; direction += 1) {
+	    if ((edges & (1 << direction)) != 0) {
+		wake(tile.row + DIRECTION_ROWS[direction],
+		     tile.column + DIRECTION_COLUMNS[direction]);
+	    }
+	}
+
+    } // wakeNeighbors ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wake a tile for the next generation, making it if it does not exist.
+     *
+     * @return The tile.
+     **/
+    private Tile wake (int row, int column) {
+
+	long key = key(row, column);
+	Tile tile = _tiles.get(key);
+	if (tile == null) {
+	    tile = new Tile(row, column);
+	    _tiles.put(key, tile);
+	}
+	if (!tile.awake) {
+	    tile.awake = true;
+	    _awake.add(tile);
+	}
+	return tile;
+
+    } // wake ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether a tile has no live cells.
+     **/
+    private static boolean isEmpty (Tile tile) {
+
+	for (int line = 0; line < SIZE; line += 1) {
+	    if (tile.cells[line] != 0) {
+		return false;
+	    }
+	}
+	return true;
+
+    } // isEmpty ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the bit for a cell is set in the words of its tile.
+     **/
+    private static boolean isSet (long[] words, int row, int column) {
+
+	return ((words[row & MASK] >>> (column & MASK)) & 1L) != 0;
+
+    } // isSet ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells whose next state was calculated by the
+     * last <code>evolve()</code>: every cell of every tile that was awake.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public long getCellsEvaluated () {
+
+	return (long)_calculated.size() * SIZE * SIZE;
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of tiles that exist.
+     *
+     * @return The number of tiles.
+     **/
+    public int getTileCount () {
+
+	return _tiles.size();
+
+    } // getTileCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, which is kept up to
+     * date as cells flip.
+     *
+     * @return The fingerprint of the universe.
+     **/
+    public Fingerprint getFingerprint () {
+
+	return _fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, which are kept up to
+     * date as cells flip.
+     *
+     * @return The statistics of the universe.
+     **/
+    public Statistics getStatistics () {
+
+	return _statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as
+     * <code>evolve()</code> finds it.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells in the universe.
+     **/
+    public long getPopulation () {
+
+	return _statistics.getPopulation();
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pack a pair of tile coordinates into a single key.
+     **/
+    private static long key (int row, int column) {
+
+	return ((long)row << 32) | (column & 0xFFFFFFFFL);
+
+    } // key ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the row coordinate from a key.
+     **/
+    private static int row (long key) {
+
+	return (int)(key >> 32);
+
+    } // row ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Unpack the column coordinate from a key.
+     **/
+    private static int column (long key) {
+
+	return (int)key;
+
+    } // column ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The width and height of a tile, as a power of two, and the mask for a
+     * cell's place within its tile.
+     **/
+    private static final int SHIFT = 6;
+    private static final int SIZE = 1 << SHIFT;
+    private static final int MASK = SIZE - 1;
+
+    /**
+     * The edges and corners a tile shares with its neighbors, as bits of its
+     * changed edges, and the offset of the neighbor across each.  A further
+     * bit records that anything in the tile changed.
+     **/
+    private static final int NORTH = 1 << 0;
+    private static final int SOUTH = 1 << 1;
+    private static final int WEST = 1 << 2;
+    private static final int EAST = 1 << 3;
+    private static final int NORTHWEST = 1 << 4;
+    private static final int NORTHEAST = 1 << 5;
+    private static final int SOUTHWEST = 1 << 6;
+    private static final int SOUTHEAST = 1 << 7;
+    private static final int SELF = 1 << 8;
+    private static final int ALL_EDGES = (1 << 9) - 1;
+    private static final int[] DIRECTION_ROWS = { -1, 1, 0, 0, -1, -1, 1, 1 };
+    private static final int[] DIRECTION_COLUMNS = { 0, 0, -1, 1, -1, 1, -1, 1 };
+
+    /**
+     * For each neighbor count, all ones if it causes birth, and all ones if
+     * it allows survival.
+     **/
+    private final long[] _birth;
+    private final long[] _survival;
+
+    /**
+     * The dimensions of the displayed window.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The tiles that exist, by their coordinates.
+     **/
+    private final HashMap<Long, Tile> _tiles;
+
+    /**
+     * The cells ever alive, by tile coordinates, kept even for tiles that
+     * have been dropped, or <code>null</code> if they are not kept.
+     **/
+    private final HashMap<Long, long[]> _ever;
+
+    /**
+     * The tiles awake for the next <code>evolve()</code>, and those
+     * calculated by the last.
+     **/
+    private ArrayList<Tile> _awake;
+    private ArrayList<Tile> _calculated;
+
+    /**
+     * The columns of words laid out for the tile being calculated.
+     **/
+    private final long[] _west;
+    private final long[] _middle;
+    private final long[] _east;
+
+    /**
+     * The fingerprints of the current generation and of the next, as
+     * calculated by <code>evolve()</code>.
+     **/
+    private Fingerprint _fingerprint;
+    private Fingerprint _nextFingerprint;
+
+    /**
+     * The statistics of the current generation and of the next, as
+     * calculated by <code>evolve()</code>.
+     **/
+    private Statistics _statistics;
+    private Statistics _nextStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class TileGrid
+// =============================================================================
@@ -0,0 +1,337 @@
+// =============================================================================
+/**
+ * A <code>Universe</code> is a storage engine for the cells of a <i>Game of
+ * Life</i>.  It knows which cells are alive, and it can compute and then adopt
+ * the next generation.  The <code>Game</code> drives a universe through its
+ * two phases, <code>evolve()</code> followed by <code>advance()</code>, without
+ * knowing how the cells are actually stored.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public interface Universe extends AutoCloseable {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the universe.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the universe.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive; <code>false</code> if it
+     *         is dead or outside of the universe.
+     **/
+    public boolean isAlive (int row, int column);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation, as calculated by the last <code>evolve()</code>.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean willBeAlive (int row, int column);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates has been alive at any
+     * point since the universe was created.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive; <code>false</code>
+     *         otherwise.
+     **/
+    public boolean wasEverAlive (int row, int column);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set many cells to be alive at once.
+     *
+     * @param cells The row and then the column of each cell.
+     * @param count The number of cells, half the entries of
+     *              <code>cells</code> that are used.
+     **/
+    public default void makeAllAlive (int[] cells, int count) {
+
+	for (int index = 0; index < 2 * count; index += 2) {
+	    makeAlive(cells[index], cells[index + 1]);
+	}
+
+    } // makeAllAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive, without
+     * making it alive now.  By default, the universe keeps no such history.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public default void makeEverAlive (int row, int column) {
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every live cell, in order by row and then by column.  By default,
+     * every cell of the known region is examined.
+     *
+     * @param visitor The visitor to hand each live cell to.
+     **/
+    public default void forEachLiveCell (CellVisitor visitor) {
+
+	int rows = getRows();
+	int columns = getColumns();
+	for (int row = 0; row < rows; row += 1) {
+	    for (int column = 0; column < columns; column += 1) {
+		if (isAlive(row, column)) {
+		    visitor.visit(row, column);
+		}
+	    }
+	}
+
+    } // forEachLiveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Visit every cell that was ever alive, in order by row and then by
+     * column.  By default, every cell of the known region is examined.
+     *
+     * @param visitor The visitor to hand each cell to.
+     **/
+    public default void forEachEverAliveCell (CellVisitor visitor) {
+
+	int rows = getRows();
+	int columns = getColumns();
+	for (int row = 0; row < rows; row += 1) {
+	    for (int column = 0; column < columns; column += 1) {
+		if (wasEverAlive(row, column)) {
+		    visitor.visit(row, column);
+		}
+	    }
+	}
+
+    } // forEachEverAliveCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation.  By default it is
+     * made afresh from the live cells; an engine that knows which cells flip
+     * can instead keep one up to date as it advances.
+     *
+     * @return The fingerprint, which may change as the universe advances.
+     **/
+    public default Fingerprint getFingerprint () {
+
+	Fingerprint fingerprint = new Fingerprint();
+	forEachLiveCell((row, column) -> fingerprint.flip(row, column, true));
+	return fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation.  By default they are
+     * gathered afresh from the live cells, and births and deaths are not
+     * counted; an engine that knows which cells flip can instead keep them
+     * up to date as it advances.
+     *
+     * @return The statistics, which may change as the universe advances.
+     **/
+    public default Statistics getStatistics () {
+
+	Statistics statistics = new Statistics(false);
+	forEachLiveCell(statistics::include);
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, so that it can
+     * follow the universe at the cost of the cells that change rather than
+     * of all of them.  The listener is told of the cells flipped in reaching
+     * a generation at some point during <code>evolve()</code> or
+     * <code>advance()</code>, always by the time <code>advance()</code>
+     * returns, and always on the thread that called them.  By default no
+     * flips are reported.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code> if the universe reports its flips;
+     *         <code>false</code> if it cannot.
+     **/
+    public default boolean setFlipListener (FlipListener listener) {
+
+	return false;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the state of every cell in the next generation, without yet
+     * changing the current generation.
+     **/
+    public void evolve ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt as the current generation whatever was calculated by
+     * <code>evolve()</code>.
+     **/
+    public void advance ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells whose next state was calculated by the
+     * last <code>evolve()</code>.  By default, every cell of the known region
+     * is assumed to have been.
+     *
+     * @return The number of cells evaluated.
+     **/
+    public default long getCellsEvaluated () {
+
+	return (long)getRows() * getColumns();
+
+    } // getCellsEvaluated ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells.
+     *
+     * @return The number of live cells in the current generation.
+     **/
+    public long getPopulation ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of generations that each <code>advance()</code>
+     * moves the universe forward.
+     *
+     * @return The number of generations per step; usually just one.
+     **/
+    public default long getGenerationsPerStep () {
+
+	return 1;
+
+    } // getGenerationsPerStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep the next step from jumping more than the given number of
+     * generations.  By default each step is a single generation, so there is
+     * nothing to limit.
+     *
+     * @param generations The most generations the next step may jump, at
+     *                    least one.
+     **/
+    public default void limitStep (long generations) {
+
+    } // limitStep ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Let go of whatever the universe holds besides its memory, such as
+     * worker threads, once it is no longer needed.  Its cells can still be
+     * read afterwards, but it cannot be evolved again.  By default it holds
+     * nothing else.
+     **/
+    public default void close () {
+
+    } // close ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // interface Universe
+// =============================================================================
@@ -3,11 +3,33 @@
  * The <code>UserInterface</code> for the <i>Game of Life</i>.  A
  * <code>UserInterface</code> controls the progression from one generation to
  * the next, displaying the state at each generation.
+ *
+ * <p>Each frame of text is assembled in a single reusable buffer and written
+ * to standard output with one channel write, rather than a call per cell.
+ * What a frame holds depends on the output mode: the whole grid
+ * (<code>grid</code>), a line of statistics (<code>stats</code>), nothing
+ * until the game ends, when the final grid is shown (<code>final</code>), or
+ * nothing at all (<code>none</code>), for games played in bulk.  The grid and
+ * statistics may be shown only every so many generations.</p>
  **/
 // =============================================================================
 
 
 
+// =============================================================================
+// IMPORTS
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+// =============================================================================
+
+
+
 // =============================================================================
 public class UserInterface {
 // =============================================================================
@@ -17,13 +39,47 @@ public class UserInterface {
     // =========================================================================
     /**
      * The constructor.  Hold onto a pointer to the <code>Game</code> for which
-     * this <code>UserInterface</code> is providing interaction.
+     * this <code>UserInterface</code> is providing interaction, and show the
+     * whole grid on standard output at every generation.
      *
      * @param game The <code>Game</code> whose state to draw.
      **/
     public UserInterface (Game game) {
 
+	this(game, GRID, 1, new FileOutputStream(FileDescriptor.out).getChannel());
+
+    } // UserInterface ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.
+     *
+     * @param game The <code>Game</code> whose state to draw.
+     * @param mode The output mode: <code>grid</code>, <code>stats</code>,
+     *             <code>final</code>, or <code>none</code>.
+     * @param every Show every this many generations.
+     * @param out Where to write the frames.
+     **/
+    public UserInterface (Game game, String mode, int every, WritableByteChannel out) {
+
+	if (!mode.equals(GRID) && !mode.equals(STATS) && !mode.equals(FINAL) &&
+	    !mode.equals(NONE)) {
+	    Support.abort("ERROR: Unknown output mode " + mode);
+	}
+	if (every < 1) {
+	    Support.abort("ERROR: Cannot show every " + every + " generations");
+	}
+
 	_game = game;
+	_mode = mode;
+	_every = every;
+	_out = out;
+	_shown = -every;
+	_buffer = new byte[256];
+	_blank = null;
 
     } // UserInterface ()
     // =========================================================================
@@ -32,31 +88,222 @@ public class UserInterface {
 
     // =========================================================================
     /**
-     * Display the state of the <code>Cell</code>s in the <code>Grid</code>.
+     * Display the state of the game, as the output mode asks, if it is time
+     * to.
      **/
     public void display () {
-    	
+
+	// Engines that jump several generations at a time may step right
+	// over a multiple of the interval, so count from the last one shown.
+	_written = 0;
+	long generation = _game.getGeneration();
+	if ((generation != _shown) && (generation - _shown < _every)) {
+	    return;
+	}
+	_shown = generation;
+
+	if (_mode.equals(GRID)) {
+	    displayGrid();
+	} else if (_mode.equals(STATS)) {
+	    displayStatistics();
+	}
+
+    } // display ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Display the state of the game once it has finished.
+     **/
+    public void displayFinal () {
+
+	if (_mode.equals(FINAL)) {
+	    displayGrid();
+	}
+
+    } // displayFinal ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Display a line reporting that the universe repeats itself.
+     *
+     * @param cycle The detector that found the repeat.
+     **/
+    public void displayCycle (CycleDetector cycle) {
+
+	if (_mode.equals(NONE)) {
+	    return;
+	}
+	_length = 0;
+	append("Generation = " + _game.getGeneration() + ": " + cycle + "\n");
+	flush();
+
+    } // displayCycle ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of bytes written by the last <code>display()</code>,
+     * which is 0 if it was not time to show anything.
+     *
+     * @return The number of bytes written.
+     **/
+    public long getBytesWritten () {
+
+	return _written;
+
+    } // getBytesWritten ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the game needs to count births and deaths for this
+     * interface to show.
+     *
+     * @return <code>true</code> if births and deaths are shown.
+     **/
+    public boolean showsChanges () {
+
+	return _mode.equals(STATS);
+
+    } // showsChanges ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Display the generation and population counts, and the grid of cells
+     * itself as a line of <code>+</code> or <code>-</code> for each row.  The
+     * grid starts from a copy of an all-dead grid, and then only the live
+     * cells are marked.
+     **/
+    private void displayGrid () {
+
+	int rows = _game.getRows();
+	int columns = _game.getColumns();
+	int stride = columns + 1;
+
+	// The all-dead grid, made again only if the size changes.
+	int size = rows * stride;
+	if ((_blank == null) || (_blank.length != size)) {
+	    _blank = new byte[size];
+	    for (int row = 0; row < rows; row += 1) {
+		Arrays.fill(_blank, row * stride, row * stride + columns, (byte)'-');
+		_blank[row * stride + columns] = '\n';
+	    }
+	}
+
 	// Provide generation and population counts.
-	System.out.println("Generation = " + _game.getGeneration() +
-			   ", Population = " + _game.getPopulation());
+	_length = 0;
+	append("Generation = " + _game.getGeneration() +
+	       ", Population = " + _game.getPopulation() + "\n");
 
 	// Provide a textual representation of the grid of cells themselves.
-	for (int row = 0; row < _game.getRows(); row++) {
-	    for (int column = 0; column < _game.getColumns(); column++) {
+	reserve(size + 1);
+	int start = _length;
+	System.arraycopy(_blank, 0, _buffer, start, size);
+	byte[] buffer = _buffer;
+	_game.forEachLiveCell((row, column) -> {
+		if ((row >= 0) && (row < rows) && (column >= 0) && (column < columns)) {
+		    buffer[start + row * stride + column] = '+';
+		}
+	    });
+	_length += size;
+	_buffer[_length++] = '\n';
 
-		Cell cell = _game.getCell(row, column);
-		System.out.print(cell);
+	flush();
 
-	    }
+    } // displayGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Display a line of statistics: the generation, the population, the
+     * births and deaths that led to this generation, and the box around the
+     * live cells.
+     **/
+    private void displayStatistics () {
 
-	    // Move to a new line for the next row.
-	    System.out.println();
+	Statistics statistics = _game.getStatistics();
+	String bounds = (statistics.getPopulation() == 0) ? "none" :
+	    "(" + statistics.getTop() + ", " + statistics.getLeft() + ") to (" +
+	    statistics.getBottom() + ", " + statistics.getRight() + ")";
 
+	_length = 0;
+	append("Generation = " + _game.getGeneration() +
+	       ", Population = " + statistics.getPopulation() +
+	       ", Births = " + statistics.getBirths() +
+	       ", Deaths = " + statistics.getDeaths() +
+	       ", Bounds = " + bounds + "\n");
+	flush();
+
+    } // displayStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add text to the frame.
+     **/
+    private void append (String text) {
+
+	byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+	reserve(bytes.length);
+	System.arraycopy(bytes, 0, _buffer, _length, bytes.length);
+	_length += bytes.length;
+
+    } // append ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make room for more bytes in the frame.
+     **/
+    private void reserve (int bytes) {
+
+	if (_length + bytes > _buffer.length) {
+	    byte[] larger = new byte[Math.max(2 * _buffer.length, _length + bytes)];
+	    System.arraycopy(_buffer, 0, larger, 0, _length);
+	    _buffer = larger;
 	}
 
-	System.out.println();
+    } // reserve ()
+    // =========================================================================
+
+
 
-    } // display ()
+    // =========================================================================
+    /**
+     * Write the frame in one go.
+     **/
+    private void flush () {
+
+	ByteBuffer frame = ByteBuffer.wrap(_buffer, 0, _length);
+	try {
+	    while (frame.hasRemaining()) {
+		_out.write(frame);
+	    }
+	} catch (IOException e) {
+	    Support.abort("ERROR: Could not write output: " + e.getMessage());
+	}
+	_written += _length;
+
+    } // flush ()
     // =========================================================================
 
 
@@ -69,7 +316,7 @@ public class UserInterface {
     public void triggerMove () {
 
 	// Do nothing.  Just let it advance as quickly as it wants.
-	
+
     }
     // =========================================================================
 
@@ -78,10 +325,50 @@ public class UserInterface {
     // =========================================================================
     // DATA MEMBERS
 
+    /**
+     * The output modes.
+     **/
+    static final String GRID = "grid";
+    static final String STATS = "stats";
+    static final String FINAL = "final";
+    static final String NONE = "none";
+
     /**
      * The <code>Game</code> that this interface is controlling.
      **/
     Game _game;
+
+    /**
+     * The output mode, and how many generations apart to show the game.
+     **/
+    private final String _mode;
+    private final int _every;
+
+    /**
+     * The generation last shown.
+     **/
+    private long _shown;
+
+    /**
+     * Where the frames are written.
+     **/
+    private final WritableByteChannel _out;
+
+    /**
+     * The frame being assembled, and how much of the buffer it fills.
+     **/
+    private byte[] _buffer;
+    private int _length;
+
+    /**
+     * The number of bytes written by the last <code>display()</code>.
+     **/
+    private long _written;
+
+    /**
+     * The text of a grid of the current size with every cell dead.
+     **/
+    private byte[] _blank;
     // =========================================================================
 
 
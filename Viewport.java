@@ -0,0 +1,388 @@
+// =============================================================================
+/**
+ * The <code>Viewport</code> class.  Which part of a universe the display
+ * shows, and how closely.  Zoomed in, each cell is a box of one or more
+ * pixels.  Zoomed out past one cell per pixel, each pixel is a square block
+ * of cells, <code>2<sup>level</sup></code> on a side, drawn by how many of
+ * them are alive.  The window stays the same size however large the universe
+ * is, so only as many cells or blocks as fit in it are ever looked at.
+ *
+ * <p>A viewport never changes.  Panning or zooming makes a new one, which the
+ * display hands to the simulation thread through a
+ * <code>FrameExchange</code>, so either thread may hold one safely.</p>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+public class Viewport {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a view of a universe.  At any level but 0, the
+     * top left corner is moved up and left to the nearest block.
+     *
+     * @param universeRows The number of rows in the universe.
+     * @param universeColumns The number of columns in the universe.
+     * @param height The height of the window, in pixels.
+     * @param width The width of the window, in pixels.
+     * @param level The base-2 logarithm of the width and height of the block
+     *              of cells each pixel shows, or 0 for cells of one or more
+     *              pixels.
+     * @param boxSize At level 0, the width and height of each cell, in
+     *                pixels.  It is taken to be 1 at any other level.
+     * @param firstRow The universe row shown at the top.
+     * @param firstColumn The universe column shown at the left.
+     **/
+    public Viewport (int universeRows, int universeColumns, int height, int width,
+		     int level, int boxSize, int firstRow, int firstColumn) {
+
+	if ((height < 1) || (width < 1) || (level < 0) || (boxSize < 1)) {
+	    Support.abort("ERROR: Cannot view a universe in " + height + " by " + width +
+			  " pixels at level " + level + " with cells of " + boxSize + " pixels");
+	}
+
+	_universeRows = universeRows;
+	_universeColumns = universeColumns;
+	_height = height;
+	_width = width;
+	_level = level;
+	_boxSize = (level > 0) ? 1 : boxSize;
+	_rows = Math.max(1, height / _boxSize);
+	_columns = Math.max(1, width / _boxSize);
+	_firstRow = Math.floorDiv(firstRow, 1 << level) << level;
+	_firstColumn = Math.floorDiv(firstColumn, 1 << level) << level;
+
+    } // Viewport ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a view that shows the whole of a universe, centered, as closely
+     * as it fits but with cells no larger than a given size.
+     *
+     * @param universeRows The number of rows in the universe.
+     * @param universeColumns The number of columns in the universe.
+     * @param height The height of the window, in pixels.
+     * @param width The width of the window, in pixels.
+     * @param boxSize The largest width and height of a cell, in pixels.
+     * @return The view.
+     **/
+    public static Viewport fit (int universeRows, int universeColumns, int height, int width,
+				int boxSize) {
+
+	int level = 0;
+	int box = boxSize;
+	while ((box > 1) &&
+	       (((long)universeRows * box > height) || ((long)universeColumns * box > width))) {
+	    box -= 1;
+	}
+	while ((((long)universeRows + (1L << level) - 1) >> level > height) ||
+	       (((long)universeColumns + (1L << level) - 1) >> level > width)) {
+	    level += 1;
+	}
+
+	// Center on the middle of the universe.
+	long across = (long)(width / box) << level;
+	long down = (long)(height / box) << level;
+	return new Viewport(universeRows, universeColumns, height, width, level, box,
+			    (int)((universeRows - down) / 2), (int)((universeColumns - across) / 2));
+
+    } // fit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a view that shows twice as much detail, keeping the cell under a
+     * given pixel where it is.  Cells are shown no larger than
+     * <code>MAX_BOX_SIZE</code> pixels.
+     *
+     * @param y The row of the pixel to zoom about.
+     * @param x The column of the pixel to zoom about.
+     * @return The new view, or this one if it cannot zoom in further.
+     **/
+    public Viewport zoomIn (int y, int x) {
+
+	if (_level > 0) {
+	    return zoomTo(_level - 1, 1, y, x);
+	}
+	if (_boxSize >= MAX_BOX_SIZE) {
+	    return this;
+	}
+	return zoomTo(0, Math.min(MAX_BOX_SIZE, 2 * _boxSize), y, x);
+
+    } // zoomIn ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a view that shows half as much detail, keeping the cell under a
+     * given pixel where it is.  Zooming out stops once the whole universe
+     * fits in the window.
+     *
+     * @param y The row of the pixel to zoom about.
+     * @param x The column of the pixel to zoom about.
+     * @return The new view, or this one if it cannot zoom out further.
+     **/
+    public Viewport zoomOut (int y, int x) {
+
+	if (_boxSize > 1) {
+	    return zoomTo(0, _boxSize / 2, y, x);
+	}
+	if (_level >= getMaxLevel()) {
+	    return this;
+	}
+	return zoomTo(_level + 1, 1, y, x);
+
+    } // zoomOut ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a view at another level of detail, keeping the cell under a given
+     * pixel where it is.
+     **/
+    private Viewport zoomTo (int level, int boxSize, int y, int x) {
+
+	double before = (double)(1 << _level) / _boxSize;
+	double after = (double)(1 << level) / boxSize;
+	double row = _firstRow + y * before;
+	double column = _firstColumn + x * before;
+	return new Viewport(_universeRows, _universeColumns, _height, _width, level, boxSize,
+			    clamp(Math.floor(row - y * after), _universeRows, _rows << level),
+			    clamp(Math.floor(column - x * after), _universeColumns,
+				  _columns << level));
+
+    } // zoomTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make a view moved along with a drag across the window, at the same
+     * level of detail.  At any level but 0, it moves by whole blocks.
+     *
+     * @param dy The number of pixels dragged down.
+     * @param dx The number of pixels dragged right.
+     * @return The new view.
+     **/
+    public Viewport moved (int dy, int dx) {
+
+	double cellsPerPixel = (double)(1 << _level) / _boxSize;
+	return new Viewport(_universeRows, _universeColumns, _height, _width, _level, _boxSize,
+			    clamp(_firstRow - Math.rint(dy * cellsPerPixel), _universeRows,
+				  _rows << _level),
+			    clamp(_firstColumn - Math.rint(dx * cellsPerPixel), _universeColumns,
+				  _columns << _level));
+
+    } // moved ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Keep the first row or column of a view where at least half of the
+     * view, or else all of the universe, is on the universe.
+     *
+     * @param first The first row or column wanted.
+     * @param length The number of rows or columns in the universe.
+     * @param span The number of rows or columns the view covers.
+     * @return The first row or column allowed.
+     **/
+    private static int clamp (double first, int length, long span) {
+
+	double low = Math.min(-span / 2, length - span);
+	double high = Math.max(length - span / 2, 0);
+	return (int)Math.max(low, Math.min(high, first));
+
+    } // clamp ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the level of detail at which the whole universe first fits in
+     * the window, beyond which there is no need to zoom out.
+     *
+     * @return The level.
+     **/
+    public int getMaxLevel () {
+
+	int level = 0;
+	while ((((long)_universeRows + (1L << level) - 1) >> level > _height) ||
+	       (((long)_universeColumns + (1L << level) - 1) >> level > _width)) {
+	    level += 1;
+	}
+	return level;
+
+    } // getMaxLevel ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the level of detail: the base-2 logarithm of the width and
+     * height of the block of cells each pixel shows, or 0 if each cell is
+     * shown whole.
+     *
+     * @return The level.
+     **/
+    public int getLevel () {
+
+	return _level;
+
+    } // getLevel ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the width and height of each cell or block, in pixels.
+     *
+     * @return The size, which is 1 at any level but 0.
+     **/
+    public int getBoxSize () {
+
+	return _boxSize;
+
+    } // getBoxSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows of cells or blocks shown.
+     *
+     * @return The number of rows.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns of cells or blocks shown.
+     *
+     * @return The number of columns.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the universe row shown at the top.
+     *
+     * @return The row, which at any level but 0 begins a block.
+     **/
+    public int getFirstRow () {
+
+	return _firstRow;
+
+    } // getFirstRow ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the universe column shown at the left.
+     *
+     * @return The column, which at any level but 0 begins a block.
+     **/
+    public int getFirstColumn () {
+
+	return _firstColumn;
+
+    } // getFirstColumn ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether another view shows its cells in the same number of
+     * rows and columns of the same size, so that a picture of one can be
+     * reused for the other.
+     *
+     * @param other The other view.
+     * @return <code>true</code> if the views are laid out alike.
+     **/
+    public boolean isLaidOutLike (Viewport other) {
+
+	return (other != null) && (other._rows == _rows) && (other._columns == _columns) &&
+	    (other._boxSize == _boxSize);
+
+    } // isLaidOutLike ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The largest width and height of a cell, in pixels.
+     **/
+    public static final int MAX_BOX_SIZE = 64;
+
+    /**
+     * The size of the universe, and of the window, in pixels.
+     **/
+    private final int _universeRows;
+    private final int _universeColumns;
+    private final int _height;
+    private final int _width;
+
+    /**
+     * The level of detail, and the size of each cell or block, in pixels.
+     **/
+    private final int _level;
+    private final int _boxSize;
+
+    /**
+     * The number of rows and columns of cells or blocks shown.
+     **/
+    private final int _rows;
+    private final int _columns;
+
+    /**
+     * The universe row and column shown at the top left.
+     **/
+    private final int _firstRow;
+    private final int _firstColumn;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Viewport
+// =============================================================================
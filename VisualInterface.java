@@ -1,9 +1,19 @@
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JFrame;
+import javax.swing.JSlider;
+import javax.swing.KeyStroke;
+import javax.swing.Timer;
+import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.event.ActionEvent;
 import java.awt.Graphics;
 import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseListener;
 import java.awt.Font;
 
@@ -13,54 +23,159 @@ public class VisualInterface extends JPanel{
     int width ;
     int padding;
     int paintedfirst=0;
-    public VisualInterface(Game game) {
+    public VisualInterface(Game game, FrameExchange frames) {
         _game = game;
+        _frames = frames;
 
         //padding corresponds to number of offscreen cells that are calculated but not shown on each side of the screen
         padding = _game.offscreenMargins/2;
 
+        //The cells are drawn into an image, which only redraws the cells that change
+        _home = _frames.getView();
+        _raster = new CellRaster(_home);
+
         int height = _game.HEIGHT;
         int width = _game.WIDTH;
         this.setPreferredSize(new Dimension(width, height));
+        this.setBackground(Color.WHITE);
         JFrame frame = new JFrame("life");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setContentPane(this);
+        _window = frame;
+
+        //If the game keeps its past generations, a slider under the cells scrubs
+        //through them, and the arrow keys step back and forth
+        if (_game.keepsHistory()) {
+            _pastFrame = new Frame(_home);
+            _slider = new JSlider(0, 0, 0);
+            _slider.addChangeListener(e -> {
+                    if (!_updating) {
+                        scrub(_slider.getValue());
+                    }
+                });
+            JPanel content = new JPanel(new BorderLayout());
+            content.add(this, BorderLayout.CENTER);
+            content.add(_slider, BorderLayout.SOUTH);
+            bindKey(content, "LEFT", "back", () -> scrub(shownGeneration() - 1));
+            bindKey(content, "RIGHT", "forward", () -> scrub(shownGeneration() + 1));
+            bindKey(content, "ESCAPE", "live", () -> goLive());
+            frame.setContentPane(content);
+        } else {
+            frame.setContentPane(this);
+        }
+
+        //Dragging pans the view, the mouse wheel zooms in and out about the pointer,
+        //+ and - zoom about the middle, and Home goes back to the first view
+        MouseAdapter mouse = new MouseAdapter() {
+                public void mousePressed(MouseEvent e) {
+                    _dragFrom = e.getPoint();
+                    _dragView = _frames.getView();
+                }
+                public void mouseDragged(MouseEvent e) {
+                    changeView(_dragView.moved(e.getY() - _dragFrom.y, e.getX() - _dragFrom.x));
+                }
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    Viewport view = _frames.getView();
+                    changeView((e.getWheelRotation() < 0) ? view.zoomIn(e.getY(), e.getX())
+                               : view.zoomOut(e.getY(), e.getX()));
+                }
+            };
+        this.addMouseListener(mouse);
+        this.addMouseMotionListener(mouse);
+        this.addMouseWheelListener(mouse);
+        bindKey(this, "typed +", "zoom in", () -> changeView(_frames.getView().zoomIn(height / 2, width / 2)));
+        bindKey(this, "typed =", "zoom in", () -> changeView(_frames.getView().zoomIn(height / 2, width / 2)));
+        bindKey(this, "typed -", "zoom out", () -> changeView(_frames.getView().zoomOut(height / 2, width / 2)));
+        bindKey(this, "HOME", "home", () -> changeView(_home));
+
         frame.pack();
         frame.setVisible(true);
+
+        //Draw the latest frame at the display's refresh rate, however fast the game runs
+        new Timer(1000 / REFRESH_RATE, e -> {
+                followGame();
+                repaint();
+            }).start();
     }
 
-    public void display(Graphics g) {
-        //Draw the background
-        g.setColor(Color.WHITE);
-        g.fillRect(0, 0, _game.WIDTH, _game.HEIGHT);
-
-        //Iterate over all cells
-        for (int row = padding; row < _game.getRows()-padding; row++) {
-            for (int column = padding; column < _game.getColumns()-padding; column++) {
-
-                    //Draw the grey grid
-                    int initx = (column - padding) * _game.boxsize;
-                    int inity = (row - padding) * _game.boxsize;
-                    g.setColor(Color.LIGHT_GRAY);
-                    g.drawRect(initx, inity, _game.boxsize, _game.boxsize);
-
-                    //Fill a cell with color depending on its state
-                    Cell cell = _game.getCell(row, column);
-
-                    if (cell._wasEverAlive) {
-                        g.setColor(new Color(193, 234, 170));
-                        g.fillRect(initx + 1, inity + 1, _game.boxsize - 2, _game.boxsize - 2);
-                    }
-                    if (cell.isAlive()) {
-                        g.setColor(Color.BLUE);
-                        if (!cell._willBeAlive) {
-                            g.setColor(Color.RED); // or new Color(0,0,255,70)
-                            g.fillRect(initx + 1, inity + 1, _game.boxsize - 2, _game.boxsize - 2);
-                        }
-                        g.fillRect(initx + 1, inity + 1, _game.boxsize - 2, _game.boxsize - 2);
-                    }
-            }
+    //Run an action whenever a key is pressed in the window
+    private static void bindKey(JComponent component, String key, String name, Runnable action) {
+        component.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), name);
+        component.getActionMap().put(name, new AbstractAction() {
+                public void actionPerformed(ActionEvent e) {
+                    action.run();
+                }
+            });
+    }
+
+    //Ask the game for frames of another view, and show a past generation in it at once
+    private void changeView(Viewport view) {
+        if (view == _frames.getView()) {
+            return;
         }
+        _frames.setView(view);
+        if (_scrubbing) {
+            _pastFrame.capture(_pastCells, _pastFrame.getGeneration(), view);
+        }
+        repaint();
+    }
+
+    //Keep the slider's range up to date with the generations kept, and while
+    //showing the live game, keep it at the latest generation
+    private void followGame() {
+        if (_slider == null) {
+            return;
+        }
+        long latest = _frames.takeLatest().getGeneration();
+        _latest = Math.max(_latest, latest);
+        _updating = true;
+        _slider.setMinimum((int)Math.min(Math.max(_game.getEarliestKept(), 0), Integer.MAX_VALUE));
+        _slider.setMaximum((int)Math.min(_latest, Integer.MAX_VALUE));
+        if (!_scrubbing) {
+            _slider.setValue((int)Math.min(_latest, Integer.MAX_VALUE));
+        }
+        _updating = false;
+    }
+
+    //The generation on the screen
+    private long shownGeneration() {
+        return _scrubbing ? _pastFrame.getGeneration() : _latest;
+    }
+
+    //Show a past generation in place of the live game, if it is still kept;
+    //going past the latest one shown goes back to the live game
+    private void scrub(long generation) {
+        if (generation >= _latest) {
+            goLive();
+            return;
+        }
+        Pattern past = _game.recall(generation);
+        if (past == null) {
+            return;
+        }
+        _pastCells = past;
+        _pastFrame.capture(past, generation, _frames.getView());
+        _scrubbing = true;
+        _updating = true;
+        _slider.setValue((int)Math.min(generation, Integer.MAX_VALUE));
+        _updating = false;
+        _window.setTitle("life - generation " + generation + " (Esc for live)");
+        repaint();
+    }
+
+    //Go back to showing the game as it plays
+    private void goLive() {
+        _scrubbing = false;
+        _window.setTitle("life");
+        followGame();
+        repaint();
+    }
+
+    public void display(Graphics g) {
+        //Bring the changed cells up to date from the latest frame the game
+        //published, or from the past generation being looked at, never from the
+        //universe itself, and copy the whole image at once
+        _raster.update(_scrubbing ? _pastFrame : _frames.takeLatest());
+        g.drawImage(_raster.getImage(), 0, 0, null);
     }
 
     public void paintComponent(Graphics g) {
@@ -69,5 +184,30 @@ public class VisualInterface extends JPanel{
         display(g);
     }
 
+    //The number of times a second to draw
+    static final int REFRESH_RATE = 60;
+
     Game _game;
-}
\ No newline at end of file
+
+    FrameExchange _frames;
+
+    CellRaster _raster;
+
+    JFrame _window;
+
+    //The first view, and where a drag started and the view then
+    Viewport _home;
+    Point _dragFrom;
+    Viewport _dragView;
+
+    //For stepping back through past generations: the slider, the past
+    //generation shown while one is, and the latest generation the game has shown
+    JSlider _slider;
+    Frame _pastFrame;
+    Pattern _pastCells;
+    boolean _scrubbing;
+    long _latest;
+
+    //Whether the slider is being moved by the display rather than by the user
+    boolean _updating;
+}
@@ -0,0 +1,62 @@
+// =============================================================================
+/**
+ * The <code>Cells</code> class.  A JMH counter of the cells processed, which
+ * JMH reports as a rate alongside each benchmark's own score: cells evolved,
+ * counted, displayed, or loaded per second.
+ **/
+// =============================================================================
+
+
+
+package life.benchmarks;
+
+
+
+// =============================================================================
+// IMPORTS
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+// =============================================================================
+
+
+
+// =============================================================================
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Cells {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start each iteration's count from zero.
+     **/
+    @Setup(Level.Iteration)
+    public void reset () {
+
+	cells = 0;
+
+    } // reset ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of cells processed in this iteration.
+     **/
+    public long cells;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Cells
+// =============================================================================
@@ -0,0 +1,176 @@
+// =============================================================================
+/**
+ * The <code>GameAccess</code> class.  The game's classes live in the unnamed
+ * package, which code in a named package such as this one cannot import, and
+ * JMH insists that benchmarks be in a named package.  This class therefore
+ * looks up the game's classes by name and keeps method handles to the few
+ * methods that the benchmarks call.  The handles are constants, so the JIT
+ * compiles calls through them as if they were direct.
+ **/
+// =============================================================================
+
+
+
+package life.benchmarks;
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+// =============================================================================
+
+
+
+// =============================================================================
+final class GameAccess {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * There are no instances; the handles are all static.
+     **/
+    private GameAccess () {}
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a game without graphics from an initial state file.
+     *
+     * @param path The initial state file.
+     * @param engine The name of the storage engine.
+     * @param threads The number of threads to run the engine on.
+     * @return The new <code>Game</code>.
+     **/
+    static Object newGame (String path, String engine, int threads) throws Throwable {
+
+	String[] args = { "engine=" + engine, "threads=" + threads };
+	Object options = PARSE_OPTIONS.invokeExact(args, 0);
+	return NEW_GAME.invokeExact(path, 0L, false, options);
+
+    } // newGame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send standard output nowhere, so that anything the game prints while
+     * loading costs nothing at the terminal.
+     *
+     * @return The standard output that was replaced, for restoring later.
+     **/
+    static PrintStream silence () {
+
+	PrintStream out = System.out;
+	System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	return out;
+
+    } // silence ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find a public method of one of the game's classes, with every class of
+     * the game in its type replaced by <code>Object</code>.
+     **/
+    private static MethodHandle find (Class<?> type, String name, MethodType exact)
+	throws ReflectiveOperationException {
+
+	MethodHandle handle = MethodHandles.publicLookup().findVirtual(type, name, exact);
+	return handle.asType(handle.type().erase());
+
+    } // find ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * <code>Options.parse(String[], int)</code>, returning the options as an
+     * <code>Object</code>.
+     **/
+    private static final MethodHandle PARSE_OPTIONS;
+
+    /**
+     * <code>new Game(String, long, boolean, Options)</code>.
+     **/
+    private static final MethodHandle NEW_GAME;
+
+    /**
+     * <code>Game.evolve()</code>, <code>Game.advance()</code>,
+     * <code>Game.getPopulation()</code>, and <code>Game.close()</code>.
+     **/
+    static final MethodHandle EVOLVE;
+    static final MethodHandle ADVANCE;
+    static final MethodHandle POPULATION;
+    static final MethodHandle CLOSE;
+
+    /**
+     * <code>new UserInterface(Game, "grid", 1, channel)</code>, writing every
+     * grid to a channel that discards it, and
+     * <code>UserInterface.display()</code>.
+     **/
+    static final MethodHandle NEW_INTERFACE;
+    static final MethodHandle DISPLAY;
+
+    static {
+	try {
+
+	    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+	    Class<?> game = Class.forName("Game");
+	    Class<?> options = Class.forName("Options");
+	    Class<?> userInterface = Class.forName("UserInterface");
+
+	    PARSE_OPTIONS = lookup
+		.findStatic(options, "parse",
+			    MethodType.methodType(options, String[].class, int.class))
+		.asType(MethodType.methodType(Object.class, String[].class, int.class));
+	    NEW_GAME = lookup
+		.findConstructor(game, MethodType.methodType(void.class, String.class,
+							     long.class, boolean.class,
+							     options))
+		.asType(MethodType.methodType(Object.class, String.class, long.class,
+					      boolean.class, Object.class));
+
+	    EVOLVE = find(game, "evolve", MethodType.methodType(void.class));
+	    ADVANCE = find(game, "advance", MethodType.methodType(void.class));
+	    POPULATION = find(game, "getPopulation", MethodType.methodType(long.class));
+	    CLOSE = find(game, "close", MethodType.methodType(void.class));
+
+	    MethodHandle newInterface = lookup
+		.findConstructor(userInterface,
+				 MethodType.methodType(void.class, game, String.class,
+						       int.class, WritableByteChannel.class));
+	    WritableByteChannel nowhere = Channels.newChannel(OutputStream.nullOutputStream());
+	    NEW_INTERFACE = MethodHandles
+		.insertArguments(newInterface, 1, "grid", 1, nowhere)
+		.asType(MethodType.methodType(Object.class, Object.class));
+	    DISPLAY = find(userInterface, "display", MethodType.methodType(void.class));
+
+	} catch (ReflectiveOperationException e) {
+	    throw new ExceptionInInitializerError(e);
+	}
+    }
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class GameAccess
+// =============================================================================
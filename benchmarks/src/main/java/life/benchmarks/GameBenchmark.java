@@ -0,0 +1,180 @@
+// =============================================================================
+/**
+ * The <code>GameBenchmark</code> class.  Measures the game's main costs: a
+ * generation of <code>evolve()</code> and <code>advance()</code>, counting
+ * the population, printing the grid, and loading an initial state file.
+ * Each is run for every combination of the parameters in
+ * <code>Setting</code>, and reports cells per second through
+ * <code>Cells</code>.  Run with <code>-prof gc</code> to see the allocation
+ * rate as well.
+ *
+ * <p>Each iteration starts again from the initial state, so that every
+ * engine is measured on the same generations rather than on however far a
+ * faster engine has evolved the pattern.</p>
+ **/
+// =============================================================================
+
+
+
+package life.benchmarks;
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+// =============================================================================
+
+
+
+// =============================================================================
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx8g" })
+public class GameBenchmark {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a fresh game, and an interface to display it, before each
+     * iteration.  The load benchmark makes its own games, so it gets none.
+     **/
+    @Setup(Level.Iteration)
+    public void setUp (Setting setting, BenchmarkParams params)
+	throws Throwable {
+
+	if (params.getBenchmark().endsWith(".load")) {
+	    return;
+	}
+	_game = setting.newGame();
+	_userInterface = GameAccess.NEW_INTERFACE.invokeExact(_game);
+
+    } // setUp ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Close the game and let go of it, so that the next one has the heap and
+     * the processors to itself.
+     **/
+    @TearDown(Level.Iteration)
+    public void tearDown () throws Throwable {
+
+	if (_game != null) {
+	    GameAccess.CLOSE.invokeExact(_game);
+	}
+	_game = null;
+	_userInterface = null;
+
+    } // tearDown ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Compute one generation.
+     **/
+    @Benchmark
+    public void step (Setting setting, Cells cells) throws Throwable {
+
+	GameAccess.EVOLVE.invokeExact(_game);
+	GameAccess.ADVANCE.invokeExact(_game);
+	cells.cells += setting.cells();
+
+    } // step ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells.
+     *
+     * @return The population, so that the count is not optimized away.
+     **/
+    @Benchmark
+    public long population (Setting setting, Cells cells) throws Throwable {
+
+	long population = (long)GameAccess.POPULATION.invokeExact(_game);
+	cells.cells += setting.cells();
+	return population;
+
+    } // population ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print the grid as text, to standard output that goes nowhere.
+     **/
+    @Benchmark
+    public void display (Setting setting, Cells cells) throws Throwable {
+
+	GameAccess.DISPLAY.invokeExact(_userInterface);
+	cells.cells += setting.cells();
+
+    } // display ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the initial state file into a new game, creating its universe,
+     * and close it again so that the workers of games run on several threads
+     * do not pile up.
+     *
+     * @return The game, so that loading it is not optimized away.
+     **/
+    @Benchmark
+    public Object load (Setting setting, Cells cells) throws Throwable {
+
+	Object game = setting.newGame();
+	cells.cells += setting.cells();
+	GameAccess.CLOSE.invokeExact(game);
+	return game;
+
+    } // load ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The game being measured, and the text interface that displays it.
+     **/
+    private Object _game;
+    private Object _userInterface;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class GameBenchmark
+// =============================================================================
@@ -0,0 +1,212 @@
+// =============================================================================
+/**
+ * The <code>Patterns</code> class.  Writes initial state files for the
+ * benchmarks, in the game's own format: a line with the number of rows and
+ * columns, then a line with the row and column of each live cell.  Every
+ * pattern is generated from a fixed seed, so that each run of a benchmark
+ * starts from exactly the same cells.
+ **/
+// =============================================================================
+
+
+
+package life.benchmarks;
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+// =============================================================================
+
+
+
+// =============================================================================
+final class Patterns {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * There are no instances.
+     **/
+    private Patterns () {}
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a square initial state to a new temporary file.
+     *
+     * @param size The number of rows and columns.
+     * @param pattern <code>soup</code> for a sparse random fill,
+     *                <code>structured</code> for copies of the
+     *                <code>a.init</code> sample tiled across the grid, or
+     *                <code>dense</code> for a dense random fill.
+     * @return The file, which the caller should delete.
+     **/
+    static Path write (int size, String pattern) throws IOException {
+
+	Path path = Files.createTempFile("life-" + pattern + "-" + size + "-", ".init");
+	try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+
+	    out.write(size + " " + size);
+	    out.newLine();
+
+	    if (pattern.equals("soup")) {
+		writeRandom(out, size, SOUP_DENSITY);
+	    } else if (pattern.equals("dense")) {
+		writeRandom(out, size, DENSE_DENSITY);
+	    } else if (pattern.equals("structured")) {
+		writeTiled(out, size);
+	    } else {
+		throw new IllegalArgumentException("Unknown pattern " + pattern);
+	    }
+
+	}
+	return path;
+
+    } // write ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write cells chosen at random, each alive with the given probability.
+     **/
+    private static void writeRandom (BufferedWriter out, int size, double density)
+	throws IOException {
+
+	SplittableRandom random = new SplittableRandom(SEED);
+	for (int row = 0; row < size; row += 1) {
+	    for (int column = 0; column < size; column += 1) {
+		if (random.nextDouble() < density) {
+		    writeCell(out, row, column);
+		}
+	    }
+	}
+
+    } // writeRandom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write copies of the <code>a.init</code> sample, side by side and with
+     * space between them, across the whole grid.
+     **/
+    private static void writeTiled (BufferedWriter out, int size) throws IOException {
+
+	List<int[]> cells = new ArrayList<int[]>();
+	int height;
+	int width;
+	try (BufferedReader in = new BufferedReader(new InputStreamReader(
+		 Patterns.class.getResourceAsStream("/a.init"), StandardCharsets.US_ASCII))) {
+
+	    String[] dimensions = in.readLine().trim().split("\\s+");
+	    height = Integer.parseInt(dimensions[0]);
+	    width = Integer.parseInt(dimensions[1]);
+	    for (String line = in.readLine(); line != null; line = in.readLine()) {
+		String[] fields = line.trim().split("\\s+");
+		if (fields.length == 2) {
+		    cells.add(new int[] { Integer.parseInt(fields[0]),
+					  Integer.parseInt(fields[1]) });
+		}
+	    }
+
+	}
+
+	int tileRows = height + TILE_GAP;
+	int tileColumns = width + TILE_GAP;
+	for (int top = 0; top + height <= size; top += tileRows) {
+	    for (int left = 0; left + width <= size; left += tileColumns) {
+		for (int[] cell : cells) {
+		    writeCell(out, top + cell[0], left + cell[1]);
+		}
+	    }
+	}
+
+    } // writeTiled ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the line for one live cell.
+     **/
+    private static void writeCell (BufferedWriter out, int row, int column)
+	throws IOException {
+
+	out.write(Integer.toString(row));
+	out.write(' ');
+	out.write(Integer.toString(column));
+	out.newLine();
+
+    } // writeCell ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Delete a file written by <code>write()</code>, if there is one.
+     *
+     * @param path The file, or <code>null</code>.
+     **/
+    static void delete (Path path) {
+
+	if (path == null) {
+	    return;
+	}
+	try {
+	    Files.deleteIfExists(path);
+	} catch (IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+
+    } // delete ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The seed for every random pattern.
+     **/
+    private static final long SEED = 0x5EED_1970L;
+
+    /**
+     * The fraction of cells alive in a sparse soup and a dense fill.
+     **/
+    private static final double SOUP_DENSITY = 0.05;
+    private static final double DENSE_DENSITY = 0.5;
+
+    /**
+     * The number of dead rows and columns between tiled copies of a sample.
+     **/
+    private static final int TILE_GAP = 3;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Patterns
+// =============================================================================
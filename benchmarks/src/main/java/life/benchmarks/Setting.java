@@ -0,0 +1,151 @@
+// =============================================================================
+/**
+ * The <code>Setting</code> class.  The parameters shared by every benchmark:
+ * the size of the grid, the pattern it starts with, and the engine and
+ * threads it runs on.  For each combination, an initial state file is written
+ * once before the trial and deleted after it.
+ *
+ * <p>The <code>grid</code> engine keeps an object per cell, so the largest
+ * sizes need a large heap; the forks are given one in
+ * <code>GameBenchmark</code>.  The <code>threads</code> parameter applies
+ * only to the engines that can run on several threads.</p>
+ **/
+// =============================================================================
+
+
+
+package life.benchmarks;
+
+
+
+// =============================================================================
+// IMPORTS
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+// =============================================================================
+
+
+
+// =============================================================================
+@State(Scope.Benchmark)
+public class Setting {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the initial state file, and silence standard output, which the
+     * game may print to while loading.
+     **/
+    @Setup(Level.Trial)
+    public void setUp () throws Exception {
+
+	_out = GameAccess.silence();
+	_path = Patterns.write(size, pattern);
+
+    } // setUp ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Delete the initial state file and restore standard output.
+     **/
+    @TearDown(Level.Trial)
+    public void tearDown () {
+
+	Patterns.delete(_path);
+	_path = null;
+	if (_out != null) {
+	    System.setOut(_out);
+	    _out = null;
+	}
+
+    } // tearDown ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a new game from the initial state file.
+     *
+     * @return The new <code>Game</code>.
+     **/
+    Object newGame () throws Throwable {
+
+	return GameAccess.newGame(_path.toString(), engine, threads);
+
+    } // newGame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of cells in the grid.
+     *
+     * @return The number of cells.
+     **/
+    long cells () {
+
+	return (long)size * size;
+
+    } // cells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of rows and of columns.
+     **/
+    @Param({ "64", "512", "2048", "8192" })
+    public int size;
+
+    /**
+     * The initial pattern, as named by <code>Patterns.write()</code>.
+     **/
+    @Param({ "soup", "structured", "dense" })
+    public String pattern;
+
+    /**
+     * The storage engine, as named by the game's <code>engine</code> option.
+     **/
+    @Param({ "grid", "bitgrid", "counts" })
+    public String engine;
+
+    /**
+     * The number of threads to run the engine on.
+     **/
+    @Param({ "1" })
+    public int threads;
+
+    /**
+     * The initial state file.
+     **/
+    private Path _path;
+
+    /**
+     * The standard output to restore after the trial.
+     **/
+    private PrintStream _out;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Setting
+// =============================================================================
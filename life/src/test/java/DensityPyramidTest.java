@@ -0,0 +1,158 @@
+// =============================================================================
+/**
+ * The <code>DensityPyramidTest</code> class.  A density pyramid kept up to
+ * date by the cells that flip must hold, at every level, the same counts as
+ * one counted afresh from the live cells, wherever the cells lie.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+// =============================================================================
+
+
+
+// =============================================================================
+public class DensityPyramidTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Bring cells to life and kill them at random, around the origin and far
+     * from it, and compare the blocks of every level with a fresh count,
+     * both over every block and over a window small enough that its tiles
+     * are looked up one by one.
+     **/
+    @Test
+    public void flipsMatchAFreshCount () {
+
+	Random random = new Random(1);
+	DensityPyramid pyramid = new DensityPyramid(TOP);
+	List<Long> live = new ArrayList<Long>();
+	for (int round = 0; round < ROUNDS; round += 1) {
+	    if (!live.isEmpty() && (random.nextInt(3) == 0)) {
+		long cell = live.remove(random.nextInt(live.size()));
+		pyramid.flip(row(cell), column(cell), false);
+	    } else {
+		int row = CENTRES[random.nextInt(CENTRES.length)] + random.nextInt(300);
+		int column = CENTRES[random.nextInt(CENTRES.length)] + random.nextInt(300);
+		long cell = key(row, column);
+		if (!live.contains(cell)) {
+		    live.add(cell);
+		    pyramid.flip(row, column, true);
+		}
+	    }
+	}
+
+	// Blocks of every level from 1 up lie within 2^30 of the origin.
+	for (int level = 1; level <= TOP; level += 1) {
+	    Map<Long, Long> expected = new HashMap<Long, Long>();
+	    for (long cell : live) {
+		expected.merge(key(row(cell) >> level, column(cell) >> level), 1L, Long::sum);
+	    }
+	    assertEquals(expected, blocks(pyramid, level, -(1 << 30), -(1 << 30),
+					  Integer.MAX_VALUE, Integer.MAX_VALUE), "level " + level);
+
+	    int first = -(200 >> level);
+	    int size = 400 >> level;
+	    Map<Long, Long> window = new HashMap<Long, Long>();
+	    for (Map.Entry<Long, Long> block : expected.entrySet()) {
+		int row = row(block.getKey());
+		int column = column(block.getKey());
+		if ((row >= first) && (row < first + size) &&
+		    (column >= first) && (column < first + size)) {
+		    window.put(block.getKey(), block.getValue());
+		}
+	    }
+	    assertEquals(window, blocks(pyramid, level, first, first, size, size),
+			 "window at level " + level);
+	}
+
+    } // flipsMatchAFreshCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Gather the blocks of a level, within a range, that hold live cells.
+     **/
+    private static Map<Long, Long> blocks (DensityPyramid pyramid, int level, int firstRow,
+					   int firstColumn, int rows, int columns) {
+
+	Map<Long, Long> blocks = new HashMap<Long, Long>();
+	pyramid.forEachBlock(level, firstRow, firstColumn, rows, columns, (row, column, count) -> {
+		if (count > 0) {
+		    blocks.put(key(row, column), count);
+		}
+	    });
+	return blocks;
+
+    } // blocks ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pack and unpack the coordinates of a cell or a block.
+     **/
+    private static long key (int row, int column) {
+
+	return ((long)row << 32) | (column & 0xFFFFFFFFL);
+
+    } // key ()
+
+    private static int row (long key) {
+
+	return (int)(key >> 32);
+
+    } // row ()
+
+    private static int column (long key) {
+
+	return (int)key;
+
+    } // column ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The coarsest level kept, past the point where a count needs more than
+     * 32 bits.
+     **/
+    private static final int TOP = 20;
+
+    /**
+     * The number of cells flipped.
+     **/
+    private static final int ROUNDS = 20000;
+
+    /**
+     * Where the cells are clustered, in each direction.
+     **/
+    private static final int[] CENTRES = { -150, -2000000000, 1999999000, 70000 };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DensityPyramidTest
+// =============================================================================
@@ -0,0 +1,123 @@
+// =============================================================================
+/**
+ * The <code>HashLifeStatisticsTest</code> class.  The hashlife engine must
+ * report the same statistics as the sparse engine, generation by generation,
+ * including for cells far outside the displayed window.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+// =============================================================================
+
+
+
+// =============================================================================
+public class HashLifeStatisticsTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A Gosper glider gun keeps sending gliders out of the window, where a
+     * count of the window alone would miss their births and deaths.
+     **/
+    @Test
+    public void gliderGunMatchesSparse () {
+
+	Pattern pattern = new Pattern();
+	pattern.setSize(60, 60);
+	for (int[] cell : GUN) {
+	    pattern.add(cell[0] + 20, cell[1] + 10);
+	}
+	compare(pattern, 1024);
+
+    } // gliderGunMatchesSparse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A blinker above the window still flips four cells each generation.
+     **/
+    @Test
+    public void blinkerOutsideTheWindowMatchesSparse () {
+
+	Pattern pattern = new Pattern();
+	pattern.setSize(60, 60);
+	pattern.add(-100, 5);
+	pattern.add(-100, 6);
+	pattern.add(-100, 7);
+	compare(pattern, 16);
+
+    } // blinkerOutsideTheWindowMatchesSparse ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play a pattern on both engines, comparing the statistics of each
+     * generation where the display reads them.
+     *
+     * @param pattern The pattern to play.
+     * @param generations The number of generations to compare.
+     **/
+    private static void compare (Pattern pattern, int generations) {
+
+	Game sparse = TestGames.newGame(pattern, "sparse", generations);
+	Game hashlife = TestGames.newGame(pattern, "hashlife", generations);
+	for (int generation = 0; generation < generations; generation += 1) {
+	    sparse.evolve();
+	    hashlife.evolve();
+	    String where = "generation " + generation;
+	    Statistics expected = sparse.getStatistics();
+	    Statistics actual = hashlife.getStatistics();
+	    assertEquals(expected.getPopulation(), actual.getPopulation(), where);
+	    assertEquals(expected.getBirths(), actual.getBirths(), where);
+	    assertEquals(expected.getDeaths(), actual.getDeaths(), where);
+	    assertEquals(expected.getTop(), actual.getTop(), where);
+	    assertEquals(expected.getLeft(), actual.getLeft(), where);
+	    assertEquals(expected.getBottom(), actual.getBottom(), where);
+	    assertEquals(expected.getRight(), actual.getRight(), where);
+	    sparse.advance();
+	    hashlife.advance();
+	}
+	sparse.close();
+	hashlife.close();
+
+    } // compare ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The cells of a Gosper glider gun.
+     **/
+    private static final int[][] GUN = {
+	{ 5, 1 }, { 5, 2 }, { 6, 1 }, { 6, 2 },
+	{ 5, 11 }, { 6, 11 }, { 7, 11 }, { 4, 12 }, { 8, 12 }, { 3, 13 },
+	{ 9, 13 }, { 3, 14 }, { 9, 14 }, { 6, 15 }, { 4, 16 }, { 8, 16 },
+	{ 5, 17 }, { 6, 17 }, { 7, 17 }, { 6, 18 },
+	{ 3, 21 }, { 4, 21 }, { 5, 21 }, { 3, 22 }, { 4, 22 }, { 5, 22 },
+	{ 2, 23 }, { 6, 23 }, { 1, 25 }, { 2, 25 }, { 6, 25 }, { 7, 25 },
+	{ 3, 35 }, { 4, 35 }, { 3, 36 }, { 4, 36 }
+    };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HashLifeStatisticsTest
+// =============================================================================
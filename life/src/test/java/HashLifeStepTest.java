@@ -0,0 +1,73 @@
+// =============================================================================
+/**
+ * The <code>HashLifeStepTest</code> class.  A hashlife game that jumps
+ * several generations at a time must still stop at the generation asked for,
+ * even when its step does not divide the count.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+// =============================================================================
+
+
+
+// =============================================================================
+public class HashLifeStepTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Seventy generations in steps of sixteen end with shorter steps of four
+     * and two, on the same cells as the sparse engine.
+     **/
+    @Test
+    public void lastStepStopsAtTheCount () {
+
+	Pattern pattern = new Pattern();
+	pattern.setSize(60, 60);
+	for (int[] cell : R_PENTOMINO) {
+	    pattern.add(cell[0] + 30, cell[1] + 30);
+	}
+
+	Game sparse = TestGames.newGame(pattern, "sparse", 70);
+	Options options = TestGames.options("hashlife");
+	options.step = 4;
+	Game hashlife = new Game(pattern, 70, options);
+	sparse.play();
+	hashlife.play();
+
+	assertEquals(70, hashlife.getGeneration());
+	assertEquals(TestGames.cells(sparse::forEachLiveCell),
+		     TestGames.cells(hashlife::forEachLiveCell));
+	assertEquals(sparse.getPopulation(), hashlife.getPopulation());
+
+    } // lastStepStopsAtTheCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The cells of an R-pentomino.
+     **/
+    private static final int[][] R_PENTOMINO = {
+	{ 0, 1 }, { 0, 2 }, { 1, 0 }, { 1, 1 }, { 2, 1 }
+    };
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class HashLifeStepTest
+// =============================================================================
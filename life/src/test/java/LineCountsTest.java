@@ -0,0 +1,69 @@
+// =============================================================================
+/**
+ * The <code>LineCountsTest</code> class.  The counts of lines must agree
+ * with a plain map through any mix of additions and removals, so that the
+ * lines moved back over a dropped one are still found.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+// =============================================================================
+
+
+
+// =============================================================================
+public class LineCountsTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Random additions and removals over a few clustered lines, checked
+     * against a sorted map after each one.
+     **/
+    @Test
+    public void matchesAMap () {
+
+	SplittableRandom random = new SplittableRandom(1);
+	LineCounts counts = new LineCounts();
+	TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+	for (int change = 0; change < 20000; change += 1) {
+	    int line = random.nextInt(-40, 40) * ((random.nextInt(4) == 0) ? 1000003 : 1);
+	    if (expected.containsKey(line) && random.nextBoolean()) {
+		counts.remove(line);
+		expected.merge(line, -1, Integer::sum);
+		expected.remove(line, 0);
+	    } else {
+		counts.add(line);
+		expected.merge(line, 1, Integer::sum);
+	    }
+
+	    assertEquals(expected.size(), counts.size());
+	    assertEquals(expected.containsKey(line), counts.contains(line));
+	    if (!expected.isEmpty()) {
+		assertEquals((long)expected.firstKey(),
+			     counts.nearest(Math.min(line, expected.firstKey()), 1));
+		assertEquals((long)expected.lastKey(),
+			     counts.nearest(Math.max(line, expected.lastKey()), -1));
+	    }
+	}
+
+    } // matchesAMap ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LineCountsTest
+// =============================================================================
@@ -0,0 +1,121 @@
+// =============================================================================
+/**
+ * The <code>ParallelStatisticsTest</code> class.  A game run on several
+ * threads must report the same statistics as one run on a single thread,
+ * including in bands of rows that empty out and are then skipped, whose
+ * births and deaths are still shown for the generation in which they died.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+// =============================================================================
+
+
+
+// =============================================================================
+public class ParallelStatisticsTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play the same pattern on one thread and on several, comparing the
+     * statistics of each generation where the display reads them: after the
+     * next generation is calculated, and before it is adopted.
+     *
+     * @param engine The storage engine.
+     * @param directory A directory for the mapped engine's files.
+     **/
+    @ParameterizedTest
+    @ValueSource(strings = { "grid", "bitgrid", "padded", "mapped" })
+    public void skippedBandsKeepTheirStatistics (String engine, @TempDir Path directory) {
+
+	Game single = newGame(engine, 1, directory.resolve("single.map"));
+	Game parallel = newGame(engine, THREADS, directory.resolve("parallel.map"));
+	for (int generation = 0; generation < GENERATIONS; generation += 1) {
+	    single.evolve();
+	    parallel.evolve();
+	    String where = engine + " at generation " + generation;
+	    Statistics expected = single.getStatistics();
+	    Statistics actual = parallel.getStatistics();
+	    assertEquals(expected.getPopulation(), actual.getPopulation(), where);
+	    assertEquals(expected.getBirths(), actual.getBirths(), where);
+	    assertEquals(expected.getDeaths(), actual.getDeaths(), where);
+	    if (expected.getPopulation() > 0) {
+		assertEquals(expected.getTop(), actual.getTop(), where);
+		assertEquals(expected.getLeft(), actual.getLeft(), where);
+		assertEquals(expected.getBottom(), actual.getBottom(), where);
+		assertEquals(expected.getRight(), actual.getRight(), where);
+	    }
+	    single.advance();
+	    parallel.advance();
+	}
+	single.close();
+	parallel.close();
+
+    } // skippedBandsKeepTheirStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a game of a tall, narrow universe holding a domino, which dies
+     * at once and leaves its band empty, a blinker near the bottom, and a
+     * glider that crosses band after band on its way down.
+     **/
+    private static Game newGame (String engine, int threads, Path mapping) {
+
+	Pattern pattern = new Pattern();
+	pattern.setSize(200, 64);
+	pattern.add(5, 10);
+	pattern.add(6, 10);
+	pattern.add(190, 30);
+	pattern.add(190, 31);
+	pattern.add(190, 32);
+	pattern.add(20, 20);
+	pattern.add(21, 21);
+	pattern.add(22, 19);
+	pattern.add(22, 20);
+	pattern.add(22, 21);
+
+	Options options = TestGames.options(engine);
+	options.threads = threads;
+	options.mapping = mapping.toString();
+	return new Game(pattern, GENERATIONS, options);
+
+    } // newGame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The number of threads to compare a single thread with.
+     **/
+    private static final int THREADS = 4;
+
+    /**
+     * The number of generations to compare.
+     **/
+    private static final int GENERATIONS = 200;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ParallelStatisticsTest
+// =============================================================================
@@ -0,0 +1,194 @@
+// =============================================================================
+/**
+ * The <code>PatternReaderTest</code> class.  The same glider, written in each
+ * of the formats that are read, must come back as the same cells, with the
+ * size and the rule that its format gives.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+// =============================================================================
+
+
+
+// =============================================================================
+public class PatternReaderTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Our own format gives the size of the universe and the rule, and places
+     * the cells where it says.
+     **/
+    @Test
+    public void readsInit (@TempDir Path directory) throws IOException {
+
+	Pattern pattern = read(directory, "glider.init",
+			       "10 12 B36/S23\n" +
+			       "0 1\n1 2\n2 0\n2 1\n2 2\n");
+	assertEquals(10, pattern.getRows());
+	assertEquals(12, pattern.getColumns());
+	assertEquals("B36/S23", pattern.getRule());
+	assertEquals(GLIDER, cells(pattern));
+
+    } // readsInit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A run-length encoded file gives its size and rule in its header, after
+     * any comments.
+     **/
+    @Test
+    public void readsRunLength (@TempDir Path directory) throws IOException {
+
+	Pattern pattern = read(directory, "glider.rle",
+			       "#N Glider\n" +
+			       "x = 3, y = 3, rule = B3/S23\n" +
+			       "bo$2bo$3o!\n");
+	assertEquals(3, pattern.getRows());
+	assertEquals(3, pattern.getColumns());
+	assertEquals("B3/S23", pattern.getRule());
+	assertEquals(GLIDER, cells(pattern));
+
+    } // readsRunLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A Life 1.06 file gives the column and then the row of each cell,
+     * around the origin, and the cells are moved so that they start at row
+     * and column 0.
+     **/
+    @Test
+    public void readsLife106 (@TempDir Path directory) throws IOException {
+
+	Pattern pattern = read(directory, "glider.lif",
+			       "#Life 1.06\n" +
+			       "0 -1\n1 0\n-1 1\n0 1\n1 1\n");
+	assertEquals(3, pattern.getRows());
+	assertEquals(3, pattern.getColumns());
+	assertEquals(null, pattern.getRule());
+	assertFalse(pattern.isOversized());
+	assertEquals(GLIDER, cells(pattern));
+
+    } // readsLife106 ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Cells of a Life 1.06 file further apart than a universe can be wide
+     * keep their coordinates, rather than wrapping around when moved.
+     **/
+    @Test
+    public void keepsFarApartCells (@TempDir Path directory) throws IOException {
+
+	Pattern pattern = read(directory, "far.lif",
+			       "#Life 1.06\n" +
+			       "-2000000000 0\n2000000000 0\n");
+	assertTrue(pattern.isOversized());
+	assertEquals(1, pattern.getRowSpan());
+	assertEquals(4000000001L, pattern.getColumnSpan());
+	assertEquals(1, pattern.getRows());
+	assertEquals(Integer.MAX_VALUE, pattern.getColumns());
+	assertEquals(List.of("0,-2000000000", "0,2000000000"), cells(pattern));
+
+    } // keepsFarApartCells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A plaintext file is as wide as its longest line, after the comments.
+     **/
+    @Test
+    public void readsPlaintext (@TempDir Path directory) throws IOException {
+
+	Pattern pattern = read(directory, "glider.cells",
+			       "!Name: Glider\n" +
+			       ".O\n" +
+			       "..O\n" +
+			       "OOO\n");
+	assertEquals(3, pattern.getRows());
+	assertEquals(3, pattern.getColumns());
+	assertEquals(null, pattern.getRule());
+	assertEquals(GLIDER, cells(pattern));
+
+    } // readsPlaintext ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a file and read it as a pattern.
+     **/
+    private static Pattern read (Path directory, String name, String text)
+	throws IOException {
+
+	Path path = Files.write(directory.resolve(name), text.getBytes());
+	return PatternReader.read(path.toString());
+
+    } // read ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Collect the cells of a pattern, each as its row and column, in the
+     * order they were read.
+     **/
+    private static List<String> cells (Pattern pattern) {
+
+	List<String> cells = new ArrayList<String>();
+	int[] coordinates = pattern.getCells();
+	for (int index = 0; index < 2 * pattern.getCellCount(); index += 2) {
+	    cells.add(coordinates[index] + "," + coordinates[index + 1]);
+	}
+	return cells;
+
+    } // cells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The cells of a glider, in order by row and then by column.
+     **/
+    private static final List<String> GLIDER =
+	List.of("0,1", "1,2", "2,0", "2,1", "2,2");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PatternReaderTest
+// =============================================================================
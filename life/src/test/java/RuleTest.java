@@ -0,0 +1,132 @@
+// =============================================================================
+/**
+ * The <code>RuleTest</code> class.  A rulestring must be read the same in
+ * each of its notations, and one that is malformed, or that gives a part
+ * twice or leaves one out, must be rejected rather than half understood.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+// =============================================================================
+
+
+
+// =============================================================================
+public class RuleTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The lettered notation, in either order and either case, and the older
+     * survival/birth notation, all name Conway's rule.
+     **/
+    @Test
+    public void notationsAgree () {
+
+	assertEquals("B3/S23", Rule.parse("B3/S23").toString());
+	assertEquals("B3/S23", Rule.parse("s23/b3").toString());
+	assertEquals("B3/S23", Rule.parse(" 23/3 ").toString());
+	assertEquals(Rule.CONWAY.toString(), Rule.parse("B3/S23").toString());
+
+    } // notationsAgree ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The counts of each part are read digit by digit, and the number of
+     * states from a C or a G part, or from a third unlettered part.
+     **/
+    @Test
+    public void partsAreRead () {
+
+	Rule highLife = Rule.parse("B36/S23");
+	for (int count = 0; count <= 8; count += 1) {
+	    assertEquals((count == 3) || (count == 6), highLife.isBirth(count), "birth " + count);
+	    assertEquals((count == 2) || (count == 3), highLife.isSurvival(count),
+			 "survival " + count);
+	}
+	assertTrue(highLife.isTwoState());
+
+	Rule brain = Rule.parse("B2/S/C3");
+	assertEquals(3, brain.getStates());
+	assertFalse(brain.isTwoState());
+	assertEquals("B2/S/C3", brain.toString());
+	assertEquals("B2/S/C3", Rule.parse("B2/S/G3").toString());
+	assertEquals("B2/S/C3", Rule.parse("/2/3").toString());
+
+	assertTrue(Rule.parse("B0/S8").hasBirthOnZero());
+	assertFalse(highLife.hasBirthOnZero());
+
+    } // partsAreRead ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Malformed rulestrings, and those that repeat or leave out a lettered
+     * part, each abort with an error that names them.
+     *
+     * @param directory A directory for the pattern the rules are given to.
+     **/
+    @Test
+    public void badRulesAreRejected (@TempDir Path directory)
+	throws IOException, InterruptedException {
+
+	Path pattern = Files.write(directory.resolve("blinker.init"),
+				   "5 5\n2 1\n2 2\n2 3\n".getBytes());
+
+	assertEquals("ERROR: Cannot understand the rule B3",
+		     reject(pattern, "B3"));
+	assertEquals("ERROR: Cannot understand the rule B39/S23",
+		     reject(pattern, "B39/S23"));
+	assertEquals("ERROR: Cannot understand the rule B3/X23",
+		     reject(pattern, "B3/X23"));
+	assertEquals("ERROR: The rule B3/B36/S23 gives its B part more than once",
+		     reject(pattern, "B3/B36/S23"));
+	assertEquals("ERROR: The rule B3/C3 must give both a B and an S part",
+		     reject(pattern, "B3/C3"));
+
+    } // badRulesAreRejected ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play a pattern under a rule that must be rejected.
+     *
+     * @param pattern The pattern file.
+     * @param rule The rulestring.
+     * @return The error the game aborted with.
+     **/
+    private static String reject (Path pattern, String rule)
+	throws IOException, InterruptedException {
+
+	return TestGames.abortMessage(pattern.toString(), "1", "nographics", "rule=" + rule);
+
+    } // reject ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class RuleTest
+// =============================================================================
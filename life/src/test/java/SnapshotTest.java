@@ -0,0 +1,159 @@
+// =============================================================================
+/**
+ * The <code>SnapshotTest</code> class.  A snapshot written to a file must
+ * restore the same universe it was captured from, with the cells ever alive
+ * when it keeps them, and a file damaged after it was written must be
+ * refused rather than restored.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+// =============================================================================
+
+
+
+// =============================================================================
+public class SnapshotTest {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A soup played for a while, including cells past the window's edges,
+     * comes back with its size, generation, rule, engine, live cells, and
+     * cells ever alive.
+     **/
+    @Test
+    public void roundTripKeepsEverything (@TempDir Path directory) throws IOException {
+
+	Universe universe = soup();
+	Path path = directory.resolve("soup.snapshot");
+	Snapshot.capture(universe, 120, Rule.CONWAY, "sparse", true).write(path.toString());
+
+	Snapshot snapshot = Snapshot.open(path.toString());
+	assertEquals(ROWS, snapshot.getRows());
+	assertEquals(COLUMNS, snapshot.getColumns());
+	assertEquals(120, snapshot.getGeneration());
+	assertEquals("B3/S23", snapshot.getRule());
+	assertEquals("sparse", snapshot.getEngine());
+
+	Universe restored = new SparseGrid(ROWS, COLUMNS, Rule.CONWAY, true);
+	snapshot.restore(restored, 0, 0);
+	assertEquals(universe.getPopulation(), restored.getPopulation());
+	assertEquals(TestGames.cells(universe::forEachLiveCell),
+		     TestGames.cells(restored::forEachLiveCell));
+	assertEquals(TestGames.cells(universe::forEachEverAliveCell),
+		     TestGames.cells(restored::forEachEverAliveCell));
+
+    } // roundTripKeepsEverything ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A snapshot without the history restores only the live cells, which
+     * are then the only cells ever alive, and each is moved by the offset
+     * it is restored at.
+     **/
+    @Test
+    public void roundTripWithoutHistory (@TempDir Path directory) throws IOException {
+
+	Universe universe = soup();
+	Path path = directory.resolve("soup.snapshot");
+	Snapshot.capture(universe, 120, Rule.CONWAY, "sparse", false).write(path.toString());
+
+	Universe restored = new SparseGrid(ROWS, COLUMNS, Rule.CONWAY, true);
+	Snapshot.open(path.toString()).restore(restored, 0, 0);
+	assertEquals(TestGames.cells(universe::forEachLiveCell),
+		     TestGames.cells(restored::forEachEverAliveCell));
+
+	Universe moved = new SparseGrid(ROWS, COLUMNS, Rule.CONWAY, false);
+	Snapshot.open(path.toString()).restore(moved, 3, -5);
+	universe.forEachLiveCell((row, column) ->
+				 assertTrue(moved.isAlive(row + 3, column - 5)));
+	assertEquals(universe.getPopulation(), moved.getPopulation());
+
+    } // roundTripWithoutHistory ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Flipping a single bit of the cells makes the checksum disagree, and
+     * resuming from the file then aborts.
+     **/
+    @Test
+    public void damagedFileIsRefused (@TempDir Path directory)
+	throws IOException, InterruptedException {
+
+	Path path = directory.resolve("soup.snapshot");
+	Snapshot.capture(soup(), 120, Rule.CONWAY, "sparse", true).write(path.toString());
+	Snapshot.open(path.toString());
+
+	byte[] bytes = Files.readAllBytes(path);
+	bytes[bytes.length / 2] ^= 0x10;
+	Files.write(path, bytes);
+
+	assertEquals("ERROR: Snapshot is damaged: " + path,
+		     TestGames.abortMessage(path.toString(), "1", "nographics",
+					    "resume=" + path));
+
+    } // damagedFileIsRefused ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Play a random soup on the sparse engine, keeping the cells ever alive,
+     * long enough for gliders to leave the window.
+     **/
+    private static Universe soup () {
+
+	Universe universe = new SparseGrid(ROWS, COLUMNS, Rule.CONWAY, true);
+	SplittableRandom random = new SplittableRandom(7);
+	for (int cell = 0; cell < 400; cell += 1) {
+	    universe.makeAlive(random.nextInt(10, 40), random.nextInt(10, 40));
+	}
+	for (int generation = 0; generation < 120; generation += 1) {
+	    universe.evolve();
+	    universe.advance();
+	}
+	return universe;
+
+    } // soup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The size of the universe.
+     **/
+    private static final int ROWS = 50;
+    private static final int COLUMNS = 50;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SnapshotTest
+// =============================================================================
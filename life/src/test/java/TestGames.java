@@ -0,0 +1,124 @@
+// =============================================================================
+/**
+ * The <code>TestGames</code> class.  What the tests share: games set up to
+ * play quietly, the cells that a game or a universe visits, and the error
+ * that a run of the program aborts with.
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+// =============================================================================
+
+
+
+// =============================================================================
+public class TestGames {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the options for a game on the given engine that prints nothing
+     * and never waits between generations.
+     *
+     * @param engine The storage engine.
+     * @return The options, which a test may change further.
+     **/
+    public static Options options (String engine) {
+
+	Options options = new Options();
+	options.engine = engine;
+	options.output = "none";
+	options.wait = 0;
+	return options;
+
+    } // options ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a quiet game of a pattern on the given engine.
+     *
+     * @param pattern The initial state.
+     * @param engine The storage engine.
+     * @param generations The number of generations to play.
+     * @return The game.
+     **/
+    public static Game newGame (Pattern pattern, String engine, long generations) {
+
+	return new Game(pattern, generations, options(engine));
+
+    } // newGame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Collect the cells visited, each as its row and column, in the order
+     * they are visited.
+     *
+     * @param cells Visits each cell with the given visitor, as
+     *              <code>game::forEachLiveCell</code> does.
+     * @return The cells.
+     **/
+    public static List<String> cells (Consumer<CellVisitor> cells) {
+
+	List<String> visited = new ArrayList<String>();
+	cells.accept((row, column) -> visited.add(row + "," + column));
+	return visited;
+
+    } // cells ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run the program in a separate process, which must abort, since an
+     * abort ends the process it happens in.
+     *
+     * @param arguments The command line arguments.
+     * @return The first line of the error the program printed.
+     **/
+    public static String abortMessage (String... arguments)
+	throws IOException, InterruptedException {
+
+	List<String> command = new ArrayList<String>();
+	command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+	command.add("-cp");
+	command.add(System.getProperty("java.class.path"));
+	command.add("Life");
+	command.addAll(Arrays.asList(arguments));
+
+	Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+	process.getOutputStream().close();
+	String output = new String(process.getInputStream().readAllBytes(),
+				   StandardCharsets.UTF_8);
+	assertEquals(1, process.waitFor(), output);
+	return output.lines().filter(line -> line.startsWith("ERROR")).findFirst().orElse(output);
+
+    } // abortMessage ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class TestGames
+// =============================================================================
@@ -0,0 +1,676 @@
+// =============================================================================
+/**
+ * The <code>VectorGrid</code> class.  A storage engine that keeps each
+ * generation as flat <code>byte[]</code> rows, one byte per cell, and computes
+ * whole vectors of cells at once with the incubating JDK Vector API.  The
+ * eight neighbor rows are loaded at shifted offsets and summed lane by lane,
+ * and the rule is applied with vector compares and blends.  Any cells left at
+ * the end of a row that do not fill a whole vector are computed one at a
+ * time.
+ *
+ * <p>This class lives apart from the rest of the sources because it needs the
+ * <code>jdk.incubator.vector</code> module, both to compile and to run:</p>
+ *
+ * <pre>
+ *   javac --add-modules jdk.incubator.vector *.java vector/*.java
+ *   java --add-modules jdk.incubator.vector Life ... engine=vector
+ * </pre>
+ **/
+// =============================================================================
+
+
+
+// =============================================================================
+// IMPORTS
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+// =============================================================================
+
+
+
+// =============================================================================
+public class VectorGrid implements BandedUniverse {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The constructor.  Create a grid of the given size with every cell dead.
+     *
+     * @param rows The number of rows in the known region.
+     * @param columns The number of columns in the known region.
+     * @param rule The rule, which must have only two states.
+     **/
+    public VectorGrid (int rows, int columns, Rule rule) {
+
+	if ((rows <= 0) || (columns <= 0)) {
+	    Support.abort("Cannot construct a grid of size " +
+			  rows +
+			  ", " +
+			  columns);
+	}
+	if (!rule.isTwoState()) {
+	    Support.abort("ERROR: The vector engine cannot follow the " +
+			  "multi-state rule " + rule);
+	}
+
+	_rows = rows;
+	_columns = columns;
+
+	// Each row has a dead cell on either side, and the grid has a dead row
+	// above and below, so that neighbors never need a bounds check.
+	_stride = columns + 2;
+	int size = (rows + 2) * _stride;
+	_current = new byte[size];
+	_next = new byte[size];
+	_ever = new byte[size];
+
+	// Each row keeps its own fingerprint and statistics, so that bands of
+	// rows advanced on different threads never update the same ones.
+	_rowFingerprints = new Fingerprint[rows];
+	_rowStatistics = new Statistics[rows];
+	for (int row = 0; row < rows; row += 1) {
+	    _rowFingerprints[row] = new Fingerprint();
+	    _rowStatistics[row] = new Statistics();
+	}
+
+	_table = rule.stateTable();
+	int births = 0;
+	int survivals = 0;
+	for (int count = 0; count <= 8; count += 1) {
+	    births += rule.isBirth(count) ? 1 : 0;
+	    survivals += rule.isSurvival(count) ? 1 : 0;
+	}
+	_birthCounts = new byte[births];
+	_survivalCounts = new byte[survivals];
+	births = 0;
+	survivals = 0;
+	for (int count = 0; count <= 8; count += 1) {
+	    if (rule.isBirth(count)) {
+		_birthCounts[births++] = (byte)count;
+	    }
+	    if (rule.isSurvival(count)) {
+		_survivalCounts[survivals++] = (byte)count;
+	    }
+	}
+
+    } // VectorGrid ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of rows in the known region of the grid.
+     *
+     * @return The number of rows in the known region.
+     **/
+    public int getRows () {
+
+	return _rows;
+
+    } // getRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of columns in the known region of the grid.
+     *
+     * @return The number of columns in the known region.
+     **/
+    public int getColumns () {
+
+	return _columns;
+
+    } // getColumns ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates is currently alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell is alive.
+     **/
+    public boolean isAlive (int row, int column) {
+
+	return contains(row, column) && (_current[index(row, column)] != 0);
+
+    } // isAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates will be alive in the
+     * next generation.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell will be alive.
+     **/
+    public boolean willBeAlive (int row, int column) {
+
+	return contains(row, column) && (_next[index(row, column)] != 0);
+
+    } // willBeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether the cell at the given coordinates was ever alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     * @return <code>true</code> if the cell was ever alive.
+     **/
+    public boolean wasEverAlive (int row, int column) {
+
+	return contains(row, column) && (_ever[index(row, column)] != 0);
+
+    } // wasEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set the cell at the given coordinates to be alive.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeAlive (int row, int column) {
+
+	if (!contains(row, column)) {
+	    Support.abort("Cannot make a cell alive outside of the grid at " +
+			  row +
+			  ", " +
+			  column);
+	}
+	if (_current[index(row, column)] == 0) {
+	    _rowFingerprints[row].flip(row, column, true);
+	    _rowStatistics[row].include(row, column);
+	}
+	_current[index(row, column)] = 1;
+	_ever[index(row, column)] = 1;
+
+    } // makeAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that the cell at the given coordinates was once alive.  Cells
+     * outside of the grid are ignored.
+     *
+     * @param row The row coordinate of the cell.
+     * @param column The column coordinate of the cell.
+     **/
+    public void makeEverAlive (int row, int column) {
+
+	if (contains(row, column)) {
+	    _ever[index(row, column)] = 1;
+	}
+
+    } // makeEverAlive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of every row.
+     **/
+    public void evolve () {
+
+	evolveRows(0, _rows);
+
+    } // evolve ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Calculate the next generation of a band of rows, a vector of cells at a
+     * time.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void evolveRows (int first, int last) {
+
+	int stride = _stride;
+	int bound = SPECIES.loopBound(_columns);
+	ByteVector one = ByteVector.broadcast(SPECIES, (byte)1);
+
+	for (int row = first; row < last; row += 1) {
+
+	    int start = (row + 1) * stride + 1;
+	    int column = 0;
+
+	    for (; column < bound; column += SPECIES.length()) {
+
+		int here = start + column;
+		ByteVector alive = ByteVector.fromArray(SPECIES, _current, here);
+		ByteVector sum =
+		    ByteVector.fromArray(SPECIES, _current, here - stride - 1)
+		    .add(ByteVector.fromArray(SPECIES, _current, here - stride))
+		    .add(ByteVector.fromArray(SPECIES, _current, here - stride + 1))
+		    .add(ByteVector.fromArray(SPECIES, _current, here - 1))
+		    .add(ByteVector.fromArray(SPECIES, _current, here + 1))
+		    .add(ByteVector.fromArray(SPECIES, _current, here + stride - 1))
+		    .add(ByteVector.fromArray(SPECIES, _current, here + stride))
+		    .add(ByteVector.fromArray(SPECIES, _current, here + stride + 1));
+
+		// Gather the lanes whose count causes birth or allows survival.
+		VectorMask<Byte> born = SPECIES.maskAll(false);
+		for (int index = 0; index < _birthCounts.length; index += 1) {
+		    born = born.or(sum.eq(_birthCounts[index]));
+		}
+		VectorMask<Byte> survives = SPECIES.maskAll(false);
+		for (int index = 0; index < _survivalCounts.length; index += 1) {
+		    survives = survives.or(sum.eq(_survivalCounts[index]));
+		}
+
+		VectorMask<Byte> living = alive.eq((byte)1);
+		VectorMask<Byte> next = living.and(survives).or(living.not().and(born));
+		ByteVector.zero(SPECIES).blend(one, next).intoArray(_next, here);
+
+	    }
+
+	    // The tail of the row is too short for a whole vector.
+	    for (; column < _columns; column += 1) {
+		int here = start + column;
+		int count = _current[here - stride - 1] + _current[here - stride] +
+		    _current[here - stride + 1] + _current[here - 1] +
+		    _current[here + 1] + _current[here + stride - 1] +
+		    _current[here + stride] + _current[here + stride + 1];
+		_next[here] = _table[_current[here] * 9 + count];
+	    }
+
+	}
+
+    } // evolveRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Clear the next generation of a band of rows that will stay dead.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void skipRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    int start = (row + 1) * _stride + 1;
+	    java.util.Arrays.fill(_next, start, start + _columns, (byte)0);
+	}
+
+    } // skipRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation by exchanging the two buffers, and
+     * record which cells have ever been alive.
+     **/
+    public void advance () {
+
+	startRows(0, _rows);
+	recordFlips(0, _rows);
+
+	byte[] swap = _current;
+	_current = _next;
+	_next = swap;
+	recordEver(0, _rows);
+	settleRows(0, _rows);
+
+    } // advance ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Adopt the calculated generation for a band of rows.  The buffers are
+     * shared by every band, so the band's cells are copied rather than the
+     * buffers exchanged.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band afterwards.
+     **/
+    public long advanceRows (int first, int last) {
+
+	startRows(first, last);
+	recordFlips(first, last);
+	for (int row = first; row < last; row += 1) {
+	    int start = (row + 1) * _stride + 1;
+	    System.arraycopy(_next, start, _current, start, _columns);
+	}
+	recordEver(first, last);
+	return settleRows(first, last);
+
+    } // advanceRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record the cells of a band of rows that differ between the current and
+     * the calculated generation in the fingerprints and the statistics of
+     * their rows, and tell the listener, if any.  A vector
+     * of cells is compared at a time, and only the differing lanes are
+     * visited.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    private void recordFlips (int first, int last) {
+
+	int bound = SPECIES.loopBound(_columns);
+	for (int row = first; row < last; row += 1) {
+	    Fingerprint fingerprint = _rowFingerprints[row];
+	    Statistics statistics = _rowStatistics[row];
+	    int start = (row + 1) * _stride + 1;
+	    int column = 0;
+	    for (; column < bound; column += SPECIES.length()) {
+		ByteVector current = ByteVector.fromArray(SPECIES, _current, start + column);
+		ByteVector next = ByteVector.fromArray(SPECIES, _next, start + column);
+		long flips = current.compare(VectorOperators.NE, next).toLong();
+		while (flips != 0) {
+		    int lane = Long.numberOfTrailingZeros(flips);
+		    boolean alive = (_next[start + column + lane] != 0);
+		    fingerprint.flip(row, column + lane, alive);
+		    statistics.flip(row, column + lane, alive);
+		    if (_listener != null) {
+			_listener.flip(row, column + lane, alive);
+		    }
+		    flips &= flips - 1;
+		}
+	    }
+	    for (; column < _columns; column += 1) {
+		if (_current[start + column] != _next[start + column]) {
+		    boolean alive = (_next[start + column] != 0);
+		    fingerprint.flip(row, column, alive);
+		    statistics.flip(row, column, alive);
+		    if (_listener != null) {
+			_listener.flip(row, column, alive);
+		    }
+		}
+	    }
+	}
+
+    } // recordFlips ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide a fingerprint of the current generation, gathered from the
+     * fingerprints of the rows.
+     *
+     * @return The fingerprint of the grid.
+     **/
+    public Fingerprint getFingerprint () {
+
+	Fingerprint fingerprint = new Fingerprint();
+	for (int row = 0; row < _rows; row += 1) {
+	    fingerprint.add(_rowFingerprints[row]);
+	}
+	return fingerprint;
+
+    } // getFingerprint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start counting the births and deaths of a new generation in a band of
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    public void startRows (int first, int last) {
+
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].startGeneration();
+	}
+
+    } // startRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Settle the statistics of a band of rows once its cells have flipped.
+     *
+     * @return The number of live cells in the band.
+     **/
+    private long settleRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    _rowStatistics[row].settle(this);
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // settleRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the statistics of the current generation, gathered from the
+     * statistics of the rows.
+     *
+     * @return The statistics of the grid.
+     **/
+    public Statistics getStatistics () {
+
+	Statistics statistics = new Statistics();
+	for (int row = 0; row < _rows; row += 1) {
+	    statistics.add(_rowStatistics[row]);
+	}
+	return statistics;
+
+    } // getStatistics ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Tell a listener of each cell that flips from now on, as its band of
+     * rows advances.  Bands advanced on other threads tell it on those
+     * threads, so whoever advances bands at once must hand the listener
+     * their flips itself, as <code>ParallelUniverse</code> does.
+     *
+     * @param listener The listener, or <code>null</code> for none.
+     * @return <code>true</code>, since every flip is reported.
+     **/
+    public boolean setFlipListener (FlipListener listener) {
+
+	_listener = listener;
+	return true;
+
+    } // setFlipListener ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of live cells, summed from the rows.
+     *
+     * @return The number of live cells in the grid.
+     **/
+    public long getPopulation () {
+
+	return countRows(0, _rows);
+
+    } // getPopulation ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Count the live cells in a band of rows, from the statistics of the
+     * rows.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     * @return The number of live cells in the band.
+     **/
+    public long countRows (int first, int last) {
+
+	long population = 0;
+	for (int row = first; row < last; row += 1) {
+	    population += _rowStatistics[row].getPopulation();
+	}
+	return population;
+
+    } // countRows ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Mark the live cells of a band of rows as having been alive.
+     *
+     * @param first The first row of the band.
+     * @param last One past the last row of the band.
+     **/
+    private void recordEver (int first, int last) {
+
+	int begin = (first + 1) * _stride;
+	int end = (last + 1) * _stride;
+	int index = begin;
+	for (; index + SPECIES.length() <= end; index += SPECIES.length()) {
+	    ByteVector.fromArray(SPECIES, _ever, index)
+		.or(ByteVector.fromArray(SPECIES, _current, index))
+		.intoArray(_ever, index);
+	}
+	for (; index < end; index += 1) {
+	    _ever[index] |= _current[index];
+	}
+
+    } // recordEver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate whether coordinates fall within the grid.
+     **/
+    private boolean contains (int row, int column) {
+
+	return (row >= 0) && (row < _rows) && (column >= 0) && (column < _columns);
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Convert coordinates within the grid into an array index.
+     **/
+    private int index (int row, int column) {
+
+	return (row + 1) * _stride + (column + 1);
+
+    } // index ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // DATA MEMBERS
+
+    /**
+     * The widest vector shape that this processor supports.
+     **/
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * The dimensions of the grid, and the length of a row in the arrays,
+     * including the border.
+     **/
+    private final int _rows;
+    private final int _columns;
+    private final int _stride;
+
+    /**
+     * The next state for each current state and neighbor count, for the
+     * cells at the ends of rows.
+     **/
+    private final byte[] _table;
+
+    /**
+     * The neighbor counts that cause birth and allow survival.
+     **/
+    private final byte[] _birthCounts;
+    private final byte[] _survivalCounts;
+
+    /**
+     * The current generation, the next generation as calculated by
+     * <code>evolve()</code>, and every cell that has ever been alive.
+     **/
+    private byte[] _current;
+    private byte[] _next;
+    private final byte[] _ever;
+
+    /**
+     * The fingerprint of the live cells of each row, kept up to date as
+     * cells flip.
+     **/
+    private final Fingerprint[] _rowFingerprints;
+
+    /**
+     * The statistics of the live cells of each row, kept up to date as cells
+     * flip.
+     **/
+    private final Statistics[] _rowStatistics;
+
+    /**
+     * The listener told of each cell that flips, if any.
+     **/
+    private FlipListener _listener;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class VectorGrid
+// =============================================================================